@@ -28,6 +28,7 @@ public class ClientCapability {
     private boolean pcInstantiationCapability;
     private boolean labelStackCapability;
     private boolean srCapability;
+    private int maxSidDepth;
 
     /**
      * Creates new instance of client capability.
@@ -47,6 +48,23 @@ public class ClientCapability {
         this.srCapability = srCapability;
     }
 
+    /**
+     * Creates new instance of client capability with the maximum SID depth
+     * advertised with SR capability.
+     *
+     * @param pceccCapability represents PCECC capability
+     * @param statefulPceCapability represents stateful PCE capability
+     * @param pcInstantiationCapability represents PC initiation capability
+     * @param labelStackCapability represents S bit is set in PCECC capability
+     * @param srCapability represents SR capability
+     * @param maxSidDepth maximum SID depth, 0 if not SR capable
+     */
+    public ClientCapability(boolean pceccCapability, boolean statefulPceCapability, boolean pcInstantiationCapability,
+            boolean labelStackCapability, boolean srCapability, int maxSidDepth) {
+        this(pceccCapability, statefulPceCapability, pcInstantiationCapability, labelStackCapability, srCapability);
+        this.maxSidDepth = maxSidDepth;
+    }
+
     /**
      * Obtains label stack capability.
      *
@@ -65,6 +83,15 @@ public class ClientCapability {
         return srCapability;
     }
 
+    /**
+     * Obtains the maximum SID depth, the most SIDs the client can impose.
+     *
+     * @return maximum SID depth, 0 if the client is not SR capable
+     */
+    public int maxSidDepth() {
+        return maxSidDepth;
+    }
+
     /**
      * Obtains PCECC capability.
      *
@@ -95,7 +122,7 @@ public class ClientCapability {
     @Override
     public int hashCode() {
         return Objects.hash(pceccCapability, statefulPceCapability, pcInstantiationCapability, labelStackCapability,
-                srCapability);
+                srCapability, maxSidDepth);
     }
 
     @Override
@@ -109,7 +136,8 @@ public class ClientCapability {
                     && Objects.equals(statefulPceCapability, other.statefulPceCapability)
                     && Objects.equals(pcInstantiationCapability, other.pcInstantiationCapability)
                     && Objects.equals(labelStackCapability, other.labelStackCapability)
-                    && Objects.equals(srCapability, other.srCapability);
+                    && Objects.equals(srCapability, other.srCapability)
+                    && maxSidDepth == other.maxSidDepth;
         }
         return false;
     }
@@ -122,6 +150,7 @@ public class ClientCapability {
                 .add("pcInstantiationCapability", pcInstantiationCapability)
                 .add("labelStackCapability", labelStackCapability)
                 .add("srCapability", srCapability)
+                .add("maxSidDepth", maxSidDepth)
                 .toString();
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
 
 package org.onosproject.pcep.controller;
 
+import org.onlab.packet.Ip4Address;
 import org.onlab.util.HexString;
 
 import java.net.URI;
@@ -107,14 +108,19 @@ public final class LsId {
     }
 
     /**
-     * Returns LSID created from the given device URI.
+     * Returns LSID created from the given device URI, in the dotted form
+     * produced by {@link #uri(long)} or in hexadecimal.
      *
      * @param uri device URI
      * @return lsId
      */
     public static LsId lsId(URI uri) {
         checkArgument(uri.getScheme().equals(SCHEME), "Unsupported URI scheme");
-        return new LsId(fromHex(uri.getSchemeSpecificPart()));
+        String ssp = uri.getSchemeSpecificPart();
+        if (ssp.indexOf('.') >= 0) {
+            return new LsId(Ip4Address.valueOf(ssp).toInt() & 0xFFFFFFFFL);
+        }
+        return new LsId(fromHex(ssp));
     }
 
     /**
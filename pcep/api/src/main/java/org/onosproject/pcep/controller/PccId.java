@@ -61,7 +61,7 @@ public final class PccId extends Identifier<IpAddress> {
      * @return ipAddress
      */
     public IpAddress ipAddress() {
-        return identifier;
+        return ipAddress;
     }
 
     /**
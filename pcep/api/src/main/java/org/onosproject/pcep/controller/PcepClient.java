@@ -16,6 +16,7 @@
 package org.onosproject.pcep.controller;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.onosproject.pcepio.protocol.PcepFactory;
 import org.onosproject.pcepio.protocol.PcepMessage;
@@ -28,17 +29,31 @@ public interface PcepClient {
 
     /**
      * Writes the message to the driver.
+     * <p>
+     * The returned future fails with {@link java.util.concurrent.RejectedExecutionException}
+     * when the outbound queue of the pcc is above its high watermark.
      *
      * @param msg the message to write
+     * @return future completed once the message is written to the socket
      */
-    void sendMessage(PcepMessage msg);
+    CompletableFuture<Void> sendMessage(PcepMessage msg);
 
     /**
      * Writes the PcepMessage list to the driver.
+     * <p>
+     * The returned future fails with {@link java.util.concurrent.RejectedExecutionException}
+     * when the outbound queue of the pcc is above its high watermark.
      *
      * @param msgs the messages to be written
+     * @return future completed once the messages are written to the socket
      */
-    void sendMessage(List<PcepMessage> msgs);
+    CompletableFuture<Void> sendMessage(List<PcepMessage> msgs);
+
+    /**
+     * Writes the messages queued for this pcc to the channel immediately,
+     * without waiting for the coalescing window to expire.
+     */
+    void flush();
 
     /**
      * Handle a message from the pcc.
@@ -16,6 +16,8 @@
 package org.onosproject.pcep.controller;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.onosproject.pcepio.protocol.PcepMessage;
 
@@ -106,6 +108,48 @@ public interface PcepClientController {
      */
     void writeMessage(PccId pccId, PcepMessage msg);
 
+    /**
+     * Sends many LSP operations to a particular pcc client. Consecutive initiate and
+     * delete intents share PCInitiate messages, consecutive update intents share PCUpd
+     * messages, each message as large as the PCEP length field allows.
+     *
+     * @param pccId the id of the client to send the LSP operations to
+     * @param intents LSP operations, sent in iteration order
+     * @return future completed with one result per intent, in iteration order
+     */
+    CompletableFuture<List<PcepLspResult>> provisionLsps(PccId pccId, Collection<PcepLspIntent> intents);
+
+    /**
+     * Sends a working and a protection LSP to a particular pcc client, routed
+     * over a pair of disjoint paths computed in one search on the reported
+     * topology. The EROs of the intents are replaced by the computed paths, and
+     * both LSPs share one message when the intents are of the same type.
+     *
+     * @param pccId the id of the client to send the LSP operations to
+     * @param ingress IPv4 address of the head end
+     * @param egress IPv4 address of the tail end
+     * @param working initiate or update intent of the working LSP
+     * @param protection initiate or update intent of the protection LSP
+     * @param srlgDisjoint true if the paths must not share any SRLG, false for link-disjoint paths
+     * @return future completed with the results of the working and protection intents
+     */
+    CompletableFuture<List<PcepLspResult>> provisionProtectedLsps(PccId pccId, int ingress, int egress,
+            PcepLspIntent working, PcepLspIntent protection, boolean srlgDisjoint);
+
+    /**
+     * Sends an LSP to a particular pcc client routed over a path computed on
+     * the topology the pcc reported, within the bandwidth and metric bounds of
+     * the intent. The ERO of the intent is replaced by the computed path.
+     *
+     * @param pccId the id of the client to send the LSP operation to
+     * @param ingress LS-ID of the head end node, as reported by the pcc
+     * @param egress LS-ID of the tail end node, as reported by the pcc
+     * @param intent initiate or update intent of the LSP
+     * @return future completed with the result of the intent
+     */
+    CompletableFuture<List<PcepLspResult>> provisionComputedLsp(PccId pccId, LsId ingress, LsId egress,
+            PcepLspIntent intent);
+
     /**
      * Process a message and notify the appropriate listeners.
      *
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller;
+
+import java.util.Objects;
+
+import org.onosproject.pcepio.protocol.PcInitiatedLspRequest;
+import org.onosproject.pcepio.protocol.PcepUpdateRequest;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Representation of one LSP operation of a bulk provisioning request towards a pcc.
+ */
+public final class PcepLspIntent {
+
+    /**
+     * Kind of LSP operation.
+     */
+    public enum Type {
+        /**
+         * Creates a PCE initiated LSP, sent in a PCInitiate message.
+         */
+        INITIATE,
+
+        /**
+         * Updates a delegated LSP, sent in a PCUpd message.
+         */
+        UPDATE,
+
+        /**
+         * Removes a PCE initiated LSP, sent in a PCInitiate message with the SRP R flag set.
+         */
+        DELETE
+    }
+
+    private final Type type;
+    private final PcInitiatedLspRequest initiateRequest;
+    private final PcepUpdateRequest updateRequest;
+
+    private PcepLspIntent(Type type, PcInitiatedLspRequest initiateRequest, PcepUpdateRequest updateRequest) {
+        this.type = type;
+        this.initiateRequest = initiateRequest;
+        this.updateRequest = updateRequest;
+    }
+
+    /**
+     * Creates intent to initiate an LSP.
+     *
+     * @param request PCInitiate LSP request
+     * @return LSP intent
+     */
+    public static PcepLspIntent initiate(PcInitiatedLspRequest request) {
+        checkNotNull(request);
+        return new PcepLspIntent(Type.INITIATE, request, null);
+    }
+
+    /**
+     * Creates intent to update an LSP.
+     *
+     * @param request PCUpd LSP request
+     * @return LSP intent
+     */
+    public static PcepLspIntent update(PcepUpdateRequest request) {
+        checkNotNull(request);
+        return new PcepLspIntent(Type.UPDATE, null, request);
+    }
+
+    /**
+     * Creates intent to delete a PCE initiated LSP.
+     *
+     * @param request PCInitiate LSP request with the SRP R flag set
+     * @return LSP intent
+     */
+    public static PcepLspIntent delete(PcInitiatedLspRequest request) {
+        checkNotNull(request);
+        checkArgument(request.getSrpObject() != null && request.getSrpObject().getRFlag(),
+                      "SRP R flag must be set to delete an LSP");
+        return new PcepLspIntent(Type.DELETE, request, null);
+    }
+
+    /**
+     * Returns kind of LSP operation.
+     *
+     * @return intent type
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * Returns PCInitiate LSP request of initiate and delete intents.
+     *
+     * @return LSP request, null for update intents
+     */
+    public PcInitiatedLspRequest initiateRequest() {
+        return initiateRequest;
+    }
+
+    /**
+     * Returns PCUpd LSP request of update intents.
+     *
+     * @return LSP request, null for initiate and delete intents
+     */
+    public PcepUpdateRequest updateRequest() {
+        return updateRequest;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, initiateRequest, updateRequest);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof PcepLspIntent) {
+            PcepLspIntent other = (PcepLspIntent) obj;
+            return Objects.equals(type, other.type)
+                    && Objects.equals(initiateRequest, other.initiateRequest)
+                    && Objects.equals(updateRequest, other.updateRequest);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .omitNullValues()
+                .add("type", type)
+                .add("initiateRequest", initiateRequest)
+                .add("updateRequest", updateRequest)
+                .toString();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller;
+
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Outcome of one LSP intent of a bulk provisioning request.
+ */
+public final class PcepLspResult {
+
+    /**
+     * Outcome of an LSP intent.
+     */
+    public enum Status {
+        /**
+         * The LSP request was written to the pcc session.
+         */
+        SENT,
+
+        /**
+         * The LSP request was not sent because of backpressure or a closed session.
+         */
+        REJECTED,
+
+        /**
+         * The LSP request could not be routed, admitted or encoded.
+         */
+        FAILED
+    }
+
+    private final PcepLspIntent intent;
+    private final Status status;
+    private final String reason;
+
+    /**
+     * Creates LSP result.
+     *
+     * @param intent LSP intent
+     * @param status outcome of the intent
+     * @param reason cause of the failure, null if sent
+     */
+    public PcepLspResult(PcepLspIntent intent, Status status, String reason) {
+        this.intent = checkNotNull(intent);
+        this.status = checkNotNull(status);
+        this.reason = reason;
+    }
+
+    /**
+     * Returns the LSP intent.
+     *
+     * @return LSP intent
+     */
+    public PcepLspIntent intent() {
+        return intent;
+    }
+
+    /**
+     * Returns the outcome of the intent.
+     *
+     * @return status
+     */
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * Returns the cause of the failure.
+     *
+     * @return reason, null if sent
+     */
+    public String reason() {
+        return reason;
+    }
+
+    /**
+     * Checks whether the LSP request was sent.
+     *
+     * @return true if sent
+     */
+    public boolean isSent() {
+        return status == Status.SENT;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(intent, status, reason);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof PcepLspResult) {
+            PcepLspResult other = (PcepLspResult) obj;
+            return Objects.equals(intent, other.intent)
+                    && Objects.equals(status, other.status)
+                    && Objects.equals(reason, other.reason);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .omitNullValues()
+                .add("intent", intent)
+                .add("status", status)
+                .add("reason", reason)
+                .toString();
+    }
+}
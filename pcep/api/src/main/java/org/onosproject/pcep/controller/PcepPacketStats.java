@@ -41,6 +41,86 @@ public interface PcepPacketStats {
      */
     int wrongPacketCount();
 
+    /**
+     * Returns the count for no of flushes written to the channel.
+     *
+     * @return int value of no of flushes
+     */
+    int outFlushCount();
+
+    /**
+     * Returns the average no of packets coalesced into one flush.
+     *
+     * @return coalescing ratio of sent packets
+     */
+    double outCoalescingRatio();
+
+    /**
+     * Returns the no of outbound bytes not yet accepted by the socket.
+     *
+     * @return long value of pending outbound bytes
+     */
+    long outPendingBytes();
+
+    /**
+     * Returns the count for no of packets rejected because of backpressure.
+     *
+     * @return int value of no of rejected packets
+     */
+    int outRejectedCount();
+
+    /**
+     * Returns the count for no of disconnects due to outbound bytes pending
+     * above the high watermark for too long.
+     *
+     * @return int value of no of stuck session disconnects
+     */
+    int outStuckDisconnectCount();
+
+    /**
+     * Returns the no of paced packets waiting for tokens.
+     *
+     * @return int value of paced queue size
+     */
+    int outPacedQueueSize();
+
+    /**
+     * Returns the age of the oldest paced packet waiting for tokens.
+     *
+     * @return age in milliseconds, 0 if no packet is waiting
+     */
+    long outPacedOldestAgeMillis();
+
+    /**
+     * Returns the maximum time a paced packet waited for tokens.
+     *
+     * @return maximum queue age in milliseconds
+     */
+    long outPacedMaxAgeMillis();
+
+    /**
+     * Returns the average time paced packets waited for tokens.
+     *
+     * @return average queue age in milliseconds
+     */
+    double outPacedAverageAgeMillis();
+
+    /**
+     * Returns the count for no of state reports dropped because the pcc sent
+     * them again unchanged.
+     *
+     * @return int value of no of suppressed state reports
+     */
+    int inSuppressedReportCount();
+
+    /**
+     * Returns the count for no of LS objects dropped because the pcc sent
+     * them again unchanged.
+     *
+     * @return int value of no of suppressed LS objects
+     */
+    int inSuppressedLsObjectCount();
+
     /**
      * Returns the time value.
      *
@@ -15,6 +15,7 @@
  */
 package org.onosproject.pcep.controller.impl;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.onlab.util.Tools.groupedThreads;
 
 import java.lang.management.ManagementFactory;
@@ -22,13 +23,16 @@ import java.lang.management.RuntimeMXBean;
 import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.group.ChannelGroup;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.onlab.packet.IpAddress;
 import org.onosproject.pcep.controller.PccId;
 import org.onosproject.pcep.controller.PcepPacketStats;
 import org.onosproject.pcep.controller.driver.PcepAgent;
@@ -54,6 +58,30 @@ public class Controller {
     // Configuration options
     private int pcepPort = 4189;
     private int workerThreads = 10;
+    // Threads running the delayed flushes, paced releases and timers of all sessions
+    private int outboundThreads = Runtime.getRuntime().availableProcessors();
+    // Outbound messages of a session written within this window are sent with one flush
+    private long flushWindowMicros = 200;
+    // Buffered outbound bytes of a session which trigger an immediate flush
+    private int flushByteBudget = 32 * 1024;
+    // Pending outbound bytes per session at which senders get backpressure, and at which it ends
+    private int writeHighWaterMark = 8 * 1024 * 1024;
+    private int writeLowWaterMark = 4 * 1024 * 1024;
+    private PcepOutboundQueue.OverflowPolicy overflowPolicy = PcepOutboundQueue.OverflowPolicy.REJECT;
+    private long overflowBlockTimeoutMillis = 1000;
+    // Sessions staying above the high watermark longer than this are disconnected
+    private long writeStuckTimeoutMillis = 60 * 1000;
+    // LSP update pacing, per pcc profiles override the default one
+    private PcepPacingProfile defaultPacingProfile = new PcepPacingProfile("default", 2000, 500, 100000);
+    private final Map<IpAddress, PcepPacingProfile> pacingProfiles = new ConcurrentHashMap<>();
+    // Inbound load at which pccs are told that the PCE is congested, and at which congestion ends
+    private int overloadQueueHighThreshold = 10000;
+    private int overloadQueueLowThreshold = 1000;
+    private long overloadLatencyHighMicros = 20000;
+    private long overloadLatencyLowMicros = 5000;
+    private long overloadCheckIntervalMillis = 1000;
+    private int overloadClearIntervals = 3;
+    private int maxOverloadSeconds = 60;
 
     // Start time of the controller
     private long systemStartTime;
@@ -62,6 +90,17 @@ public class Controller {
 
     private NioServerSocketChannelFactory execFactory;
 
+    private ScheduledExecutorService outboundExecutor;
+
+    private PcepOverloadController overloadController;
+
+    // Relay of the pcc reports to a parent PCE, null when the controller has no parent
+    private volatile PcepUpstreamRelay upstreamRelay;
+    private PcepUpstreamSession upstreamSession;
+    private double upstreamObjectsPerSecond = 2000;
+    private int upstreamBurst = 500;
+    private long upstreamFlushIntervalMillis = 100;
+
     // Perf. related configuration
     private static final int SEND_BUFFER_SIZE = 4 * 1024 * 1024;
 
@@ -83,6 +122,175 @@ public class Controller {
         return (this.systemStartTime);
     }
 
+    /**
+     * Returns the controller watching the inbound processing load.
+     *
+     * @return overload controller
+     */
+    public PcepOverloadController overloadController() {
+        return overloadController;
+    }
+
+    /**
+     * Sets the TCP port on which pcc connections are accepted, before the controller is started.
+     *
+     * @param port TCP port
+     */
+    public void setPcepPort(int port) {
+        this.pcepPort = port;
+    }
+
+    /**
+     * Sets the number of threads shared by the outbound queues and pacers of
+     * all sessions, before the controller is started.
+     *
+     * @param threads number of threads
+     */
+    public void setOutboundThreads(int threads) {
+        checkArgument(threads > 0, "Invalid number of outbound threads " + threads);
+        this.outboundThreads = threads;
+    }
+
+    /**
+     * Returns the executor shared by the outbound queues.
+     *
+     * @return outbound executor
+     */
+    ScheduledExecutorService outboundExecutor() {
+        return outboundExecutor;
+    }
+
+    /**
+     * Returns the coalescing window of the outbound queues.
+     *
+     * @return window in microseconds
+     */
+    long flushWindowMicros() {
+        return flushWindowMicros;
+    }
+
+    /**
+     * Returns the number of buffered bytes which triggers an immediate flush of an outbound queue.
+     *
+     * @return byte budget
+     */
+    int flushByteBudget() {
+        return flushByteBudget;
+    }
+
+    /**
+     * Returns the pending bytes at which an outbound queue starts backpressure.
+     *
+     * @return high watermark in bytes
+     */
+    int writeHighWaterMark() {
+        return writeHighWaterMark;
+    }
+
+    /**
+     * Returns the pending bytes at which an outbound queue ends backpressure.
+     *
+     * @return low watermark in bytes
+     */
+    int writeLowWaterMark() {
+        return writeLowWaterMark;
+    }
+
+    /**
+     * Returns the relay of the pcc reports to the parent PCE.
+     *
+     * @return upstream relay, null if the controller has no parent PCE
+     */
+    public PcepUpstreamRelay upstreamRelay() {
+        return upstreamRelay;
+    }
+
+    /**
+     * Sets the rate limit of the reports relayed to the parent PCE, applied on the next connection.
+     *
+     * @param objectsPerSecond LS objects and LSPs sent per second, 0 for no limit
+     * @param burst objects which may be sent at once after an idle period
+     * @param flushIntervalMillis time between two flushes of the relay
+     */
+    public void setUpstreamRate(double objectsPerSecond, int burst, long flushIntervalMillis) {
+        this.upstreamObjectsPerSecond = objectsPerSecond;
+        this.upstreamBurst = burst;
+        this.upstreamFlushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Connects to a parent PCE and relays the pcc reports to it. Reports
+     * received before the call are not known to the relay, pccs connected
+     * afterwards are synchronized with the parent PCE as they report.
+     *
+     * @param address address of the parent PCE
+     */
+    public synchronized void connectUpstream(InetSocketAddress address) {
+        disconnectUpstream();
+        PcepUpstreamRelay relay = new PcepUpstreamRelay(outboundExecutor, upstreamObjectsPerSecond, upstreamBurst,
+                upstreamFlushIntervalMillis);
+        upstreamSession = new PcepUpstreamSession(this, address, relay, (byte) systemStartTime);
+        upstreamRelay = relay;
+        relay.start();
+        upstreamSession.start();
+    }
+
+    /**
+     * Closes the session to the parent PCE and stops relaying the pcc reports.
+     */
+    public synchronized void disconnectUpstream() {
+        if (upstreamSession != null) {
+            upstreamRelay.stop();
+            upstreamRelay = null;
+            upstreamSession.stop();
+            upstreamSession = null;
+        }
+    }
+
+    /**
+     * Returns the session to the parent PCE.
+     *
+     * @return upstream session, null if the controller has no parent PCE
+     */
+    public synchronized PcepUpstreamSession upstreamSession() {
+        return upstreamSession;
+    }
+
+    /**
+     * Sets the pacing profile used for pccs without a specific profile.
+     *
+     * @param profile pacing profile
+     */
+    public void setDefaultPacingProfile(PcepPacingProfile profile) {
+        this.defaultPacingProfile = profile;
+    }
+
+    /**
+     * Sets the pacing profile of a pcc, for example the profile of its vendor.
+     * Applies to sessions established afterwards.
+     *
+     * @param pccIp pcc address
+     * @param profile pacing profile, null to use the default profile
+     */
+    public void setPacingProfile(IpAddress pccIp, PcepPacingProfile profile) {
+        if (profile == null) {
+            pacingProfiles.remove(pccIp);
+        } else {
+            pacingProfiles.put(pccIp, profile);
+        }
+    }
+
+    /**
+     * Returns the pacing profile which applies to a pcc.
+     *
+     * @param pccIp pcc address, may be null
+     * @return pacing profile
+     */
+    public PcepPacingProfile pacingProfile(IpAddress pccIp) {
+        PcepPacingProfile profile = pccIp != null ? pacingProfiles.get(pccIp) : null;
+        return profile != null ? profile : defaultPacingProfile;
+    }
+
     /**
      * Tell controller that we're ready to accept pcc connections.
      */
@@ -94,6 +302,8 @@ public class Controller {
             bootstrap.setOption("child.keepAlive", true);
             bootstrap.setOption("child.tcpNoDelay", true);
             bootstrap.setOption("child.sendBufferSize", Controller.SEND_BUFFER_SIZE);
+            bootstrap.setOption("child.writeBufferHighWaterMark", writeHighWaterMark);
+            bootstrap.setOption("child.writeBufferLowWaterMark", writeLowWaterMark);
 
             ChannelPipelineFactory pfact = new PcepPipelineFactory(this);
 
@@ -133,6 +343,13 @@ public class Controller {
         // These data structures are initialized here because other
         // module's startUp() might be called before ours
         this.systemStartTime = System.currentTimeMillis();
+        // Outbound tasks of a session lock its queue or pacer, sessions are served in parallel
+        this.outboundExecutor = Executors.newScheduledThreadPool(outboundThreads, groupedThreads("onos/pcep",
+                "outbound-%d"));
+        this.overloadController = new PcepOverloadController(outboundExecutor, overloadQueueHighThreshold,
+                overloadQueueLowThreshold, overloadLatencyHighMicros, overloadLatencyLowMicros,
+                overloadCheckIntervalMillis, overloadClearIntervals, maxOverloadSeconds);
+        this.overloadController.start();
     }
 
     public Map<String, Long> getMemory() {
@@ -159,8 +376,12 @@ public class Controller {
      */
     protected PcepClientDriver getPcepClientInstance(PccId pccId, int sessionID, PcepVersion pv,
             PcepPacketStats pktStats) {
-        PcepClientDriver pcepClientDriver = new PcepClientImpl();
+        PcepClientImpl pcepClientDriver = new PcepClientImpl();
         pcepClientDriver.init(pccId, pv, pktStats);
+        pcepClientDriver.setOutboundCoalescing(outboundExecutor, flushWindowMicros, flushByteBudget);
+        pcepClientDriver.setOutboundWatermarks(writeHighWaterMark, writeLowWaterMark, overflowPolicy,
+                overflowBlockTimeoutMillis, writeStuckTimeoutMillis);
+        pcepClientDriver.setPacingProfile(pacingProfile(pccId.ipAddress()));
         pcepClientDriver.setAgent(agent);
         return pcepClientDriver;
     }
@@ -182,7 +403,10 @@ public class Controller {
      */
     public void stop() {
         log.info("Stopped");
+        disconnectUpstream();
         execFactory.shutdown();
         cg.close();
+        overloadController.stop();
+        outboundExecutor.shutdown();
     }
 }
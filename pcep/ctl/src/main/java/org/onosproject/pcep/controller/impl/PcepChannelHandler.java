@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.concurrent.RejectedExecutionException;
 
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelStateEvent;
@@ -67,6 +68,8 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
     static final byte KEEPALIVE_MULTIPLE_FOR_DEADTIMER = 4;
     private static final Logger log = LoggerFactory.getLogger(PcepChannelHandler.class);
     private final Controller controller;
+    // Session to a parent PCE on which this handler plays the pcc, null on pcc sessions
+    private final PcepUpstreamSession upstream;
     private PcepClientDriver pc;
     private PccId thispccId;
     private Channel channel;
@@ -98,7 +101,17 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
      * @param controller parent controller
      */
     PcepChannelHandler(Controller controller) {
+        this(controller, null);
+    }
+
+    /**
+     * Create a new unconnected PcepChannelHandler.
+     * @param controller parent controller
+     * @param upstream session to a parent PCE in which the handler plays the pcc, null for pcc sessions
+     */
+    PcepChannelHandler(Controller controller, PcepUpstreamSession upstream) {
         this.controller = controller;
+        this.upstream = upstream;
         this.state = ChannelState.INIT;
         factory1 = controller.getPcepMessageFactory1();
         duplicatePccIdFound = Boolean.FALSE;
@@ -146,6 +159,15 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
 
                     h.pcepPacketStats.addInPacket();
                     PcepOpenMsg pOpenmsg = (PcepOpenMsg) m;
+                    if (h.upstream != null) {
+                        // Our Open is already sent, accept the timers of the parent PCE
+                        h.pcepVersion = pOpenmsg.getPcepOpenObject().getVersion();
+                        h.setTimers(pOpenmsg);
+                        h.sendKeepAliveMessage();
+                        h.pcepPacketStats.addOutPacket();
+                        h.setState(KEEPWAIT);
+                        return;
+                    }
                         //Do Capability negotiation.
                         h.capabilityNegotiation(pOpenmsg);
                         log.debug("Sending handshake OPEN message");
@@ -153,18 +175,7 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
                         h.pcepVersion = pOpenmsg.getPcepOpenObject().getVersion();
 
                         //setting keepalive and deadTimer
-                        byte yKeepalive = pOpenmsg.getPcepOpenObject().getKeepAliveTime();
-                        byte yDeadTimer = pOpenmsg.getPcepOpenObject().getDeadTime();
-                        h.keepAliveTime = yKeepalive;
-                        if (yKeepalive < yDeadTimer) {
-                            h.deadTime = yDeadTimer;
-                        } else {
-                            if (DEADTIMER_MAXIMUM_VALUE > (yKeepalive * KEEPALIVE_MULTIPLE_FOR_DEADTIMER)) {
-                                h.deadTime = (byte) (yKeepalive * KEEPALIVE_MULTIPLE_FOR_DEADTIMER);
-                            } else {
-                                h.deadTime = DEADTIMER_MAXIMUM_VALUE;
-                            }
-                        }
+                        h.setTimers(pOpenmsg);
 
                         /*
                          * If MPLS LSR id and PCEP session socket IP addresses are not same,
@@ -224,6 +235,13 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
                 } else {
                     // Set the client connected status
                     h.pcepPacketStats.addInPacket();
+                    if (h.upstream != null) {
+                        h.applyIdleTimers();
+                        h.setHandshakeComplete(true);
+                        h.setState(ESTABLISHED);
+                        h.upstream.sessionUp(h.channel, h.pcepPacketStats);
+                        return;
+                    }
                     log.debug("sending keep alive message in KEEPWAIT state");
                     h.pc = h.controller.getPcepClientInstance(h.thispccId, h.sessionId, h.pcepVersion,
                             h.pcepPacketStats);
@@ -243,20 +261,7 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
                     h.pc.setPcSessionId(h.sessionId);
                     h.pc.setPcKeepAliveTime(h.keepAliveTime);
                     h.pc.setPcDeadTime(h.deadTime);
-                    int keepAliveTimer = h.keepAliveTime & BYTE_MASK;
-                    int deadTimer = h.deadTime & BYTE_MASK;
-                    if (0 == h.keepAliveTime) {
-                        h.deadTime = 0;
-                    }
-                    // handle keep alive and dead time
-                    if (keepAliveTimer != PcepPipelineFactory.DEFAULT_KEEP_ALIVE_TIME
-                            || deadTimer != PcepPipelineFactory.DEFAULT_DEAD_TIME) {
-
-                        h.channel.getPipeline().replace("idle", "idle",
-                                new IdleStateHandler(PcepPipelineFactory.TIMER, deadTimer, keepAliveTimer, 0));
-                    }
-                    log.debug("Dead timer : " + deadTimer);
-                    log.debug("Keep alive time : " + keepAliveTimer);
+                    h.applyIdleTimers();
 
                     //set the state handshake completion.
 
@@ -268,6 +273,7 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
                         disconnectDuplicate(h);
                     } else {
                         h.setState(ESTABLISHED);
+                        h.controller.overloadController().clientConnected(h.pc);
                         //Session is established, add a network configuration with LSR id and device capabilities.
                         h.addNode();
                     }
@@ -284,7 +290,11 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
                 //h.channel.getPipeline().remove("waittimeout");
                 log.info("Message received in established state " + m.getType());
                 //dispatch the message
-                h.dispatchMessage(m);
+                if (h.upstream != null) {
+                    h.upstream.handleMessage(m);
+                } else {
+                    h.dispatchMessage(m);
+                }
             }
         };
         private boolean handshakeComplete;
@@ -327,6 +337,14 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
     @Override
     public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
         channel = e.getChannel();
+        if (upstream != null) {
+            log.info("Connected to parent PCE {}", channel.getRemoteAddress());
+            // The pcc speaks first, then waits for the open message of the PCE
+            sendUpstreamOpenMessage();
+            pcepPacketStats.addOutPacket();
+            setState(ChannelState.OPENWAIT);
+            return;
+        }
         log.info("PCC connected from {}", channel.getRemoteAddress());
 
         // Wait for open message from pcc client
@@ -335,6 +353,10 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
 
     @Override
     public void channelDisconnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        if (upstream != null) {
+            upstream.sessionDown(channel);
+            return;
+        }
         log.info("Pcc disconnected callback for pc:{}. Cleaning up ...", getClientInfoString());
         if (thispccId != null) {
             if (!duplicatePccIdFound) {
@@ -347,6 +369,11 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
                 log.debug("{}:removal called", getClientInfoString());
                 if (pc != null) {
                     pc.removeConnectedClient();
+                    controller.overloadController().clientDisconnected(pc);
+                    PcepUpstreamRelay relay = controller.upstreamRelay();
+                    if (relay != null) {
+                        relay.pccDisconnected(thispccId);
+                    }
                 }
             } else {
                 // A duplicate was disconnected on this ChannelHandler,
@@ -432,6 +459,10 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
             ctx.getChannel().close();
         } else if (e.getState() == IdleState.WRITER_IDLE) {
             // Send keep alive message
+            if (upstream != null) {
+                sendKeepAliveMessage();
+                return;
+            }
             log.debug("Sending keep alive message due to IdleState timeout " + pc.toString());
             pc.sendMessage(Collections.singletonList(pc.factory().buildKeepaliveMsg().build()));
         }
@@ -442,12 +473,52 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
         if (e.getMessage() instanceof List) {
             @SuppressWarnings("unchecked")
             List<PcepMessage> msglist = (List<PcepMessage>) e.getMessage();
-            for (PcepMessage pm : msglist) {
-                // Do the actual packet processing
-                state.processPcepMessage(this, pm);
+            controller.overloadController().messagesQueued(msglist.size());
+            if (msglist instanceof PcepMessageDecoder.MessageList) {
+                PcepMessageDecoder.MessageList decoded = (PcepMessageDecoder.MessageList) msglist;
+                pcepPacketStats.addInSuppressed(decoded.suppressedReports(), decoded.suppressedLsObjects());
+            }
+            PcepUpstreamRelay relay = controller.upstreamRelay();
+            int index = 0;
+            // Messages handed to processMessage, which settles each of them with the overload controller
+            int started = 0;
+            try {
+                for (PcepMessage pm : msglist) {
+                    // Do the actual packet processing
+                    started++;
+                    processMessage(pm);
+                    if (relay != null && msglist instanceof PcepMessageDecoder.MessageList
+                            && state == ChannelState.ESTABLISHED) {
+                        ChannelBuffer frame = ((PcepMessageDecoder.MessageList) msglist).frame(index);
+                        if (frame != null) {
+                            relay.frameReceived(thispccId, pm.getType(), frame);
+                        }
+                    }
+                    index++;
+                }
+            } finally {
+                if (started < msglist.size()) {
+                    controller.overloadController().messagesDropped(msglist.size() - started);
+                }
             }
         } else {
-            state.processPcepMessage(this, (PcepMessage) e.getMessage());
+            controller.overloadController().messagesQueued(1);
+            processMessage((PcepMessage) e.getMessage());
+        }
+    }
+
+    /**
+     * Processes the message in the current state and reports the processing time to the overload controller.
+     *
+     * @param m pcep message
+     * @throws Exception while processing the message
+     */
+    private void processMessage(PcepMessage m) throws Exception {
+        long start = System.nanoTime();
+        try {
+            state.processPcepMessage(this, m);
+        } finally {
+            controller.overloadController().messageProcessed(System.nanoTime() - start);
         }
     }
 
@@ -523,6 +594,65 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
         this.state = state;
     }
 
+    /**
+     * Sets the keepalive and dead timers from the open message of the peer.
+     *
+     * @param pOpenmsg open message of the peer
+     */
+    private void setTimers(PcepOpenMsg pOpenmsg) {
+        byte yKeepalive = pOpenmsg.getPcepOpenObject().getKeepAliveTime();
+        byte yDeadTimer = pOpenmsg.getPcepOpenObject().getDeadTime();
+        keepAliveTime = yKeepalive;
+        if (yKeepalive < yDeadTimer) {
+            deadTime = yDeadTimer;
+        } else {
+            if (DEADTIMER_MAXIMUM_VALUE > (yKeepalive * KEEPALIVE_MULTIPLE_FOR_DEADTIMER)) {
+                deadTime = (byte) (yKeepalive * KEEPALIVE_MULTIPLE_FOR_DEADTIMER);
+            } else {
+                deadTime = DEADTIMER_MAXIMUM_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Replaces the idle handler when the negotiated timers differ from the defaults.
+     */
+    private void applyIdleTimers() {
+        int keepAliveTimer = keepAliveTime & BYTE_MASK;
+        int deadTimer = deadTime & BYTE_MASK;
+        if (0 == keepAliveTime) {
+            deadTime = 0;
+        }
+        // handle keep alive and dead time
+        if (keepAliveTimer != PcepPipelineFactory.DEFAULT_KEEP_ALIVE_TIME
+                || deadTimer != PcepPipelineFactory.DEFAULT_DEAD_TIME) {
+
+            channel.getPipeline().replace("idle", "idle",
+                    new IdleStateHandler(PcepPipelineFactory.TIMER, deadTimer, keepAliveTimer, 0));
+        }
+        log.debug("Dead timer : " + deadTimer);
+        log.debug("Keep alive time : " + keepAliveTimer);
+    }
+
+    /**
+     * Sends the open message of the pcc role on a session to a parent PCE.
+     *
+     * @throws PcepParseException while building open message
+     */
+    private void sendUpstreamOpenMessage() throws PcepParseException {
+        PcepOpenObject pcepOpenobj = factory1.buildOpenObject()
+                .setSessionId(upstream.sessionId())
+                .setKeepAliveTime((byte) PcepPipelineFactory.DEFAULT_KEEP_ALIVE_TIME)
+                .setDeadTime((byte) PcepPipelineFactory.DEFAULT_DEAD_TIME)
+                .setOptionalTlv(upstream.openTlvs())
+                .build();
+        PcepMessage msg = factory1.buildOpenMsg()
+                .setPcepOpenObj(pcepOpenobj)
+                .build();
+        log.debug("Sending OPEN message to {}", channel.getRemoteAddress());
+        channel.write(Collections.singletonList(msg));
+    }
+
     /**
      * Send handshake open message.
      *
@@ -551,6 +681,7 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
         boolean pcInstantiationCapability = false;
         boolean labelStackCapability = false;
         boolean srCapability = false;
+        int maxSidDepth = 0;
         boolean actnLsCapability = false;
 
         ListIterator<PcepValueType> listIterator = tlvList.listIterator();
@@ -583,13 +714,14 @@ class PcepChannelHandler extends IdleStateAwareChannelHandler {
                 break;
             case SrPceCapabilityTlv.TYPE:
                 srCapability = true;
+                maxSidDepth = ((SrPceCapabilityTlv) tlv).msd() & 0xFF;
                 break;
             default:
                 continue;
             }
         }
         this.capability = new ClientCapability(pceccCapability, statefulPceCapability, pcInstantiationCapability,
-                labelStackCapability, srCapability);
+                labelStackCapability, srCapability, maxSidDepth);
     }
 
     /**
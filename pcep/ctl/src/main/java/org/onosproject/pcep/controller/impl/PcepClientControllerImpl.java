@@ -15,6 +15,8 @@
  */
 package org.onosproject.pcep.controller.impl;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -26,7 +28,10 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -39,12 +44,16 @@ import org.onosproject.incubator.net.tunnel.Tunnel;
 import org.onosproject.incubator.net.tunnel.TunnelService;
 import org.onosproject.incubator.net.tunnel.Tunnel.State;
 import org.onosproject.net.device.DeviceService;
+import org.onosproject.pcep.controller.ClientCapability;
+import org.onosproject.pcep.controller.LsId;
 import org.onosproject.pcep.controller.LspKey;
 import org.onosproject.pcep.controller.PccId;
 import org.onosproject.pcep.controller.PcepClient;
 import org.onosproject.pcep.controller.PcepClientController;
 import org.onosproject.pcep.controller.PcepClientListener;
 import org.onosproject.pcep.controller.PcepEventListener;
+import org.onosproject.pcep.controller.PcepLspIntent;
+import org.onosproject.pcep.controller.PcepLspResult;
 import org.onosproject.pcep.controller.PcepLspStatus;
 import org.onosproject.pcep.controller.PcepNodeListener;
 import org.onosproject.pcep.controller.PcepPacketListener;
@@ -53,17 +62,29 @@ import org.onosproject.pcep.controller.SrpIdGenerators;
 import org.onosproject.pcep.controller.driver.PcepAgent;
 import org.onosproject.pcepio.exceptions.PcepParseException;
 import org.onosproject.pcepio.protocol.PcInitiatedLspRequest;
+import org.onosproject.pcepio.protocol.PcepAttribute;
 import org.onosproject.pcepio.protocol.PcepError;
 import org.onosproject.pcepio.protocol.PcepErrorInfo;
 import org.onosproject.pcepio.protocol.PcepErrorMsg;
+import org.onosproject.pcepio.protocol.PcepEndPointsObject;
 import org.onosproject.pcepio.protocol.PcepErrorObject;
+import org.onosproject.pcepio.protocol.PcepEroObject;
+import org.onosproject.pcepio.protocol.PcepFactories;
 import org.onosproject.pcepio.protocol.PcepFactory;
 import org.onosproject.pcepio.protocol.PcepInitiateMsg;
+import org.onosproject.pcepio.protocol.PcepLSObject;
+import org.onosproject.pcepio.protocol.PcepLabelRange;
+import org.onosproject.pcepio.protocol.PcepLabelRangeObject;
+import org.onosproject.pcepio.protocol.PcepLabelRangeResvMsg;
+import org.onosproject.pcepio.protocol.PcepLSReportMsg;
 import org.onosproject.pcepio.protocol.PcepLspObject;
 import org.onosproject.pcepio.protocol.PcepMessage;
+import org.onosproject.pcepio.protocol.PcepMsgPath;
+import org.onosproject.pcepio.protocol.PcepPathRequestMsg;
 import org.onosproject.pcepio.protocol.PcepReportMsg;
 import org.onosproject.pcepio.protocol.PcepSrpObject;
 import org.onosproject.pcepio.protocol.PcepStateReport;
+import org.onosproject.pcepio.protocol.PcepUpdateRequest;
 import org.onosproject.pcepio.types.PcepValueType;
 import org.onosproject.pcepio.types.StatefulIPv4LspIdentifiersTlv;
 import org.onosproject.pcepio.types.SymbolicPathNameTlv;
@@ -74,6 +95,7 @@ import com.google.common.collect.Sets;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import static org.onosproject.pcep.controller.PcepSyncStatus.IN_SYNC;
+import static org.onosproject.pcep.controller.PcepSyncStatus.SYNCED;
 import static org.onosproject.pcep.controller.PcepLspSyncAction.REMOVE;
 import static org.onosproject.pcep.controller.PcepLspSyncAction.SEND_UPDATE;
 import static org.onosproject.pcep.controller.PcepLspSyncAction.UNSTABLE;
@@ -89,6 +111,13 @@ public class PcepClientControllerImpl implements PcepClientController {
 
     private static final Logger log = LoggerFactory.getLogger(PcepClientControllerImpl.class);
 
+    private static final int PATH_CACHE_SIZE = 100000;
+    private static final int CANDIDATE_PATHS = 4;
+    private static final int SR_TREES = 1024;
+    private static final int SR_ENCODINGS = 100000;
+    // Time a PCECC label download stage waits for each PCRpt acknowledging a label
+    private static final long LABEL_ACK_TIMEOUT_MILLIS = 10000;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DeviceService deviceService;
 
@@ -103,6 +132,27 @@ public class PcepClientControllerImpl implements PcepClientController {
     protected Set<PcepPacketListener> pcepPacketListener = Sets.newHashSet();
 
     private final Controller ctrl = new Controller();
+    private final TeTopologyStore teTopologyStore = new TeTopologyStore();
+    private final TePathComputer pathComputer = new TePathComputer(teTopologyStore);
+    private final TePathCache pathCache = new TePathCache(pathComputer, PATH_CACHE_SIZE);
+    private final TePathPrecomputer pathPrecomputer = new TePathPrecomputer(pathComputer, CANDIDATE_PATHS,
+            Runtime.getRuntime().availableProcessors());
+    private final TeDomainAbstraction domainAbstraction = new TeDomainAbstraction(pathComputer,
+            Runtime.getRuntime().availableProcessors());
+    private final TeSrEncoder srEncoder = new TeSrEncoder(SR_TREES, SR_ENCODINGS);
+    private final TeBandwidthLedger bandwidthLedger = new TeBandwidthLedger();
+    private final PcepStatelessPce statelessPce = new PcepStatelessPce(pathCache, pathPrecomputer,
+            domainAbstraction, srEncoder, bandwidthLedger, Runtime.getRuntime().availableProcessors());
+    private final TeRwaEngine rwaEngine = new TeRwaEngine(pathComputer, pathPrecomputer);
+    private final PcepRerouteManager rerouteManager = new PcepRerouteManager(this, new PcepLspPathIndex(),
+            pathCache, bandwidthLedger, Runtime.getRuntime().availableProcessors());
+    private final PcepLabelDownloader labelDownloader = new PcepLabelDownloader(this, LABEL_ACK_TIMEOUT_MILLIS);
+    private final PcepPceccLabelManager pceccLabelManager = new PcepPceccLabelManager(this, this::labelAllocator,
+            labelDownloader);
+    private final PcepReoptimizer reoptimizer = new PcepReoptimizer(this, rerouteManager, pathCache,
+            bandwidthLedger, Runtime.getRuntime().availableProcessors());
+    private final Map<PccId, LsSync> lsSyncs = new ConcurrentHashMap<>();
+    private final Map<PccId, PcepLabelAllocator> labelAllocators = new ConcurrentHashMap<>();
 
     public static final String BANDWIDTH = "bandwidth";
     public static final String LSP_SIG_TYPE = "lspSigType";
@@ -119,6 +169,19 @@ public class PcepClientControllerImpl implements PcepClientController {
     @Activate
     public void activate() {
         ctrl.start(agent);
+        pathPrecomputer.start();
+        teTopologyStore.addListener(pathPrecomputer);
+        domainAbstraction.start();
+        teTopologyStore.addListener(domainAbstraction);
+        statelessPce.start();
+        rerouteManager.start();
+        teTopologyStore.addListener(rerouteManager);
+        teTopologyStore.addListener(bandwidthLedger);
+        reoptimizer.start();
+        labelDownloader.start();
+        pceccLabelManager.start();
+        teTopologyStore.addListener(pceccLabelManager);
+        teTopologyStore.addListener(reoptimizer);
         log.info("Started");
     }
 
@@ -126,10 +189,177 @@ public class PcepClientControllerImpl implements PcepClientController {
     public void deactivate() {
         // Close all connected clients
         closeConnectedClients();
+        teTopologyStore.removeListener(pceccLabelManager);
+        pceccLabelManager.stop();
+        labelDownloader.stop();
+        teTopologyStore.removeListener(reoptimizer);
+        reoptimizer.stop();
+        teTopologyStore.removeListener(bandwidthLedger);
+        teTopologyStore.removeListener(rerouteManager);
+        rerouteManager.stop();
+        statelessPce.stop();
+        teTopologyStore.removeListener(domainAbstraction);
+        domainAbstraction.stop();
+        teTopologyStore.removeListener(pathPrecomputer);
+        pathPrecomputer.stop();
         ctrl.stop();
         log.info("Stopped");
     }
 
+    /**
+     * Returns the TE topology learnt from LSRpt messages.
+     *
+     * @return TE topology store
+     */
+    public TeTopologyStore teTopologyStore() {
+        return teTopologyStore;
+    }
+
+    /**
+     * Returns the path computer working on the TE topology.
+     *
+     * @return TE path computer
+     */
+    public TePathComputer pathComputer() {
+        return pathComputer;
+    }
+
+    /**
+     * Returns the path cache in front of the path computer.
+     *
+     * @return TE path cache
+     */
+    public TePathCache pathCache() {
+        return pathCache;
+    }
+
+    /**
+     * Returns the candidate paths kept precomputed for configured PE pairs.
+     *
+     * @return path precomputer
+     */
+    public TePathPrecomputer pathPrecomputer() {
+        return pathPrecomputer;
+    }
+
+    /**
+     * Returns the abstract view of the domains reported by the pccs.
+     *
+     * @return domain abstraction
+     */
+    public TeDomainAbstraction domainAbstraction() {
+        return domainAbstraction;
+    }
+
+    /**
+     * Connects to a parent PCE, acting as a pcc, and relays the LS and LSP
+     * reports of the pccs to it.
+     *
+     * @param address address of the parent PCE
+     */
+    public void connectUpstream(InetSocketAddress address) {
+        ctrl.connectUpstream(address);
+    }
+
+    /**
+     * Closes the session to the parent PCE.
+     */
+    public void disconnectUpstream() {
+        ctrl.disconnectUpstream();
+    }
+
+    /**
+     * Returns the relay of the pcc reports to the parent PCE.
+     *
+     * @return upstream relay, null if not connected to a parent PCE
+     */
+    public PcepUpstreamRelay upstreamRelay() {
+        return ctrl.upstreamRelay();
+    }
+
+    /**
+     * Returns the encoder of SR-TE paths into SID lists.
+     *
+     * @return SR encoder
+     */
+    public TeSrEncoder srEncoder() {
+        return srEncoder;
+    }
+
+    /**
+     * Returns the stateless PCE answering PCReq messages.
+     *
+     * @return stateless PCE
+     */
+    public PcepStatelessPce statelessPce() {
+        return statelessPce;
+    }
+
+    /**
+     * Returns the routing and wavelength assignment engine for optical links.
+     *
+     * @return RWA engine
+     */
+    public TeRwaEngine rwaEngine() {
+        return rwaEngine;
+    }
+
+    /**
+     * Returns the bandwidth reserved by the LSPs of the PCE on each link.
+     *
+     * @return bandwidth ledger
+     */
+    public TeBandwidthLedger bandwidthLedger() {
+        return bandwidthLedger;
+    }
+
+    /**
+     * Returns the manager rerouting delegated LSPs on link failures.
+     *
+     * @return reroute manager
+     */
+    public PcepRerouteManager rerouteManager() {
+        return rerouteManager;
+    }
+
+    /**
+     * Returns the allocator of the labels reserved on a pcc. Allocators are
+     * kept across sessions, as the pcc keeps the labels the PCE downloaded.
+     *
+     * @param pccId pcc id
+     * @return label allocator, without ranges until the pcc reserves some
+     */
+    public PcepLabelAllocator labelAllocator(PccId pccId) {
+        return labelAllocators.computeIfAbsent(pccId, k -> new PcepLabelAllocator());
+    }
+
+    /**
+     * Returns the pipeline downloading PCECC labels to the pccs.
+     *
+     * @return label downloader
+     */
+    public PcepLabelDownloader labelDownloader() {
+        return labelDownloader;
+    }
+
+    /**
+     * Returns the manager of the PCECC node and adjacency labels.
+     *
+     * @return PCECC label manager
+     */
+    public PcepPceccLabelManager pceccLabelManager() {
+        return pceccLabelManager;
+    }
+
+    /**
+     * Returns the scheduler re-optimizing the delegated LSPs.
+     *
+     * @return re-optimizer
+     */
+    public PcepReoptimizer reoptimizer() {
+        return reoptimizer;
+    }
+
     @Override
     public Collection<PcepClient> getClients() {
         return connectedClients.values();
@@ -177,6 +407,286 @@ public class PcepClientControllerImpl implements PcepClientController {
         this.getClient(pccId).sendMessage(msg);
     }
 
+    @Override
+    public CompletableFuture<List<PcepLspResult>> provisionLsps(PccId pccId, Collection<PcepLspIntent> intents) {
+        final List<PcepLspIntent> intentList = new ArrayList<>(intents);
+        final PcepLspResult[] results = new PcepLspResult[intentList.size()];
+
+        PcepClient pc = getClient(pccId);
+        if (pc == null || !pc.isConnected()) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = new PcepLspResult(intentList.get(i), PcepLspResult.Status.REJECTED,
+                        "PCC " + pccId + " is not connected");
+            }
+            return CompletableFuture.completedFuture(Arrays.asList(results));
+        }
+
+        // Bandwidth is reserved before anything is sent, so concurrent requests cannot oversubscribe a link.
+        TeGraph g = pathCache.graph();
+        final List<PcepLspIntent> admittedList = new ArrayList<>(intentList.size());
+        final List<Integer> admittedIndexes = new ArrayList<>(intentList.size());
+        for (int i = 0; i < intentList.size(); i++) {
+            String failure = admit(pccId, intentList.get(i), g);
+            if (failure != null) {
+                results[i] = new PcepLspResult(intentList.get(i), PcepLspResult.Status.FAILED, failure);
+            } else {
+                admittedList.add(intentList.get(i));
+                admittedIndexes.add(i);
+            }
+        }
+        final PcepLspResult[] admittedResults = new PcepLspResult[admittedList.size()];
+
+        PcepLspBatcher batcher = new PcepLspBatcher(pc.factory(), PcepLspBatcher.MAX_MESSAGE_LENGTH);
+        List<PcepLspBatcher.Batch> batches = batcher.pack(admittedList, admittedResults);
+        log.debug("Sending {} LSP intents to {} in {} messages", admittedList.size(), pccId, batches.size());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batches.size());
+        for (final PcepLspBatcher.Batch batch : batches) {
+            CompletableFuture<Void> sent;
+            try {
+                sent = pc.sendMessage(batch.message());
+            } catch (RejectedExecutionException e) {
+                sent = new CompletableFuture<>();
+                sent.completeExceptionally(e);
+            }
+            futures.add(sent.handle((v, e) -> {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                for (int i : batch.intentIndexes()) {
+                    admittedResults[i] = cause == null
+                            ? new PcepLspResult(admittedList.get(i), PcepLspResult.Status.SENT, null)
+                            : new PcepLspResult(admittedList.get(i), PcepLspResult.Status.REJECTED,
+                                                String.valueOf(cause.getMessage()));
+                }
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            for (int i = 0; i < admittedResults.length; i++) {
+                PcepLspResult result = admittedResults[i];
+                if (!result.isSent() && result.intent().type() == PcepLspIntent.Type.INITIATE) {
+                    // No LSP will be reported. Updated LSPs are charged again by their next report.
+                    bandwidthLedger.release(reservationOwner(pccId, result.intent()));
+                }
+                results[admittedIndexes.get(i)] = result;
+            }
+            return Arrays.asList(results);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<PcepLspResult>> provisionProtectedLsps(PccId pccId, int ingress, int egress,
+            PcepLspIntent working, PcepLspIntent protection, boolean srlgDisjoint) {
+        List<PcepLspIntent> intents = Arrays.asList(working, protection);
+        PcepClient pc = getClient(pccId);
+        if (pc == null || !pc.isConnected()) {
+            return provisionLsps(pccId, intents);
+        }
+
+        String failure = null;
+        TeGraph g = pathComputer.graph();
+        int src = g.nodeByAddress(ingress);
+        int dst = g.nodeByAddress(egress);
+        TePath[] pair = null;
+        if (working.type() == PcepLspIntent.Type.DELETE || protection.type() == PcepLspIntent.Type.DELETE) {
+            failure = "Protected LSPs must be initiated or updated";
+        } else if (src < 0 || dst < 0) {
+            failure = "Unknown head or tail end";
+        } else {
+            pair = pathComputer.computeDisjointPaths(g, src, dst,
+                    PcepStatelessPce.constraints(pathAttribute(working)), srlgDisjoint);
+            if (pair == null) {
+                failure = "No " + (srlgDisjoint ? "SRLG" : "link") + "-disjoint path pair";
+            } else {
+                failure = reserve(pccId, working, g, pair[0].linkSlots());
+                if (failure == null) {
+                    failure = reserve(pccId, protection, g, pair[1].linkSlots());
+                    if (failure != null) {
+                        bandwidthLedger.release(reservationOwner(pccId, working));
+                    }
+                }
+            }
+        }
+        if (failure == null) {
+            try {
+                setEro(pc, working, g, pair[0]);
+                setEro(pc, protection, g, pair[1]);
+            } catch (PcepParseException e) {
+                failure = e.getMessage();
+                bandwidthLedger.release(reservationOwner(pccId, working));
+                bandwidthLedger.release(reservationOwner(pccId, protection));
+            }
+        }
+
+        if (failure != null) {
+            log.debug("Not sending protected LSPs to {}: {}", pccId, failure);
+            return failed(intents, failure);
+        }
+        return provisionLsps(pccId, intents);
+    }
+
+    @Override
+    public CompletableFuture<List<PcepLspResult>> provisionComputedLsp(PccId pccId, LsId ingress, LsId egress,
+            PcepLspIntent intent) {
+        List<PcepLspIntent> intents = Collections.singletonList(intent);
+        PcepClient pc = getClient(pccId);
+        if (pc == null || !pc.isConnected()) {
+            return provisionLsps(pccId, intents);
+        }
+
+        String failure = null;
+        TeGraph g = pathComputer.graph();
+        int src = g.topology().nodeSlot(pccId, ingress.value());
+        int dst = g.topology().nodeSlot(pccId, egress.value());
+        if (intent.type() == PcepLspIntent.Type.DELETE) {
+            failure = "Only initiated or updated LSPs are routed";
+        } else if (src < 0 || dst < 0) {
+            failure = "Unknown head or tail end";
+        } else {
+            // First fitting precomputed candidate of the PE pair, else a cached computation,
+            // computed again around the links left without enough bandwidth.
+            PcepAttribute attr = pathAttribute(intent);
+            TeConstraints constraints = PcepStatelessPce.constraints(attr);
+            TePath path = pathPrecomputer.select(g, src, dst, constraints);
+            if (path == null) {
+                path = pathCache.computePath(g, src, dst, constraints);
+            }
+            Object owner = reservationOwner(pccId, intent);
+            TePath reserved = path == null ? null : bandwidthLedger.reservePath(owner, path, pathCache, g,
+                    src, dst, constraints, holdingPriority(attr), false, new ArrayList<>());
+            if (path == null) {
+                failure = "No path satisfies the constraints";
+            } else if (reserved == null) {
+                failure = "No path with enough unreserved bandwidth";
+            } else {
+                try {
+                    setEro(pc, intent, g, reserved);
+                } catch (PcepParseException e) {
+                    failure = e.getMessage();
+                    bandwidthLedger.release(owner);
+                }
+            }
+        }
+
+        if (failure != null) {
+            log.debug("Not sending LSP from {} to {} to {}: {}", ingress, egress, pccId, failure);
+            return failed(intents, failure);
+        }
+        return provisionLsps(pccId, intents);
+    }
+
+    /*
+     * Reserves the bandwidth of an initiated or updated LSP on the links of its ERO, unless
+     * they are reserved already. Returns the failure, null if admitted. EROs which do not
+     * resolve to links, such as loose hops, are sent unreserved; the LSP is charged once reported.
+     */
+    private String admit(PccId pccId, PcepLspIntent intent, TeGraph g) {
+        int src;
+        int dst = -1;
+        PcepEroObject ero;
+        if (intent.type() == PcepLspIntent.Type.INITIATE) {
+            PcepEndPointsObject endPoints = intent.initiateRequest().getEndPointsObject();
+            src = endPoints == null ? -1 : g.nodeByAddress(endPoints.getSourceIpAddress());
+            dst = endPoints == null ? -1 : g.nodeByAddress(endPoints.getDestIpAddress());
+            ero = intent.initiateRequest().getEroObject();
+        } else if (intent.type() == PcepLspIntent.Type.UPDATE) {
+            PcepMsgPath msgPath = intent.updateRequest().getMsgPath();
+            PcepLspPathIndex.IndexedLsp lsp = rerouteManager.index().lsp(pccId,
+                    intent.updateRequest().getLspObject().getPlspId());
+            src = lsp == null ? -1 : g.nodeByAddress(lsp.ingress());
+            ero = msgPath == null ? null : msgPath.getEroObject();
+        } else {
+            return null;
+        }
+        int[] linkSlots = ero == null ? null : PcepLspPathIndex.linkSlots(g, src, dst, ero.getSubObjects());
+        if (linkSlots == null) {
+            return null;
+        }
+        return reserve(pccId, intent, g, linkSlots);
+    }
+
+    /*
+     * Reserves the bandwidth of the intent on the links. Returns the failure, null if admitted.
+     */
+    private String reserve(PccId pccId, PcepLspIntent intent, TeGraph g, int[] linkSlots) {
+        Object owner = reservationOwner(pccId, intent);
+        PcepAttribute attr = pathAttribute(intent);
+        TeConstraints constraints = PcepStatelessPce.constraints(attr);
+        if (bandwidthLedger.holds(owner, linkSlots, constraints.bandwidth(), holdingPriority(attr))) {
+            return null;
+        }
+        TeBandwidthLedger.Admission admission = bandwidthLedger.reserve(owner, g.topology(), linkSlots,
+                constraints.bandwidth(), constraints.setupPriority(), holdingPriority(attr), false);
+        return admission.isAdmitted() ? null
+                : "Not enough unreserved bandwidth on link "
+                        + new LsId(g.topology().linkAt(admission.blockingLinkSlot()).lsId());
+    }
+
+    /*
+     * The LSP owns the bandwidth of an update, the PCInitiate the bandwidth of an LSP it
+     * creates until the LSP is reported.
+     */
+    private static Object reservationOwner(PccId pccId, PcepLspIntent intent) {
+        if (intent.type() == PcepLspIntent.Type.UPDATE) {
+            return new PcepRerouteManager.LspId(pccId, intent.updateRequest().getLspObject().getPlspId());
+        }
+        return new PcepRerouteManager.InitiateId(pccId, intent.initiateRequest().getSrpObject().getSrpID());
+    }
+
+    private static int holdingPriority(PcepAttribute attr) {
+        return attr == null ? TeBandwidthLedger.DEFAULT_HOLDING_PRIORITY : PcepRerouteManager.holdingPriority(attr);
+    }
+
+    private static CompletableFuture<List<PcepLspResult>> failed(List<PcepLspIntent> intents, String failure) {
+        List<PcepLspResult> results = new ArrayList<>(intents.size());
+        for (PcepLspIntent intent : intents) {
+            results.add(new PcepLspResult(intent, PcepLspResult.Status.FAILED, failure));
+        }
+        return CompletableFuture.completedFuture(results);
+    }
+
+    private static PcepAttribute pathAttribute(PcepLspIntent intent) {
+        if (intent.type() == PcepLspIntent.Type.UPDATE) {
+            PcepMsgPath msgPath = intent.updateRequest().getMsgPath();
+            return msgPath == null ? null : msgPath.getPcepAttribute();
+        }
+        return intent.initiateRequest().getPcepAttribute();
+    }
+
+    /*
+     * Sets the ERO of the intent, as SR-ERO subobjects when its SRP asks for
+     * the SR path setup type.
+     */
+    private void setEro(PcepClient pc, PcepLspIntent intent, TeGraph g, TePath path) throws PcepParseException {
+        PcepFactory factory = pc.factory();
+        PcepSrpObject srp = intent.type() == PcepLspIntent.Type.INITIATE ? intent.initiateRequest().getSrpObject()
+                : intent.updateRequest().getSrpObject();
+        LinkedList<PcepValueType> subObjects;
+        if (srp != null && TeSrEncoder.isSegmentRouting(srp.getOptionalTlv())) {
+            ClientCapability capability = pc.capability();
+            int maxSidDepth = capability != null && capability.srCapability() ? capability.maxSidDepth() : 0;
+            subObjects = srEncoder.eroSubObjects(g, path, maxSidDepth);
+            if (subObjects == null) {
+                throw new PcepParseException("Path cannot be encoded within the maximum SID depth "
+                        + maxSidDepth);
+            }
+        } else {
+            subObjects = PcepStatelessPce.eroSubObjects(g.topology(), path);
+        }
+        PcepEroObject ero = factory.buildEroObject().setSubObjects(subObjects).build();
+        if (intent.type() == PcepLspIntent.Type.INITIATE) {
+            intent.initiateRequest().setEroObject(ero);
+            return;
+        }
+        PcepUpdateRequest request = intent.updateRequest();
+        if (request.getMsgPath() == null) {
+            request.setMsgPath(factory.buildPcepMsgPath().setEroObject(ero)
+                    .setPcepAttribute(factory.buildPcepAttribute().build()).build());
+        } else {
+            request.getMsgPath().setEroObject(ero);
+        }
+    }
+
     @Override
     public void addNodeListener(PcepNodeListener listener) {
         pcepNodeListener.add(listener);
@@ -199,10 +709,24 @@ public class PcepClientControllerImpl implements PcepClientController {
         case KEEP_ALIVE:
             break;
         case PATH_COMPUTATION_REQUEST:
+            log.debug("received PCReq Message from {}.", pccId.toString());
+            statelessPce.processRequest(pc, (PcepPathRequestMsg) msg).whenComplete((v, e) -> {
+                if (e != null) {
+                    log.error("Failed to reply to PCReq from {}: {}", pccId, e.getMessage());
+                }
+            });
             break;
         case PATH_COMPUTATION_REPLY:
+            log.debug("received PCRep Message from {}.", pccId.toString());
+            for (PcepEventListener l : pcepEventListener) {
+                l.handleMessage(pccId, msg);
+            }
             break;
         case NOTIFICATION:
+            log.debug("received PCNtf Message from {}.", pccId.toString());
+            for (PcepEventListener l : pcepEventListener) {
+                l.handleMessage(pccId, msg);
+            }
             break;
         case ERROR:
             break;
@@ -234,6 +758,8 @@ public class PcepClientControllerImpl implements PcepClientController {
             //Only update the listener if respective capability is supported else send PCEP-ERR msg
             if (pc.capability().statefulPceCapability()) {
 
+                rerouteManager.onReport(pccId, ((PcepReportMsg) msg).getStateReportList());
+                labelDownloader.onReport(pccId, ((PcepReportMsg) msg).getStateReportList());
                 ListIterator<PcepStateReport> listIterator = ((PcepReportMsg) msg).getStateReportList().listIterator();
                 while (listIterator.hasNext()) {
                     PcepStateReport stateRpt = listIterator.next();
@@ -261,9 +787,13 @@ public class PcepClientControllerImpl implements PcepClientController {
                             if (pc.capability().pceccCapability()) {
                                 log.debug("Trigger label DB sync for PCC {}", pc.getPccId().id().toString());
                                 pc.setLabelDbSyncStatus(IN_SYNC);
-                                for (PcepPacketListener l : pcepPacketListener) {
-                                    l.sendPacketIn(pccId);
-                                }
+                                // Label DB sync completes once the node and adjacency labels are sent,
+                                // which also handles the end of LSP DB sync actions.
+                                pceccLabelManager.labelDbSync(pccId).thenRun(() -> {
+                                    if (pc.labelDbSyncStatus() == IN_SYNC) {
+                                        pc.setLabelDbSyncStatus(SYNCED);
+                                    }
+                                });
                             } else {
                                 // If label db sync is not to be done, handle end of LSPDB sync actions.
                                 agent.analyzeSyncMsgList(pccId);
@@ -288,24 +818,135 @@ public class PcepClientControllerImpl implements PcepClientController {
             }
             break;
         case LABEL_RANGE_RESERV:
+            if (pc.capability().pceccCapability()) {
+                processLabelRangeReservation(pccId, (PcepLabelRangeResvMsg) msg);
+            } else {
+                pc.sendMessage(Collections.singletonList(getErrMsg(pc.factory(), ERROR_TYPE_19,
+                        ERROR_VALUE_5)));
+            }
             break;
-//        case LS_REPORT: //TODO: need to handle LS report to add or remove node
-//            break;
         case MAX:
             break;
         case END:
             break;
         case LS_REPORT:
             log.info("received LSRpt Message from {}.", pccId.toString());
-            for (PcepEventListener l : pcepEventListener) {
-                l.handleMessage(pccId, msg);
-            }
+            processLsReport(pccId, (PcepLSReportMsg) msg);
             break;
         default:
             break;
         }
     }
 
+    /**
+     * Adds the label ranges of a PCLRResv message to the label allocator of
+     * the pcc, or removes them when the SRP object has the R flag.
+     *
+     * @param pccId pcc which sent the message
+     * @param msg PCLRResv message
+     */
+    private void processLabelRangeReservation(PccId pccId, PcepLabelRangeResvMsg msg) {
+        PcepLabelAllocator allocator = labelAllocator(pccId);
+        PcepLabelRange labelRange = msg.getLabelRange();
+        boolean remove = labelRange.getSrpObject() != null && labelRange.getSrpObject().getRFlag();
+        for (PcepLabelRangeObject range : labelRange.getLabelRangeList()) {
+            if (remove) {
+                allocator.removeRange(range.getLabelBase());
+                continue;
+            }
+            try {
+                allocator.addRange(range.getLabelType(), range.getLabelBase(), range.getRangeSize());
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring label range from {}: {}", pccId, e.getMessage());
+            }
+        }
+        pceccLabelManager.labelRangesChanged(pccId);
+    }
+
+    /**
+     * Applies an LSRpt message to the TE topology. LS objects with the S flag
+     * are staged until the LS database synchronization of the pcc completes,
+     * then switched in and reported to listeners as one LSRpt message.
+     *
+     * @param pccId pcc which sent the message
+     * @param msg LSRpt message
+     */
+    private void processLsReport(PccId pccId, PcepLSReportMsg msg) {
+        List<PcepLSObject> incremental = new LinkedList<>();
+        LsSync sync = lsSyncs.get(pccId);
+        for (PcepLSObject ls : msg.getLSReportList()) {
+            if (ls.getSyncFlag()) {
+                if (sync == null) {
+                    log.info("LS database synchronization started by {}", pccId);
+                    sync = new LsSync(teTopologyStore.newBulkLoad(pccId));
+                    lsSyncs.put(pccId, sync);
+                }
+                sync.stage(ls);
+                continue;
+            }
+
+            if (sync != null) {
+                completeLsSync(sync, msg);
+                sync = null;
+            }
+            if (!isEndOfLsSync(ls)) {
+                incremental.add(ls);
+            }
+        }
+
+        if (incremental.isEmpty()) {
+            return;
+        }
+        teTopologyStore.apply(pccId, incremental);
+        PcepMessage event = msg;
+        if (incremental.size() != msg.getLSReportList().size()) {
+            event = PcepFactories.getFactory(msg.getVersion()).buildPcepLSReportMsg()
+                    .setLSReportList(incremental).build();
+        }
+        for (PcepEventListener l : pcepEventListener) {
+            l.handleMessage(pccId, event);
+        }
+    }
+
+    private void completeLsSync(LsSync sync, PcepLSReportMsg msg) {
+        PccId pccId = sync.bulk.pccId();
+        lsSyncs.remove(pccId);
+        TeTopology topology = teTopologyStore.commit(sync.bulk);
+        log.info("LS database synchronization with {} completed, {} LS objects, topology version {}",
+                pccId, sync.objects.size(), topology.version());
+
+        PcepLSReportMsg event = PcepFactories.getFactory(msg.getVersion()).buildPcepLSReportMsg()
+                .setLSReportList(sync.objects).build();
+        for (PcepEventListener l : pcepEventListener) {
+            l.handleMessage(pccId, event);
+        }
+    }
+
+    /*
+     * The end of the synchronization is marked by an LS object without the S flag,
+     * LS-ID 0 and no TLVs; it carries no topology information.
+     */
+    private static boolean isEndOfLsSync(PcepLSObject ls) {
+        return ls.getLSId() == 0 && (ls.getOptionalTlv() == null || ls.getOptionalTlv().isEmpty());
+    }
+
+    /**
+     * LS database synchronization in progress with a pcc.
+     */
+    private static final class LsSync {
+        private final TeTopologyStore.BulkLoad bulk;
+        private final List<PcepLSObject> objects = new LinkedList<>();
+
+        private LsSync(TeTopologyStore.BulkLoad bulk) {
+            this.bulk = bulk;
+        }
+
+        private void stage(PcepLSObject ls) {
+            bulk.stage(ls);
+            objects.add(ls);
+        }
+    }
+
     @Override
     public void closeConnectedClients() {
         PcepClient pc;
@@ -384,6 +1025,13 @@ public class PcepClientControllerImpl implements PcepClientController {
         public void removeConnectedClient(PccId pccId) {
 
             connectedClients.remove(pccId);
+            if (lsSyncs.remove(pccId) != null) {
+                log.info("Dropping incomplete LS database synchronization of {}", pccId);
+            }
+            rerouteManager.removeClient(pccId);
+            statelessPce.removeClient(pccId);
+            labelDownloader.removeClient(pccId);
+            pceccLabelManager.removeClient(pccId);
             for (PcepClientListener l : pcepClientListener) {
                 log.warn("removal for {}", pccId.toString());
                 l.clientDisconnected(pccId);
@@ -18,12 +18,15 @@ package org.onosproject.pcep.controller.impl;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.jboss.netty.channel.Channel;
 import org.onlab.packet.IpAddress;
@@ -57,6 +60,17 @@ public class PcepClientImpl implements PcepClientDriver {
 
     private Channel channel;
     protected String channelId;
+    private PcepOutboundQueue outboundQueue;
+    private PcepOutboundPacer pacer;
+    private PcepPacingProfile pacingProfile = PcepPacingProfile.UNLIMITED;
+    private ScheduledExecutorService flushExecutor;
+    private long flushWindowMicros;
+    private int flushByteBudget;
+    private long highWaterMark = Long.MAX_VALUE;
+    private long lowWaterMark = Long.MAX_VALUE;
+    private PcepOutboundQueue.OverflowPolicy overflowPolicy = PcepOutboundQueue.OverflowPolicy.REJECT;
+    private long blockTimeoutMillis;
+    private long stuckTimeoutMillis;
 
     private boolean connected;
     protected boolean startDriverHandshakeCalled;
@@ -82,8 +96,62 @@ public class PcepClientImpl implements PcepClientDriver {
         this.pktStats = (PcepPacketStatsImpl) pktStats;
     }
 
+    /**
+     * Sets the parameters used to coalesce outbound messages. Must be called
+     * before the channel is set.
+     *
+     * @param executor executor running the delayed flushes
+     * @param windowMicros coalescing window in microseconds
+     * @param byteBudget number of buffered bytes which triggers an immediate flush
+     */
+    public void setOutboundCoalescing(ScheduledExecutorService executor, long windowMicros, int byteBudget) {
+        this.flushExecutor = executor;
+        this.flushWindowMicros = windowMicros;
+        this.flushByteBudget = byteBudget;
+    }
+
+    /**
+     * Sets the bounds of pending outbound bytes. Must be called before the
+     * channel is set.
+     *
+     * @param highWaterMark pending bytes at which backpressure starts
+     * @param lowWaterMark pending bytes at which backpressure ends
+     * @param overflowPolicy behaviour when the high watermark is reached
+     * @param blockTimeoutMillis maximum time a sender is blocked
+     * @param stuckTimeoutMillis time above the high watermark after which the pcc is disconnected
+     */
+    public void setOutboundWatermarks(long highWaterMark, long lowWaterMark,
+            PcepOutboundQueue.OverflowPolicy overflowPolicy, long blockTimeoutMillis, long stuckTimeoutMillis) {
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.stuckTimeoutMillis = stuckTimeoutMillis;
+    }
+
+    /**
+     * Sets the token bucket parameters used to pace LSP updates towards this
+     * pcc. Must be called before the channel is set.
+     *
+     * @param profile pacing profile
+     */
+    public void setPacingProfile(PcepPacingProfile profile) {
+        this.pacingProfile = profile;
+    }
+
+    /**
+     * Returns the token bucket parameters used to pace LSP updates towards this pcc.
+     *
+     * @return pacing profile
+     */
+    public PcepPacingProfile pacingProfile() {
+        return pacingProfile;
+    }
+
     @Override
     public final void disconnectClient() {
+        // Messages such as PCEP close must reach the pcc before the channel goes down.
+        flush();
         this.channel.close();
     }
 
@@ -98,24 +166,66 @@ public class PcepClientImpl implements PcepClientDriver {
     }
 
     @Override
-    public final void sendMessage(PcepMessage m) {
+    public final CompletableFuture<Void> sendMessage(PcepMessage m) {
         log.debug("Sending message to {}", channel.getRemoteAddress());
+        return sendMessage(Collections.singletonList(m));
+    }
+
+    @Override
+    public final CompletableFuture<Void> sendMessage(List<PcepMessage> msgs) {
         try {
-            channel.write(Collections.singletonList(m));
-            this.pktStats.addOutPacket();
+            CompletableFuture<Void> future = pacingProfile.isPaced() ? sendPaced(msgs) : outboundQueue.enqueue(msgs);
+            if (future.isCompletedExceptionally()) {
+                log.warn("Backpressure on {}: {} messages rejected", channelId, msgs.size());
+            } else {
+                this.pktStats.addOutPacket(msgs.size());
+            }
+            return future;
         } catch (RejectedExecutionException e) {
             log.warn(e.getMessage());
             if (!e.getMessage().contains(SHUTDOWN_MSG)) {
                 throw e;
             }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /*
+     * Hands the messages to the pacer, but those carrying no LSP state which go
+     * straight to the outbound queue.
+     */
+    private CompletableFuture<Void> sendPaced(List<PcepMessage> msgs) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<PcepMessage> unpaced = new ArrayList<>();
+        for (PcepMessage m : msgs) {
+            if (PcepOutboundPacer.mayBypass(m)) {
+                unpaced.add(m);
+            } else {
+                if (!unpaced.isEmpty()) {
+                    futures.add(outboundQueue.enqueue(unpaced));
+                    unpaced = new ArrayList<>();
+                }
+                futures.add(pacer.submit(m));
+            }
         }
+        if (!unpaced.isEmpty()) {
+            futures.add(outboundQueue.enqueue(unpaced));
+        }
+        if (futures.size() == 1) {
+            return futures.get(0);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
     }
 
     @Override
-    public final void sendMessage(List<PcepMessage> msgs) {
+    public final void flush() {
+        if (outboundQueue == null) {
+            return;
+        }
         try {
-            channel.write(msgs);
-            this.pktStats.addOutPacket(msgs.size());
+            outboundQueue.flush();
         } catch (RejectedExecutionException e) {
             log.warn(e.getMessage());
             if (!e.getMessage().contains(SHUTDOWN_MSG)) {
@@ -137,6 +247,11 @@ public class PcepClientImpl implements PcepClientDriver {
     @Override
     public final void setChannel(Channel channel) {
         this.channel = channel;
+        this.outboundQueue = new PcepOutboundQueue(channel, pktStats, flushExecutor, flushWindowMicros,
+                flushByteBudget);
+        this.outboundQueue.setWatermarks(highWaterMark, lowWaterMark, overflowPolicy, blockTimeoutMillis,
+                stuckTimeoutMillis);
+        this.pacer = new PcepOutboundPacer(outboundQueue, pktStats, flushExecutor, pacingProfile);
         final SocketAddress address = channel.getRemoteAddress();
         if (address instanceof InetSocketAddress) {
             final InetSocketAddress inetAddress = (InetSocketAddress) address;
@@ -239,6 +354,9 @@ public class PcepClientImpl implements PcepClientDriver {
 
     @Override
     public final void removeConnectedClient() {
+        if (pacer != null) {
+            pacer.clear();
+        }
         this.agent.removeConnectedClient(pccId);
     }
 
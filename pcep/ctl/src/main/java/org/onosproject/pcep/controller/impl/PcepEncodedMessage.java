@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.protocol.PcepMessage;
+import org.onosproject.pcepio.protocol.PcepType;
+import org.onosproject.pcepio.protocol.PcepVersion;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * PCEP message which is already encoded, written by copying its bytes.
+ * Used for the PCInitiate, PCUpd and PCLabelUpd messages packed by {@link PcepLspBatcher}.
+ */
+public final class PcepEncodedMessage implements PcepMessage {
+
+    private final PcepType type;
+    private final ChannelBuffer encoded;
+    private final int lspCount;
+    private final int setupPriority;
+
+    /**
+     * Creates encoded message.
+     *
+     * @param type message type
+     * @param encoded complete message including the common header
+     * @param lspCount number of LSP requests carried by the message
+     * @param setupPriority best setup priority of the LSPs carried by the message
+     */
+    public PcepEncodedMessage(PcepType type, ChannelBuffer encoded, int lspCount, int setupPriority) {
+        this.type = type;
+        this.encoded = encoded;
+        this.lspCount = lspCount;
+        this.setupPriority = setupPriority;
+    }
+
+    @Override
+    public PcepVersion getVersion() {
+        return PcepVersion.PCEP_1;
+    }
+
+    @Override
+    public PcepType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the number of LSP requests carried by the message.
+     *
+     * @return LSP request count
+     */
+    public int lspCount() {
+        return lspCount;
+    }
+
+    /**
+     * Returns the best (numerically lowest) setup priority of the LSPs carried by the message.
+     *
+     * @return setup priority
+     */
+    public int setupPriority() {
+        return setupPriority;
+    }
+
+    /**
+     * Returns the encoded length of the message.
+     *
+     * @return message length in bytes
+     */
+    public int length() {
+        return encoded.readableBytes();
+    }
+
+    @Override
+    public void writeTo(ChannelBuffer cb) {
+        cb.writeBytes(encoded, encoded.readerIndex(), encoded.readableBytes());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("type", type)
+                .add("length", encoded.readableBytes())
+                .add("lspCount", lspCount)
+                .toString();
+    }
+}
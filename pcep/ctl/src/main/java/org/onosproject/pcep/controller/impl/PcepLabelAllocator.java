@@ -0,0 +1,597 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Labels handed out by the PCE from the label ranges reserved on a pcc.
+ * <p>
+ * Each range is a bitmap of 64 bit words, one bit per label, under a summary
+ * bitmap with one bit per word telling that the word is full. Allocation
+ * skips full words 64 at a time from a cursor and claims the lowest clear bit
+ * of a word with a compare-and-set, so threads allocating labels for
+ * different LSPs never share a lock. The summary is only a hint: a word is
+ * marked full after it fills up and unmarked after a label in it is freed,
+ * each side re-checking the word, so a full word is never left unmarked for
+ * long and a word with free labels is never left marked.
+ * <p>
+ * Blocks of contiguous labels are claimed word by word and rolled back if
+ * another thread took one of their labels first.
+ */
+public class PcepLabelAllocator {
+
+    /**
+     * Returned when no label is available.
+     */
+    public static final int NO_LABEL = -1;
+
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_BITS = 1 << WORD_SHIFT;
+    private static final int WORD_MASK = WORD_BITS - 1;
+    private static final long FULL = -1L;
+
+    // Sorted by label base, replaced as a whole when ranges change
+    private volatile Range[] ranges = new Range[0];
+
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder frees = new LongAdder();
+    private final LongAdder exhaustions = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+
+    /**
+     * Adds a label range reserved on the pcc.
+     *
+     * @param labelType label type of the LABEL-RANGE object
+     * @param labelBase first label of the range
+     * @param rangeSize number of labels in the range
+     * @return true if the range was added, false if the same range is already present
+     */
+    public synchronized boolean addRange(byte labelType, int labelBase, int rangeSize) {
+        checkArgument(labelBase >= 0 && rangeSize > 0 && labelBase + rangeSize > labelBase, "Invalid label range");
+        for (Range r : ranges) {
+            if (r.base == labelBase && r.size == rangeSize && r.labelType == labelType) {
+                return false;
+            }
+            checkArgument(labelBase + rangeSize <= r.base || r.base + r.size <= labelBase,
+                    "Label range overlaps %s", r);
+        }
+        Range[] updated = Arrays.copyOf(ranges, ranges.length + 1);
+        updated[ranges.length] = new Range(labelType, labelBase, rangeSize, null);
+        Arrays.sort(updated, (a, b) -> Integer.compare(a.base, b.base));
+        ranges = updated;
+        return true;
+    }
+
+    /**
+     * Removes a label range, together with the labels allocated from it.
+     *
+     * @param labelBase first label of the range
+     * @return true if the range was present
+     */
+    public synchronized boolean removeRange(int labelBase) {
+        for (int i = 0; i < ranges.length; i++) {
+            if (ranges[i].base == labelBase) {
+                Range[] updated = new Range[ranges.length - 1];
+                System.arraycopy(ranges, 0, updated, 0, i);
+                System.arraycopy(ranges, i + 1, updated, i, updated.length - i);
+                ranges = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Allocates a label from the first range with one available.
+     *
+     * @return label, {@link #NO_LABEL} if every range is full
+     */
+    public int allocate() {
+        for (Range r : ranges) {
+            int label = r.allocate();
+            if (label != NO_LABEL) {
+                allocations.increment();
+                return label;
+            }
+        }
+        exhaustions.increment();
+        return NO_LABEL;
+    }
+
+    /**
+     * Allocates a block of contiguous labels within one range.
+     *
+     * @param count number of labels
+     * @return first label of the block, {@link #NO_LABEL} if no range has such a block
+     */
+    public int allocateBlock(int count) {
+        checkArgument(count > 0, "Invalid block size");
+        for (Range r : ranges) {
+            if (r.size >= count) {
+                int label = r.allocateBlock(count);
+                if (label != NO_LABEL) {
+                    allocations.add(count);
+                    return label;
+                }
+            }
+        }
+        exhaustions.increment();
+        return NO_LABEL;
+    }
+
+    /**
+     * Marks a given label allocated, as for labels learnt from the pcc.
+     *
+     * @param label label
+     * @return true if the label was free, false if allocated or outside the ranges
+     */
+    public boolean reserve(int label) {
+        Range r = rangeOf(label);
+        if (r == null || !r.claim(label - r.base, 1)) {
+            return false;
+        }
+        allocations.increment();
+        return true;
+    }
+
+    /**
+     * Frees a label.
+     *
+     * @param label label
+     * @return true if the label was allocated
+     */
+    public boolean free(int label) {
+        return freeBlock(label, 1) == 1;
+    }
+
+    /**
+     * Frees a block of contiguous labels.
+     *
+     * @param firstLabel first label of the block
+     * @param count number of labels
+     * @return number of labels of the block which were allocated
+     */
+    public int freeBlock(int firstLabel, int count) {
+        Range r = rangeOf(firstLabel);
+        if (r == null || count <= 0) {
+            return 0;
+        }
+        int freed = r.release(firstLabel - r.base, Math.min(count, r.base + r.size - firstLabel));
+        frees.add(freed);
+        return freed;
+    }
+
+    /**
+     * Returns whether a label is allocated.
+     *
+     * @param label label
+     * @return true if the label is in a range and allocated
+     */
+    public boolean isAllocated(int label) {
+        Range r = rangeOf(label);
+        if (r == null) {
+            return false;
+        }
+        int bit = label - r.base;
+        return (r.words.get(bit >>> WORD_SHIFT) & 1L << bit) != 0;
+    }
+
+    private Range rangeOf(int label) {
+        Range[] rs = ranges;
+        int lo = 0;
+        int hi = rs.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rs[mid].base > label) {
+                hi = mid - 1;
+            } else if (label - rs[mid].base >= rs[mid].size) {
+                lo = mid + 1;
+            } else {
+                return rs[mid];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a copy of the ranges and of their allocated labels. Each word
+     * of 64 labels is copied atomically, allocations made while the snapshot
+     * is taken may or may not be in it.
+     *
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        Range[] rs = ranges;
+        List<Snapshot.RangeBits> copies = new ArrayList<>(rs.length);
+        for (Range r : rs) {
+            long[] bits = new long[r.words.length()];
+            for (int w = 0; w < bits.length; w++) {
+                bits[w] = r.words.get(w);
+            }
+            copies.add(new Snapshot.RangeBits(r.labelType, r.base, r.size, bits));
+        }
+        return new Snapshot(copies);
+    }
+
+    /**
+     * Replaces the ranges and allocated labels with those of a snapshot, as
+     * when the PCE recovers the state of the pcc. Allocations running while
+     * the snapshot is restored are lost.
+     *
+     * @param snapshot snapshot taken from this or another allocator
+     */
+    public synchronized void restore(Snapshot snapshot) {
+        Range[] restored = new Range[snapshot.ranges.size()];
+        for (int i = 0; i < restored.length; i++) {
+            Snapshot.RangeBits r = snapshot.ranges.get(i);
+            restored[i] = new Range(r.labelType, r.base, r.size, r.bits);
+        }
+        ranges = restored;
+    }
+
+    /**
+     * Returns the number of labels in all ranges.
+     *
+     * @return label count
+     */
+    public long capacity() {
+        long n = 0;
+        for (Range r : ranges) {
+            n += r.size;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of allocated labels, counting the bitmaps.
+     *
+     * @return allocated label count
+     */
+    public long allocatedCount() {
+        long n = 0;
+        for (Range r : ranges) {
+            n += r.allocatedCount();
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of labels allocated, one per label of a block.
+     *
+     * @return allocation count
+     */
+    public long allocationCount() {
+        return allocations.sum();
+    }
+
+    /**
+     * Returns the number of labels freed.
+     *
+     * @return free count
+     */
+    public long freeCount() {
+        return frees.sum();
+    }
+
+    /**
+     * Returns the number of allocations which found no label.
+     *
+     * @return exhaustion count
+     */
+    public long exhaustionCount() {
+        return exhaustions.sum();
+    }
+
+    /**
+     * Returns the number of compare-and-set retries on a label word.
+     *
+     * @return retry count
+     */
+    public long casRetryCount() {
+        return casRetries.sum();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("ranges", Arrays.toString(ranges))
+                .add("allocations", allocations.sum())
+                .add("frees", frees.sum())
+                .add("exhaustions", exhaustions.sum())
+                .toString();
+    }
+
+    /*
+     * Bitmap of one label range. Bits past the end of the range are set, so
+     * that the last word fills up like the others.
+     */
+    private final class Range {
+        final byte labelType;
+        final int base;
+        final int size;
+        final AtomicLongArray words;
+        final AtomicLongArray full;
+        final AtomicInteger cursor = new AtomicInteger();
+
+        Range(byte labelType, int base, int size, long[] bits) {
+            this.labelType = labelType;
+            this.base = base;
+            this.size = size;
+            int nWords = (size + WORD_MASK) >>> WORD_SHIFT;
+            long[] initial = bits == null ? new long[nWords] : bits.clone();
+            if ((size & WORD_MASK) != 0) {
+                initial[nWords - 1] |= FULL << (size & WORD_MASK);
+            }
+            long[] summary = new long[(nWords + WORD_MASK) >>> WORD_SHIFT];
+            for (int w = 0; w < nWords; w++) {
+                if (initial[w] == FULL) {
+                    summary[w >>> WORD_SHIFT] |= 1L << w;
+                }
+            }
+            if ((nWords & WORD_MASK) != 0) {
+                summary[summary.length - 1] |= FULL << (nWords & WORD_MASK);
+            }
+            this.words = new AtomicLongArray(initial);
+            this.full = new AtomicLongArray(summary);
+        }
+
+        int allocate() {
+            int n = full.length();
+            int start = cursor.get();
+            for (int i = 0; i < n; i++) {
+                int s = start + i < n ? start + i : start + i - n;
+                long summary = full.get(s);
+                while (summary != FULL) {
+                    int w = s << WORD_SHIFT | Long.numberOfTrailingZeros(~summary);
+                    int bit = claimAny(w);
+                    if (bit >= 0) {
+                        if (s != start) {
+                            cursor.set(s);
+                        }
+                        return base + (w << WORD_SHIFT | bit);
+                    }
+                    summary |= 1L << w;
+                }
+            }
+            return NO_LABEL;
+        }
+
+        /*
+         * Claims the lowest clear bit of a word, returns -1 if the word is full.
+         */
+        int claimAny(int w) {
+            while (true) {
+                long v = words.get(w);
+                if (v == FULL) {
+                    markFull(w);
+                    return -1;
+                }
+                long bit = Long.lowestOneBit(~v);
+                if (words.compareAndSet(w, v, v | bit)) {
+                    if ((v | bit) == FULL) {
+                        markFull(w);
+                    }
+                    return Long.numberOfTrailingZeros(bit);
+                }
+                casRetries.increment();
+            }
+        }
+
+        int allocateBlock(int count) {
+            int nWords = words.length();
+            int runStart = 0;
+            int runLength = 0;
+            int w = 0;
+            while (w < nWords) {
+                if ((w & WORD_MASK) == 0 && full.get(w >>> WORD_SHIFT) == FULL) {
+                    // 64 full words
+                    w += WORD_BITS;
+                    runStart = w << WORD_SHIFT;
+                    runLength = 0;
+                    continue;
+                }
+                long v = words.get(w);
+                int pos = 0;
+                while (pos < WORD_BITS) {
+                    long rest = v >>> pos;
+                    if ((rest & 1) == 0) {
+                        int clear = rest == 0 ? WORD_BITS - pos : Long.numberOfTrailingZeros(rest);
+                        runLength += clear;
+                        pos += clear;
+                        if (runLength >= count) {
+                            if (claim(runStart, count)) {
+                                return base + runStart;
+                            }
+                            // Lost a race, look again from the word of the block start
+                            w = (runStart >>> WORD_SHIFT) - 1;
+                            runLength = 0;
+                            runStart = (w + 1) << WORD_SHIFT;
+                            break;
+                        }
+                    } else {
+                        int set = Math.min(WORD_BITS - pos, Long.numberOfTrailingZeros(~rest));
+                        pos += set;
+                        runStart = w << WORD_SHIFT | pos;
+                        runLength = 0;
+                    }
+                }
+                w++;
+                if (runLength == 0) {
+                    runStart = w << WORD_SHIFT;
+                }
+            }
+            return NO_LABEL;
+        }
+
+        /*
+         * Claims labels first to first + count - 1 of the range, all or none.
+         */
+        boolean claim(int first, int count) {
+            int end = first + count;
+            int w = first >>> WORD_SHIFT;
+            while (w << WORD_SHIFT < end) {
+                long mask = mask(w, first, end);
+                while (true) {
+                    long v = words.get(w);
+                    if ((v & mask) != 0) {
+                        if (w << WORD_SHIFT > first) {
+                            release(first, (w << WORD_SHIFT) - first);
+                        }
+                        return false;
+                    }
+                    if (words.compareAndSet(w, v, v | mask)) {
+                        if ((v | mask) == FULL) {
+                            markFull(w);
+                        }
+                        break;
+                    }
+                    casRetries.increment();
+                }
+                w++;
+            }
+            return true;
+        }
+
+        /*
+         * Clears labels first to first + count - 1 of the range, returns how many were set.
+         */
+        int release(int first, int count) {
+            int end = first + count;
+            int freed = 0;
+            int w = first >>> WORD_SHIFT;
+            while (w << WORD_SHIFT < end) {
+                long mask = mask(w, first, end);
+                while (true) {
+                    long v = words.get(w);
+                    if ((v & mask) == 0) {
+                        break;
+                    }
+                    if (words.compareAndSet(w, v, v & ~mask)) {
+                        freed += Long.bitCount(v & mask);
+                        if (v == FULL) {
+                            clearFull(w);
+                        }
+                        break;
+                    }
+                    casRetries.increment();
+                }
+                w++;
+            }
+            return freed;
+        }
+
+        void markFull(int w) {
+            int s = w >>> WORD_SHIFT;
+            long bit = 1L << w;
+            long v;
+            do {
+                v = full.get(s);
+            } while ((v & bit) == 0 && !full.compareAndSet(s, v, v | bit));
+            if (words.get(w) != FULL) {
+                // A label was freed meanwhile
+                clearFull(w);
+            }
+        }
+
+        void clearFull(int w) {
+            int s = w >>> WORD_SHIFT;
+            long bit = 1L << w;
+            long v;
+            do {
+                v = full.get(s);
+            } while ((v & bit) != 0 && !full.compareAndSet(s, v, v & ~bit));
+            if (s < cursor.get()) {
+                cursor.set(s);
+            }
+        }
+
+        long allocatedCount() {
+            long n = 0;
+            for (int w = 0; w < words.length(); w++) {
+                n += Long.bitCount(words.get(w));
+            }
+            return n - ((long) words.length() << WORD_SHIFT) + size;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper("Range")
+                    .add("labelType", labelType)
+                    .add("labelBase", base)
+                    .add("rangeSize", size)
+                    .toString();
+        }
+    }
+
+    private static long mask(int w, int first, int end) {
+        int lo = Math.max(first - (w << WORD_SHIFT), 0);
+        int hi = Math.min(end - (w << WORD_SHIFT), WORD_BITS);
+        long upper = hi == WORD_BITS ? FULL : (1L << hi) - 1;
+        return upper & FULL << lo;
+    }
+
+    /**
+     * Copy of the label ranges of an allocator and of their allocated labels.
+     */
+    public static final class Snapshot {
+        private final List<RangeBits> ranges;
+
+        private Snapshot(List<RangeBits> ranges) {
+            this.ranges = Collections.unmodifiableList(ranges);
+        }
+
+        /**
+         * Returns the number of allocated labels in the snapshot.
+         *
+         * @return allocated label count
+         */
+        public long allocatedCount() {
+            long n = 0;
+            for (RangeBits r : ranges) {
+                for (long word : r.bits) {
+                    n += Long.bitCount(word);
+                }
+                n -= ((long) r.bits.length << WORD_SHIFT) - r.size;
+            }
+            return n;
+        }
+
+        private static final class RangeBits {
+            final byte labelType;
+            final int base;
+            final int size;
+            final long[] bits;
+
+            RangeBits(byte labelType, int base, int size, long[] bits) {
+                this.labelType = labelType;
+                this.base = base;
+                this.size = size;
+                this.bits = bits;
+            }
+        }
+    }
+}
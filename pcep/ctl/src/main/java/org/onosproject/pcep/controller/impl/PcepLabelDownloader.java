@@ -0,0 +1,586 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onlab.util.Tools.groupedThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcep.controller.PcepClient;
+import org.onosproject.pcep.controller.PcepClientController;
+import org.onosproject.pcepio.protocol.PcepLabelUpdate;
+import org.onosproject.pcepio.protocol.PcepSrpObject;
+import org.onosproject.pcepio.protocol.PcepStateReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Downloads the PCECC labels of many LSPs in dependency order.
+ * <p>
+ * The label operations of an LSP are given from the egress toward the
+ * ingress. A download runs in stages: stage k holds the k-th operation of
+ * every LSP still alive, grouped per pcc and packed into as few PCLabelUpd
+ * messages as possible, which are sent to all pccs at once. The next stage
+ * starts once every operation of the stage is acknowledged or has failed, so
+ * no pcc programs a label before its downstream neighbour. An LSP with a
+ * failed operation takes no part in later stages.
+ * <p>
+ * A label download is acknowledged by the PCRpt carrying the SRP-ID of its
+ * SRP object; label maps, and downloads with SRP-ID 0, are acknowledged once
+ * written to the session. Operations not acknowledged within the timeout
+ * fail.
+ */
+public class PcepLabelDownloader {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepLabelDownloader.class);
+
+    private final PcepClientController controller;
+    private final long ackTimeoutMillis;
+
+    private ScheduledExecutorService timer;
+
+    // Operations waiting for their PCRpt, by pcc and SRP-ID
+    private final Map<AckKey, Operation> awaitingReport = new ConcurrentHashMap<>();
+
+    private final LongAdder downloads = new LongAdder();
+    private final LongAdder downloadedLsps = new LongAdder();
+    private final LongAdder failedLsps = new LongAdder();
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder sentOperations = new LongAdder();
+    private final LongAdder timedOutOperations = new LongAdder();
+
+    /**
+     * Creates label downloader.
+     *
+     * @param controller controller owning the pcc sessions
+     * @param ackTimeoutMillis time a stage waits for the acknowledgement of an operation
+     */
+    public PcepLabelDownloader(PcepClientController controller, long ackTimeoutMillis) {
+        checkArgument(ackTimeoutMillis > 0, "Invalid acknowledgement timeout");
+        this.controller = controller;
+        this.ackTimeoutMillis = ackTimeoutMillis;
+    }
+
+    /**
+     * Starts the acknowledgement timer.
+     */
+    public synchronized void start() {
+        timer = Executors.newSingleThreadScheduledExecutor(groupedThreads("onos/pcep", "label-download"));
+    }
+
+    /**
+     * Stops the downloader, operations waiting for an acknowledgement fail.
+     */
+    public void stop() {
+        ScheduledExecutorService t;
+        synchronized (this) {
+            t = timer;
+            timer = null;
+        }
+        if (t != null) {
+            t.shutdownNow();
+        }
+        for (Operation op : awaitingReport.values()) {
+            op.fail("Label downloader stopped");
+        }
+    }
+
+    /**
+     * Downloads the labels of LSPs.
+     *
+     * @param lsps label operations of each LSP, from the egress toward the ingress
+     * @return future completed with the result of each LSP, in the given order
+     */
+    public CompletableFuture<List<Result>> download(Collection<List<LabelOperation>> lsps) {
+        Download d = new Download(new ArrayList<>(lsps));
+        downloads.increment();
+        d.nextStage();
+        return d.future;
+    }
+
+    /**
+     * Acknowledges the operations whose SRP-ID a pcc reported.
+     *
+     * @param pccId pcc which sent the reports
+     * @param reports state reports of a PCRpt message
+     */
+    public void onReport(PccId pccId, List<PcepStateReport> reports) {
+        if (awaitingReport.isEmpty()) {
+            return;
+        }
+        for (PcepStateReport report : reports) {
+            PcepSrpObject srp = report.getSrpObject();
+            if (srp != null && srp.getSrpID() != 0) {
+                Operation op = awaitingReport.remove(new AckKey(pccId, srp.getSrpID()));
+                if (op != null) {
+                    op.acknowledge();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails the operations waiting for an acknowledgement from a pcc.
+     *
+     * @param pccId pcc whose session went down
+     */
+    public void removeClient(PccId pccId) {
+        for (Map.Entry<AckKey, Operation> entry : awaitingReport.entrySet()) {
+            if (entry.getKey().pccId.equals(pccId)) {
+                entry.getValue().fail("PCC " + pccId + " disconnected");
+            }
+        }
+    }
+
+    private static int srpId(PcepLabelUpdate update) {
+        PcepSrpObject srp = update.getLabelDownload() != null ? update.getLabelDownload().getSrpObject()
+                : update.getLabelMap() != null ? update.getLabelMap().getSrpObject() : null;
+        return srp == null ? 0 : srp.getSrpID();
+    }
+
+    /**
+     * Returns the number of downloads started.
+     *
+     * @return download count
+     */
+    public long downloadCount() {
+        return downloads.sum();
+    }
+
+    /**
+     * Returns the number of LSPs whose labels were all acknowledged.
+     *
+     * @return downloaded LSP count
+     */
+    public long downloadedLspCount() {
+        return downloadedLsps.sum();
+    }
+
+    /**
+     * Returns the number of LSPs with a failed label operation.
+     *
+     * @return failed LSP count
+     */
+    public long failedLspCount() {
+        return failedLsps.sum();
+    }
+
+    /**
+     * Returns the number of PCLabelUpd messages sent.
+     *
+     * @return sent message count
+     */
+    public long sentMessageCount() {
+        return sentMessages.sum();
+    }
+
+    /**
+     * Returns the number of label operations sent.
+     *
+     * @return sent operation count
+     */
+    public long sentOperationCount() {
+        return sentOperations.sum();
+    }
+
+    /**
+     * Returns the number of label operations which were not acknowledged in time.
+     *
+     * @return timed out operation count
+     */
+    public long timedOutOperationCount() {
+        return timedOutOperations.sum();
+    }
+
+    /**
+     * Download of the labels of a set of LSPs, one stage at a time.
+     */
+    private final class Download {
+        private final List<List<LabelOperation>> lsps;
+        private final String[] failures;
+        private final int[] completedStages;
+        private final CompletableFuture<List<Result>> future = new CompletableFuture<>();
+        private int stage;
+
+        private Download(List<List<LabelOperation>> lsps) {
+            this.lsps = lsps;
+            this.failures = new String[lsps.size()];
+            this.completedStages = new int[lsps.size()];
+        }
+
+        /*
+         * Sends the next stage, or completes the download if no LSP has one.
+         */
+        private void nextStage() {
+            int count = 0;
+            for (int i = 0; i < lsps.size(); i++) {
+                if (failures[i] == null && stage < lsps.get(i).size()) {
+                    count++;
+                }
+            }
+            if (count == 0) {
+                finish();
+                return;
+            }
+
+            // operations hold their stage from construction, before the
+            // timeout or an acknowledgement can complete them
+            Stage s = new Stage(count);
+            Map<PccId, List<Operation>> byPcc = new LinkedHashMap<>();
+            for (int i = 0; i < lsps.size(); i++) {
+                if (failures[i] == null && stage < lsps.get(i).size()) {
+                    LabelOperation lo = lsps.get(i).get(stage);
+                    List<Operation> ops = byPcc.get(lo.pccId());
+                    if (ops == null) {
+                        ops = new ArrayList<>();
+                        byPcc.put(lo.pccId(), ops);
+                    }
+                    ops.add(new Operation(this, s, i, lo));
+                }
+            }
+            ScheduledExecutorService t = timer;
+            if (t != null) {
+                try {
+                    s.timeout = t.schedule(() -> s.expire(byPcc.values()), ackTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Label downloader is stopping");
+                }
+            }
+            for (Map.Entry<PccId, List<Operation>> entry : byPcc.entrySet()) {
+                send(entry.getKey(), entry.getValue());
+            }
+        }
+
+        /*
+         * Called once all operations of the current stage are done.
+         */
+        private void stageDone(Stage s) {
+            if (s.timeout != null) {
+                s.timeout.cancel(false);
+            }
+            synchronized (this) {
+                for (int i = 0; i < lsps.size(); i++) {
+                    if (failures[i] == null && stage < lsps.get(i).size()) {
+                        completedStages[i]++;
+                    }
+                }
+                stage++;
+            }
+            nextStage();
+        }
+
+        private synchronized void fail(int lsp, String reason) {
+            if (failures[lsp] == null) {
+                failures[lsp] = reason;
+                failedLsps.increment();
+            }
+        }
+
+        private void finish() {
+            Result[] results = new Result[lsps.size()];
+            synchronized (this) {
+                for (int i = 0; i < results.length; i++) {
+                    results[i] = new Result(completedStages[i], failures[i]);
+                    if (failures[i] == null) {
+                        downloadedLsps.increment();
+                    }
+                }
+            }
+            future.complete(Arrays.asList(results));
+        }
+    }
+
+    /*
+     * Packs the operations of a stage for one pcc and sends them.
+     */
+    private void send(PccId pccId, List<Operation> ops) {
+        PcepClient pc = controller.getClient(pccId);
+        if (pc == null || !pc.isConnected()) {
+            for (Operation op : ops) {
+                op.fail("PCC " + pccId + " is not connected");
+            }
+            return;
+        }
+
+        List<PcepLabelUpdate> updates = new ArrayList<>(ops.size());
+        for (Operation op : ops) {
+            updates.add(op.lo.update());
+        }
+        String[] failures = new String[ops.size()];
+        PcepLspBatcher batcher = new PcepLspBatcher(pc.factory(), PcepLspBatcher.MAX_MESSAGE_LENGTH);
+        List<PcepLspBatcher.Batch> batches = batcher.packLabelUpdates(updates, failures);
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                ops.get(i).fail(failures[i]);
+            }
+        }
+        log.debug("Sending {} label updates to {} in {} messages", ops.size(), pccId, batches.size());
+
+        for (final PcepLspBatcher.Batch batch : batches) {
+            // Register before sending, the PCRpt may come back before the write completes
+            for (int i : batch.intentIndexes()) {
+                Operation op = ops.get(i);
+                if (op.awaitsReport()) {
+                    awaitingReport.put(new AckKey(pccId, op.srpId), op);
+                }
+            }
+            CompletableFuture<Void> sent;
+            try {
+                sent = pc.sendMessage(batch.message());
+            } catch (RejectedExecutionException e) {
+                sent = new CompletableFuture<>();
+                sent.completeExceptionally(e);
+            }
+            sent.whenComplete((v, e) -> {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                if (cause == null) {
+                    sentMessages.increment();
+                    sentOperations.add(batch.intentIndexes().size());
+                }
+                for (int i : batch.intentIndexes()) {
+                    Operation op = ops.get(i);
+                    if (cause != null) {
+                        op.fail(String.valueOf(cause.getMessage()));
+                    } else if (!op.awaitsReport()) {
+                        op.acknowledge();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Operations of a stage still outstanding.
+     */
+    private static final class Stage {
+        private final AtomicInteger outstanding;
+        private volatile ScheduledFuture<?> timeout;
+
+        private Stage(int count) {
+            this.outstanding = new AtomicInteger(count);
+        }
+
+        private void expire(Collection<List<Operation>> ops) {
+            for (List<Operation> list : ops) {
+                for (Operation op : list) {
+                    if (op.timeOut()) {
+                        log.debug("Label update to {} with SRP-ID {} was not acknowledged", op.lo.pccId(), op.srpId);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Label operation of one LSP in a stage, completed once.
+     */
+    private final class Operation {
+        private final Download download;
+        private final int lsp;
+        private final LabelOperation lo;
+        private final int srpId;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final Stage stage;
+
+        private Operation(Download download, Stage stage, int lsp, LabelOperation lo) {
+            this.download = download;
+            this.stage = stage;
+            this.lsp = lsp;
+            this.lo = lo;
+            this.srpId = srpId(lo.update());
+        }
+
+        private boolean awaitsReport() {
+            return srpId != 0 && lo.update().getLabelDownload() != null;
+        }
+
+        private void acknowledge() {
+            if (done.compareAndSet(false, true)) {
+                complete();
+            }
+        }
+
+        private void fail(String reason) {
+            if (done.compareAndSet(false, true)) {
+                download.fail(lsp, reason);
+                complete();
+            }
+        }
+
+        private boolean timeOut() {
+            if (done.compareAndSet(false, true)) {
+                timedOutOperations.increment();
+                download.fail(lsp, "Label update to " + lo.pccId() + " was not acknowledged");
+                complete();
+                return true;
+            }
+            return false;
+        }
+
+        private void complete() {
+            awaitingReport.remove(new AckKey(lo.pccId(), srpId), this);
+            if (stage.outstanding.decrementAndGet() == 0) {
+                download.stageDone(stage);
+            }
+        }
+    }
+
+    /**
+     * SRP-ID of an operation, scoped to its pcc.
+     */
+    private static final class AckKey {
+        private final PccId pccId;
+        private final int srpId;
+
+        private AckKey(PccId pccId, int srpId) {
+            this.pccId = pccId;
+            this.srpId = srpId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pccId, srpId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof AckKey) {
+                AckKey other = (AckKey) obj;
+                return srpId == other.srpId && Objects.equals(pccId, other.pccId);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * PCECC label update to send to a pcc.
+     */
+    public static final class LabelOperation {
+        private final PccId pccId;
+        private final PcepLabelUpdate update;
+
+        /**
+         * Creates label operation.
+         *
+         * @param pccId pcc the update is sent to
+         * @param update label download or label map, with its SRP object
+         */
+        public LabelOperation(PccId pccId, PcepLabelUpdate update) {
+            this.pccId = checkNotNull(pccId);
+            this.update = checkNotNull(update);
+        }
+
+        /**
+         * Returns the pcc the update is sent to.
+         *
+         * @return pcc id
+         */
+        public PccId pccId() {
+            return pccId;
+        }
+
+        /**
+         * Returns the label update.
+         *
+         * @return label update
+         */
+        public PcepLabelUpdate update() {
+            return update;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("pccId", pccId)
+                    .add("update", update)
+                    .toString();
+        }
+    }
+
+    /**
+     * Outcome of the label download of one LSP.
+     */
+    public static final class Result {
+        private final int completedStages;
+        private final String reason;
+
+        private Result(int completedStages, String reason) {
+            this.completedStages = completedStages;
+            this.reason = reason;
+        }
+
+        /**
+         * Returns whether every label operation of the LSP was acknowledged.
+         *
+         * @return true if downloaded
+         */
+        public boolean isDownloaded() {
+            return reason == null;
+        }
+
+        /**
+         * Returns the number of operations of the LSP acknowledged, from the egress.
+         *
+         * @return acknowledged operation count
+         */
+        public int completedStages() {
+            return completedStages;
+        }
+
+        /**
+         * Returns the cause of the failure.
+         *
+         * @return reason, null if downloaded
+         */
+        public String reason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .omitNullValues()
+                    .add("completedStages", completedStages)
+                    .add("reason", reason)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.onosproject.pcep.controller.PcepLspIntent;
+import org.onosproject.pcep.controller.PcepLspResult;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcInitiatedLspRequest;
+import org.onosproject.pcepio.protocol.PcepFactory;
+import org.onosproject.pcepio.protocol.PcepLabelUpdate;
+import org.onosproject.pcepio.protocol.PcepMessage;
+import org.onosproject.pcepio.protocol.PcepType;
+import org.onosproject.pcepio.protocol.PcepUpdateRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Packs LSP intents into as few PCInitiate and PCUpd messages, and PCECC
+ * label updates into as few PCLabelUpd messages, as the PCEP length field
+ * allows.
+ * <p>
+ * Each LSP request is encoded once into a reused scratch buffer and its bytes,
+ * without the common header, are appended to the message being packed. All
+ * messages of one call share a single backing buffer. Intents are packed in
+ * order; a new message starts when the message type changes or the next
+ * request does not fit. Not thread safe, use one batcher per call.
+ */
+public class PcepLspBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepLspBatcher.class);
+
+    /**
+     * Largest message length which fits into the 16 bit length field of the common header.
+     */
+    public static final int MAX_MESSAGE_LENGTH = 0xFFFF;
+
+    private static final int COMMON_HEADER_LENGTH = 4;
+    private static final int LENGTH_INDEX = 2;
+    private static final int SCRATCH_SIZE = 1024;
+    // Rough size of an encoded LSP request, used to size the shared buffer
+    private static final int ESTIMATED_REQUEST_LENGTH = 128;
+
+    private final PcepFactory factory;
+    private final int maxMessageLength;
+    private final ChannelBuffer scratch = ChannelBuffers.dynamicBuffer(SCRATCH_SIZE);
+
+    private ChannelBuffer arena;
+    private PcepType msgType;
+    private int msgStart;
+    private int msgSetupPriority;
+    private List<Integer> msgIntents;
+    private List<Batch> batches;
+
+    /**
+     * Creates batcher.
+     *
+     * @param factory PCEP factory of the session
+     * @param maxMessageLength largest message to build, at most {@link #MAX_MESSAGE_LENGTH}
+     */
+    public PcepLspBatcher(PcepFactory factory, int maxMessageLength) {
+        checkArgument(maxMessageLength > COMMON_HEADER_LENGTH && maxMessageLength <= MAX_MESSAGE_LENGTH,
+                      "Invalid maximum message length " + maxMessageLength);
+        this.factory = factory;
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * Packs the intents into messages. Intents which cannot be encoded get a
+     * {@link PcepLspResult.Status#FAILED} result, the others are part of exactly one batch.
+     *
+     * @param intents LSP intents
+     * @param results result per intent, filled for failed intents
+     * @return packed messages in sending order
+     */
+    public List<Batch> pack(List<PcepLspIntent> intents, PcepLspResult[] results) {
+        begin(intents.size());
+        for (int i = 0; i < intents.size(); i++) {
+            PcepLspIntent intent = intents.get(i);
+            try {
+                int bodyLength = append(i, singleRequestMessage(intent));
+                if (bodyLength >= 0) {
+                    results[i] = new PcepLspResult(intent, PcepLspResult.Status.FAILED,
+                            "LSP request of " + bodyLength + " bytes does not fit into a PCEP message");
+                }
+            } catch (PcepParseException e) {
+                log.warn("Failed to encode {} LSP request: {}", intent.type(), e.getMessage());
+                results[i] = new PcepLspResult(intent, PcepLspResult.Status.FAILED, e.getMessage());
+            }
+        }
+        return end();
+    }
+
+    /**
+     * Packs PCECC label updates into PCLabelUpd messages. Updates which
+     * cannot be encoded get a failure reason, the others are part of exactly
+     * one batch.
+     *
+     * @param updates label updates
+     * @param failures failure reason per update, filled for failed updates
+     * @return packed messages in sending order
+     */
+    public List<Batch> packLabelUpdates(List<PcepLabelUpdate> updates, String[] failures) {
+        begin(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            LinkedList<PcepLabelUpdate> llPcLabelUpdateList = new LinkedList<>();
+            llPcLabelUpdateList.add(updates.get(i));
+            try {
+                int bodyLength = append(i, factory.buildPcepLabelUpdateMsg()
+                        .setPcLabelUpdateList(llPcLabelUpdateList).build());
+                if (bodyLength >= 0) {
+                    failures[i] = "Label update of " + bodyLength + " bytes does not fit into a PCEP message";
+                }
+            } catch (PcepParseException e) {
+                log.warn("Failed to encode label update: {}", e.getMessage());
+                failures[i] = e.getMessage();
+            }
+        }
+        return end();
+    }
+
+    private void begin(int count) {
+        arena = ChannelBuffers.dynamicBuffer(Math.max(SCRATCH_SIZE, count * ESTIMATED_REQUEST_LENGTH));
+        batches = new ArrayList<>();
+        msgType = null;
+    }
+
+    /*
+     * Appends the body of a message holding one request to the message being
+     * packed. Returns -1 once appended, or the body length if it does not fit
+     * into any message.
+     */
+    private int append(int index, PcepMessage single) throws PcepParseException {
+        scratch.clear();
+        single.writeTo(scratch);
+
+        int bodyLength = scratch.readableBytes() - COMMON_HEADER_LENGTH;
+        if (COMMON_HEADER_LENGTH + bodyLength > maxMessageLength) {
+            return bodyLength;
+        }
+
+        if (msgType != null && (msgType != single.getType()
+                || arena.writerIndex() - msgStart + bodyLength > maxMessageLength)) {
+            finishMessage();
+        }
+        if (msgType == null) {
+            startMessage(single.getType());
+        }
+
+        arena.writeBytes(scratch, COMMON_HEADER_LENGTH, bodyLength);
+        msgIntents.add(index);
+        msgSetupPriority = Math.min(msgSetupPriority, PcepOutboundPacer.setupPriority(single));
+        return -1;
+    }
+
+    private List<Batch> end() {
+        if (msgType != null) {
+            finishMessage();
+        }
+        List<Batch> packed = batches;
+        batches = null;
+        arena = null;
+        return packed;
+    }
+
+    private PcepMessage singleRequestMessage(PcepLspIntent intent) throws PcepParseException {
+        if (intent.type() == PcepLspIntent.Type.UPDATE) {
+            LinkedList<PcepUpdateRequest> llUpdateRequestList = new LinkedList<>();
+            llUpdateRequestList.add(intent.updateRequest());
+            return factory.buildUpdateMsg().setUpdateRequestList(llUpdateRequestList).build();
+        }
+        LinkedList<PcInitiatedLspRequest> llPcInitiatedLspRequestList = new LinkedList<>();
+        llPcInitiatedLspRequestList.add(intent.initiateRequest());
+        return factory.buildPcepInitiateMsg().setPcInitiatedLspRequestList(llPcInitiatedLspRequestList).build();
+    }
+
+    private void startMessage(PcepType type) {
+        msgType = type;
+        msgStart = arena.writerIndex();
+        msgSetupPriority = PcepOutboundPacer.DEFAULT_SETUP_PRIORITY;
+        msgIntents = new ArrayList<>();
+        // Version and type come from the single request message, the length is set once the message is complete.
+        arena.writeBytes(scratch, 0, COMMON_HEADER_LENGTH);
+    }
+
+    private void finishMessage() {
+        int length = arena.writerIndex() - msgStart;
+        arena.setShort(msgStart + LENGTH_INDEX, length);
+        PcepEncodedMessage msg = new PcepEncodedMessage(msgType, arena.slice(msgStart, length), msgIntents.size(),
+                msgSetupPriority);
+        batches.add(new Batch(msg, msgIntents));
+        msgType = null;
+        msgIntents = null;
+    }
+
+    /**
+     * Packed message and the intents it carries.
+     */
+    public static final class Batch {
+        private final PcepEncodedMessage message;
+        private final List<Integer> intentIndexes;
+
+        private Batch(PcepEncodedMessage message, List<Integer> intentIndexes) {
+            this.message = message;
+            this.intentIndexes = intentIndexes;
+        }
+
+        /**
+         * Returns the packed message.
+         *
+         * @return PCInitiate, PCUpd or PCLabelUpd message
+         */
+        public PcepEncodedMessage message() {
+            return message;
+        }
+
+        /**
+         * Returns the positions of the carried intents or label updates in the packed list.
+         *
+         * @return intent indexes
+         */
+        public List<Integer> intentIndexes() {
+            return intentIndexes;
+        }
+    }
+}
@@ -0,0 +1,527 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.onlab.packet.IpAddress;
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcepio.protocol.PcepEroObject;
+import org.onosproject.pcepio.protocol.PcepLspObject;
+import org.onosproject.pcepio.protocol.PcepNai;
+import org.onosproject.pcepio.protocol.PcepRroObject;
+import org.onosproject.pcepio.protocol.PcepStateReport;
+import org.onosproject.pcepio.types.IPv4SubObject;
+import org.onosproject.pcepio.types.PackedPath;
+import org.onosproject.pcepio.types.PcepNaiIpv4Adjacency;
+import org.onosproject.pcepio.types.PcepNaiIpv4NodeId;
+import org.onosproject.pcepio.types.PcepNaiUnnumberedAdjacencyIpv4;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.onosproject.pcepio.types.SrEroSubObject;
+import org.onosproject.pcepio.types.StatefulIPv4LspIdentifiersTlv;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Reverse index from the hops of reported LSPs to the LSPs.
+ * <p>
+ * Every LSP reported by a pcc is indexed by the IPv4 addresses and unnumbered
+ * interfaces found in its ERO and RRO, so the LSPs crossing a failed link are
+ * found in time proportional to their number. Label subobjects only qualify
+ * the hop before them and are not indexed. Hops are extracted once per
+ * interned route and shared by all LSPs reported over it.
+ */
+public class PcepLspPathIndex {
+
+    private final Map<PccId, Map<Integer, IndexedLsp>> lsps = new HashMap<>();
+    private final Map<Integer, Set<IndexedLsp>> byAddress = new HashMap<>();
+    private final Map<Long, Set<IndexedLsp>> byUnnumbered = new HashMap<>();
+    // weak keys compare by identity, which is equality for interned paths
+    private final Map<PackedPath, PathHops> pathHops = new MapMaker().weakKeys().makeMap();
+    private int size;
+
+    /**
+     * Indexes the LSP of the state report, replacing the previous report of
+     * the same LSP. A report with the R flag set removes the LSP.
+     *
+     * @param pccId pcc which sent the report
+     * @param report state report
+     * @return indexed LSP, null if the report removed the LSP or carries no LSP
+     */
+    public synchronized IndexedLsp update(PccId pccId, PcepStateReport report) {
+        PcepLspObject lspObj = report.getLspObject();
+        if (lspObj == null || lspObj.getPlspId() == 0) {
+            return null;
+        }
+
+        Map<Integer, IndexedLsp> pccLsps = lsps.get(pccId);
+        IndexedLsp old = pccLsps == null ? null : pccLsps.get(lspObj.getPlspId());
+        if (old != null) {
+            unindex(old);
+        }
+        if (lspObj.getRFlag()) {
+            if (old != null) {
+                pccLsps.remove(lspObj.getPlspId());
+                size--;
+                if (pccLsps.isEmpty()) {
+                    lsps.remove(pccId);
+                }
+            }
+            return null;
+        }
+
+        PcepStateReport.PcepMsgPath msgPath = report.getMsgPath();
+        PathHops eroHops = PathHops.EMPTY;
+        PathHops rroHops = PathHops.EMPTY;
+        if (msgPath != null) {
+            PcepEroObject ero = msgPath.getEroObject();
+            if (ero != null) {
+                eroHops = hops(ero.getPath(), ero::getSubObjects);
+            }
+            PcepRroObject rro = msgPath.getRroObject();
+            if (rro != null) {
+                rroHops = hops(rro.getPath(), rro::getSubObjects);
+            }
+        }
+        IndexedLsp lsp = new IndexedLsp(pccId, report, eroHops, rroHops);
+        if (pccLsps == null) {
+            pccLsps = new HashMap<>();
+            lsps.put(pccId, pccLsps);
+        }
+        if (pccLsps.put(lsp.plspId(), lsp) == null) {
+            size++;
+        }
+        index(lsp);
+        return lsp;
+    }
+
+    /**
+     * Returns the indexed LSP.
+     *
+     * @param pccId pcc owning the LSP
+     * @param plspId PLSP-ID of the LSP
+     * @return indexed LSP, null if unknown
+     */
+    public synchronized IndexedLsp lsp(PccId pccId, int plspId) {
+        Map<Integer, IndexedLsp> pccLsps = lsps.get(pccId);
+        return pccLsps == null ? null : pccLsps.get(plspId);
+    }
+
+    /**
+     * Returns the LSPs of the pcc.
+     *
+     * @param pccId pcc id
+     * @return indexed LSPs of the pcc
+     */
+    public synchronized List<IndexedLsp> lsps(PccId pccId) {
+        Map<Integer, IndexedLsp> pccLsps = lsps.get(pccId);
+        return pccLsps == null ? Collections.emptyList() : new ArrayList<>(pccLsps.values());
+    }
+
+    /**
+     * Returns the LSPs of all pccs which are delegated to the PCE.
+     *
+     * @return delegated LSPs
+     */
+    public synchronized List<IndexedLsp> delegatedLsps() {
+        List<IndexedLsp> result = new ArrayList<>();
+        for (Map<Integer, IndexedLsp> pccLsps : lsps.values()) {
+            for (IndexedLsp lsp : pccLsps.values()) {
+                if (lsp.isDelegated()) {
+                    result.add(lsp);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops all LSPs of the pcc.
+     *
+     * @param pccId pcc whose session went down
+     */
+    public synchronized void remove(PccId pccId) {
+        Map<Integer, IndexedLsp> pccLsps = lsps.remove(pccId);
+        if (pccLsps != null) {
+            for (IndexedLsp lsp : pccLsps.values()) {
+                unindex(lsp);
+            }
+            size -= pccLsps.size();
+        }
+    }
+
+    /**
+     * Returns the LSPs crossing the link, matched on either interface address
+     * of numbered links and on the interface identifiers of unnumbered ones.
+     * Both directions of the adjacency match.
+     *
+     * @param topology topology the link belongs to
+     * @param link TE link
+     * @return LSPs crossing the link
+     */
+    public synchronized Set<IndexedLsp> lspsOnLink(TeTopology topology, TeLink link) {
+        Set<IndexedLsp> result = new LinkedHashSet<>();
+        if (link.localIfAddr() != 0 || link.remoteIfAddr() != 0) {
+            addAll(result, byAddress.get(link.localIfAddr()));
+            addAll(result, byAddress.get(link.remoteIfAddr()));
+            return result;
+        }
+        TeNode src = topology.nodeAt(link.srcNode());
+        TeNode dst = topology.nodeAt(link.dstNode());
+        if (src != null && link.localId() != 0) {
+            addAll(result, byUnnumbered.get(unnumberedKey(src.ipv4RouterId(), link.localId())));
+        }
+        if (dst != null && link.remoteId() != 0) {
+            addAll(result, byUnnumbered.get(unnumberedKey(dst.ipv4RouterId(), link.remoteId())));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the LSPs with a hop on the IPv4 address.
+     *
+     * @param address interface address or router id
+     * @return LSPs crossing the address
+     */
+    public synchronized Set<IndexedLsp> lspsOnHop(int address) {
+        Set<IndexedLsp> result = new LinkedHashSet<>();
+        addAll(result, byAddress.get(address));
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed LSPs.
+     *
+     * @return index size
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the links of a path given as ERO or RRO subobjects, walking
+     * from the ingress node. Each hop names the remote interface address of
+     * a link or the next node; local addresses of the current node are
+     * skipped.
+     *
+     * @param g TE graph
+     * @param src ingress node slot
+     * @param dst egress node slot, -1 if unknown
+     * @param hops subobjects of the path
+     * @return link slots, null if a hop cannot be resolved to a link
+     */
+    public static int[] linkSlots(TeGraph g, int src, int dst, List<PcepValueType> hops) {
+        return linkSlots(g, src, dst, PathHops.of(hops));
+    }
+
+    private static int[] linkSlots(TeGraph g, int src, int dst, PathHops hops) {
+        if (src < 0 || hops.addresses.length == 0 || hops.unnumbered.length > 0) {
+            return null;
+        }
+        int[] slots = new int[hops.addresses.length];
+        int count = 0;
+        int node = src;
+        for (int address : hops.addresses) {
+            int target = g.nodeByAddress(address);
+            if (target == node) {
+                continue;
+            }
+            int edge = -1;
+            for (int e = g.offset(node), end = g.offset(node + 1); e < end; e++) {
+                if (g.topology().linkAt(g.linkSlot(e)).remoteIfAddr() == address) {
+                    edge = e;
+                    break;
+                }
+                if (edge < 0 && g.target(e) == target) {
+                    edge = e;
+                }
+            }
+            if (edge < 0) {
+                return null;
+            }
+            slots[count++] = g.linkSlot(edge);
+            node = g.target(edge);
+        }
+        return dst < 0 || node == dst ? Arrays.copyOf(slots, count) : null;
+    }
+
+    private static void addAll(Set<IndexedLsp> result, Set<IndexedLsp> lsps) {
+        if (lsps != null) {
+            result.addAll(lsps);
+        }
+    }
+
+    private PathHops hops(PackedPath path, Supplier<List<PcepValueType>> subObjects) {
+        if (path == null) {
+            return PathHops.EMPTY;
+        }
+        PathHops hops = pathHops.get(path);
+        if (hops == null) {
+            hops = PathHops.of(subObjects.get());
+            pathHops.put(path, hops);
+        }
+        return hops;
+    }
+
+    private void index(IndexedLsp lsp) {
+        index(lsp, lsp.eroHops);
+        index(lsp, lsp.rroHops);
+    }
+
+    private void index(IndexedLsp lsp, PathHops hops) {
+        for (int address : hops.addresses) {
+            Set<IndexedLsp> set = byAddress.get(address);
+            if (set == null) {
+                set = new LinkedHashSet<>();
+                byAddress.put(address, set);
+            }
+            set.add(lsp);
+        }
+        for (long key : hops.unnumbered) {
+            Set<IndexedLsp> set = byUnnumbered.get(key);
+            if (set == null) {
+                set = new LinkedHashSet<>();
+                byUnnumbered.put(key, set);
+            }
+            set.add(lsp);
+        }
+    }
+
+    private void unindex(IndexedLsp lsp) {
+        unindex(lsp, lsp.eroHops);
+        unindex(lsp, lsp.rroHops);
+    }
+
+    private void unindex(IndexedLsp lsp, PathHops hops) {
+        for (int address : hops.addresses) {
+            Set<IndexedLsp> set = byAddress.get(address);
+            if (set != null && set.remove(lsp) && set.isEmpty()) {
+                byAddress.remove(address);
+            }
+        }
+        for (long key : hops.unnumbered) {
+            Set<IndexedLsp> set = byUnnumbered.get(key);
+            if (set != null && set.remove(lsp) && set.isEmpty()) {
+                byUnnumbered.remove(key);
+            }
+        }
+    }
+
+    private static long unnumberedKey(int nodeId, int interfaceId) {
+        return ((long) nodeId << Integer.SIZE) | (interfaceId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Indexed hops of one route, shared by the LSPs reported over it.
+     */
+    private static final class PathHops {
+        static final PathHops EMPTY = new PathHops(new int[0], new long[0], 0);
+
+        private final int[] addresses;
+        private final long[] unnumbered;
+        private final int lastAddress;
+
+        private PathHops(int[] addresses, long[] unnumbered, int lastAddress) {
+            this.addresses = addresses;
+            this.unnumbered = unnumbered;
+            this.lastAddress = lastAddress;
+        }
+
+        /*
+         * Extracts the hops of the subobjects.
+         */
+        static PathHops of(List<PcepValueType> hops) {
+            if (hops == null || hops.isEmpty()) {
+                return EMPTY;
+            }
+            Set<Integer> addressSet = new LinkedHashSet<>();
+            Set<Long> unnumberedSet = new LinkedHashSet<>();
+            int lastAddress = 0;
+            for (PcepValueType hop : hops) {
+                lastAddress = addHop(hop, addressSet, unnumberedSet, lastAddress);
+            }
+            int[] addresses = new int[addressSet.size()];
+            int i = 0;
+            for (int address : addressSet) {
+                addresses[i++] = address;
+            }
+            long[] unnumbered = new long[unnumberedSet.size()];
+            i = 0;
+            for (long key : unnumberedSet) {
+                unnumbered[i++] = key;
+            }
+            return new PathHops(addresses, unnumbered, lastAddress);
+        }
+
+        /*
+         * Returns the address of the hop, or the last address seen for hops without one.
+         */
+        private static int addHop(PcepValueType hop, Set<Integer> addresses, Set<Long> unnumbered,
+                int lastAddress) {
+            if (hop instanceof IPv4SubObject) {
+                int address = ((IPv4SubObject) hop).getIpAddress();
+                addresses.add(address);
+                return address;
+            }
+            if (!(hop instanceof SrEroSubObject)) {
+                return lastAddress;
+            }
+            PcepNai nai = ((SrEroSubObject) hop).getNai();
+            if (nai instanceof PcepNaiIpv4Adjacency) {
+                PcepNaiIpv4Adjacency adj = (PcepNaiIpv4Adjacency) nai;
+                addresses.add(adj.getLocalIpv4Addr());
+                addresses.add(adj.getRemoteIpv4Addr());
+                return adj.getRemoteIpv4Addr();
+            } else if (nai instanceof PcepNaiIpv4NodeId) {
+                int address = ((PcepNaiIpv4NodeId) nai).id();
+                addresses.add(address);
+                return address;
+            } else if (nai instanceof PcepNaiUnnumberedAdjacencyIpv4) {
+                PcepNaiUnnumberedAdjacencyIpv4 adj = (PcepNaiUnnumberedAdjacencyIpv4) nai;
+                unnumbered.add(unnumberedKey(adj.getLocalNodeId(), adj.getLocalInterfaceId()));
+                unnumbered.add(unnumberedKey(adj.getRemoteNodeId(), adj.getRemoteInterfaceId()));
+                return adj.getRemoteNodeId();
+            }
+            return lastAddress;
+        }
+    }
+
+    /**
+     * LSP as last reported by its pcc, with the hops it is indexed by.
+     */
+    public static final class IndexedLsp {
+        private final PccId pccId;
+        private final PcepStateReport report;
+        private final int plspId;
+        private final int ingress;
+        private final int egress;
+        private final PathHops eroHops;
+        private final PathHops rroHops;
+
+        private IndexedLsp(PccId pccId, PcepStateReport report, PathHops eroHops, PathHops rroHops) {
+            this.pccId = pccId;
+            this.report = report;
+            this.plspId = report.getLspObject().getPlspId();
+            this.eroHops = eroHops;
+            this.rroHops = rroHops;
+            int lastAddress = rroHops.lastAddress != 0 ? rroHops.lastAddress : eroHops.lastAddress;
+
+            int src = 0;
+            int dst = 0;
+            List<PcepValueType> tlvs = report.getLspObject().getOptionalTlv();
+            if (tlvs != null) {
+                for (PcepValueType tlv : tlvs) {
+                    if (tlv instanceof StatefulIPv4LspIdentifiersTlv) {
+                        src = ((StatefulIPv4LspIdentifiersTlv) tlv).getIpv4IngressAddress();
+                        dst = ((StatefulIPv4LspIdentifiersTlv) tlv).getIpv4EgressAddress();
+                    }
+                }
+            }
+            IpAddress pccAddress = pccId.ipAddress();
+            if (src == 0 && pccAddress != null && pccAddress.isIp4()) {
+                src = pccAddress.getIp4Address().toInt();
+            }
+            this.ingress = src;
+            this.egress = dst != 0 ? dst : lastAddress;
+        }
+
+        /**
+         * Returns the pcc owning the LSP.
+         *
+         * @return pcc id
+         */
+        public PccId pccId() {
+            return pccId;
+        }
+
+        /**
+         * Returns the PLSP-ID of the LSP.
+         *
+         * @return PLSP-ID
+         */
+        public int plspId() {
+            return plspId;
+        }
+
+        /**
+         * Returns the last state report of the LSP.
+         *
+         * @return state report
+         */
+        public PcepStateReport report() {
+            return report;
+        }
+
+        /**
+         * Returns whether the LSP is delegated to the PCE.
+         *
+         * @return true if the D flag is set
+         */
+        public boolean isDelegated() {
+            return report.getLspObject().getDFlag();
+        }
+
+        /**
+         * Returns the links of the reported path, from the same hops the LSP
+         * is indexed by: the ERO, or the RRO without ERO.
+         *
+         * @param g TE graph
+         * @return link slots, null if the path does not resolve to links of the graph
+         */
+        public int[] linkSlots(TeGraph g) {
+            int dst = egress == 0 ? -1 : g.nodeByAddress(egress);
+            PathHops hops = eroHops.addresses.length + eroHops.unnumbered.length > 0 ? eroHops : rroHops;
+            return PcepLspPathIndex.linkSlots(g, g.nodeByAddress(ingress), dst, hops);
+        }
+
+        /**
+         * Returns the ingress address, from the LSP identifiers TLV or the pcc address.
+         *
+         * @return IPv4 ingress address
+         */
+        public int ingress() {
+            return ingress;
+        }
+
+        /**
+         * Returns the egress address, from the LSP identifiers TLV or the last hop.
+         *
+         * @return IPv4 egress address, 0 if unknown
+         */
+        public int egress() {
+            return egress;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("pccId", pccId)
+                    .add("plspId", plspId)
+                    .add("hops", eroHops.addresses.length + eroHops.unnumbered.length
+                            + rroHops.addresses.length + rroHops.unnumbered.length)
+                    .toString();
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.onosproject.pcep.controller.impl;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -26,6 +27,7 @@ import org.onosproject.pcepio.exceptions.PcepOutOfBoundMessageException;
 import org.onosproject.pcepio.protocol.PcepFactories;
 import org.onosproject.pcepio.protocol.PcepMessage;
 import org.onosproject.pcepio.protocol.PcepMessageReader;
+import org.onosproject.pcepio.protocol.PcepType;
 import org.onosproject.pcepio.util.HexDump;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +39,30 @@ public class PcepMessageDecoder extends FrameDecoder {
 
     protected static final Logger log = LoggerFactory.getLogger(PcepMessageDecoder.class);
 
+    // Controller whose upstream relay wants the frames of reports, null on upstream sessions.
+    private final Controller controller;
+    // Fingerprints of the reports of the pcc, null on upstream sessions.
+    private final PcepReportFilter reportFilter;
+
+    /**
+     * Creates decoder which does not keep any frame.
+     */
+    public PcepMessageDecoder() {
+        this(null);
+    }
+
+    /**
+     * Creates decoder which keeps a copy of the frames of PCRpt and LSRpt
+     * messages while the controller relays them to a parent PCE, and drops
+     * the reports the pcc sends again unchanged.
+     *
+     * @param controller controller, null to never keep frames nor drop reports
+     */
+    public PcepMessageDecoder(Controller controller) {
+        this.controller = controller;
+        this.reportFilter = controller != null ? new PcepReportFilter() : null;
+    }
+
     @Override
     protected Object decode(ChannelHandlerContext ctx, Channel channel,
             ChannelBuffer buffer) throws Exception {
@@ -55,17 +81,42 @@ public class PcepMessageDecoder extends FrameDecoder {
         // then mark the reader index and again take the next chunk of messages from the channel
         // and parse again from the marked reader index.
         PcepMessageReader<PcepMessage> reader = PcepFactories.getGenericReader();
-        List<PcepMessage> msgList = (List<PcepMessage>) ctx.getAttachment();
+        MessageList msgList = (MessageList) ctx.getAttachment();
 
         if (msgList == null) {
-            msgList = new LinkedList<>();
+            msgList = new MessageList();
         }
+        boolean keepFrames = controller != null && controller.upstreamRelay() != null;
 
         try {
             while (buffer.readableBytes() > 0) {
                 buffer.markReaderIndex();
-                PcepMessage message = reader.readFrom(buffer);
-                msgList.add(message);
+                int start = buffer.readerIndex();
+                ChannelBuffer filtered = reportFilter != null ? reportFilter.filter(buffer) : null;
+                if (filtered != null) {
+                    msgList.addSuppressed(reportFilter.droppedReports(), reportFilter.droppedLsObjects());
+                    if (!filtered.readable()) {
+                        continue;
+                    }
+                }
+                ChannelBuffer frame = null;
+                PcepMessage message;
+                if (filtered != null) {
+                    // The filtered frame is a copy already, it is kept as it is.
+                    frame = keepFrames ? filtered.slice() : null;
+                    message = reader.readFrom(filtered);
+                } else {
+                    message = reader.readFrom(buffer);
+                    if (keepFrames && (message.getType() == PcepType.REPORT
+                            || message.getType() == PcepType.LS_REPORT)) {
+                        // The cumulation buffer is reused, the frame has to be copied out of it.
+                        frame = buffer.copy(start, buffer.readerIndex() - start);
+                    }
+                }
+                if (reportFilter != null) {
+                    reportFilter.commit();
+                }
+                msgList.add(message, frame);
             }
             ctx.setAttachment(null);
             return msgList;
@@ -77,4 +128,54 @@ public class PcepMessageDecoder extends FrameDecoder {
         }
         return null;
     }
+
+    /**
+     * Messages decoded from the channel, with the frame of the messages kept
+     * for the upstream relay and the number of reports dropped as duplicates.
+     */
+    static final class MessageList extends LinkedList<PcepMessage> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ChannelBuffer> frames = new ArrayList<>();
+        private int suppressedReports;
+        private int suppressedLsObjects;
+
+        private void add(PcepMessage message, ChannelBuffer frame) {
+            add(message);
+            frames.add(frame);
+        }
+
+        private void addSuppressed(int reports, int lsObjects) {
+            suppressedReports += reports;
+            suppressedLsObjects += lsObjects;
+        }
+
+        /**
+         * Returns the number of state reports dropped as unchanged re-reports.
+         *
+         * @return suppressed state reports
+         */
+        int suppressedReports() {
+            return suppressedReports;
+        }
+
+        /**
+         * Returns the number of LS objects dropped as unchanged re-reports.
+         *
+         * @return suppressed LS objects
+         */
+        int suppressedLsObjects() {
+            return suppressedLsObjects;
+        }
+
+        /**
+         * Returns the frame of the message at the given position.
+         *
+         * @param index message position
+         * @return complete message including the common header, null if not kept
+         */
+        ChannelBuffer frame(int index) {
+            return frames.get(index);
+        }
+    }
 }
@@ -37,6 +37,12 @@ public class PcepMessageEncoder extends OneToOneEncoder {
     @Override
     protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
         log.debug("Sending message");
+        if (msg instanceof ChannelBuffer) {
+            // Already encoded by the session outbound queue.
+            HexDump.pcepHexDump((ChannelBuffer) msg);
+            return msg;
+        }
+
         if (!(msg instanceof List)) {
             log.debug("Invalid msg.");
             return msg;
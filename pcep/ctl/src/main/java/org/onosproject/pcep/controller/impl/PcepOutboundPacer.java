@@ -0,0 +1,396 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.onosproject.pcepio.protocol.PcInitiatedLspRequest;
+import org.onosproject.pcepio.protocol.PcepAttribute;
+import org.onosproject.pcepio.protocol.PcepInitiateMsg;
+import org.onosproject.pcepio.protocol.PcepLspaObject;
+import org.onosproject.pcepio.protocol.PcepMessage;
+import org.onosproject.pcepio.protocol.PcepMsgPath;
+import org.onosproject.pcepio.protocol.PcepType;
+import org.onosproject.pcepio.protocol.PcepUpdateMsg;
+import org.onosproject.pcepio.protocol.PcepUpdateRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token bucket pacer in front of the outbound queue of a PCEP session.
+ * <p>
+ * PCUpd and PCInitiate messages consume one token per LSP request they carry.
+ * Messages which cannot be sent right away wait in one queue per LSP setup
+ * priority and are released highest priority first as tokens become available.
+ * <p>
+ * Keepalive, Close, PCErr, PCNtf and PCRep messages carry no LSP state and
+ * bypass the pacer: a pcc getting them ahead of waiting LSP updates sees no
+ * difference. Other messages, such as PCLabelUpd, may refer to the LSPs of
+ * the waiting messages. They cost no token but wait until every message
+ * submitted before them is released, and messages submitted after them wait
+ * for them, so they keep their order with the LSP updates.
+ */
+public class PcepOutboundPacer {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepOutboundPacer.class);
+
+    static final int PRIORITY_LEVELS = 8;
+    // RFC 3209 default setup priority, used when the message has no LSPA object
+    static final byte DEFAULT_SETUP_PRIORITY = 7;
+    private static final long BACKPRESSURE_RETRY_MICROS = 10000;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final PcepOutboundQueue outboundQueue;
+    private final PcepPacketStatsImpl pktStats;
+    private final ScheduledExecutorService executor;
+    private final PcepPacingProfile profile;
+
+    private final ArrayDeque<PacedMessage>[] queues;
+    // Messages keeping their order with the paced ones, in submission order
+    private final ArrayDeque<PacedMessage> ordered = new ArrayDeque<>();
+    private int queuedCount;
+    private long nextSeq;
+    private double tokens;
+    private long lastRefillNanos;
+    private ScheduledFuture<?> pendingDrain;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Creates pacer for the given outbound queue.
+     *
+     * @param outboundQueue outbound queue of the PCEP session
+     * @param pktStats packet statistics of the PCEP session
+     * @param executor executor running the delayed releases
+     * @param profile token bucket parameters
+     */
+    @SuppressWarnings("unchecked")
+    public PcepOutboundPacer(PcepOutboundQueue outboundQueue, PcepPacketStatsImpl pktStats,
+            ScheduledExecutorService executor, PcepPacingProfile profile) {
+        this.outboundQueue = outboundQueue;
+        this.pktStats = pktStats;
+        this.executor = executor;
+        this.profile = profile;
+        this.queues = (ArrayDeque<PacedMessage>[]) new ArrayDeque<?>[PRIORITY_LEVELS];
+        for (int i = 0; i < PRIORITY_LEVELS; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+        this.tokens = profile.burst();
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the pacing profile in use.
+     *
+     * @return pacing profile
+     */
+    public PcepPacingProfile profile() {
+        return profile;
+    }
+
+    /**
+     * Checks whether the message is subject to pacing.
+     *
+     * @param m PCEP message
+     * @return true for PCUpd and PCInitiate messages
+     */
+    public static boolean isPaced(PcepMessage m) {
+        return m.getType() == PcepType.UPDATE || m.getType() == PcepType.INITIATE;
+    }
+
+    /**
+     * Checks whether the message may be sent ahead of the messages waiting in the pacer.
+     *
+     * @param m PCEP message
+     * @return true for messages carrying no LSP state
+     */
+    public static boolean mayBypass(PcepMessage m) {
+        switch (m.getType()) {
+        case KEEP_ALIVE:
+        case CLOSE:
+        case ERROR:
+        case NOTIFICATION:
+        case PATH_COMPUTATION_REPLY:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Sends the message as soon as the token bucket allows it, and after the
+     * messages submitted before it for messages which are not paced.
+     *
+     * @param m PCEP message which may not bypass the pacer
+     * @return future completed once the message is written to the socket
+     */
+    public CompletableFuture<Void> submit(PcepMessage m) {
+        if (!profile.isPaced() || executor == null) {
+            return outboundQueue.enqueue(Collections.singletonList(m));
+        }
+
+        boolean paced = isPaced(m);
+        PacedMessage waiting;
+        synchronized (this) {
+            int cost = paced ? cost(m) : 0;
+            refill(System.nanoTime());
+            if (queuedCount == 0 && hasTokens(cost) && (!paced || !outboundQueue.isAboveHighWaterMark())) {
+                tokens -= cost;
+                if (paced) {
+                    pktStats.addOutPaced(0);
+                }
+                waiting = null;
+            } else if (queuedCount >= profile.maxQueued()) {
+                pktStats.addOutRejected(1);
+                CompletableFuture<Void> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(new RejectedExecutionException("Paced queue is full"));
+                return rejected;
+            } else {
+                waiting = new PacedMessage(m, cost, paced ? setupPriority(m) : -1, nextSeq++);
+                if (paced) {
+                    queues[waiting.priority].add(waiting);
+                } else {
+                    ordered.add(waiting);
+                }
+                queuedCount++;
+                updateQueueStats(System.nanoTime());
+                scheduleDrain();
+            }
+        }
+        if (waiting != null) {
+            return waiting.future;
+        }
+        // Not holding the lock, the outbound queue may block its caller
+        return outboundQueue.enqueue(Collections.singletonList(m));
+    }
+
+    /**
+     * Returns the number of messages waiting in the pacer.
+     *
+     * @return paced queue size
+     */
+    public synchronized int queuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * Fails all waiting messages, used when the session goes down.
+     */
+    public synchronized void clear() {
+        for (ArrayDeque<PacedMessage> queue : queues) {
+            PacedMessage paced;
+            while ((paced = queue.poll()) != null) {
+                paced.future.completeExceptionally(new RejectedExecutionException("Session closed"));
+            }
+        }
+        PacedMessage waiting;
+        while ((waiting = ordered.poll()) != null) {
+            waiting.future.completeExceptionally(new RejectedExecutionException("Session closed"));
+        }
+        queuedCount = 0;
+        if (pendingDrain != null) {
+            pendingDrain.cancel(false);
+            pendingDrain = null;
+        }
+        updateQueueStats(System.nanoTime());
+    }
+
+    private synchronized void drain() {
+        pendingDrain = null;
+        long now = System.nanoTime();
+        refill(now);
+
+        while (queuedCount > 0) {
+            PacedMessage next = next();
+            if (!hasTokens(next.cost) || outboundQueue.isAboveHighWaterMark()) {
+                // Lower priorities wait too, otherwise they would starve this one.
+                updateQueueStats(now);
+                scheduleDrain();
+                return;
+            }
+            if (next.priority < 0) {
+                ordered.poll();
+            } else {
+                queues[next.priority].poll();
+                pktStats.addOutPaced(now - next.queuedNanos);
+            }
+            queuedCount--;
+            tokens -= next.cost;
+            forward(next);
+        }
+        updateQueueStats(now);
+    }
+
+    /*
+     * Returns the message to release next: the head of the highest priority
+     * queue submitted before the oldest message keeping its order, else that
+     * message. Queues are in submission order, so their heads are their oldest.
+     */
+    private PacedMessage next() {
+        PacedMessage barrier = ordered.peek();
+        for (ArrayDeque<PacedMessage> queue : queues) {
+            PacedMessage head = queue.peek();
+            if (head != null && (barrier == null || head.seq < barrier.seq)) {
+                return head;
+            }
+        }
+        return barrier;
+    }
+
+    private void forward(final PacedMessage paced) {
+        outboundQueue.enqueue(Collections.singletonList(paced.msg), false).whenComplete((v, e) -> {
+            if (e != null) {
+                paced.future.completeExceptionally(e);
+            } else {
+                paced.future.complete(null);
+            }
+        });
+    }
+
+    private void scheduleDrain() {
+        if (pendingDrain != null || queuedCount == 0) {
+            return;
+        }
+
+        long delayMicros;
+        if (outboundQueue.isAboveHighWaterMark()) {
+            delayMicros = BACKPRESSURE_RETRY_MICROS;
+        } else {
+            double missing = Math.min(next().cost, profile.burst()) - tokens;
+            delayMicros = Math.max(1, (long) (missing * 1e6 / profile.lspsPerSecond()));
+        }
+
+        try {
+            pendingDrain = executor.schedule(drainTask, delayMicros, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Outbound executor is shut down, dropping {} paced messages", queuedCount);
+            clear();
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(profile.burst(), tokens + (now - lastRefillNanos) * profile.lspsPerSecond()
+                / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+    }
+
+    /*
+     * A message costing more than the bucket holds is released once the bucket is full,
+     * leaving the bucket in debt.
+     */
+    private boolean hasTokens(int cost) {
+        return tokens >= Math.min(cost, profile.burst());
+    }
+
+    private void updateQueueStats(long now) {
+        long oldestNanos = 0;
+        for (ArrayDeque<PacedMessage> queue : queues) {
+            if (!queue.isEmpty()) {
+                oldestNanos = Math.max(oldestNanos, now - queue.peek().queuedNanos);
+            }
+        }
+        if (!ordered.isEmpty()) {
+            oldestNanos = Math.max(oldestNanos, now - ordered.peek().queuedNanos);
+        }
+        pktStats.setOutPacedQueue(queuedCount, TimeUnit.NANOSECONDS.toMillis(oldestNanos));
+    }
+
+    /**
+     * Returns the number of LSP requests carried by the message.
+     *
+     * @param m PCUpd or PCInitiate message
+     * @return token cost of the message
+     */
+    static int cost(PcepMessage m) {
+        if (m instanceof PcepUpdateMsg) {
+            return Math.max(1, ((PcepUpdateMsg) m).getUpdateRequestList().size());
+        } else if (m instanceof PcepInitiateMsg) {
+            return Math.max(1, ((PcepInitiateMsg) m).getPcInitiatedLspRequestList().size());
+        } else if (m instanceof PcepEncodedMessage) {
+            return Math.max(1, ((PcepEncodedMessage) m).lspCount());
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the best (numerically lowest) setup priority of the LSPs carried by the message.
+     *
+     * @param m PCUpd or PCInitiate message
+     * @return setup priority between 0 and 7
+     */
+    static int setupPriority(PcepMessage m) {
+        int priority = DEFAULT_SETUP_PRIORITY;
+        if (m instanceof PcepUpdateMsg) {
+            for (PcepUpdateRequest req : ((PcepUpdateMsg) m).getUpdateRequestList()) {
+                PcepMsgPath msgPath = req.getMsgPath();
+                if (msgPath != null) {
+                    priority = Math.min(priority, setupPriority(msgPath.getPcepAttribute()));
+                }
+            }
+        } else if (m instanceof PcepInitiateMsg) {
+            for (PcInitiatedLspRequest req : ((PcepInitiateMsg) m).getPcInitiatedLspRequestList()) {
+                priority = Math.min(priority, setupPriority(req.getPcepAttribute()));
+            }
+        } else if (m instanceof PcepEncodedMessage) {
+            priority = ((PcepEncodedMessage) m).setupPriority();
+        }
+        return priority;
+    }
+
+    private static int setupPriority(PcepAttribute attr) {
+        if (attr == null) {
+            return DEFAULT_SETUP_PRIORITY;
+        }
+        PcepLspaObject lspa = attr.getLspaObject();
+        if (lspa == null) {
+            return DEFAULT_SETUP_PRIORITY;
+        }
+        int priority = lspa.getSetupPriority();
+        return (priority < 0 || priority >= PRIORITY_LEVELS) ? DEFAULT_SETUP_PRIORITY : priority;
+    }
+
+    /**
+     * Message waiting for tokens or for the messages submitted before it.
+     */
+    private static final class PacedMessage {
+        private final PcepMessage msg;
+        private final int cost;
+        // Setup priority, -1 for a message which is not paced
+        private final int priority;
+        private final long seq;
+        private final long queuedNanos;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PacedMessage(PcepMessage msg, int cost, int priority, long seq) {
+            this.msg = msg;
+            this.cost = cost;
+            this.priority = priority;
+            this.seq = seq;
+            this.queuedNanos = System.nanoTime();
+        }
+    }
+}
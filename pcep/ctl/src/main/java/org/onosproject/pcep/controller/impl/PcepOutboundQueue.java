@@ -0,0 +1,344 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.util.internal.DeadLockProofWorker;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Outbound queue of a PCEP session. Messages written within a short window,
+ * or until a byte budget is reached, are encoded into one buffer and handed
+ * to the channel with a single write.
+ * <p>
+ * The queue also bounds the bytes of a session which are not yet accepted by
+ * the socket. Once the high watermark is reached, new messages are rejected or
+ * the caller is blocked until the low watermark is reached again, depending on
+ * the overflow policy. A session staying above the high watermark longer than
+ * the stuck timeout is disconnected.
+ */
+public class PcepOutboundQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepOutboundQueue.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * Behaviour of the queue when the high watermark is reached.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Fails the returned future immediately.
+         */
+        REJECT,
+
+        /**
+         * Blocks the caller until the low watermark is reached or the block timeout expires.
+         * Netty I/O threads are never blocked, messages written from them are rejected.
+         */
+        BLOCK
+    }
+
+    private final Channel channel;
+    private final PcepPacketStatsImpl pktStats;
+    private final ScheduledExecutorService executor;
+    private final long windowMicros;
+    private final int byteBudget;
+
+    private long highWaterMark = Long.MAX_VALUE;
+    private long lowWaterMark = Long.MAX_VALUE;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+    private long blockTimeoutMillis;
+    private long stuckTimeoutMillis;
+
+    private ChannelBuffer buffer;
+    private int bufferedMsgCount;
+    private CompletableFuture<Void> bufferFuture;
+    private ScheduledFuture<?> pendingFlush;
+
+    // Bytes buffered here plus bytes written to the channel but not yet accepted by the socket
+    private long pendingBytes;
+    private boolean aboveHighWaterMark;
+    private ScheduledFuture<?> stuckCheck;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private final Runnable stuckTask = new Runnable() {
+        @Override
+        public void run() {
+            disconnectIfStuck();
+        }
+    };
+
+    /**
+     * Creates outbound queue for the given channel.
+     *
+     * @param channel channel of the PCEP session
+     * @param pktStats packet statistics of the PCEP session
+     * @param executor executor running the delayed flushes, null disables coalescing
+     * @param windowMicros coalescing window in microseconds, 0 disables coalescing
+     * @param byteBudget number of buffered bytes which triggers an immediate flush
+     */
+    public PcepOutboundQueue(Channel channel, PcepPacketStatsImpl pktStats, ScheduledExecutorService executor,
+            long windowMicros, int byteBudget) {
+        this.channel = channel;
+        this.pktStats = pktStats;
+        this.executor = executor;
+        this.windowMicros = windowMicros;
+        this.byteBudget = byteBudget;
+    }
+
+    /**
+     * Sets the bounds of pending outbound bytes.
+     *
+     * @param highWaterMark pending bytes at which backpressure starts
+     * @param lowWaterMark pending bytes at which backpressure ends
+     * @param overflowPolicy behaviour when the high watermark is reached
+     * @param blockTimeoutMillis maximum time a caller is blocked with {@link OverflowPolicy#BLOCK}
+     * @param stuckTimeoutMillis time above the high watermark after which the session is disconnected,
+     *                           0 disables the disconnection
+     */
+    public synchronized void setWatermarks(long highWaterMark, long lowWaterMark, OverflowPolicy overflowPolicy,
+            long blockTimeoutMillis, long stuckTimeoutMillis) {
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = Math.min(lowWaterMark, highWaterMark);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.stuckTimeoutMillis = stuckTimeoutMillis;
+    }
+
+    /**
+     * Encodes the messages into the pending buffer and schedules the flush.
+     *
+     * @param msgs messages to be sent
+     * @return future completed once the messages are accepted by the socket, or
+     *         failed with {@link RejectedExecutionException} when the session is above its high watermark
+     */
+    public CompletableFuture<Void> enqueue(List<PcepMessage> msgs) {
+        return enqueue(msgs, true);
+    }
+
+    /**
+     * Encodes the messages into the pending buffer and schedules the flush.
+     *
+     * @param msgs messages to be sent
+     * @param mayBlock whether the caller may be blocked by the {@link OverflowPolicy#BLOCK} policy
+     * @return future completed once the messages are accepted by the socket, or
+     *         failed with {@link RejectedExecutionException} when the session is above its high watermark
+     */
+    public synchronized CompletableFuture<Void> enqueue(List<PcepMessage> msgs, boolean mayBlock) {
+        if (!awaitBelowHighWaterMark(mayBlock)) {
+            pktStats.addOutRejected(msgs.size());
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RejectedExecutionException("Outbound queue of "
+                    + channel.getRemoteAddress() + " is above its high watermark"));
+            return rejected;
+        }
+
+        if (buffer == null) {
+            buffer = ChannelBuffers.dynamicBuffer(INITIAL_BUFFER_SIZE);
+            bufferFuture = new CompletableFuture<>();
+        }
+        CompletableFuture<Void> result = bufferFuture;
+
+        int bufferedBytes = buffer.readableBytes();
+        for (PcepMessage m : msgs) {
+            int startIndex = buffer.writerIndex();
+            try {
+                m.writeTo(buffer);
+                bufferedMsgCount++;
+            } catch (PcepParseException e) {
+                // Drop only the broken message, the rest of the batch is still valid.
+                buffer.writerIndex(startIndex);
+                log.error("Failed to encode {} message: {}", m.getType(), e.getMessage());
+            }
+        }
+        addPendingBytes(buffer.readableBytes() - bufferedBytes);
+
+        if (buffer.readableBytes() >= byteBudget || executor == null || windowMicros <= 0) {
+            flushBuffer();
+            return result;
+        }
+
+        if (pendingFlush == null) {
+            try {
+                pendingFlush = executor.schedule(flushTask, windowMicros, TimeUnit.MICROSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Flush executor is shut down, write through.
+                flushBuffer();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes all buffered messages to the channel immediately.
+     */
+    public synchronized void flush() {
+        flushBuffer();
+    }
+
+    /**
+     * Returns the number of messages waiting for the next flush.
+     *
+     * @return number of buffered messages
+     */
+    public synchronized int bufferedMsgCount() {
+        return bufferedMsgCount;
+    }
+
+    /**
+     * Returns the outbound bytes not yet accepted by the socket.
+     *
+     * @return number of pending outbound bytes
+     */
+    public synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Checks whether the session is above its high watermark.
+     *
+     * @return true if new messages are currently subject to backpressure
+     */
+    public synchronized boolean isAboveHighWaterMark() {
+        return aboveHighWaterMark;
+    }
+
+    private void flushBuffer() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+
+        if (bufferedMsgCount == 0) {
+            return;
+        }
+
+        ChannelBuffer out = buffer;
+        final CompletableFuture<Void> outFuture = bufferFuture;
+        final int outBytes = out.readableBytes();
+        int msgCount = bufferedMsgCount;
+        buffer = null;
+        bufferFuture = null;
+        bufferedMsgCount = 0;
+
+        // Written while holding the lock so that batches reach the channel in order.
+        channel.write(out).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                writeComplete(outBytes);
+                if (future.isSuccess()) {
+                    outFuture.complete(null);
+                } else {
+                    outFuture.completeExceptionally(future.getCause());
+                }
+            }
+        });
+        pktStats.addOutFlush(msgCount);
+    }
+
+    private synchronized void writeComplete(int bytes) {
+        addPendingBytes(-bytes);
+    }
+
+    private void addPendingBytes(long delta) {
+        pendingBytes += delta;
+        pktStats.setOutPendingBytes(pendingBytes);
+
+        if (!aboveHighWaterMark && pendingBytes >= highWaterMark) {
+            aboveHighWaterMark = true;
+            log.warn("Outbound queue of {} reached high watermark with {} bytes pending",
+                    channel.getRemoteAddress(), pendingBytes);
+            scheduleStuckCheck();
+        } else if (aboveHighWaterMark && pendingBytes <= lowWaterMark) {
+            aboveHighWaterMark = false;
+            log.info("Outbound queue of {} drained below low watermark", channel.getRemoteAddress());
+            if (stuckCheck != null) {
+                stuckCheck.cancel(false);
+                stuckCheck = null;
+            }
+            notifyAll();
+        }
+    }
+
+    /*
+     * Returns true when a new message may be queued, blocking the caller first if the policy asks for it.
+     */
+    private boolean awaitBelowHighWaterMark(boolean mayBlock) {
+        if (!aboveHighWaterMark) {
+            return true;
+        }
+        if (!mayBlock || overflowPolicy != OverflowPolicy.BLOCK || DeadLockProofWorker.PARENT.get() != null) {
+            return false;
+        }
+
+        long deadline = System.currentTimeMillis() + blockTimeoutMillis;
+        long remaining = blockTimeoutMillis;
+        while (aboveHighWaterMark && remaining > 0 && channel.isOpen()) {
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return !aboveHighWaterMark;
+    }
+
+    private void scheduleStuckCheck() {
+        if (executor == null || stuckTimeoutMillis <= 0) {
+            return;
+        }
+        try {
+            stuckCheck = executor.schedule(stuckTask, stuckTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Outbound executor is shut down, no stuck check for {}", channel.getRemoteAddress());
+        }
+    }
+
+    private synchronized void disconnectIfStuck() {
+        stuckCheck = null;
+        if (aboveHighWaterMark) {
+            log.error("Disconnecting {}: {} outbound bytes pending for more than {} ms",
+                    channel.getRemoteAddress(), pendingBytes, stuckTimeoutMillis);
+            pktStats.addOutStuckDisconnect();
+            channel.close();
+            // Release blocked writers, the channel is going down.
+            notifyAll();
+        }
+    }
+}
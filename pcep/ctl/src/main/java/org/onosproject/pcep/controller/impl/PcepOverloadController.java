@@ -0,0 +1,308 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.PcepClient;
+import org.onosproject.pcepio.protocol.PcepFactory;
+import org.onosproject.pcepio.protocol.PcepNotification;
+import org.onosproject.pcepio.protocol.PcepNotificationMsg;
+import org.onosproject.pcepio.protocol.PcepNotificationObject;
+import org.onosproject.pcepio.types.OverloadedDurationTlv;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.onosproject.pcepio.types.PcepNotificationDetailInfo.NOTIFICATION_TYPE_2;
+import static org.onosproject.pcepio.types.PcepNotificationDetailInfo.NOTIFICATION_VALUE_1;
+import static org.onosproject.pcepio.types.PcepNotificationDetailInfo.NOTIFICATION_VALUE_2;
+
+/**
+ * Watches the inbound processing load of the controller and tells the pccs
+ * to back off with PCNtf "overloaded PCE" notifications (RFC 5440, section 7.14).
+ * <p>
+ * Load is the number of decoded messages waiting to be processed and the
+ * average processing time per message, both sampled once per check interval.
+ * Messages are processed on the I/O thread of their channel, so the number of
+ * waiting messages only covers the lists handed over by the decoders and not
+ * yet processed. It is not the backlog held in the socket buffers, which
+ * shows up as processing time instead.
+ * The PCE becomes congested as soon as one of them crosses its high threshold,
+ * and is declared no longer congested once both stayed below their low
+ * thresholds for a number of consecutive intervals.
+ */
+public class PcepOverloadController {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepOverloadController.class);
+
+    private static final int MIN_OVERLOAD_SECONDS = 1;
+
+    private final ScheduledExecutorService executor;
+    private final int queueHighThreshold;
+    private final int queueLowThreshold;
+    private final long latencyHighNanos;
+    private final long latencyLowNanos;
+    private final long checkIntervalMillis;
+    private final int clearIntervals;
+    private final int maxOverloadSeconds;
+
+    private final AtomicInteger queuedMsgs = new AtomicInteger();
+    private final AtomicInteger peakQueuedMsgs = new AtomicInteger();
+    private final LongAdder processedMsgs = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+
+    private final Set<PcepClient> clients = ConcurrentHashMap.newKeySet();
+    private final Set<PcepClient> notifiedClients = ConcurrentHashMap.newKeySet();
+
+    // Updated by the check task only
+    private long lastProcessedMsgs;
+    private long lastProcessingNanos;
+    private int quietIntervals;
+    private long overloadEndNanos;
+    private volatile boolean congested;
+
+    private ScheduledFuture<?> checkTask;
+
+    /**
+     * Creates overload controller.
+     *
+     * @param executor executor running the periodic load check
+     * @param queueHighThreshold number of waiting messages at which the PCE becomes congested
+     * @param queueLowThreshold number of waiting messages below which congestion may end
+     * @param latencyHighMicros average processing time per message at which the PCE becomes congested
+     * @param latencyLowMicros average processing time per message below which congestion may end
+     * @param checkIntervalMillis interval between load checks
+     * @param clearIntervals number of quiet intervals before congestion ends
+     * @param maxOverloadSeconds upper bound of the back-off announced to pccs
+     */
+    public PcepOverloadController(ScheduledExecutorService executor, int queueHighThreshold, int queueLowThreshold,
+            long latencyHighMicros, long latencyLowMicros, long checkIntervalMillis, int clearIntervals,
+            int maxOverloadSeconds) {
+        this.executor = executor;
+        this.queueHighThreshold = queueHighThreshold;
+        this.queueLowThreshold = Math.min(queueLowThreshold, queueHighThreshold);
+        this.latencyHighNanos = TimeUnit.MICROSECONDS.toNanos(latencyHighMicros);
+        this.latencyLowNanos = Math.min(TimeUnit.MICROSECONDS.toNanos(latencyLowMicros), latencyHighNanos);
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.clearIntervals = Math.max(1, clearIntervals);
+        this.maxOverloadSeconds = Math.max(MIN_OVERLOAD_SECONDS, maxOverloadSeconds);
+    }
+
+    /**
+     * Starts the periodic load check.
+     */
+    public synchronized void start() {
+        if (checkTask != null) {
+            return;
+        }
+        checkTask = executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    checkLoad();
+                } catch (Exception e) {
+                    log.error("Exception while checking PCE load", e);
+                }
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic load check.
+     */
+    public synchronized void stop() {
+        if (checkTask != null) {
+            checkTask.cancel(false);
+            checkTask = null;
+        }
+    }
+
+    /**
+     * Checks whether the PCE currently announces itself as congested.
+     *
+     * @return true if congested
+     */
+    public boolean isCongested() {
+        return congested;
+    }
+
+    /**
+     * Registers an established session, which is told about congestion from now on.
+     *
+     * @param pc pcep client
+     */
+    public void clientConnected(PcepClient pc) {
+        clients.add(pc);
+    }
+
+    /**
+     * Unregisters a session which went down.
+     *
+     * @param pc pcep client
+     */
+    public void clientDisconnected(PcepClient pc) {
+        clients.remove(pc);
+        notifiedClients.remove(pc);
+    }
+
+    /**
+     * Records messages which are decoded and wait to be processed.
+     *
+     * @param count number of messages
+     */
+    public void messagesQueued(int count) {
+        int queued = queuedMsgs.addAndGet(count);
+        peakQueuedMsgs.accumulateAndGet(queued, Math::max);
+    }
+
+    /**
+     * Records messages which were counted as queued but will not be processed.
+     *
+     * @param count number of messages
+     */
+    public void messagesDropped(int count) {
+        queuedMsgs.addAndGet(-count);
+    }
+
+    /**
+     * Records one processed message.
+     *
+     * @param latencyNanos time spent processing the message
+     */
+    public void messageProcessed(long latencyNanos) {
+        queuedMsgs.decrementAndGet();
+        processedMsgs.increment();
+        processingNanos.add(latencyNanos);
+    }
+
+    private void checkLoad() {
+        long processed = processedMsgs.sum();
+        long nanos = processingNanos.sum();
+        long intervalProcessed = processed - lastProcessedMsgs;
+        long intervalNanos = nanos - lastProcessingNanos;
+        lastProcessedMsgs = processed;
+        lastProcessingNanos = nanos;
+
+        int depth = peakQueuedMsgs.getAndSet(queuedMsgs.get());
+        long avgLatencyNanos = intervalProcessed > 0 ? intervalNanos / intervalProcessed : 0;
+
+        if (!congested) {
+            if (depth >= queueHighThreshold || avgLatencyNanos >= latencyHighNanos) {
+                congested = true;
+                quietIntervals = 0;
+                int seconds = estimateOverloadSeconds(depth, intervalProcessed, avgLatencyNanos);
+                log.warn("PCE congested: {} messages waiting, {} us average processing time, "
+                        + "asking pccs to back off for {} s", depth,
+                        TimeUnit.NANOSECONDS.toMicros(avgLatencyNanos), seconds);
+                announceCongestion(seconds, true);
+            }
+            return;
+        }
+
+        if (depth <= queueLowThreshold && avgLatencyNanos <= latencyLowNanos) {
+            quietIntervals++;
+        } else {
+            quietIntervals = 0;
+        }
+
+        if (quietIntervals >= clearIntervals) {
+            congested = false;
+            log.info("PCE congestion ended, notifying {} pccs", notifiedClients.size());
+            for (PcepClient pc : notifiedClients) {
+                sendNotification(pc, NOTIFICATION_VALUE_2, 0);
+            }
+            notifiedClients.clear();
+            return;
+        }
+
+        // Renew the announcement once the announced duration has passed, and tell new sessions.
+        int seconds = estimateOverloadSeconds(depth, intervalProcessed, avgLatencyNanos);
+        announceCongestion(seconds, System.nanoTime() - overloadEndNanos >= 0);
+    }
+
+    private void announceCongestion(int seconds, boolean renew) {
+        if (renew) {
+            overloadEndNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        }
+        long remainingSeconds = Math.max(MIN_OVERLOAD_SECONDS,
+                TimeUnit.NANOSECONDS.toSeconds(overloadEndNanos - System.nanoTime()));
+        for (PcepClient pc : clients) {
+            if (notifiedClients.add(pc) || renew) {
+                sendNotification(pc, NOTIFICATION_VALUE_1, (int) remainingSeconds);
+            }
+        }
+    }
+
+    /*
+     * Time needed to work off the backlog at the rate observed in the last interval.
+     */
+    private int estimateOverloadSeconds(int depth, long intervalProcessed, long avgLatencyNanos) {
+        double drainSeconds;
+        if (intervalProcessed > 0) {
+            double ratePerSecond = intervalProcessed * 1000.0 / checkIntervalMillis;
+            drainSeconds = depth / ratePerSecond;
+        } else {
+            drainSeconds = depth * (double) avgLatencyNanos / TimeUnit.SECONDS.toNanos(1);
+        }
+        long seconds = (long) Math.ceil(drainSeconds);
+        return (int) Math.max(MIN_OVERLOAD_SECONDS, Math.min(maxOverloadSeconds, seconds));
+    }
+
+    private void sendNotification(PcepClient pc, byte notificationValue, int overloadSeconds) {
+        if (!pc.isConnected()) {
+            return;
+        }
+
+        PcepFactory factory = pc.factory();
+        LinkedList<PcepValueType> llOptionalTlv = new LinkedList<>();
+        if (notificationValue == NOTIFICATION_VALUE_1) {
+            llOptionalTlv.add(new OverloadedDurationTlv(overloadSeconds));
+        }
+
+        PcepNotificationObject notificationObj = factory.buildPcepNotificationObject()
+                .setNotificationType(NOTIFICATION_TYPE_2)
+                .setNotificationValue(notificationValue)
+                .setOptionalTlv(llOptionalTlv)
+                .build();
+
+        LinkedList<PcepNotificationObject> llNotificationObj = new LinkedList<>();
+        llNotificationObj.add(notificationObj);
+        PcepNotification notification = factory.buildPcepNotification()
+                .setNotificationObjList(llNotificationObj)
+                .build();
+
+        LinkedList<PcepNotification> llNotification = new LinkedList<>();
+        llNotification.add(notification);
+        PcepNotificationMsg msg = factory.buildPcepNotificationMsg()
+                .setNotificationList(llNotification)
+                .build();
+
+        try {
+            pc.sendMessage(msg);
+        } catch (RejectedExecutionException e) {
+            log.debug("Could not send PCNtf to {}: {}", pc.getPccId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Token bucket parameters used to pace LSP updates towards a pcc, typically
+ * one profile per router vendor.
+ */
+public final class PcepPacingProfile {
+
+    /**
+     * Profile which does not pace messages at all.
+     */
+    public static final PcepPacingProfile UNLIMITED = new PcepPacingProfile("unlimited", 0, 0, 0);
+
+    private final String name;
+    private final double lspsPerSecond;
+    private final int burst;
+    private final int maxQueued;
+
+    /**
+     * Creates pacing profile.
+     *
+     * @param name name of the profile, for example the vendor it applies to
+     * @param lspsPerSecond sustained rate of LSP requests, 0 disables pacing
+     * @param burst number of LSP requests which may be sent back to back, at least 1 when paced
+     * @param maxQueued number of messages which may wait for tokens before new ones are rejected
+     */
+    public PcepPacingProfile(String name, double lspsPerSecond, int burst, int maxQueued) {
+        checkNotNull(name);
+        checkArgument(lspsPerSecond >= 0, "Rate must not be negative");
+        checkArgument(burst >= 0 && maxQueued >= 0, "Burst and queue size must not be negative");
+        checkArgument(lspsPerSecond == 0 || burst > 0, "Burst must be positive when pacing is enabled");
+        this.name = name;
+        this.lspsPerSecond = lspsPerSecond;
+        this.burst = burst;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Returns name of the profile.
+     *
+     * @return profile name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns sustained rate of LSP requests per second.
+     *
+     * @return LSP requests per second, 0 if pacing is disabled
+     */
+    public double lspsPerSecond() {
+        return lspsPerSecond;
+    }
+
+    /**
+     * Returns number of LSP requests which may be sent back to back.
+     *
+     * @return bucket size
+     */
+    public int burst() {
+        return burst;
+    }
+
+    /**
+     * Returns number of messages which may wait for tokens.
+     *
+     * @return maximum paced queue size
+     */
+    public int maxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Checks whether this profile paces messages.
+     *
+     * @return true if pacing is enabled
+     */
+    public boolean isPaced() {
+        return lspsPerSecond > 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, lspsPerSecond, burst, maxQueued);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof PcepPacingProfile) {
+            PcepPacingProfile other = (PcepPacingProfile) obj;
+            return Objects.equals(name, other.name)
+                    && Double.compare(lspsPerSecond, other.lspsPerSecond) == 0
+                    && burst == other.burst
+                    && maxQueued == other.maxQueued;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("name", name)
+                .add("lspsPerSecond", lspsPerSecond)
+                .add("burst", burst)
+                .add("maxQueued", maxQueued)
+                .toString();
+    }
+}
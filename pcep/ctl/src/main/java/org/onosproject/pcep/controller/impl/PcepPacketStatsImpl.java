@@ -15,6 +15,8 @@
  */
 package org.onosproject.pcep.controller.impl;
 
+import java.util.concurrent.TimeUnit;
+
 import org.onosproject.pcep.controller.PcepPacketStats;
 
 /**
@@ -22,9 +24,23 @@ import org.onosproject.pcep.controller.PcepPacketStats;
  */
 public class PcepPacketStatsImpl implements PcepPacketStats {
 
+    private static final double NANOS_PER_MILLI = 1e6;
+
     private int inPacketCount;
     private int outPacketCount;
     private int wrongPacketCount;
+    private int outFlushCount;
+    private long outFlushedPacketCount;
+    private volatile long outPendingBytes;
+    private int outRejectedCount;
+    private int outStuckDisconnectCount;
+    private volatile int outPacedQueueSize;
+    private volatile long outPacedOldestAgeMillis;
+    private long outPacedCount;
+    private long outPacedAgeSumNanos;
+    private long outPacedMaxAgeNanos;
+    private int inSuppressedReportCount;
+    private int inSuppressedLsObjectCount;
     private long time;
 
     /**
@@ -34,6 +50,18 @@ public class PcepPacketStatsImpl implements PcepPacketStats {
         this.inPacketCount = 0;
         this.outPacketCount = 0;
         this.wrongPacketCount = 0;
+        this.outFlushCount = 0;
+        this.outFlushedPacketCount = 0;
+        this.outPendingBytes = 0;
+        this.outRejectedCount = 0;
+        this.outStuckDisconnectCount = 0;
+        this.outPacedQueueSize = 0;
+        this.outPacedOldestAgeMillis = 0;
+        this.outPacedCount = 0;
+        this.outPacedAgeSumNanos = 0;
+        this.outPacedMaxAgeNanos = 0;
+        this.inSuppressedReportCount = 0;
+        this.inSuppressedLsObjectCount = 0;
         this.time = 0;
     }
 
@@ -52,6 +80,67 @@ public class PcepPacketStatsImpl implements PcepPacketStats {
         return wrongPacketCount;
     }
 
+    @Override
+    public int outFlushCount() {
+        return outFlushCount;
+    }
+
+    @Override
+    public double outCoalescingRatio() {
+        if (outFlushCount == 0) {
+            return 0;
+        }
+        return (double) outFlushedPacketCount / outFlushCount;
+    }
+
+    @Override
+    public long outPendingBytes() {
+        return outPendingBytes;
+    }
+
+    @Override
+    public int outRejectedCount() {
+        return outRejectedCount;
+    }
+
+    @Override
+    public int outStuckDisconnectCount() {
+        return outStuckDisconnectCount;
+    }
+
+    @Override
+    public int outPacedQueueSize() {
+        return outPacedQueueSize;
+    }
+
+    @Override
+    public long outPacedOldestAgeMillis() {
+        return outPacedOldestAgeMillis;
+    }
+
+    @Override
+    public long outPacedMaxAgeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(outPacedMaxAgeNanos);
+    }
+
+    @Override
+    public double outPacedAverageAgeMillis() {
+        if (outPacedCount == 0) {
+            return 0;
+        }
+        return (double) outPacedAgeSumNanos / outPacedCount / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public int inSuppressedReportCount() {
+        return inSuppressedReportCount;
+    }
+
+    @Override
+    public int inSuppressedLsObjectCount() {
+        return inSuppressedLsObjectCount;
+    }
+
     /**
      * Increments the received packet counter.
      */
@@ -75,6 +164,74 @@ public class PcepPacketStatsImpl implements PcepPacketStats {
         this.outPacketCount = this.outPacketCount + value;
     }
 
+    /**
+     * Increments the flush counter and records the no of packets it carried.
+     *
+     * @param packets no of packets written by the flush
+     */
+    public void addOutFlush(int packets) {
+        this.outFlushCount++;
+        this.outFlushedPacketCount = this.outFlushedPacketCount + packets;
+    }
+
+    /**
+     * Sets the no of outbound bytes not yet accepted by the socket.
+     *
+     * @param bytes no of pending outbound bytes
+     */
+    public void setOutPendingBytes(long bytes) {
+        this.outPendingBytes = bytes;
+    }
+
+    /**
+     * Increments the rejected packet counter by specified value.
+     *
+     * @param value of no of packets rejected
+     */
+    public void addOutRejected(int value) {
+        this.outRejectedCount = this.outRejectedCount + value;
+    }
+
+    /**
+     * Increments the suppressed report counters by specified values.
+     *
+     * @param reports no of state reports dropped as unchanged
+     * @param lsObjects no of LS objects dropped as unchanged
+     */
+    public void addInSuppressed(int reports, int lsObjects) {
+        this.inSuppressedReportCount = this.inSuppressedReportCount + reports;
+        this.inSuppressedLsObjectCount = this.inSuppressedLsObjectCount + lsObjects;
+    }
+
+    /**
+     * Increments the stuck session disconnect counter.
+     */
+    public void addOutStuckDisconnect() {
+        this.outStuckDisconnectCount++;
+    }
+
+    /**
+     * Records a paced packet released to the outbound queue.
+     *
+     * @param ageNanos time the packet waited for tokens
+     */
+    public void addOutPaced(long ageNanos) {
+        this.outPacedCount++;
+        this.outPacedAgeSumNanos = this.outPacedAgeSumNanos + ageNanos;
+        this.outPacedMaxAgeNanos = Math.max(this.outPacedMaxAgeNanos, ageNanos);
+    }
+
+    /**
+     * Sets the state of the paced queue.
+     *
+     * @param size no of paced packets waiting for tokens
+     * @param oldestAgeMillis age of the oldest waiting packet
+     */
+    public void setOutPacedQueue(int size, long oldestAgeMillis) {
+        this.outPacedQueueSize = size;
+        this.outPacedOldestAgeMillis = oldestAgeMillis;
+    }
+
     /**
      * Increments the wrong packet counter.
      */
@@ -0,0 +1,671 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import static org.onlab.util.Tools.groupedThreads;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.onlab.packet.IpAddress;
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcep.controller.PcepClient;
+import org.onosproject.pcep.controller.PcepClientController;
+import org.onosproject.pcep.controller.SrpIdGenerators;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepFactory;
+import org.onosproject.pcepio.protocol.PcepFecObject;
+import org.onosproject.pcepio.protocol.PcepLabelUpdate;
+import org.onosproject.pcepio.types.PcepLabelMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allocates the PCECC node and adjacency labels of the TE topology and
+ * downloads them as label maps.
+ * <p>
+ * Every node with a router id gets a node label from a block common to all
+ * pccs, sent to every pcc. The block is the first SRGB range advertised by
+ * the pcc with the lowest router id, once one is known; pccs whose SRGB does
+ * not cover it are logged and get no node labels until it does. Every
+ * numbered link gets an adjacency label from
+ * the label ranges reserved on the pcc of its source node, sent to that pcc
+ * only. Topology changes only mark nodes and links dirty; after a short hold
+ * off a single thread allocates the labels of all dirty nodes and links in
+ * blocks, and sends the resulting label maps per pcc through the
+ * {@link PcepLabelDownloader}, which packs them into PCLabelUpd messages.
+ * <p>
+ * A pcc receives label maps once its label DB synchronization has sent it
+ * all labels it needs. Nodes and links which could not get a label, as
+ * before their pcc reserved label ranges, are retried on later runs.
+ */
+public class PcepPceccLabelManager implements TeTopologyListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepPceccLabelManager.class);
+
+    private static final long HOLDOFF_MILLIS = 50;
+
+    private final PcepClientController controller;
+    private final Function<PccId, PcepLabelAllocator> labelAllocators;
+    private final PcepLabelDownloader downloader;
+    private final PcepLabelAllocator nodeLabelAllocator = new PcepLabelAllocator();
+    // Nodes with a router id by router id, for their SRGB
+    private final Map<Integer, TeNode> routers = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+    private boolean scheduled;
+
+    // Changes not yet labelled; guarded by this
+    private Map<Integer, Boolean> dirtyNodes = new HashMap<>();
+    private Map<Long, Adjacency> dirtyLinks = new HashMap<>();
+
+    // Touched by the executor only, except for lookups
+    private final Map<Integer, Integer> nodeLabels = new ConcurrentHashMap<>();
+    private final Map<Long, Adjacency> adjacencies = new ConcurrentHashMap<>();
+    private final Set<Integer> unlabelledNodes = new HashSet<>();
+    private final Set<Long> unlabelledLinks = new HashSet<>();
+    private final Set<PccId> synced = ConcurrentHashMap.newKeySet();
+    // Node label block, set once by the executor
+    private int nodeBlockBase;
+    private int nodeBlockSize;
+    // Pccs whose SRGB covers the node label block, and those logged as not covering it
+    private final Set<PccId> covered = ConcurrentHashMap.newKeySet();
+    private final Set<PccId> uncovered = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder nodeLabelCount = new LongAdder();
+    private final LongAdder adjacencyLabelCount = new LongAdder();
+    private final LongAdder allocationFailures = new LongAdder();
+    private final LongAdder labelMaps = new LongAdder();
+
+    /**
+     * Creates PCECC label manager.
+     *
+     * @param controller controller owning the pcc sessions
+     * @param labelAllocators label allocator of each pcc, for adjacency labels
+     * @param downloader label downloader sending the label maps
+     */
+    public PcepPceccLabelManager(PcepClientController controller, Function<PccId, PcepLabelAllocator> labelAllocators,
+            PcepLabelDownloader downloader) {
+        this.controller = controller;
+        this.labelAllocators = labelAllocators;
+        this.downloader = downloader;
+    }
+
+    /**
+     * Starts the labelling thread.
+     */
+    public synchronized void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(groupedThreads("onos/pcep", "pcecc-labels"));
+    }
+
+    /**
+     * Stops the labelling thread, pending changes are dropped.
+     */
+    public void stop() {
+        ScheduledExecutorService e;
+        synchronized (this) {
+            e = executor;
+            executor = null;
+            scheduled = false;
+            dirtyNodes.clear();
+            dirtyLinks.clear();
+        }
+        if (e != null) {
+            e.shutdownNow();
+        }
+    }
+
+    @Override
+    public void topologyChanged(TeTopology previous, TeTopology current) {
+        Map<Integer, Boolean> nodes = new LinkedHashMap<>();
+        Map<Long, Adjacency> links = new LinkedHashMap<>();
+        BitSet changedNodes = current.changedNodeSlots(previous);
+        for (int s = changedNodes.nextSetBit(0); s >= 0; s = changedNodes.nextSetBit(s + 1)) {
+            TeNode old = previous.nodeAt(s);
+            TeNode node = current.nodeAt(s);
+            if (old != null && old.ipv4RouterId() != 0) {
+                nodes.putIfAbsent(old.ipv4RouterId(), false);
+                routers.remove(old.ipv4RouterId(), old);
+            }
+            if (node != null && node.ipv4RouterId() != 0) {
+                nodes.put(node.ipv4RouterId(), true);
+                routers.put(node.ipv4RouterId(), node);
+            }
+        }
+        BitSet changedLinks = current.changedLinkSlots(previous);
+        for (int s = changedLinks.nextSetBit(0); s >= 0; s = changedLinks.nextSetBit(s + 1)) {
+            Adjacency old = Adjacency.of(previous, previous.linkAt(s));
+            Adjacency adj = Adjacency.of(current, current.linkAt(s));
+            if (old != null) {
+                links.putIfAbsent(old.key(), null);
+            }
+            if (adj != null) {
+                links.put(adj.key(), adj);
+            }
+        }
+        if (nodes.isEmpty() && links.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            dirtyNodes.putAll(nodes);
+            dirtyLinks.putAll(links);
+            schedule();
+        }
+    }
+
+    /**
+     * Labels again the nodes and links of a pcc which could not get a label,
+     * once the pcc reserved label ranges.
+     *
+     * @param pccId pcc whose label ranges changed
+     */
+    public synchronized void labelRangesChanged(PccId pccId) {
+        schedule();
+    }
+
+    /**
+     * Sends a pcc all node labels and the adjacency labels of its links,
+     * and includes it in later label maps.
+     *
+     * @param pccId pcc whose label DB is being synchronized
+     * @return future completed once the label maps are written to the session
+     */
+    public CompletableFuture<Void> labelDbSync(PccId pccId) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        ScheduledExecutorService e;
+        synchronized (this) {
+            e = executor;
+        }
+        try {
+            if (e == null) {
+                throw new RejectedExecutionException("PCECC label manager is stopped");
+            }
+            e.execute(() -> {
+                Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops = new LinkedHashMap<>();
+                Map<Integer, PcepClient> pccs = pceccClients();
+                label(pccs, ops);
+                PcepClient pc = pccs.get(routerId(pccId));
+                if (pc != null) {
+                    List<PcepLabelDownloader.LabelOperation> all = new ArrayList<>();
+                    if (covered.contains(pccId)) {
+                        addNodeLabelMaps(all, pc);
+                    }
+                    for (Adjacency adj : adjacencies.values()) {
+                        if (adj.owner == routerId(pccId) && adj.label != PcepLabelAllocator.NO_LABEL) {
+                            addLabelMap(all, pc, adjacencyFec(pc.factory(), adj), adj.label, false);
+                        }
+                    }
+                    synced.add(pccId);
+                    ops.put(pccId, all);
+                }
+                send(ops).whenComplete((v, t) -> done.complete(null));
+            });
+        } catch (RejectedExecutionException ex) {
+            done.complete(null);
+        }
+        return done;
+    }
+
+    /**
+     * Stops sending label maps to a pcc until its next label DB synchronization.
+     *
+     * @param pccId pcc whose session went down
+     */
+    public void removeClient(PccId pccId) {
+        synced.remove(pccId);
+        covered.remove(pccId);
+        uncovered.remove(pccId);
+    }
+
+    private void schedule() {
+        if (executor == null || scheduled) {
+            return;
+        }
+        try {
+            executor.schedule(this::run, HOLDOFF_MILLIS, TimeUnit.MILLISECONDS);
+            scheduled = true;
+        } catch (RejectedExecutionException e) {
+            log.debug("PCECC label manager is stopping");
+        }
+    }
+
+    private void run() {
+        synchronized (this) {
+            scheduled = false;
+        }
+        Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops = new LinkedHashMap<>();
+        label(pceccClients(), ops);
+        send(ops);
+    }
+
+    /*
+     * Runs on the executor. Frees the labels of removed nodes and links,
+     * allocates labels for the added ones and for those still unlabelled, and
+     * collects the label maps for the synchronized pccs.
+     */
+    private void label(Map<Integer, PcepClient> pccs, Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops) {
+        Map<Integer, Boolean> nodes;
+        Map<Long, Adjacency> links;
+        synchronized (this) {
+            nodes = dirtyNodes;
+            links = dirtyLinks;
+            dirtyNodes = new HashMap<>();
+            dirtyLinks = new HashMap<>();
+        }
+        runs.increment();
+        for (int routerId : unlabelledNodes) {
+            nodes.putIfAbsent(routerId, true);
+        }
+        unlabelledNodes.clear();
+        Map<Long, Adjacency> retry = new HashMap<>();
+        for (long key : unlabelledLinks) {
+            Adjacency adj = adjacencies.get(key);
+            if (adj != null) {
+                retry.put(key, adj);
+            }
+        }
+        unlabelledLinks.clear();
+        for (Map.Entry<Long, Adjacency> entry : retry.entrySet()) {
+            links.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+
+        checkNodeBlock(pccs, ops);
+        labelNodes(nodes, pccs, ops);
+        labelLinks(links, pccs, ops);
+    }
+
+    /*
+     * Takes the node label block from the SRGB of the pcc with the lowest
+     * router id if not known yet, and checks the SRGB of every pcc against
+     * it. A synchronized pcc whose SRGB now covers the block is sent the node
+     * labels it missed.
+     */
+    private void checkNodeBlock(Map<Integer, PcepClient> pccs,
+            Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops) {
+        if (nodeBlockSize == 0) {
+            List<Integer> routerIds = new ArrayList<>(pccs.keySet());
+            Collections.sort(routerIds, Integer::compareUnsigned);
+            for (int routerId : routerIds) {
+                TeNode node = routers.get(routerId);
+                if (node != null && node.srgbRangeSizes().length > 0 && node.srgbRangeSizes()[0] > 0) {
+                    nodeBlockBase = node.srgbFirstLabels()[0];
+                    nodeBlockSize = node.srgbRangeSizes()[0];
+                    nodeLabelAllocator.addRange((byte) 0, nodeBlockBase, nodeBlockSize);
+                    log.info("PCECC node labels {}-{} taken from the SRGB of {}", nodeBlockBase,
+                            nodeBlockBase + nodeBlockSize - 1, pccs.get(routerId).getPccId());
+                    break;
+                }
+            }
+            if (nodeBlockSize == 0) {
+                return;
+            }
+        }
+        for (Map.Entry<Integer, PcepClient> entry : pccs.entrySet()) {
+            PccId pccId = entry.getValue().getPccId();
+            if (coversNodeBlock(routers.get(entry.getKey()))) {
+                uncovered.remove(pccId);
+                if (covered.add(pccId) && synced.contains(pccId)) {
+                    addNodeLabelMaps(list(ops, entry.getValue()), entry.getValue());
+                }
+            } else {
+                covered.remove(pccId);
+                if (uncovered.add(pccId)) {
+                    log.warn("SRGB of {} does not cover PCECC node labels {}-{}, no node labels are sent to it",
+                            pccId, nodeBlockBase, nodeBlockBase + nodeBlockSize - 1);
+                }
+            }
+        }
+    }
+
+    private boolean coversNodeBlock(TeNode node) {
+        if (node == null) {
+            return false;
+        }
+        int[] firstLabels = node.srgbFirstLabels();
+        int[] rangeSizes = node.srgbRangeSizes();
+        for (int i = 0; i < rangeSizes.length; i++) {
+            if (firstLabels[i] <= nodeBlockBase
+                    && (long) firstLabels[i] + rangeSizes[i] >= (long) nodeBlockBase + nodeBlockSize) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addNodeLabelMaps(List<PcepLabelDownloader.LabelOperation> ops, PcepClient pc) {
+        for (Map.Entry<Integer, Integer> node : nodeLabels.entrySet()) {
+            addLabelMap(ops, pc, nodeFec(pc.factory(), node.getKey()), node.getValue(), false);
+        }
+    }
+
+    private void labelNodes(Map<Integer, Boolean> nodes, Map<Integer, PcepClient> pccs,
+            Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops) {
+        List<Integer> added = new ArrayList<>();
+        for (Map.Entry<Integer, Boolean> entry : nodes.entrySet()) {
+            int routerId = entry.getKey();
+            Integer label = nodeLabels.get(routerId);
+            if (entry.getValue() && label == null) {
+                added.add(routerId);
+            } else if (!entry.getValue() && label != null) {
+                nodeLabels.remove(routerId);
+                nodeLabelAllocator.free(label);
+                for (PcepClient pc : nodeLabelClients(pccs)) {
+                    addLabelMap(list(ops, pc), pc, nodeFec(pc.factory(), routerId), label, true);
+                }
+            }
+        }
+
+        int[] labels = allocate(nodeLabelAllocator, added.size());
+        for (int i = 0; i < added.size(); i++) {
+            int routerId = added.get(i);
+            if (labels[i] == PcepLabelAllocator.NO_LABEL) {
+                unlabelledNodes.add(routerId);
+                continue;
+            }
+            nodeLabels.put(routerId, labels[i]);
+            nodeLabelCount.increment();
+            for (PcepClient pc : nodeLabelClients(pccs)) {
+                addLabelMap(list(ops, pc), pc, nodeFec(pc.factory(), routerId), labels[i], false);
+            }
+        }
+    }
+
+    private void labelLinks(Map<Long, Adjacency> links, Map<Integer, PcepClient> pccs,
+            Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops) {
+        Map<Integer, List<Adjacency>> addedByOwner = new LinkedHashMap<>();
+        for (Map.Entry<Long, Adjacency> entry : links.entrySet()) {
+            Adjacency old = adjacencies.get(entry.getKey());
+            Adjacency adj = entry.getValue();
+            if (old != null && old.label != PcepLabelAllocator.NO_LABEL
+                    && (adj == null || adj.owner != old.owner)) {
+                adjacencies.remove(entry.getKey());
+                labelAllocators.apply(old.pccId).free(old.label);
+                PcepClient pc = pccs.get(old.owner);
+                if (pc != null && synced.contains(pc.getPccId())) {
+                    addLabelMap(list(ops, pc), pc, adjacencyFec(pc.factory(), old), old.label, true);
+                }
+                old = null;
+            }
+            if (adj == null) {
+                adjacencies.remove(entry.getKey());
+            } else if (old == null || old.label == PcepLabelAllocator.NO_LABEL) {
+                List<Adjacency> owned = addedByOwner.get(adj.owner);
+                if (owned == null) {
+                    owned = new ArrayList<>();
+                    addedByOwner.put(adj.owner, owned);
+                }
+                owned.add(adj);
+            }
+        }
+
+        for (Map.Entry<Integer, List<Adjacency>> entry : addedByOwner.entrySet()) {
+            PcepClient pc = pccs.get(entry.getKey());
+            List<Adjacency> owned = entry.getValue();
+            int[] labels = pc == null ? null : allocate(labelAllocators.apply(pc.getPccId()), owned.size());
+            for (int i = 0; i < owned.size(); i++) {
+                Adjacency adj = owned.get(i);
+                int label = labels == null ? PcepLabelAllocator.NO_LABEL : labels[i];
+                Adjacency labelled = adj.withLabel(pc == null ? null : pc.getPccId(), label);
+                adjacencies.put(adj.key(), labelled);
+                if (label == PcepLabelAllocator.NO_LABEL) {
+                    unlabelledLinks.add(adj.key());
+                    continue;
+                }
+                adjacencyLabelCount.increment();
+                if (synced.contains(pc.getPccId())) {
+                    addLabelMap(list(ops, pc), pc, adjacencyFec(pc.factory(), labelled), label, false);
+                }
+            }
+        }
+    }
+
+    /*
+     * Allocates the labels as one block if possible, else one by one.
+     */
+    private int[] allocate(PcepLabelAllocator allocator, int count) {
+        int[] labels = new int[count];
+        if (count == 0) {
+            return labels;
+        }
+        int first = count > 1 ? allocator.allocateBlock(count) : PcepLabelAllocator.NO_LABEL;
+        for (int i = 0; i < count; i++) {
+            labels[i] = first != PcepLabelAllocator.NO_LABEL ? first + i : allocator.allocate();
+            if (labels[i] == PcepLabelAllocator.NO_LABEL) {
+                allocationFailures.increment();
+            }
+        }
+        return labels;
+    }
+
+    private CompletableFuture<List<PcepLabelDownloader.Result>> send(
+            Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops) {
+        List<List<PcepLabelDownloader.LabelOperation>> lsps = new ArrayList<>();
+        for (List<PcepLabelDownloader.LabelOperation> list : ops.values()) {
+            for (PcepLabelDownloader.LabelOperation op : list) {
+                lsps.add(Collections.singletonList(op));
+            }
+        }
+        if (lsps.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        labelMaps.add(lsps.size());
+        log.debug("Sending {} PCECC label maps to {} pccs", lsps.size(), ops.size());
+        return downloader.download(lsps);
+    }
+
+    private Map<Integer, PcepClient> pceccClients() {
+        Map<Integer, PcepClient> pccs = new HashMap<>();
+        for (PcepClient pc : controller.getClients()) {
+            if (pc.isConnected() && pc.capability() != null && pc.capability().pceccCapability()) {
+                int routerId = routerId(pc.getPccId());
+                if (routerId != 0) {
+                    pccs.put(routerId, pc);
+                }
+            }
+        }
+        return pccs;
+    }
+
+    private List<PcepClient> nodeLabelClients(Map<Integer, PcepClient> pccs) {
+        List<PcepClient> clients = new ArrayList<>();
+        for (PcepClient pc : pccs.values()) {
+            if (synced.contains(pc.getPccId()) && covered.contains(pc.getPccId())) {
+                clients.add(pc);
+            }
+        }
+        return clients;
+    }
+
+    private static int routerId(PccId pccId) {
+        IpAddress ip = pccId.ipAddress();
+        return ip != null && ip.isIp4() ? ip.getIp4Address().toInt() : 0;
+    }
+
+    private static List<PcepLabelDownloader.LabelOperation> list(
+            Map<PccId, List<PcepLabelDownloader.LabelOperation>> ops, PcepClient pc) {
+        List<PcepLabelDownloader.LabelOperation> list = ops.get(pc.getPccId());
+        if (list == null) {
+            list = new ArrayList<>();
+            ops.put(pc.getPccId(), list);
+        }
+        return list;
+    }
+
+    private void addLabelMap(List<PcepLabelDownloader.LabelOperation> ops, PcepClient pc, PcepFecObject fec,
+            int label, boolean remove) {
+        if (fec == null) {
+            return;
+        }
+        PcepFactory factory = pc.factory();
+        try {
+            PcepLabelMap map = new PcepLabelMap();
+            map.setSrpObject(factory.buildSrpObject().setSrpID(SrpIdGenerators.create()).setRFlag(remove).build());
+            map.setLabelObject(factory.buildLabelObject().setLabel(label).build());
+            map.setFecObject(fec);
+            PcepLabelUpdate update = factory.buildPcepLabelUpdateObject().setLabelMap(map).build();
+            ops.add(new PcepLabelDownloader.LabelOperation(pc.getPccId(), update));
+        } catch (PcepParseException e) {
+            log.warn("Failed to build label map for {}: {}", pc.getPccId(), e.getMessage());
+        }
+    }
+
+    private static PcepFecObject nodeFec(PcepFactory factory, int routerId) {
+        try {
+            return factory.buildFecObjectIpv4().setNodeID(routerId).build();
+        } catch (PcepParseException e) {
+            log.warn("Failed to build node FEC: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static PcepFecObject adjacencyFec(PcepFactory factory, Adjacency adj) {
+        try {
+            return factory.buildFecIpv4Adjacency().seLocalIPv4Address(adj.localAddress)
+                    .seRemoteIPv4Address(adj.remoteAddress).build();
+        } catch (PcepParseException e) {
+            log.warn("Failed to build adjacency FEC: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the node label of a router.
+     *
+     * @param routerId IPv4 router id
+     * @return node label, {@link PcepLabelAllocator#NO_LABEL} if the router has none
+     */
+    public int nodeLabel(int routerId) {
+        Integer label = nodeLabels.get(routerId);
+        return label == null ? PcepLabelAllocator.NO_LABEL : label;
+    }
+
+    /**
+     * Returns the adjacency label of a link.
+     *
+     * @param localAddress IPv4 address of the local interface
+     * @param remoteAddress IPv4 address of the remote interface
+     * @return adjacency label, {@link PcepLabelAllocator#NO_LABEL} if the link has none
+     */
+    public int adjacencyLabel(int localAddress, int remoteAddress) {
+        Adjacency adj = adjacencies.get(Adjacency.key(localAddress, remoteAddress));
+        return adj == null ? PcepLabelAllocator.NO_LABEL : adj.label;
+    }
+
+    /**
+     * Returns the number of labelling runs.
+     *
+     * @return run count
+     */
+    public long runCount() {
+        return runs.sum();
+    }
+
+    /**
+     * Returns the number of node labels allocated.
+     *
+     * @return node label count
+     */
+    public long nodeLabelCount() {
+        return nodeLabelCount.sum();
+    }
+
+    /**
+     * Returns the number of adjacency labels allocated.
+     *
+     * @return adjacency label count
+     */
+    public long adjacencyLabelCount() {
+        return adjacencyLabelCount.sum();
+    }
+
+    /**
+     * Returns the number of labels which could not be allocated.
+     *
+     * @return allocation failure count
+     */
+    public long allocationFailureCount() {
+        return allocationFailures.sum();
+    }
+
+    /**
+     * Returns the number of label maps handed to the label downloader.
+     *
+     * @return label map count
+     */
+    public long labelMapCount() {
+        return labelMaps.sum();
+    }
+
+    /**
+     * Numbered link, the router id of its source node and its adjacency
+     * label, allocated from the label ranges of the pcc of that node.
+     */
+    private static final class Adjacency {
+        private final int localAddress;
+        private final int remoteAddress;
+        private final int owner;
+        private final PccId pccId;
+        private final int label;
+
+        private Adjacency(int localAddress, int remoteAddress, int owner, PccId pccId, int label) {
+            this.localAddress = localAddress;
+            this.remoteAddress = remoteAddress;
+            this.owner = owner;
+            this.pccId = pccId;
+            this.label = label;
+        }
+
+        private static Adjacency of(TeTopology topology, TeLink link) {
+            if (link == null || link.localIfAddr() == 0 || link.remoteIfAddr() == 0) {
+                return null;
+            }
+            TeNode src = topology.nodeAt(link.srcNode());
+            if (src == null || src.ipv4RouterId() == 0) {
+                return null;
+            }
+            return new Adjacency(link.localIfAddr(), link.remoteIfAddr(), src.ipv4RouterId(), null,
+                    PcepLabelAllocator.NO_LABEL);
+        }
+
+        private static long key(int localAddress, int remoteAddress) {
+            return (long) localAddress << Integer.SIZE | remoteAddress & 0xFFFFFFFFL;
+        }
+
+        private long key() {
+            return key(localAddress, remoteAddress);
+        }
+
+        private Adjacency withLabel(PccId pccId, int label) {
+            return new Adjacency(localAddress, remoteAddress, owner, pccId, label);
+        }
+    }
+}
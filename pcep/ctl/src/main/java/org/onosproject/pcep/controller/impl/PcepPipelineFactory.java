@@ -26,12 +26,14 @@ import org.jboss.netty.util.HashedWheelTimer;
 import org.jboss.netty.util.Timer;
 
 /**
- * Creates a ChannelPipeline for a server-side pcep channel.
+ * Creates a ChannelPipeline for a server-side pcep channel, or for the
+ * client-side channel of a session to a parent PCE.
  */
 public class PcepPipelineFactory
     implements ChannelPipelineFactory, ExternalResourceReleasable {
 
     protected Controller controller;
+    protected PcepUpstreamSession upstream;
     static final Timer TIMER = new HashedWheelTimer();
     protected IdleStateHandler idleHandler;
     protected ReadTimeoutHandler readTimeoutHandler;
@@ -40,18 +42,30 @@ public class PcepPipelineFactory
     static final int DEFAULT_WAIT_TIME = 60;
 
     public PcepPipelineFactory(Controller controller) {
+        this(controller, null);
+    }
+
+    /**
+     * Creates pipeline factory for the session to a parent PCE.
+     *
+     * @param controller parent controller
+     * @param upstream session to the parent PCE, null for pcc sessions
+     */
+    public PcepPipelineFactory(Controller controller, PcepUpstreamSession upstream) {
         super();
         this.controller = controller;
+        this.upstream = upstream;
         this.idleHandler = new IdleStateHandler(TIMER, DEFAULT_DEAD_TIME, DEFAULT_KEEP_ALIVE_TIME, 0);
         this.readTimeoutHandler = new ReadTimeoutHandler(TIMER, DEFAULT_WAIT_TIME);
     }
 
     @Override
     public ChannelPipeline getPipeline() throws Exception {
-        PcepChannelHandler handler = new PcepChannelHandler(controller);
+        PcepChannelHandler handler = new PcepChannelHandler(controller, upstream);
 
         ChannelPipeline pipeline = Channels.pipeline();
-        pipeline.addLast("pcepmessagedecoder", new PcepMessageDecoder());
+        // Frames of pcc reports are kept for the relay, the parent PCE sends none worth relaying
+        pipeline.addLast("pcepmessagedecoder", new PcepMessageDecoder(upstream == null ? controller : null));
         pipeline.addLast("pcepmessageencoder", new PcepMessageEncoder());
         pipeline.addLast("idle", idleHandler);
         pipeline.addLast("waittimeout", readTimeoutHandler);
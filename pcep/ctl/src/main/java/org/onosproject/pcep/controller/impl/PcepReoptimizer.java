@@ -0,0 +1,619 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onlab.util.Tools.groupedThreads;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcep.controller.PcepClient;
+import org.onosproject.pcep.controller.PcepClientController;
+import org.onosproject.pcep.controller.PcepLspIntent;
+import org.onosproject.pcep.controller.PcepLspResult;
+import org.onosproject.pcep.controller.PcepLspStatus;
+import org.onosproject.pcepio.protocol.PcepAttribute;
+import org.onosproject.pcepio.protocol.PcepEroObject;
+import org.onosproject.pcepio.protocol.PcepLspObject;
+import org.onosproject.pcepio.protocol.PcepRroObject;
+import org.onosproject.pcepio.protocol.PcepStateReport;
+import org.onosproject.pcepio.protocol.PcepUpdateRequest;
+import org.onosproject.pcepio.types.IPv4SubObject;
+import org.onosproject.pcepio.types.LabelSubObject;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Periodic global re-optimization of the LSPs delegated to the PCE.
+ * <p>
+ * A run takes every delegated LSP of the {@link PcepLspPathIndex} which is
+ * not being rerouted, resolves its reported path on the current topology and
+ * computes its best path in parallel. An LSP is moved only when the new path
+ * is cheaper by the hysteresis threshold and its bandwidth can be reserved
+ * without preempting anyone. Runs are started periodically and, after a hold
+ * off, by topology changes; a run started while one is computing joins it.
+ * <p>
+ * The PCUpd requests of the moved LSPs are queued per pcc and sent in
+ * batches of a bounded size at a fixed interval, so a run does not flood the
+ * sessions. A later run replaces the queued request of an LSP it moves again.
+ */
+public class PcepReoptimizer implements TeTopologyListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepReoptimizer.class);
+
+    private static final long DEFAULT_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long DEFAULT_HOLDOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final double DEFAULT_RELATIVE_GAIN = 0.1;
+    private static final long DEFAULT_ABSOLUTE_GAIN = 1;
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final long DEFAULT_BATCH_INTERVAL_MILLIS = 500;
+
+    private final PcepClientController controller;
+    private final PcepRerouteManager rerouteManager;
+    private final TePathCache pathCache;
+    private final TeBandwidthLedger ledger;
+    private final int parallelism;
+
+    private volatile ForkJoinPool pool;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> periodic;
+    private ScheduledFuture<?> triggered;
+    private ScheduledFuture<?> draining;
+    private CompletableFuture<Report> running;
+    private Report lastReport;
+
+    private long periodMillis = DEFAULT_PERIOD_MILLIS;
+    private long holdoffMillis = DEFAULT_HOLDOFF_MILLIS;
+    private volatile double relativeGain = DEFAULT_RELATIVE_GAIN;
+    private volatile long absoluteGain = DEFAULT_ABSOLUTE_GAIN;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long batchIntervalMillis = DEFAULT_BATCH_INTERVAL_MILLIS;
+
+    // PCUpd requests waiting for their batch, per pcc in move order; guarded by this
+    private final Map<PccId, Map<PcepRerouteManager.LspId, PcepUpdateRequest>> queued = new LinkedHashMap<>();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder evaluated = new LongAdder();
+    private final LongAdder moved = new LongAdder();
+    private final LongAdder sentUpdates = new LongAdder();
+    private final LongAdder failedUpdates = new LongAdder();
+    private final LongAdder replacedUpdates = new LongAdder();
+
+    /**
+     * Creates re-optimizer.
+     *
+     * @param controller controller sending the PCUpd messages
+     * @param rerouteManager reroute manager owning the LSP index, its LSPs are left alone
+     * @param pathCache cached path computation over the TE topology
+     * @param ledger bandwidth reserved by the LSPs of the PCE
+     * @param parallelism number of threads computing paths
+     */
+    public PcepReoptimizer(PcepClientController controller, PcepRerouteManager rerouteManager,
+            TePathCache pathCache, TeBandwidthLedger ledger, int parallelism) {
+        this.controller = controller;
+        this.rerouteManager = rerouteManager;
+        this.pathCache = pathCache;
+        this.ledger = ledger;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Starts the computation pool and the periodic runs.
+     */
+    public synchronized void start() {
+        pool = new ForkJoinPool(parallelism);
+        scheduler = Executors.newSingleThreadScheduledExecutor(groupedThreads("onos/pcep", "reoptimizer"));
+        schedulePeriodic();
+    }
+
+    /**
+     * Stops the runs, PCUpd requests still queued are dropped.
+     */
+    public void stop() {
+        ForkJoinPool p;
+        ScheduledExecutorService s;
+        synchronized (this) {
+            p = pool;
+            s = scheduler;
+            pool = null;
+            scheduler = null;
+            periodic = null;
+            triggered = null;
+            draining = null;
+            for (Map<PcepRerouteManager.LspId, PcepUpdateRequest> updates : queued.values()) {
+                for (PcepRerouteManager.LspId id : updates.keySet()) {
+                    rerouteManager.recharge(id);
+                }
+            }
+            queued.clear();
+        }
+        if (s != null) {
+            s.shutdownNow();
+        }
+        if (p != null) {
+            p.shutdown();
+            try {
+                p.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Sets the interval of the periodic runs.
+     *
+     * @param periodMillis interval in milliseconds, 0 to run only on topology changes or on demand
+     * @param holdoffMillis delay from a topology change to the run it triggers, negative to not
+     *        run on topology changes
+     */
+    public synchronized void setSchedule(long periodMillis, long holdoffMillis) {
+        checkArgument(periodMillis >= 0, "Invalid period");
+        this.periodMillis = periodMillis;
+        this.holdoffMillis = holdoffMillis;
+        if (periodic != null) {
+            periodic.cancel(false);
+            periodic = null;
+        }
+        if (scheduler != null) {
+            schedulePeriodic();
+        }
+    }
+
+    /**
+     * Sets the hysteresis: an LSP moves only if its cost drops by both the
+     * relative and the absolute gain.
+     *
+     * @param relativeGain fraction of the current cost, between 0 and 1
+     * @param absoluteGain metric units
+     */
+    public void setHysteresis(double relativeGain, long absoluteGain) {
+        checkArgument(relativeGain >= 0 && relativeGain < 1, "Invalid relative gain");
+        checkArgument(absoluteGain >= 0, "Invalid absolute gain");
+        this.relativeGain = relativeGain;
+        this.absoluteGain = absoluteGain;
+    }
+
+    /**
+     * Sets the pace of the PCUpd requests sent to each pcc.
+     *
+     * @param batchSize most requests sent to a pcc at once
+     * @param batchIntervalMillis interval between two batches to the same pcc
+     */
+    public synchronized void setRate(int batchSize, long batchIntervalMillis) {
+        checkArgument(batchSize > 0, "Invalid batch size");
+        checkArgument(batchIntervalMillis > 0, "Invalid batch interval");
+        this.batchSize = batchSize;
+        this.batchIntervalMillis = batchIntervalMillis;
+    }
+
+    private void schedulePeriodic() {
+        if (periodMillis > 0) {
+            periodic = scheduler.scheduleWithFixedDelay(this::reoptimize, periodMillis, periodMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void topologyChanged(TeTopology previous, TeTopology current) {
+        if (scheduler == null || holdoffMillis < 0 || triggered != null && !triggered.isDone()) {
+            return;
+        }
+        try {
+            triggered = scheduler.schedule(this::reoptimize, holdoffMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Re-optimizer is stopping");
+        }
+    }
+
+    /**
+     * Starts a run, or joins the run being computed.
+     *
+     * @return future completed with the report of the run once its PCUpd requests are queued
+     */
+    public CompletableFuture<Report> reoptimize() {
+        final CompletableFuture<Report> result;
+        ForkJoinPool p;
+        synchronized (this) {
+            if (running != null) {
+                return running;
+            }
+            p = pool;
+            if (p == null) {
+                CompletableFuture<Report> stopped = new CompletableFuture<>();
+                stopped.completeExceptionally(new RejectedExecutionException("Re-optimizer is stopped"));
+                return stopped;
+            }
+            result = new CompletableFuture<>();
+            running = result;
+        }
+
+        final long start = System.nanoTime();
+        final TeGraph g = pathCache.graph();
+        List<PcepLspPathIndex.IndexedLsp> lsps = new ArrayList<>();
+        for (PcepLspPathIndex.IndexedLsp lsp : rerouteManager.index().delegatedLsps()) {
+            if (!rerouteManager.isPending(lsp.pccId(), lsp.plspId())) {
+                lsps.add(lsp);
+            }
+        }
+        final List<CompletableFuture<PcepUpdateRequest>> moves = new ArrayList<>(lsps.size());
+        try {
+            for (final PcepLspPathIndex.IndexedLsp lsp : lsps) {
+                moves.add(CompletableFuture.supplyAsync(() -> evaluate(g, lsp), p));
+            }
+        } catch (RejectedExecutionException e) {
+            finish(result, new Report(g.version(), 0, 0, 0));
+            return result;
+        }
+
+        CompletableFuture.allOf(moves.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> {
+            int count = 0;
+            synchronized (this) {
+                for (int i = 0; i < moves.size(); i++) {
+                    PcepUpdateRequest update = moves.get(i).isCompletedExceptionally() ? null : moves.get(i).join();
+                    if (update != null) {
+                        enqueue(lsps.get(i), update);
+                        count++;
+                    }
+                }
+            }
+            Report report = new Report(g.version(), lsps.size(), count, System.nanoTime() - start);
+            runs.increment();
+            evaluated.add(lsps.size());
+            moved.add(count);
+            log.info("Re-optimization on topology version {} evaluated {} LSPs, moved {} in {} ms",
+                    report.version(), report.evaluatedCount(), report.movedCount(), report.durationMillis());
+            finish(result, report);
+        });
+        return result;
+    }
+
+    private void finish(CompletableFuture<Report> result, Report report) {
+        synchronized (this) {
+            running = null;
+            lastReport = report;
+        }
+        result.complete(report);
+    }
+
+    /*
+     * Runs on the pool. Returns the update moving the LSP, with the bandwidth
+     * of the new path reserved, or null if the LSP stays where it is.
+     */
+    private PcepUpdateRequest evaluate(TeGraph g, PcepLspPathIndex.IndexedLsp lsp) {
+        PcepClient pc = controller.getClient(lsp.pccId());
+        PcepStateReport report = lsp.report();
+        PcepLspObject lspObj = report.getLspObject();
+        int src = g.nodeByAddress(lsp.ingress());
+        int dst = g.nodeByAddress(lsp.egress());
+        if (pc == null || src < 0 || dst < 0 || lspObj.getOFlag() == PcepLspStatus.DOWN.ordinal()) {
+            return null;
+        }
+
+        PcepAttribute attr = PcepRerouteManager.attribute(pc.factory(), report.getMsgPath());
+        TeConstraints constraints = PcepStatelessPce.constraints(attr);
+        boolean teMetric = constraints.metricType() == TeConstraints.MetricType.TE;
+        long current = currentCost(g, src, dst, report.getMsgPath(), teMetric);
+        if (current < 0) {
+            // Loose or SR hops, the current cost is unknown
+            return null;
+        }
+        TePath path = pathCache.computePath(g, src, dst, constraints);
+        if (path == null || current - path.cost() < Math.max(absoluteGain, (long) Math.ceil(current * relativeGain))) {
+            return null;
+        }
+
+        PcepRerouteManager.LspId id = new PcepRerouteManager.LspId(lsp.pccId(), lsp.plspId());
+        TeBandwidthLedger.Admission admission = ledger.reserve(id, g.topology(), path.linkSlots(),
+                constraints.bandwidth(), constraints.setupPriority(), PcepRerouteManager.holdingPriority(attr), false);
+        if (!admission.isAdmitted()) {
+            return null;
+        }
+        PcepUpdateRequest update = PcepRerouteManager.updateRequest(pc.factory(), lsp, attr, g, path);
+        if (update == null) {
+            rerouteManager.recharge(id);
+        }
+        return update;
+    }
+
+    /**
+     * Returns the cost of the reported path on the current topology. Hops are
+     * IPv4 subobjects of the ERO, or of the RRO without ERO, each naming the
+     * remote interface address of a link or the next node.
+     *
+     * @param g TE graph
+     * @param src ingress node slot
+     * @param dst egress node slot
+     * @param msgPath reported path, may be null
+     * @param teMetric true for the TE metric, false for the IGP metric
+     * @return cost, -1 if a hop cannot be resolved to a link
+     */
+    static long currentCost(TeGraph g, int src, int dst, PcepStateReport.PcepMsgPath msgPath, boolean teMetric) {
+        List<PcepValueType> hops = null;
+        if (msgPath != null) {
+            PcepEroObject ero = msgPath.getEroObject();
+            PcepRroObject rro = msgPath.getRroObject();
+            // subobjects of reported paths are decoded on every call
+            hops = ero != null ? ero.getSubObjects() : null;
+            if ((hops == null || hops.isEmpty()) && rro != null) {
+                hops = rro.getSubObjects();
+            }
+        }
+        if (hops == null || hops.isEmpty()) {
+            return -1;
+        }
+
+        long cost = 0;
+        int node = src;
+        for (PcepValueType hop : hops) {
+            if (hop instanceof LabelSubObject) {
+                continue;
+            }
+            if (!(hop instanceof IPv4SubObject)) {
+                return -1;
+            }
+            int address = ((IPv4SubObject) hop).getIpAddress();
+            int target = g.nodeByAddress(address);
+            if (target == node) {
+                // Local address of the current node, as recorded first in an RRO
+                continue;
+            }
+            int edge = -1;
+            for (int e = g.offset(node), end = g.offset(node + 1); e < end; e++) {
+                if (g.topology().linkAt(g.linkSlot(e)).remoteIfAddr() == address) {
+                    edge = e;
+                    break;
+                }
+                if (g.target(e) == target && (edge < 0
+                        || TePathComputer.weight(g, e, teMetric) < TePathComputer.weight(g, edge, teMetric))) {
+                    edge = e;
+                }
+            }
+            if (edge < 0) {
+                return -1;
+            }
+            cost += TePathComputer.weight(g, edge, teMetric);
+            node = g.target(edge);
+        }
+        return node == dst ? cost : -1;
+    }
+
+    /*
+     * Called with the lock held.
+     */
+    private void enqueue(PcepLspPathIndex.IndexedLsp lsp, PcepUpdateRequest update) {
+        Map<PcepRerouteManager.LspId, PcepUpdateRequest> updates = queued.get(lsp.pccId());
+        if (updates == null) {
+            updates = new LinkedHashMap<>();
+            queued.put(lsp.pccId(), updates);
+        }
+        if (updates.put(new PcepRerouteManager.LspId(lsp.pccId(), lsp.plspId()), update) != null) {
+            replacedUpdates.increment();
+        }
+        if (scheduler != null && (draining == null || draining.isDone())) {
+            try {
+                draining = scheduler.scheduleWithFixedDelay(this::drain, 0, batchIntervalMillis,
+                        TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Re-optimizer is stopping");
+            }
+        }
+    }
+
+    /*
+     * Sends one batch to every pcc with queued updates, and stops once the queues are empty.
+     */
+    private void drain() {
+        Map<PccId, List<PcepRerouteManager.LspId>> ids = new LinkedHashMap<>();
+        Map<PccId, List<PcepLspIntent>> batches = new LinkedHashMap<>();
+        synchronized (this) {
+            Iterator<Map.Entry<PccId, Map<PcepRerouteManager.LspId, PcepUpdateRequest>>> pccs =
+                    queued.entrySet().iterator();
+            while (pccs.hasNext()) {
+                Map.Entry<PccId, Map<PcepRerouteManager.LspId, PcepUpdateRequest>> entry = pccs.next();
+                List<PcepRerouteManager.LspId> batchIds = new ArrayList<>();
+                List<PcepLspIntent> batch = new ArrayList<>();
+                Iterator<Map.Entry<PcepRerouteManager.LspId, PcepUpdateRequest>> it =
+                        entry.getValue().entrySet().iterator();
+                while (it.hasNext() && batch.size() < batchSize) {
+                    Map.Entry<PcepRerouteManager.LspId, PcepUpdateRequest> update = it.next();
+                    batchIds.add(update.getKey());
+                    batch.add(PcepLspIntent.update(update.getValue()));
+                    it.remove();
+                }
+                if (entry.getValue().isEmpty()) {
+                    pccs.remove();
+                }
+                ids.put(entry.getKey(), batchIds);
+                batches.put(entry.getKey(), batch);
+            }
+            if (queued.isEmpty() && draining != null) {
+                draining.cancel(false);
+                draining = null;
+            }
+        }
+
+        for (Map.Entry<PccId, List<PcepLspIntent>> entry : batches.entrySet()) {
+            final List<PcepRerouteManager.LspId> batchIds = ids.get(entry.getKey());
+            controller.provisionLsps(entry.getKey(), entry.getValue()).whenComplete((results, e) -> {
+                for (int i = 0; i < batchIds.size(); i++) {
+                    if (e != null || results.get(i).status() != PcepLspResult.Status.SENT) {
+                        // The LSP stays on its reported path
+                        rerouteManager.recharge(batchIds.get(i));
+                        failedUpdates.increment();
+                    } else {
+                        sentUpdates.increment();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the report of the last completed run.
+     *
+     * @return run report, null before the first run
+     */
+    public synchronized Report lastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Returns the number of completed runs.
+     *
+     * @return run count
+     */
+    public long runCount() {
+        return runs.sum();
+    }
+
+    /**
+     * Returns the number of LSPs evaluated by all runs.
+     *
+     * @return evaluated LSP count
+     */
+    public long evaluatedCount() {
+        return evaluated.sum();
+    }
+
+    /**
+     * Returns the number of LSPs moved by all runs.
+     *
+     * @return moved LSP count
+     */
+    public long movedCount() {
+        return moved.sum();
+    }
+
+    /**
+     * Returns the number of PCUpd requests handed to the sessions.
+     *
+     * @return sent update count
+     */
+    public long sentUpdateCount() {
+        return sentUpdates.sum();
+    }
+
+    /**
+     * Returns the number of PCUpd requests the sessions did not take.
+     *
+     * @return failed update count
+     */
+    public long failedUpdateCount() {
+        return failedUpdates.sum();
+    }
+
+    /**
+     * Returns the number of queued PCUpd requests replaced by a later run.
+     *
+     * @return replaced update count
+     */
+    public long replacedUpdateCount() {
+        return replacedUpdates.sum();
+    }
+
+    /**
+     * Returns the number of PCUpd requests waiting for their batch.
+     *
+     * @return queued update count
+     */
+    public synchronized int queuedUpdateCount() {
+        int n = 0;
+        for (Map<PcepRerouteManager.LspId, PcepUpdateRequest> updates : queued.values()) {
+            n += updates.size();
+        }
+        return n;
+    }
+
+    /**
+     * Outcome of a re-optimization run.
+     */
+    public static final class Report {
+        private final long version;
+        private final int evaluatedCount;
+        private final int movedCount;
+        private final long durationNanos;
+
+        private Report(long version, int evaluatedCount, int movedCount, long durationNanos) {
+            this.version = version;
+            this.evaluatedCount = evaluatedCount;
+            this.movedCount = movedCount;
+            this.durationNanos = durationNanos;
+        }
+
+        /**
+         * Returns the topology version the run computed on.
+         *
+         * @return topology version
+         */
+        public long version() {
+            return version;
+        }
+
+        /**
+         * Returns the number of delegated LSPs evaluated.
+         *
+         * @return evaluated LSP count
+         */
+        public int evaluatedCount() {
+            return evaluatedCount;
+        }
+
+        /**
+         * Returns the number of LSPs moved onto a better path.
+         *
+         * @return moved LSP count
+         */
+        public int movedCount() {
+            return movedCount;
+        }
+
+        /**
+         * Returns the time from the start of the run to its updates being queued.
+         *
+         * @return duration in milliseconds
+         */
+        public long durationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("version", version)
+                    .add("evaluated", evaluatedCount)
+                    .add("moved", movedCount)
+                    .add("durationMillis", durationMillis())
+                    .toString();
+        }
+    }
+}
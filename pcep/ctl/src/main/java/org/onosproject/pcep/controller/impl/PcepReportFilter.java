@@ -0,0 +1,348 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.onosproject.pcepio.protocol.PcepType;
+
+/**
+ * Drops the state reports and LS objects a pcc sends again unchanged, before
+ * they are decoded.
+ * <p>
+ * The filter keeps a 64 bit fingerprint of the encoded LSP and path objects
+ * of every LSP by PLSP-ID, and of every LS object by LS-ID. A PCRpt or LSRpt
+ * frame is walked object by object without decoding, and the reports whose
+ * fingerprint did not change are cut out of the frame. Reports answering a
+ * PCUpd or PCInitiate (with an SRP object), synchronization reports (S flag),
+ * removals and end of synchronization markers always go through.
+ * <p>
+ * One filter serves the channel of one pcc and is used by its I/O thread only.
+ * Fingerprints learnt from a frame only count once the frame was decoded, see
+ * {@link #commit()}.
+ */
+final class PcepReportFilter {
+
+    private static final int COMMON_HEADER_LENGTH = 4;
+    private static final int OBJECT_HEADER_LENGTH = 4;
+    private static final int TYPE_INDEX = 1;
+    private static final int LENGTH_INDEX = 2;
+    private static final int REPORT_TYPE = PcepType.REPORT.getType() & 0xFF;
+    private static final int LS_REPORT_TYPE = PcepType.LS_REPORT.getType() & 0xFF;
+
+    private static final int LS_OBJ_CLASS = 224;
+    private static final int LS_FLAGS_INDEX = 7;
+    private static final int LS_ID_INDEX = 8;
+    private static final int LS_OBJ_LENGTH = 16;
+    private static final int LS_R_FLAG = 0x02;
+    private static final int LS_S_FLAG = 0x01;
+
+    private static final int LSP_OBJ_CLASS = 32;
+    private static final int SRP_OBJ_CLASS = 33;
+    private static final int LSP_BODY_INDEX = 4;
+    private static final int LSP_OBJ_LENGTH = 8;
+    private static final int PLSP_ID_SHIFT = 12;
+    private static final int LSP_R_FLAG = 0x04;
+    private static final int LSP_S_FLAG = 0x02;
+
+    // What to do with a report once the frame is decoded
+    private static final byte PASS = 0;
+    private static final byte RECORD = 1;
+    private static final byte FORGET = 2;
+    private static final byte DROP = 3;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long M1 = 0x87C37B91114253D5L;
+    private static final long M2 = 0x4CF5AD432745937FL;
+
+    private static final int INITIAL_REPORTS = 16;
+
+    private final Map<Integer, Long> lspFingerprints = new HashMap<>();
+    private final Map<Long, Long> lsFingerprints = new HashMap<>();
+
+    // Reports of the last filtered frame, reused from frame to frame
+    private int count;
+    private int[] starts = new int[INITIAL_REPORTS];
+    private int[] ends = new int[INITIAL_REPORTS];
+    private long[] keys = new long[INITIAL_REPORTS];
+    private long[] fingerprints = new long[INITIAL_REPORTS];
+    private byte[] actions = new byte[INITIAL_REPORTS];
+    private boolean lsReport;
+    private boolean pending;
+
+    private int droppedReports;
+    private int droppedLsObjects;
+
+    /**
+     * Filters the PCRpt or LSRpt frame at the reader index of the buffer.
+     * <p>
+     * If the frame carries a report already seen, it is consumed from the
+     * buffer and the frame to decode in its place is returned, without the
+     * reports already seen. The returned frame is empty if every report was
+     * already seen. Otherwise, including for other messages and incomplete
+     * or malformed frames, the buffer is left untouched and null is returned.
+     *
+     * @param buffer cumulation buffer of the channel
+     * @return frame to decode instead of the one in the buffer, null to decode the buffer
+     */
+    ChannelBuffer filter(ChannelBuffer buffer) {
+        pending = false;
+        droppedReports = 0;
+        droppedLsObjects = 0;
+        if (!parse(buffer)) {
+            return null;
+        }
+        pending = true;
+
+        int start = buffer.readerIndex();
+        int length = buffer.getUnsignedShort(start + LENGTH_INDEX);
+        int kept = length;
+        int dropped = 0;
+        for (int i = 0; i < count; i++) {
+            if (actions[i] == DROP) {
+                kept -= ends[i] - starts[i];
+                dropped++;
+            }
+        }
+        if (dropped == 0) {
+            return null;
+        }
+        if (lsReport) {
+            droppedLsObjects = dropped;
+        } else {
+            droppedReports = dropped;
+        }
+        if (dropped == count) {
+            buffer.skipBytes(length);
+            pending = false;
+            return ChannelBuffers.EMPTY_BUFFER;
+        }
+
+        ChannelBuffer frame = ChannelBuffers.buffer(kept);
+        frame.writeBytes(buffer, start, LENGTH_INDEX);
+        frame.writeShort(kept);
+        int pos = start + COMMON_HEADER_LENGTH;
+        for (int i = 0; i < count; i++) {
+            if (actions[i] == DROP) {
+                frame.writeBytes(buffer, pos, starts[i] - pos);
+                pos = ends[i];
+            }
+        }
+        frame.writeBytes(buffer, pos, start + length - pos);
+        buffer.skipBytes(length);
+        return frame;
+    }
+
+    /**
+     * Learns the fingerprints of the last filtered frame, once it was decoded
+     * and handed over. A frame which fails to decode is never committed, so
+     * the pcc sending the reports again is not taken for a duplicate.
+     */
+    void commit() {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+        for (int i = 0; i < count; i++) {
+            switch (actions[i]) {
+            case RECORD:
+                if (lsReport) {
+                    lsFingerprints.put(keys[i], fingerprints[i]);
+                } else {
+                    lspFingerprints.put((int) keys[i], fingerprints[i]);
+                }
+                break;
+            case FORGET:
+                if (lsReport) {
+                    lsFingerprints.remove(keys[i]);
+                } else {
+                    lspFingerprints.remove((int) keys[i]);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of state reports dropped from the last filtered frame.
+     *
+     * @return dropped state reports
+     */
+    int droppedReports() {
+        return droppedReports;
+    }
+
+    /**
+     * Returns the number of LS objects dropped from the last filtered frame.
+     *
+     * @return dropped LS objects
+     */
+    int droppedLsObjects() {
+        return droppedLsObjects;
+    }
+
+    /**
+     * Returns the number of LSPs and LS objects with a fingerprint.
+     *
+     * @return number of fingerprints
+     */
+    int size() {
+        return lspFingerprints.size() + lsFingerprints.size();
+    }
+
+    /*
+     * Splits a complete PCRpt or LSRpt frame into its reports and decides what
+     * to do with each. Returns false for other frames and malformed ones, which
+     * are left to the message reader.
+     */
+    private boolean parse(ChannelBuffer buffer) {
+        count = 0;
+        int start = buffer.readerIndex();
+        if (buffer.readableBytes() < COMMON_HEADER_LENGTH) {
+            return false;
+        }
+        int type = buffer.getUnsignedByte(start + TYPE_INDEX);
+        if (type != REPORT_TYPE && type != LS_REPORT_TYPE) {
+            return false;
+        }
+        int length = buffer.getUnsignedShort(start + LENGTH_INDEX);
+        if (length < COMMON_HEADER_LENGTH || length > buffer.readableBytes()) {
+            return false;
+        }
+        lsReport = type == LS_REPORT_TYPE;
+
+        int end = start + length;
+        int reportStart = -1;
+        int lspStart = -1;
+        for (int pos = start + COMMON_HEADER_LENGTH; pos < end;) {
+            int objLength = pos + OBJECT_HEADER_LENGTH <= end ? buffer.getUnsignedShort(pos + LENGTH_INDEX) : 0;
+            if (objLength < OBJECT_HEADER_LENGTH || pos + objLength > end) {
+                return false;
+            }
+            int objClass = buffer.getUnsignedByte(pos);
+
+            if (lsReport) {
+                if (objClass == LS_OBJ_CLASS && objLength >= LS_OBJ_LENGTH) {
+                    lsObject(buffer, pos, objLength);
+                }
+            } else if (objClass == SRP_OBJ_CLASS || (objClass == LSP_OBJ_CLASS && lspStart >= 0)) {
+                // A state report starts at its optional SRP object or at its LSP object
+                if (reportStart >= 0 && !report(buffer, reportStart, lspStart, pos)) {
+                    return false;
+                }
+                reportStart = pos;
+                lspStart = objClass == LSP_OBJ_CLASS ? pos : -1;
+            } else if (objClass == LSP_OBJ_CLASS) {
+                if (reportStart < 0) {
+                    reportStart = pos;
+                }
+                lspStart = pos;
+            } else if (reportStart < 0) {
+                return false;
+            }
+            pos += objLength;
+        }
+        return reportStart < 0 || report(buffer, reportStart, lspStart, end);
+    }
+
+    private void lsObject(ChannelBuffer buffer, int pos, int objLength) {
+        long lsId = buffer.getLong(pos + LS_ID_INDEX);
+        int flags = buffer.getUnsignedByte(pos + LS_FLAGS_INDEX);
+        byte action;
+        if (lsId == 0) {
+            // End of synchronization of the pcc
+            action = PASS;
+        } else if ((flags & LS_R_FLAG) != 0) {
+            action = FORGET;
+        } else {
+            action = RECORD;
+        }
+        add(pos, pos + objLength, lsId, buffer, pos, action, (flags & LS_S_FLAG) != 0);
+    }
+
+    private boolean report(ChannelBuffer buffer, int reportStart, int lspStart, int end) {
+        if (lspStart < 0 || end - lspStart < LSP_OBJ_LENGTH) {
+            return false;
+        }
+        int body = buffer.getInt(lspStart + LSP_BODY_INDEX);
+        int plspId = body >>> PLSP_ID_SHIFT;
+        byte action;
+        if (plspId == 0) {
+            // End of synchronization of the pcc
+            action = PASS;
+        } else if ((body & LSP_R_FLAG) != 0) {
+            action = FORGET;
+        } else {
+            action = RECORD;
+        }
+        // The SRP object is left out, a report with one is never dropped but refreshes the fingerprint
+        add(reportStart, end, plspId, buffer, lspStart,
+            action, (body & LSP_S_FLAG) != 0 || reportStart != lspStart);
+        return true;
+    }
+
+    private void add(int start, int end, long key, ChannelBuffer buffer, int from, byte action, boolean keep) {
+        if (count == starts.length) {
+            int capacity = count * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            fingerprints = Arrays.copyOf(fingerprints, capacity);
+            actions = Arrays.copyOf(actions, capacity);
+        }
+        long fingerprint = 0;
+        if (action == RECORD) {
+            fingerprint = fingerprint(buffer, from, end);
+            Long previous = lsReport ? lsFingerprints.get(key) : lspFingerprints.get((int) key);
+            if (!keep && previous != null && previous == fingerprint) {
+                action = DROP;
+            }
+        }
+        starts[count] = start;
+        ends[count] = end;
+        keys[count] = key;
+        fingerprints[count] = fingerprint;
+        actions[count] = action;
+        count++;
+    }
+
+    /*
+     * Hashes the bytes eight at a time and mixes the result, so that a single
+     * changed bit changes about half of the fingerprint.
+     */
+    static long fingerprint(ChannelBuffer buffer, int from, int to) {
+        long h = SEED ^ (to - from) * M2;
+        int pos = from;
+        for (; pos + Long.BYTES <= to; pos += Long.BYTES) {
+            h = Long.rotateLeft(h ^ buffer.getLong(pos) * M1, 31) * M2;
+        }
+        for (; pos < to; pos++) {
+            h = Long.rotateLeft(h ^ buffer.getUnsignedByte(pos) * M1, 31) * M2;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
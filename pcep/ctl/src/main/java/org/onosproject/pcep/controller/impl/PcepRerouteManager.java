@@ -0,0 +1,700 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.LsId;
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcep.controller.PcepClient;
+import org.onosproject.pcep.controller.PcepClientController;
+import org.onosproject.pcep.controller.PcepLspIntent;
+import org.onosproject.pcep.controller.PcepLspResult;
+import org.onosproject.pcep.controller.PcepLspStatus;
+import org.onosproject.pcep.controller.SrpIdGenerators;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepAttribute;
+import org.onosproject.pcepio.protocol.PcepBandwidthObject;
+import org.onosproject.pcepio.protocol.PcepFactory;
+import org.onosproject.pcepio.protocol.PcepLspObject;
+import org.onosproject.pcepio.protocol.PcepLspaObject;
+import org.onosproject.pcepio.protocol.PcepStateReport;
+import org.onosproject.pcepio.protocol.PcepUpdateRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reroutes delegated LSPs away from failed links.
+ * <p>
+ * A link removed from the TE topology, or a pcc reporting a delegated LSP
+ * down, starts a reroute event. The LSPs of the event are looked up in the
+ * {@link PcepLspPathIndex}, their new paths are computed and reserved in the
+ * {@link TeBandwidthLedger} in parallel, and the PCUpd requests are sent in
+ * one batch per pcc. LSPs preempted on the way are rerouted in turn. The event completes once
+ * every LSP has been reported up on its new path, or has failed; the time
+ * from the failure to completion is the reroute time.
+ */
+public class PcepRerouteManager implements TeTopologyListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepRerouteManager.class);
+
+    private final PcepClientController controller;
+    private final PcepLspPathIndex index;
+    private final TePathCache pathCache;
+    private final TeBandwidthLedger ledger;
+    private final int parallelism;
+    private volatile ForkJoinPool pool;
+
+    private final Map<LspId, PendingLsp> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder events = new LongAdder();
+    private final LongAdder completedEvents = new LongAdder();
+    private final LongAdder reroutedLsps = new LongAdder();
+    private final LongAdder failedLsps = new LongAdder();
+    private final LongAdder totalRerouteNanos = new LongAdder();
+    private final AtomicLong lastRerouteNanos = new AtomicLong();
+    private final AtomicLong maxRerouteNanos = new AtomicLong();
+    private final AtomicLong lastDispatchNanos = new AtomicLong();
+
+    /**
+     * Creates reroute manager.
+     *
+     * @param controller controller sending the PCUpd messages
+     * @param index reverse index of the reported LSPs
+     * @param pathCache cached path computation over the TE topology
+     * @param ledger bandwidth reserved by the rerouted LSPs
+     * @param parallelism number of threads computing paths
+     */
+    public PcepRerouteManager(PcepClientController controller, PcepLspPathIndex index, TePathCache pathCache,
+            TeBandwidthLedger ledger, int parallelism) {
+        this.controller = controller;
+        this.index = index;
+        this.pathCache = pathCache;
+        this.ledger = ledger;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Starts the computation pool.
+     */
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Stops the computation pool and fails the LSPs waiting for their report.
+     */
+    public void stop() {
+        ForkJoinPool p = pool;
+        pool = null;
+        if (p != null) {
+            p.shutdown();
+            try {
+                p.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (LspId id : pending.keySet()) {
+            abandon(id);
+        }
+    }
+
+    /**
+     * Returns the LSP index fed by the state reports.
+     *
+     * @return LSP path index
+     */
+    public PcepLspPathIndex index() {
+        return index;
+    }
+
+    /**
+     * Returns the number of reroute events started.
+     *
+     * @return event count
+     */
+    public long eventCount() {
+        return events.sum();
+    }
+
+    /**
+     * Returns the number of LSPs reported up on their new path.
+     *
+     * @return rerouted LSP count
+     */
+    public long reroutedLspCount() {
+        return reroutedLsps.sum();
+    }
+
+    /**
+     * Returns the number of LSPs which could not be rerouted.
+     *
+     * @return failed LSP count
+     */
+    public long failedLspCount() {
+        return failedLsps.sum();
+    }
+
+    /**
+     * Returns the number of LSPs waiting for the report of their new path.
+     *
+     * @return pending LSP count
+     */
+    public int pendingLspCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the time from the failure to the last LSP of the last completed event.
+     *
+     * @return reroute time in milliseconds
+     */
+    public long lastRerouteMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastRerouteNanos.get());
+    }
+
+    /**
+     * Returns the longest reroute time seen.
+     *
+     * @return reroute time in milliseconds
+     */
+    public long maxRerouteMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxRerouteNanos.get());
+    }
+
+    /**
+     * Returns the average reroute time of the completed events.
+     *
+     * @return reroute time in milliseconds
+     */
+    public long averageRerouteMillis() {
+        long n = completedEvents.sum();
+        return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRerouteNanos.sum() / n);
+    }
+
+    /**
+     * Returns the time from the failure to all PCUpd messages of the last
+     * event being handed to the sessions.
+     *
+     * @return dispatch time in milliseconds
+     */
+    public long lastDispatchMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastDispatchNanos.get());
+    }
+
+    @Override
+    public void topologyChanged(TeTopology previous, TeTopology current) {
+        long start = System.nanoTime();
+        Set<PcepLspPathIndex.IndexedLsp> affected = new LinkedHashSet<>();
+        BitSet changedNodes = current.changedNodeSlots(previous);
+        for (int s = changedNodes.nextSetBit(0); s >= 0; s = changedNodes.nextSetBit(s + 1)) {
+            TeNode old = previous.nodeAt(s);
+            if (old != null && current.nodeAt(s) == null && old.ipv4RouterId() != 0) {
+                affected.addAll(index.lspsOnHop(old.ipv4RouterId()));
+            }
+        }
+        BitSet changedLinks = current.changedLinkSlots(previous);
+        for (int s = changedLinks.nextSetBit(0); s >= 0; s = changedLinks.nextSetBit(s + 1)) {
+            TeLink old = previous.linkAt(s);
+            if (old != null && current.linkAt(s) == null) {
+                affected.addAll(index.lspsOnLink(previous, old));
+            }
+        }
+        reroute(affected, start);
+    }
+
+    /**
+     * Indexes the state reports of a PCRpt, completes the LSPs being
+     * rerouted and reroutes delegated LSPs reported down by the pcc.
+     *
+     * @param pccId pcc which sent the reports
+     * @param reports state reports of the PCRpt
+     */
+    public void onReport(PccId pccId, List<PcepStateReport> reports) {
+        long start = System.nanoTime();
+        List<PcepLspPathIndex.IndexedLsp> down = new ArrayList<>();
+        for (PcepStateReport report : reports) {
+            PcepLspObject lspObj = report.getLspObject();
+            if (lspObj == null || lspObj.getPlspId() == 0) {
+                continue;
+            }
+            PcepLspPathIndex.IndexedLsp old = index.lsp(pccId, lspObj.getPlspId());
+            PcepLspPathIndex.IndexedLsp lsp = index.update(pccId, report);
+            LspId id = new LspId(pccId, lspObj.getPlspId());
+            PendingLsp p = pending.get(id);
+            if (p == null && lsp != null) {
+                charge(id, lsp);
+            }
+            if (p != null) {
+                confirm(id, p, report);
+            } else if (lsp != null && lsp.isDelegated() && isDown(lspObj)
+                    && old != null && !isDown(old.report().getLspObject())) {
+                down.add(lsp);
+            } else if (lsp == null && lspObj.getRFlag()) {
+                pending.remove(id);
+                ledger.release(id);
+                if (report.getSrpObject() != null && report.getSrpObject().getSrpID() != 0) {
+                    ledger.release(new InitiateId(pccId, report.getSrpObject().getSrpID()));
+                }
+            }
+        }
+        reroute(down, start);
+    }
+
+    /**
+     * Fails the LSPs of the pcc being rerouted and drops its LSPs from the index.
+     *
+     * @param pccId pcc whose session went down
+     */
+    public void removeClient(PccId pccId) {
+        for (LspId id : pending.keySet()) {
+            if (id.pccId.equals(pccId)) {
+                fail(id);
+            }
+        }
+        for (PcepLspPathIndex.IndexedLsp lsp : index.lsps(pccId)) {
+            ledger.release(new LspId(pccId, lsp.plspId()));
+        }
+        ledger.releaseIf(owner -> owner instanceof InitiateId && ((InitiateId) owner).pccId.equals(pccId));
+        index.remove(pccId);
+    }
+
+    /**
+     * Charges the LSP on its reported path again, in place of the
+     * reservation of a new path it is not moved onto.
+     *
+     * @param id LSP
+     */
+    void recharge(LspId id) {
+        PcepLspPathIndex.IndexedLsp lsp = index.lsp(id.pccId, id.plspId);
+        if (lsp == null) {
+            ledger.release(id);
+        } else {
+            charge(id, lsp);
+        }
+    }
+
+    /*
+     * Charges the ledger with the bandwidth of the reported path, in place of the
+     * reservation of the LSP or of the PCInitiate the report answers. LSPs reported down
+     * hold no bandwidth. Paths which do not resolve to links keep the reservation they have.
+     */
+    private void charge(LspId id, PcepLspPathIndex.IndexedLsp lsp) {
+        PcepStateReport report = lsp.report();
+        int srpId = report.getSrpObject() == null ? 0 : report.getSrpObject().getSrpID();
+        InitiateId request = srpId == 0 ? null : new InitiateId(id.pccId, srpId);
+        PcepClient pc = controller.getClient(id.pccId);
+        if (isDown(report.getLspObject()) || pc == null) {
+            ledger.release(id);
+            if (request != null) {
+                ledger.release(request);
+            }
+            return;
+        }
+
+        TeGraph g = pathCache.graph();
+        int[] linkSlots = lsp.linkSlots(g);
+        if (linkSlots == null) {
+            return;
+        }
+        PcepAttribute attr = attribute(pc.factory(), report.getMsgPath());
+        TeConstraints constraints = PcepStatelessPce.constraints(attr);
+        int holdingPriority = holdingPriority(attr);
+        if (ledger.holds(id, linkSlots, constraints.bandwidth(), holdingPriority)) {
+            return;
+        }
+        TeBandwidthLedger.Admission admission = ledger.reserve(id, request, g.topology(), linkSlots,
+                constraints.bandwidth(), constraints.setupPriority(), holdingPriority, false);
+        if (!admission.isAdmitted()) {
+            log.warn("Reported LSP {} of {} exceeds the unreserved bandwidth of link {}", lsp.plspId(),
+                    id.pccId, new LsId(g.topology().linkAt(admission.blockingLinkSlot()).lsId()));
+        }
+    }
+
+    private static boolean isDown(PcepLspObject lspObj) {
+        return lspObj.getOFlag() == PcepLspStatus.DOWN.ordinal();
+    }
+
+    /*
+     * The report carrying the SRP-ID of the PCUpd acknowledges it; the LSP is rerouted
+     * once it is reported up or active, possibly in a later report.
+     */
+    private void confirm(LspId id, PendingLsp p, PcepStateReport report) {
+        int srpId = report.getSrpObject() == null ? 0 : report.getSrpObject().getSrpID();
+        if (srpId == p.srpId) {
+            p.acknowledged = true;
+        } else if (srpId != 0 || !p.acknowledged) {
+            return;
+        }
+        int state = report.getLspObject().getOFlag();
+        if (state == PcepLspStatus.UP.ordinal() || state == PcepLspStatus.ACTIVE.ordinal()) {
+            if (pending.remove(id, p)) {
+                reroutedLsps.increment();
+                p.event.lspDone();
+            }
+        } else if (state == PcepLspStatus.DOWN.ordinal()) {
+            abandon(id);
+        }
+    }
+
+    /*
+     * Fails the LSP and releases the bandwidth reserved for its new path.
+     */
+    private void abandon(LspId id) {
+        if (pending.containsKey(id)) {
+            ledger.release(id);
+        }
+        fail(id);
+    }
+
+    private void fail(LspId id) {
+        PendingLsp p = pending.remove(id);
+        if (p != null) {
+            failedLsps.increment();
+            p.event.lspDone();
+        }
+    }
+
+    private void reroute(Collection<PcepLspPathIndex.IndexedLsp> affected, long start) {
+        final List<PcepLspPathIndex.IndexedLsp> lsps = new ArrayList<>(affected.size());
+        for (PcepLspPathIndex.IndexedLsp lsp : affected) {
+            if (lsp.isDelegated()) {
+                lsps.add(lsp);
+            }
+        }
+        ForkJoinPool p = pool;
+        if (lsps.isEmpty() || p == null) {
+            return;
+        }
+
+        events.increment();
+        final RerouteEvent event = new RerouteEvent(start, lsps.size());
+        final TeGraph g = pathCache.graph();
+        final List<TeBandwidthLedger.Reservation> preempted = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<PcepUpdateRequest>> updates = new ArrayList<>(lsps.size());
+        try {
+            for (final PcepLspPathIndex.IndexedLsp lsp : lsps) {
+                updates.add(CompletableFuture.supplyAsync(() -> buildUpdate(g, lsp, preempted), p));
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("Reroute pool is shut down");
+            return;
+        }
+        log.info("Rerouting {} delegated LSPs on topology version {}", lsps.size(), g.version());
+
+        CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((v, e) -> {
+                    dispatch(event, lsps, updates);
+                    reroutePreempted(preempted);
+                });
+    }
+
+    /*
+     * LSPs preempted by higher priority ones are rerouted in an event of their own, which
+     * can only preempt LSPs of even lower priority.
+     */
+    private void reroutePreempted(List<TeBandwidthLedger.Reservation> preempted) {
+        List<PcepLspPathIndex.IndexedLsp> lsps = new ArrayList<>();
+        synchronized (preempted) {
+            for (TeBandwidthLedger.Reservation r : preempted) {
+                if (r.owner() instanceof LspId) {
+                    LspId id = (LspId) r.owner();
+                    PcepLspPathIndex.IndexedLsp lsp = index.lsp(id.pccId, id.plspId);
+                    if (lsp != null) {
+                        lsps.add(lsp);
+                    }
+                }
+            }
+        }
+        if (!lsps.isEmpty()) {
+            log.info("Rerouting {} LSPs preempted by higher priority LSPs", lsps.size());
+            reroute(lsps, System.nanoTime());
+        }
+    }
+
+    /*
+     * Groups the updates per pcc, registers them as pending and sends them. The pending
+     * entries exist before the PCUpd is sent so the report cannot overtake them.
+     */
+    private void dispatch(RerouteEvent event, List<PcepLspPathIndex.IndexedLsp> lsps,
+            List<CompletableFuture<PcepUpdateRequest>> updates) {
+        Map<PccId, List<PcepLspIntent>> intents = new LinkedHashMap<>();
+        Map<PccId, List<LspId>> ids = new HashMap<>();
+        for (int i = 0; i < lsps.size(); i++) {
+            PcepLspPathIndex.IndexedLsp lsp = lsps.get(i);
+            PcepUpdateRequest update = updates.get(i).isCompletedExceptionally() ? null : updates.get(i).join();
+            LspId id = new LspId(lsp.pccId(), lsp.plspId());
+            // A newer event supersedes the reroute already in progress.
+            fail(id);
+            if (update == null) {
+                // Its reservation, if any, is on a path which does not work anymore.
+                ledger.release(id);
+                failedLsps.increment();
+                event.lspDone();
+                continue;
+            }
+            pending.put(id, new PendingLsp(event, update.getSrpObject().getSrpID()));
+            if (!intents.containsKey(lsp.pccId())) {
+                intents.put(lsp.pccId(), new ArrayList<>());
+                ids.put(lsp.pccId(), new ArrayList<>());
+            }
+            intents.get(lsp.pccId()).add(PcepLspIntent.update(update));
+            ids.get(lsp.pccId()).add(id);
+        }
+
+        for (Map.Entry<PccId, List<PcepLspIntent>> entry : intents.entrySet()) {
+            final List<LspId> pccIds = ids.get(entry.getKey());
+            controller.provisionLsps(entry.getKey(), entry.getValue()).whenComplete((results, e) -> {
+                for (int i = 0; i < pccIds.size(); i++) {
+                    if (e != null || results.get(i).status() != PcepLspResult.Status.SENT) {
+                        abandon(pccIds.get(i));
+                    }
+                }
+            });
+        }
+        lastDispatchNanos.set(System.nanoTime() - event.startNanos);
+    }
+
+    /*
+     * Runs on the pool. Returns null when the LSP has no path left.
+     */
+    private PcepUpdateRequest buildUpdate(TeGraph g, PcepLspPathIndex.IndexedLsp lsp,
+            List<TeBandwidthLedger.Reservation> preempted) {
+        PcepClient pc = controller.getClient(lsp.pccId());
+        int src = g.nodeByAddress(lsp.ingress());
+        int dst = g.nodeByAddress(lsp.egress());
+        if (pc == null || src < 0 || dst < 0) {
+            return null;
+        }
+
+        PcepFactory factory = pc.factory();
+        PcepStateReport report = lsp.report();
+        PcepAttribute attr = attribute(factory, report.getMsgPath());
+        TePath path = ledger.reservePath(new LspId(lsp.pccId(), lsp.plspId()), pathCache, g, src, dst,
+                PcepStatelessPce.constraints(attr), holdingPriority(attr), preempted);
+        if (path == null) {
+            log.debug("No path left for LSP {} of {}", lsp.plspId(), lsp.pccId());
+            return null;
+        }
+
+        return updateRequest(factory, lsp, attr, g, path);
+    }
+
+    /**
+     * Builds the PCUpd request moving a reported LSP onto a new path.
+     *
+     * @param factory factory of the session
+     * @param lsp reported LSP
+     * @param attr attributes of the update
+     * @param g TE graph the path was computed on
+     * @param path new path
+     * @return update request, null if it could not be built
+     */
+    static PcepUpdateRequest updateRequest(PcepFactory factory, PcepLspPathIndex.IndexedLsp lsp,
+            PcepAttribute attr, TeGraph g, TePath path) {
+        PcepLspObject reported = lsp.report().getLspObject();
+        try {
+            return factory.buildPcepUpdateRequest()
+                    .setSrpObject(factory.buildSrpObject().setSrpID(SrpIdGenerators.create()).build())
+                    .setLspObject(factory.buildLspObject().setPlspId(reported.getPlspId()).setDFlag(true)
+                            .setAFlag(reported.getAFlag()).setOptionalTlv(reported.getOptionalTlv()).build())
+                    .setMsgPath(factory.buildPcepMsgPath()
+                            .setEroObject(factory.buildEroObject()
+                                    .setSubObjects(PcepStatelessPce.eroSubObjects(g.topology(), path)).build())
+                            .setPcepAttribute(attr).build())
+                    .build();
+        } catch (PcepParseException e) {
+            log.error("Failed to build update of LSP {} of {}: {}", lsp.plspId(), lsp.pccId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the LSP was sent a PCUpd and waits for the report of its new path.
+     *
+     * @param pccId pcc owning the LSP
+     * @param plspId PLSP-ID of the LSP
+     * @return true if being rerouted
+     */
+    public boolean isPending(PccId pccId, int plspId) {
+        return pending.containsKey(new LspId(pccId, plspId));
+    }
+
+    /**
+     * Returns the holding priority of the LSPA object, the default one without LSPA.
+     *
+     * @param attr LSP attributes
+     * @return holding priority between 0 and 7
+     */
+    static int holdingPriority(PcepAttribute attr) {
+        PcepLspaObject lspa = attr.getLspaObject();
+        int priority = lspa == null ? TeBandwidthLedger.DEFAULT_HOLDING_PRIORITY : lspa.getHoldPriority();
+        return priority >= 0 && priority < TeLink.PRIORITY_LEVELS ? priority
+                : TeBandwidthLedger.DEFAULT_HOLDING_PRIORITY;
+    }
+
+    /**
+     * Carries the LSPA, bandwidth and metrics of the reported LSP over to an update.
+     *
+     * @param factory factory of the session
+     * @param msgPath reported path, may be null
+     * @return update attributes
+     */
+    static PcepAttribute attribute(PcepFactory factory, PcepStateReport.PcepMsgPath msgPath) {
+        PcepAttribute.Builder b = factory.buildPcepAttribute();
+        if (msgPath == null) {
+            return b.build();
+        }
+        PcepAttribute attr = msgPath.getPcepAttribute();
+        PcepBandwidthObject bandwidth = msgPath.getBandwidthObject();
+        if (attr != null) {
+            b.setLspaObject(attr.getLspaObject());
+            b.setIroObject(attr.getIroObject());
+            b.setMetricObjectList(attr.getMetricObjectList());
+            if (bandwidth == null) {
+                bandwidth = attr.getBandwidthObject();
+            }
+        }
+        if (bandwidth != null) {
+            b.setBandwidthObject(bandwidth);
+        }
+        return b.build();
+    }
+
+    /**
+     * LSP identity within the pcc which reported it, owner of its bandwidth reservation.
+     */
+    static final class LspId {
+        private final PccId pccId;
+        private final int plspId;
+
+        LspId(PccId pccId, int plspId) {
+            this.pccId = pccId;
+            this.plspId = plspId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pccId, plspId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof LspId) {
+                LspId other = (LspId) obj;
+                return plspId == other.plspId && pccId.equals(other.pccId);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * PCInitiate waiting for the report of its LSP, owner of the bandwidth
+     * reserved for the LSP until the report names it.
+     */
+    static final class InitiateId {
+        private final PccId pccId;
+        private final int srpId;
+
+        InitiateId(PccId pccId, int srpId) {
+            this.pccId = pccId;
+            this.srpId = srpId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pccId, srpId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof InitiateId) {
+                InitiateId other = (InitiateId) obj;
+                return srpId == other.srpId && pccId.equals(other.pccId);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * LSP whose PCUpd is sent, waiting for the report of its new path.
+     */
+    private static final class PendingLsp {
+        private final RerouteEvent event;
+        private final int srpId;
+        private volatile boolean acknowledged;
+
+        private PendingLsp(RerouteEvent event, int srpId) {
+            this.event = event;
+            this.srpId = srpId;
+        }
+    }
+
+    /**
+     * Failure and the number of its LSPs not yet rerouted or failed.
+     */
+    private final class RerouteEvent {
+        private final long startNanos;
+        private final int lspCount;
+        private final AtomicInteger remaining;
+
+        private RerouteEvent(long startNanos, int lspCount) {
+            this.startNanos = startNanos;
+            this.lspCount = lspCount;
+            this.remaining = new AtomicInteger(lspCount);
+        }
+
+        private void lspDone() {
+            if (remaining.decrementAndGet() != 0) {
+                return;
+            }
+            long elapsed = System.nanoTime() - startNanos;
+            completedEvents.increment();
+            totalRerouteNanos.add(elapsed);
+            lastRerouteNanos.set(elapsed);
+            long max;
+            do {
+                max = maxRerouteNanos.get();
+            } while (elapsed > max && !maxRerouteNanos.compareAndSet(max, elapsed));
+            log.info("Reroute of {} LSPs completed in {} ms", lspCount, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.ClientCapability;
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcep.controller.PcepClient;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepAttribute;
+import org.onosproject.pcepio.protocol.PcepBandwidthObject;
+import org.onosproject.pcepio.protocol.PcepEndPointsObject;
+import org.onosproject.pcepio.protocol.PcepFactory;
+import org.onosproject.pcepio.protocol.PcepLspaObject;
+import org.onosproject.pcepio.protocol.PcepMessage;
+import org.onosproject.pcepio.protocol.PcepMetricObject;
+import org.onosproject.pcepio.protocol.PcepMsgPath;
+import org.onosproject.pcepio.protocol.PcepNoPathObject;
+import org.onosproject.pcepio.protocol.PcepPathReply;
+import org.onosproject.pcepio.protocol.PcepPathRequest;
+import org.onosproject.pcepio.protocol.PcepPathRequestMsg;
+import org.onosproject.pcepio.types.IPv4SubObject;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stateless PCE answering PCReq messages from the TE topology.
+ * <p>
+ * The requests of a PCReq are computed in parallel on a fork join pool shared
+ * by all pccs, against one graph snapshot per message. Their replies are
+ * packed into as few PCRep messages as the PCEP message length allows.
+ * <p>
+ * The bandwidth of every path handed out is reserved in the
+ * {@link TeBandwidthLedger} before the reply is sent, computing the path
+ * again around full links. A stateless PCE does not learn whether the pcc
+ * signals the path, so the reservation is held for a while to cover LSP
+ * setup, and dropped with the session. Stateful pccs report the LSP, which
+ * charges its bandwidth in its own name.
+ */
+public class PcepStatelessPce {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepStatelessPce.class);
+
+    // RFC 5440 metric types
+    static final byte METRIC_TYPE_IGP = 1;
+    static final byte METRIC_TYPE_TE = 2;
+
+    // PCEP message length is a 16 bit field
+    static final int MAX_MESSAGE_LENGTH = 0xFFFF;
+    private static final int COMMON_HEADER_LENGTH = 4;
+    private static final int RP_OBJ_LENGTH = 12;
+    private static final int NO_PATH_OBJ_LENGTH = 8;
+    private static final int OBJ_HEADER_LENGTH = 4;
+    private static final int BANDWIDTH_OBJ_LENGTH = 8;
+    private static final int METRIC_OBJ_LENGTH = 12;
+    private static final byte HOST_PREFIX_LENGTH = 32;
+    private static final long RESERVATION_HOLD_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final TePathCache pathCache;
+    private final TePathPrecomputer pathPrecomputer;
+    private final TeDomainAbstraction domainAbstraction;
+    private final TeSrEncoder srEncoder;
+    private final TeBandwidthLedger ledger;
+    private final int parallelism;
+    private final Queue<HeldReservation> held = new ConcurrentLinkedQueue<>();
+    private volatile ForkJoinPool pool;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder noPaths = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+
+    /**
+     * Creates stateless PCE.
+     *
+     * @param pathCache cached path computation over the TE topology
+     * @param pathPrecomputer candidate paths of configured PE pairs, tried first
+     * @param domainAbstraction abstract view of the domains, tried next for inter-domain requests
+     * @param srEncoder encoder of the paths requested with the SR path setup type
+     * @param ledger bandwidth reserved for the paths of the replies
+     * @param parallelism number of threads computing paths
+     */
+    public PcepStatelessPce(TePathCache pathCache, TePathPrecomputer pathPrecomputer,
+            TeDomainAbstraction domainAbstraction, TeSrEncoder srEncoder, TeBandwidthLedger ledger,
+            int parallelism) {
+        this.pathCache = pathCache;
+        this.pathPrecomputer = pathPrecomputer;
+        this.domainAbstraction = domainAbstraction;
+        this.srEncoder = srEncoder;
+        this.ledger = ledger;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Starts the computation pool.
+     */
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Stops the computation pool, requests being computed are still answered.
+     * The reservations held for replies are released.
+     */
+    public void stop() {
+        ForkJoinPool p = pool;
+        pool = null;
+        if (p != null) {
+            p.shutdown();
+            try {
+                p.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ledger.releaseIf(owner -> owner instanceof ReplyId);
+        held.clear();
+    }
+
+    /**
+     * Releases the bandwidth reserved for the replies sent to the pcc.
+     *
+     * @param pccId pcc whose session went down
+     */
+    public void removeClient(PccId pccId) {
+        ledger.releaseIf(owner -> owner instanceof ReplyId && ((ReplyId) owner).pccId.equals(pccId));
+    }
+
+    /**
+     * Returns the number of path requests received.
+     *
+     * @return request count
+     */
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of path requests answered with NO-PATH.
+     *
+     * @return no path count
+     */
+    public long noPathCount() {
+        return noPaths.sum();
+    }
+
+    /**
+     * Returns the time spent computing paths.
+     *
+     * @return computation time in nanoseconds, summed over all threads
+     */
+    public long computeNanos() {
+        return computeNanos.sum();
+    }
+
+    /**
+     * Computes the requests of the PCReq and sends the PCRep messages to the pcc.
+     *
+     * @param pc pcc which sent the request
+     * @param msg PCReq message
+     * @return future completed once the replies are handed to the session
+     */
+    public CompletableFuture<Void> processRequest(final PcepClient pc, PcepPathRequestMsg msg) {
+        final PcepFactory factory = pc.factory();
+        ClientCapability capability = pc.capability();
+        int maxSidDepth = capability != null && capability.srCapability() ? capability.maxSidDepth() : 0;
+        return computeReplies(pc.getPccId(), factory, maxSidDepth, msg.getRequestList()).thenCompose(replies -> {
+            return pc.sendMessage(pack(factory, replies));
+        });
+    }
+
+    /**
+     * Computes the replies of the path requests in parallel.
+     *
+     * @param factory factory of the session
+     * @param reqs path requests
+     * @return future completed with one reply per request, in request order
+     */
+    public CompletableFuture<List<PcepPathReply>> computeReplies(final PcepFactory factory,
+            List<PcepPathRequest> reqs) {
+        return computeReplies(factory, 0, reqs);
+    }
+
+    /**
+     * Computes the replies of the path requests in parallel. Requests with the
+     * SR path setup type are answered with SR-ERO subobjects, or NO-PATH when
+     * the path cannot be encoded within the maximum SID depth.
+     *
+     * @param factory factory of the session
+     * @param maxSidDepth maximum SID depth of the pcc, 0 if not SR capable
+     * @param reqs path requests
+     * @return future completed with one reply per request, in request order
+     */
+    public CompletableFuture<List<PcepPathReply>> computeReplies(final PcepFactory factory, final int maxSidDepth,
+            List<PcepPathRequest> reqs) {
+        return computeReplies(null, factory, maxSidDepth, reqs);
+    }
+
+    /**
+     * Computes the replies of the path requests of the pcc in parallel, and
+     * reserves the bandwidth of the paths in its name.
+     *
+     * @param pccId pcc which sent the requests, null to compute without reserving
+     * @param factory factory of the session
+     * @param maxSidDepth maximum SID depth of the pcc, 0 if not SR capable
+     * @param reqs path requests
+     * @return future completed with one reply per request, in request order
+     */
+    public CompletableFuture<List<PcepPathReply>> computeReplies(final PccId pccId, final PcepFactory factory,
+            final int maxSidDepth, List<PcepPathRequest> reqs) {
+        expireReservations();
+        final TeGraph g = pathCache.graph();
+        final List<CompletableFuture<PcepPathReply>> futures = new ArrayList<>(reqs.size());
+        ForkJoinPool p = pool;
+        for (final PcepPathRequest req : reqs) {
+            requests.increment();
+            CompletableFuture<PcepPathReply> f;
+            if (p == null) {
+                f = CompletableFuture.completedFuture(compute(pccId, factory, g, req, maxSidDepth));
+            } else {
+                try {
+                    f = CompletableFuture.supplyAsync(() -> compute(pccId, factory, g, req, maxSidDepth), p);
+                } catch (RejectedExecutionException e) {
+                    f = CompletableFuture.completedFuture(compute(pccId, factory, g, req, maxSidDepth));
+                }
+            }
+            futures.add(f);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<PcepPathReply> replies = new ArrayList<>(futures.size());
+            for (CompletableFuture<PcepPathReply> f : futures) {
+                replies.add(f.join());
+            }
+            return replies;
+        });
+    }
+
+    /**
+     * Packs the replies into PCRep messages below the PCEP message length limit.
+     *
+     * @param factory factory of the session
+     * @param replies path replies
+     * @return PCRep messages
+     */
+    static List<PcepMessage> pack(PcepFactory factory, List<PcepPathReply> replies) {
+        List<PcepMessage> msgs = new LinkedList<>();
+        LinkedList<PcepPathReply> current = new LinkedList<>();
+        int length = COMMON_HEADER_LENGTH;
+        for (PcepPathReply reply : replies) {
+            int replyLength = estimateLength(reply);
+            if (!current.isEmpty() && length + replyLength > MAX_MESSAGE_LENGTH) {
+                msgs.add(factory.buildPcepPathReplyMsg().setReplyList(current).build());
+                current = new LinkedList<>();
+                length = COMMON_HEADER_LENGTH;
+            }
+            current.add(reply);
+            length += replyLength;
+        }
+        if (!current.isEmpty()) {
+            msgs.add(factory.buildPcepPathReplyMsg().setReplyList(current).build());
+        }
+        return msgs;
+    }
+
+    private PcepPathReply compute(PccId pccId, PcepFactory factory, TeGraph g, PcepPathRequest req,
+            int maxSidDepth) {
+        long start = System.nanoTime();
+        ReplyId owner = pccId == null ? null : new ReplyId(pccId, req.getRPObject().getRequestIdNum());
+        try {
+            TePath path = computePath(g, req, owner);
+            LinkedList<PcepValueType> subObjects = null;
+            if (path != null) {
+                subObjects = TeSrEncoder.isSegmentRouting(req.getRPObject().getOptionalTlv())
+                        ? srEncoder.eroSubObjects(g, path, maxSidDepth) : eroSubObjects(g.topology(), path);
+            }
+            if (subObjects == null && path != null && owner != null) {
+                ledger.release(owner);
+            }
+            return buildReply(factory, g, req, subObjects == null ? null : path, subObjects);
+        } catch (PcepParseException e) {
+            if (owner != null) {
+                ledger.release(owner);
+            }
+            log.error("Failed to build reply to request {}: {}", req.getRPObject().getRequestIdNum(), e.getMessage());
+            try {
+                return buildReply(factory, g, req, null, null);
+            } catch (PcepParseException ex) {
+                throw new IllegalStateException(ex);
+            }
+        } finally {
+            computeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Reserves the bandwidth of the path for the owner, if any, before checking its bounds.
+     */
+    private TePath computePath(TeGraph g, PcepPathRequest req, ReplyId owner) {
+        PcepEndPointsObject endPoints = req.getEndPointsObject();
+        int src = g.nodeByAddress(endPoints.getSourceIpAddress());
+        int dst = g.nodeByAddress(endPoints.getDestIpAddress());
+        if (src < 0 || dst < 0) {
+            return null;
+        }
+
+        PcepAttribute attr = req.getPcepAttribute();
+        TeConstraints constraints = constraints(attr);
+        TePath path = pathPrecomputer.select(g, src, dst, constraints);
+        if (path == null) {
+            path = domainAbstraction.computePath(g, src, dst, constraints);
+        }
+        if (path == null) {
+            path = pathCache.computePath(g, src, dst, constraints);
+        }
+        if (path != null && owner != null) {
+            int holdingPriority = attr == null ? TeBandwidthLedger.DEFAULT_HOLDING_PRIORITY
+                    : PcepRerouteManager.holdingPriority(attr);
+            path = ledger.reservePath(owner, path, pathCache, g, src, dst, constraints, holdingPriority, false,
+                    new ArrayList<>());
+            if (path != null) {
+                held.add(new HeldReservation(ledger.reservation(owner), System.nanoTime() + RESERVATION_HOLD_NANOS));
+            }
+        }
+        if (path == null || attr == null || attr.getMetricObjectList() == null) {
+            return path;
+        }
+        for (PcepMetricObject metric : attr.getMetricObjectList()) {
+            if (metric.getBFlag() && isSupported(metric.getBType())
+                    && cost(g, path, metric.getBType() == METRIC_TYPE_TE) > (metric.getMetricVal() & 0xFFFFFFFFL)) {
+                if (owner != null) {
+                    ledger.release(owner);
+                }
+                return null;
+            }
+        }
+        return path;
+    }
+
+    /*
+     * Releases the reservations of replies older than the hold time. Reservations replaced
+     * since by a later request of the same id are released with the request itself.
+     */
+    private void expireReservations() {
+        long now = System.nanoTime();
+        HeldReservation h;
+        while ((h = held.peek()) != null && now - h.deadline >= 0) {
+            if (held.remove(h) && h.reservation != null) {
+                ledger.release(h.reservation);
+            }
+        }
+    }
+
+    /**
+     * Translates the request attributes into path constraints. The first
+     * objective metric selects the metric type, TE metric by default.
+     *
+     * @param attr request attributes, may be null
+     * @return path constraints
+     */
+    static TeConstraints constraints(PcepAttribute attr) {
+        if (attr == null) {
+            return TeConstraints.NONE;
+        }
+        TeConstraints.Builder b = TeConstraints.builder();
+        PcepBandwidthObject bandwidth = attr.getBandwidthObject();
+        if (bandwidth != null && bandwidth.getBandwidth() > 0) {
+            b.bandwidth(bandwidth.getBandwidth());
+        }
+        PcepLspaObject lspa = attr.getLspaObject();
+        if (lspa != null) {
+            int priority = lspa.getSetupPriority();
+            if (priority >= 0 && priority < TeLink.PRIORITY_LEVELS) {
+                b.setupPriority(priority);
+            }
+            b.includeAny(lspa.getIncludeAny()).excludeAny(lspa.getExcludeAny());
+        }
+        if (attr.getMetricObjectList() != null) {
+            for (PcepMetricObject metric : attr.getMetricObjectList()) {
+                if (!metric.getBFlag() && isSupported(metric.getBType())) {
+                    b.metricType(metric.getBType() == METRIC_TYPE_IGP ? TeConstraints.MetricType.IGP
+                            : TeConstraints.MetricType.TE);
+                    break;
+                }
+            }
+        }
+        return b.build();
+    }
+
+    private static boolean isSupported(byte metricType) {
+        return metricType == METRIC_TYPE_IGP || metricType == METRIC_TYPE_TE;
+    }
+
+    private static long cost(TeGraph g, TePath path, boolean teMetric) {
+        long cost = 0;
+        for (int link : path.linkSlots()) {
+            cost += TePathComputer.weight(g.topology().linkAt(link), teMetric);
+        }
+        return cost;
+    }
+
+    /*
+     * Echoes the RP object. A path is returned as an ERO with the requested
+     * bandwidth and the computed cost of every metric asked for with the C flag.
+     */
+    private PcepPathReply buildReply(PcepFactory factory, TeGraph g, PcepPathRequest req, TePath path,
+            LinkedList<PcepValueType> subObjects) throws PcepParseException {
+        PcepPathReply.Builder reply = factory.buildPcepPathReply().setRPObject(req.getRPObject());
+        if (path == null) {
+            noPaths.increment();
+            PcepNoPathObject noPath = factory.buildNoPathObject()
+                    .setNatureOfIssue(PcepNoPathObject.NI_NO_PATH_FOUND).build();
+            return reply.setNoPathObject(noPath).build();
+        }
+
+        PcepAttribute.Builder attrBuilder = factory.buildPcepAttribute();
+        PcepAttribute reqAttr = req.getPcepAttribute();
+        if (reqAttr != null && reqAttr.getBandwidthObject() != null) {
+            attrBuilder.setBandwidthObject(factory.buildBandwidthObject()
+                    .setBandwidth(reqAttr.getBandwidthObject().getBandwidth()).build());
+        }
+        if (reqAttr != null && reqAttr.getMetricObjectList() != null) {
+            LinkedList<PcepMetricObject> metrics = new LinkedList<>();
+            for (PcepMetricObject metric : reqAttr.getMetricObjectList()) {
+                if (metric.getCFlag() && isSupported(metric.getBType())) {
+                    long cost = cost(g, path, metric.getBType() == METRIC_TYPE_TE);
+                    metrics.add(factory.buildMetricObject().setBType(metric.getBType())
+                            .setMetricVal((int) Math.min(cost, 0xFFFFFFFFL)).build());
+                }
+            }
+            if (!metrics.isEmpty()) {
+                attrBuilder.setMetricObjectList(metrics);
+            }
+        }
+
+        PcepMsgPath msgPath = factory.buildPcepMsgPath()
+                .setEroObject(factory.buildEroObject().setSubObjects(subObjects).build())
+                .setPcepAttribute(attrBuilder.build()).build();
+        LinkedList<PcepMsgPath> paths = new LinkedList<>();
+        paths.add(msgPath);
+        return reply.setPathList(paths).build();
+    }
+
+    /**
+     * Returns the ERO hops of the path: the remote interface address of each
+     * link, or the router id of the next node on unnumbered links.
+     *
+     * @param topology topology the path belongs to
+     * @param path TE path
+     * @return IPv4 ERO subobjects
+     */
+    static LinkedList<PcepValueType> eroSubObjects(TeTopology topology, TePath path) {
+        LinkedList<PcepValueType> subObjects = new LinkedList<>();
+        for (int link : path.linkSlots()) {
+            TeLink l = topology.linkAt(link);
+            int address = l.remoteIfAddr() != 0 ? l.remoteIfAddr() : topology.nodeAt(l.dstNode()).ipv4RouterId();
+            subObjects.add(new IPv4SubObject(address, HOST_PREFIX_LENGTH, (byte) 0));
+        }
+        return subObjects;
+    }
+
+    /*
+     * Upper bound of the encoded reply length, only objects built by this class
+     * and echoed RP objects are expected.
+     */
+    private static int estimateLength(PcepPathReply reply) {
+        int length = RP_OBJ_LENGTH;
+        if (reply.getRPObject().getOptionalTlv() != null) {
+            for (PcepValueType tlv : reply.getRPObject().getOptionalTlv()) {
+                // TLV header plus value padded to 4 bytes
+                length += OBJ_HEADER_LENGTH + ((tlv.getLength() + 3) & ~3);
+            }
+        }
+        if (reply.getNoPathObject() != null) {
+            length += NO_PATH_OBJ_LENGTH;
+        }
+        if (reply.getPathList() != null) {
+            for (PcepMsgPath path : reply.getPathList()) {
+                length += OBJ_HEADER_LENGTH;
+                for (PcepValueType subObject : path.getEroObject().getSubObjects()) {
+                    length += TeSrEncoder.subObjectLength(subObject);
+                }
+                PcepAttribute attr = path.getPcepAttribute();
+                if (attr.getBandwidthObject() != null) {
+                    length += BANDWIDTH_OBJ_LENGTH;
+                }
+                if (attr.getMetricObjectList() != null) {
+                    length += METRIC_OBJ_LENGTH * attr.getMetricObjectList().size();
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Path request of a pcc, owner of the bandwidth reserved for its reply.
+     */
+    static final class ReplyId {
+        private final PccId pccId;
+        private final int requestId;
+
+        ReplyId(PccId pccId, int requestId) {
+            this.pccId = pccId;
+            this.requestId = requestId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pccId, requestId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof ReplyId) {
+                ReplyId other = (ReplyId) obj;
+                return requestId == other.requestId && pccId.equals(other.pccId);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reservation of a reply, released once the hold time is over.
+     */
+    private static final class HeldReservation {
+        private final TeBandwidthLedger.Reservation reservation;
+        private final long deadline;
+
+        private HeldReservation(TeBandwidthLedger.Reservation reservation, long deadline) {
+            this.reservation = reservation;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,682 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcepio.protocol.PcepMessage;
+import org.onosproject.pcepio.protocol.PcepType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Relays the LS and LSP state reported by the pccs to a parent PCE, on a
+ * session where the controller acts as a pcc (the PNC role of ACTN).
+ * <p>
+ * LSRpt and PCRpt frames received from the pccs are cut into LS objects and
+ * state reports without being decoded again. The last slice of each LS
+ * object and LSP is kept, and slices not sent yet are coalesced, so an object
+ * changing faster than the relay sends is reported once with its last state.
+ * Pending slices are packed into LSRpt and PCRpt messages on each flush, within
+ * a token bucket of objects per second. When the upstream session comes up the
+ * kept state is sent first with the S flag, followed by the end of
+ * synchronization markers.
+ * <p>
+ * PLSP-IDs of different pccs overlap, LSPs are reported upstream with a
+ * PLSP-ID allocated here. The SRP object and the D flag are dropped: the
+ * parent PCE learns the LSPs but they stay delegated to this controller.
+ */
+public class PcepUpstreamRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepUpstreamRelay.class);
+
+    private static final int COMMON_HEADER_LENGTH = 4;
+    private static final int OBJECT_HEADER_LENGTH = 4;
+    private static final int LENGTH_INDEX = 2;
+    private static final int MAX_MESSAGE_LENGTH = PcepLspBatcher.MAX_MESSAGE_LENGTH;
+    // Version 1, no flags
+    private static final int VERSION_FLAGS = 0x20;
+    // Object type 1 in the upper nibble, P and I flags unset
+    private static final int OBJECT_TYPE_ONE = 0x10;
+
+    private static final int LS_OBJ_CLASS = 224;
+    private static final int LS_FLAGS_INDEX = 7;
+    private static final int LS_ID_INDEX = 8;
+    private static final int LS_OBJ_LENGTH = 16;
+    private static final int LS_R_FLAG = 0x02;
+    private static final int LS_S_FLAG = 0x01;
+    private static final int LS_PROTOCOL_ID = 1;
+
+    private static final int LSP_OBJ_CLASS = 32;
+    private static final int SRP_OBJ_CLASS = 33;
+    private static final int ERO_OBJ_CLASS = 7;
+    private static final int LSP_BODY_INDEX = 4;
+    private static final int LSP_FLAGS_INDEX = 7;
+    private static final int LSP_OBJ_LENGTH = 8;
+    private static final int PLSP_ID_SHIFT = 12;
+    private static final int MAX_PLSP_ID = 0xFFFFF;
+    private static final int LSP_R_FLAG = 0x04;
+    private static final int LSP_S_FLAG = 0x02;
+    private static final int LSP_D_FLAG = 0x01;
+    // Flags relayed as received: C, O, A and R
+    private static final int LSP_RELAYED_FLAGS = 0xFFF & ~(LSP_S_FLAG | LSP_D_FLAG);
+
+    private final ScheduledExecutorService executor;
+    private final double objectsPerSecond;
+    private final int burst;
+    private final long flushIntervalMillis;
+
+    // Kept state, guarded by this
+    private final Map<LsKey, ChannelBuffer> lsObjects = new LinkedHashMap<>();
+    private final Map<LspKey, Lsp> lsps = new LinkedHashMap<>();
+    private final Map<Integer, LspKey> upstreamIds = new LinkedHashMap<>();
+    private int nextUpstreamId = 1;
+
+    // Slices waiting to be sent, guarded by this
+    private final Map<LsKey, ChannelBuffer> pendingLs = new LinkedHashMap<>();
+    private final Map<LspKey, ChannelBuffer> pendingLsps = new LinkedHashMap<>();
+    private List<ChannelBuffer> syncLs;
+    private List<ChannelBuffer> syncLsps;
+
+    private PcepUpstreamSession session;
+    private double tokens;
+    private long lastRefillNanos;
+    private ScheduledFuture<?> flushTask;
+
+    private final LongAdder relayedObjects = new LongAdder();
+    private final LongAdder relayedMessages = new LongAdder();
+    private final LongAdder coalescedObjects = new LongAdder();
+    private final LongAdder syncCount = new LongAdder();
+    private final LongAdder malformedFrames = new LongAdder();
+
+    /**
+     * Creates relay.
+     *
+     * @param executor executor running the flushes
+     * @param objectsPerSecond LS objects and LSPs sent per second, 0 for no limit
+     * @param burst objects which may be sent at once after an idle period
+     * @param flushIntervalMillis time between two flushes
+     */
+    public PcepUpstreamRelay(ScheduledExecutorService executor, double objectsPerSecond, int burst,
+            long flushIntervalMillis) {
+        checkArgument(objectsPerSecond >= 0, "Invalid rate " + objectsPerSecond);
+        checkArgument(burst > 0, "Invalid burst " + burst);
+        checkArgument(flushIntervalMillis > 0, "Invalid flush interval " + flushIntervalMillis);
+        this.executor = executor;
+        this.objectsPerSecond = objectsPerSecond;
+        this.burst = burst;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts the periodic flushes.
+     */
+    public synchronized void start() {
+        if (flushTask == null) {
+            flushTask = executor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis,
+                    flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic flushes. Kept state is left as it is.
+     */
+    public synchronized void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+    }
+
+    /**
+     * Takes the LS objects or state reports of a frame received from a pcc.
+     * The frame must not be modified by the caller afterwards.
+     *
+     * @param pccId pcc which sent the frame
+     * @param type message type, LS_REPORT or REPORT
+     * @param frame complete message including the common header
+     */
+    public synchronized void frameReceived(PccId pccId, PcepType type, ChannelBuffer frame) {
+        int start = frame.readerIndex();
+        int end = frame.writerIndex();
+        if (end - start < COMMON_HEADER_LENGTH) {
+            malformedFrames.increment();
+            return;
+        }
+
+        int lspStart = -1;
+        for (int pos = start + COMMON_HEADER_LENGTH; pos < end;) {
+            int objLength = pos + OBJECT_HEADER_LENGTH <= end ? frame.getUnsignedShort(pos + LENGTH_INDEX) : 0;
+            if (objLength < OBJECT_HEADER_LENGTH || pos + objLength > end) {
+                log.debug("Malformed {} frame from {} at offset {}", type, pccId, pos - start);
+                malformedFrames.increment();
+                return;
+            }
+            int objClass = frame.getUnsignedByte(pos);
+
+            if (type == PcepType.LS_REPORT) {
+                if (objClass == LS_OBJ_CLASS && objLength >= LS_OBJ_LENGTH) {
+                    lsObjectReceived(frame.slice(pos, objLength));
+                }
+            } else if (objClass == LSP_OBJ_CLASS || objClass == SRP_OBJ_CLASS) {
+                // A state report starts at its optional SRP object or at its LSP object
+                if (lspStart >= 0) {
+                    reportReceived(pccId, frame.slice(lspStart, pos - lspStart));
+                }
+                lspStart = objClass == LSP_OBJ_CLASS && objLength >= LSP_OBJ_LENGTH ? pos : -1;
+            }
+            pos += objLength;
+        }
+        if (lspStart >= 0) {
+            reportReceived(pccId, frame.slice(lspStart, end - lspStart));
+        }
+    }
+
+    private void lsObjectReceived(ChannelBuffer obj) {
+        long lsId = obj.getLong(LS_ID_INDEX);
+        int flags = obj.getUnsignedByte(LS_FLAGS_INDEX);
+        if (lsId == 0 && obj.readableBytes() == LS_OBJ_LENGTH) {
+            // End of synchronization of the pcc, the parent PCE gets its own
+            return;
+        }
+        obj.setByte(LS_FLAGS_INDEX, flags & ~LS_S_FLAG);
+
+        LsKey key = new LsKey(obj.getUnsignedByte(1) >>> 4, lsId);
+        if ((flags & LS_R_FLAG) != 0) {
+            lsObjects.remove(key);
+        } else {
+            lsObjects.put(key, obj);
+        }
+        if (pendingLs.put(key, obj) != null) {
+            coalescedObjects.increment();
+        }
+    }
+
+    private void reportReceived(PccId pccId, ChannelBuffer report) {
+        int body = report.getInt(LSP_BODY_INDEX);
+        int plspId = body >>> PLSP_ID_SHIFT;
+        if (plspId == 0) {
+            // End of synchronization of the pcc
+            return;
+        }
+
+        LspKey key = new LspKey(pccId, plspId);
+        Lsp lsp = lsps.get(key);
+        boolean remove = (body & LSP_R_FLAG) != 0;
+        if (lsp == null) {
+            if (remove) {
+                return;
+            }
+            int upstreamId = allocateUpstreamId(key);
+            if (upstreamId == 0) {
+                log.warn("No PLSP-ID left to relay LSP {} of {}", plspId, pccId);
+                return;
+            }
+            lsp = new Lsp(upstreamId);
+            lsps.put(key, lsp);
+        }
+        report.setInt(LSP_BODY_INDEX, (lsp.upstreamId << PLSP_ID_SHIFT) | (body & LSP_RELAYED_FLAGS));
+
+        if (remove) {
+            lsps.remove(key);
+            upstreamIds.remove(lsp.upstreamId);
+        } else {
+            lsp.report = report;
+        }
+        if (pendingLsps.put(key, report) != null) {
+            coalescedObjects.increment();
+        }
+    }
+
+    /*
+     * Allocates PLSP-IDs in increasing order so an id released by a removal is
+     * not taken again before the removal is sent.
+     */
+    private int allocateUpstreamId(LspKey key) {
+        for (int i = 0; i < MAX_PLSP_ID; i++) {
+            int id = nextUpstreamId;
+            nextUpstreamId = id == MAX_PLSP_ID ? 1 : id + 1;
+            if (!upstreamIds.containsKey(id)) {
+                upstreamIds.put(id, key);
+                return id;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reports the removal of the LSPs of a pcc whose session went down. LS
+     * objects are kept, the pcc reports their state again on reconnection.
+     *
+     * @param pccId pcc identifier
+     */
+    public synchronized void pccDisconnected(PccId pccId) {
+        Iterator<Map.Entry<LspKey, Lsp>> it = lsps.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<LspKey, Lsp> e = it.next();
+            if (!e.getKey().pccId.equals(pccId)) {
+                continue;
+            }
+            ChannelBuffer removal = e.getValue().report.copy();
+            removal.setByte(LSP_FLAGS_INDEX, removal.getUnsignedByte(LSP_FLAGS_INDEX) | LSP_R_FLAG);
+            pendingLsps.put(e.getKey(), removal);
+            upstreamIds.remove(e.getValue().upstreamId);
+            it.remove();
+        }
+    }
+
+    /**
+     * Starts the synchronization of the kept state on a new upstream session.
+     *
+     * @param upstream established upstream session
+     */
+    public synchronized void upstreamUp(PcepUpstreamSession upstream) {
+        session = upstream;
+        // The kept state includes every pending update but the removals, which the parent PCE never heard of
+        pendingLs.clear();
+        pendingLsps.clear();
+        startSync();
+    }
+
+    /*
+     * Queues the kept state to be sent with the S flag, followed by the end
+     * of synchronization markers.
+     */
+    private void startSync() {
+        syncLs = new ArrayList<>(lsObjects.values());
+        syncLsps = new ArrayList<>(lsps.size());
+        for (Lsp lsp : lsps.values()) {
+            syncLsps.add(lsp.report);
+        }
+        syncCount.increment();
+        log.info("Synchronizing {} LS objects and {} LSPs with the parent PCE", syncLs.size(), syncLsps.size());
+    }
+
+    /**
+     * Stops relaying to the upstream session which went down.
+     *
+     * @param upstream upstream session
+     */
+    public synchronized void upstreamDown(PcepUpstreamSession upstream) {
+        if (session != upstream) {
+            return;
+        }
+        session = null;
+        syncLs = null;
+        syncLsps = null;
+        pendingLs.clear();
+        pendingLsps.clear();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Failed to relay reports to the parent PCE", e);
+        }
+    }
+
+    /**
+     * Sends the pending slices allowed by the rate limit to the parent PCE.
+     * Slices of a send which fails while the session stays up are queued
+     * again, see sendFailed.
+     */
+    public void flush() {
+        PcepUpstreamSession target;
+        Packer packer;
+        synchronized (this) {
+            target = session;
+            if (target == null || !target.isWritable()) {
+                return;
+            }
+            packer = pack();
+        }
+        List<PcepMessage> msgs = packer.messages();
+        if (msgs.isEmpty()) {
+            return;
+        }
+        target.send(msgs).whenComplete((r, e) -> {
+            if (e == null) {
+                relayedObjects.add(packer.objects);
+                relayedMessages.add(msgs.size());
+            } else {
+                sendFailed(target, packer, e);
+            }
+        });
+    }
+
+    /*
+     * Queues again the slices of a failed send. Pending slices go back unless
+     * a later update of the same object is pending, a failed synchronization
+     * is started again from the kept state. Nothing is done if the session
+     * went down, the next one synchronizes anyway.
+     */
+    private synchronized void sendFailed(PcepUpstreamSession target, Packer packer, Throwable cause) {
+        if (session != target) {
+            return;
+        }
+        log.debug("Failed to relay {} objects to the parent PCE: {}", packer.objects, cause.getMessage());
+        for (Map.Entry<LsKey, ChannelBuffer> e : packer.takenLs.entrySet()) {
+            pendingLs.putIfAbsent(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<LspKey, ChannelBuffer> e : packer.takenLsps.entrySet()) {
+            pendingLsps.putIfAbsent(e.getKey(), e.getValue());
+        }
+        if (packer.sync) {
+            startSync();
+        }
+    }
+
+    private Packer pack() {
+        int budget = Integer.MAX_VALUE;
+        if (objectsPerSecond > 0) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefillNanos) * objectsPerSecond / 1e9);
+            lastRefillNanos = now;
+            budget = (int) tokens;
+        }
+
+        Packer packer = new Packer();
+        int sent = 0;
+        if (syncLs != null) {
+            packer.sync = true;
+            sent += packer.addAll(PcepType.LS_REPORT, syncLs, LS_FLAGS_INDEX, LS_S_FLAG, budget - sent);
+            if (syncLs.isEmpty()) {
+                packer.add(PcepType.LS_REPORT, lsEndOfSync(), 0, 0);
+                syncLs = null;
+            }
+        }
+        if (syncLs == null && syncLsps != null) {
+            packer.sync = true;
+            sent += packer.addAll(PcepType.REPORT, syncLsps, LSP_FLAGS_INDEX, LSP_S_FLAG, budget - sent);
+            if (syncLsps.isEmpty()) {
+                packer.add(PcepType.REPORT, lspEndOfSync(), 0, 0);
+                syncLsps = null;
+            }
+        }
+        if (syncLs == null && syncLsps == null) {
+            sent += packer.addPending(PcepType.LS_REPORT, pendingLs, packer.takenLs, budget - sent);
+            sent += packer.addPending(PcepType.REPORT, pendingLsps, packer.takenLsps, budget - sent);
+        }
+
+        if (objectsPerSecond > 0) {
+            tokens -= sent;
+        }
+        packer.objects = sent;
+        packer.finish();
+        return packer;
+    }
+
+    private static ChannelBuffer lsEndOfSync() {
+        ChannelBuffer obj = ChannelBuffers.buffer(LS_OBJ_LENGTH);
+        obj.writeByte(LS_OBJ_CLASS);
+        obj.writeByte(OBJECT_TYPE_ONE);
+        obj.writeShort(LS_OBJ_LENGTH);
+        obj.writeByte(LS_PROTOCOL_ID);
+        obj.writeMedium(0);
+        obj.writeLong(0);
+        return obj;
+    }
+
+    private static ChannelBuffer lspEndOfSync() {
+        ChannelBuffer report = ChannelBuffers.buffer(LSP_OBJ_LENGTH + OBJECT_HEADER_LENGTH);
+        report.writeByte(LSP_OBJ_CLASS);
+        report.writeByte(OBJECT_TYPE_ONE);
+        report.writeShort(LSP_OBJ_LENGTH);
+        report.writeInt(0);
+        // Empty ERO, the path is mandatory in a state report
+        report.writeByte(ERO_OBJ_CLASS);
+        report.writeByte(OBJECT_TYPE_ONE);
+        report.writeShort(OBJECT_HEADER_LENGTH);
+        return report;
+    }
+
+    /**
+     * Returns the number of LS objects and LSPs sent to the parent PCE.
+     *
+     * @return relayed object count
+     */
+    public long relayedObjectCount() {
+        return relayedObjects.sum();
+    }
+
+    /**
+     * Returns the number of LSRpt and PCRpt messages sent to the parent PCE.
+     *
+     * @return relayed message count
+     */
+    public long relayedMessageCount() {
+        return relayedMessages.sum();
+    }
+
+    /**
+     * Returns the number of updates replaced by a later update before being sent.
+     *
+     * @return coalesced update count
+     */
+    public long coalescedCount() {
+        return coalescedObjects.sum();
+    }
+
+    /**
+     * Returns the number of synchronizations started with the parent PCE.
+     *
+     * @return synchronization count
+     */
+    public long syncCount() {
+        return syncCount.sum();
+    }
+
+    /**
+     * Returns the number of frames which could not be cut into objects.
+     *
+     * @return malformed frame count
+     */
+    public long malformedFrameCount() {
+        return malformedFrames.sum();
+    }
+
+    /**
+     * Returns the number of LS objects kept for the synchronization.
+     *
+     * @return kept LS object count
+     */
+    public synchronized int lsObjectCount() {
+        return lsObjects.size();
+    }
+
+    /**
+     * Returns the number of LSPs kept for the synchronization.
+     *
+     * @return kept LSP count
+     */
+    public synchronized int lspCount() {
+        return lsps.size();
+    }
+
+    /**
+     * Returns the number of updates waiting to be sent.
+     *
+     * @return pending update count
+     */
+    public synchronized int pendingCount() {
+        return pendingLs.size() + pendingLsps.size()
+                + (syncLs != null ? syncLs.size() : 0) + (syncLsps != null ? syncLsps.size() : 0);
+    }
+
+    /*
+     * Packs slices into messages of at most MAX_MESSAGE_LENGTH bytes sharing one buffer.
+     */
+    private static final class Packer {
+        private final ChannelBuffer arena = ChannelBuffers.dynamicBuffer(MAX_MESSAGE_LENGTH);
+        private final List<PcepMessage> msgs = new ArrayList<>();
+        // Pending slices taken and whether synchronization slices were, to queue them again on failure
+        private final Map<LsKey, ChannelBuffer> takenLs = new LinkedHashMap<>();
+        private final Map<LspKey, ChannelBuffer> takenLsps = new LinkedHashMap<>();
+        private boolean sync;
+        private int objects;
+        private PcepType msgType;
+        private int msgStart;
+        private int msgObjects;
+
+        int addAll(PcepType type, List<ChannelBuffer> slices, int flagIndex, int flag, int budget) {
+            int n = Math.min(budget, slices.size());
+            for (int i = 0; i < n; i++) {
+                add(type, slices.get(i), flagIndex, flag);
+            }
+            slices.subList(0, n).clear();
+            return n;
+        }
+
+        <K> int addPending(PcepType type, Map<K, ChannelBuffer> pending, Map<K, ChannelBuffer> taken, int budget) {
+            int n = 0;
+            Iterator<Map.Entry<K, ChannelBuffer>> it = pending.entrySet().iterator();
+            while (n < budget && it.hasNext()) {
+                Map.Entry<K, ChannelBuffer> e = it.next();
+                add(type, e.getValue(), 0, 0);
+                taken.put(e.getKey(), e.getValue());
+                it.remove();
+                n++;
+            }
+            return n;
+        }
+
+        void add(PcepType type, ChannelBuffer slice, int flagIndex, int flag) {
+            int length = slice.readableBytes();
+            if (msgType != null && (msgType != type || arena.writerIndex() - msgStart + length > MAX_MESSAGE_LENGTH)) {
+                finishMessage();
+            }
+            if (msgType == null) {
+                msgType = type;
+                msgStart = arena.writerIndex();
+                msgObjects = 0;
+                arena.writeByte(VERSION_FLAGS);
+                arena.writeByte(type.getType());
+                // Length is set once the message is complete
+                arena.writeShort(0);
+            }
+            int objStart = arena.writerIndex();
+            arena.writeBytes(slice, slice.readerIndex(), length);
+            if (flag != 0) {
+                arena.setByte(objStart + flagIndex, arena.getUnsignedByte(objStart + flagIndex) | flag);
+            }
+            msgObjects++;
+        }
+
+        void finish() {
+            if (msgType != null) {
+                finishMessage();
+            }
+        }
+
+        List<PcepMessage> messages() {
+            return msgs;
+        }
+
+        private void finishMessage() {
+            int length = arena.writerIndex() - msgStart;
+            arena.setShort(msgStart + LENGTH_INDEX, length);
+            msgs.add(new PcepEncodedMessage(msgType, arena.slice(msgStart, length), msgObjects,
+                    PcepOutboundPacer.DEFAULT_SETUP_PRIORITY));
+            msgType = null;
+        }
+    }
+
+    /*
+     * LS object identity: object type (node or link) and LS-ID.
+     */
+    private static final class LsKey {
+        private final int objType;
+        private final long lsId;
+
+        private LsKey(int objType, long lsId) {
+            this.objType = objType;
+            this.lsId = lsId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LsKey)) {
+                return false;
+            }
+            LsKey that = (LsKey) o;
+            return objType == that.objType && lsId == that.lsId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * objType + Long.hashCode(lsId);
+        }
+    }
+
+    /*
+     * LSP identity on the downstream sessions.
+     */
+    private static final class LspKey {
+        private final PccId pccId;
+        private final int plspId;
+
+        private LspKey(PccId pccId, int plspId) {
+            this.pccId = pccId;
+            this.plspId = plspId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LspKey)) {
+                return false;
+            }
+            LspKey that = (LspKey) o;
+            return plspId == that.plspId && pccId.equals(that.pccId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pccId, plspId);
+        }
+    }
+
+    private static final class Lsp {
+        private final int upstreamId;
+        private ChannelBuffer report;
+
+        private Lsp(int upstreamId) {
+            this.upstreamId = upstreamId;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import static org.onlab.util.Tools.groupedThreads;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.onosproject.pcepio.protocol.PcepMessage;
+import org.onosproject.pcepio.types.LsCapabilityTlv;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.onosproject.pcepio.types.StatefulPceCapabilityTlv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * PCEP session to a parent PCE on which the controller acts as a pcc, as a
+ * PNC does toward its MDSC. The session runs the pipeline and the channel
+ * handler of the pcc sessions, with the handler in the pcc role, and is
+ * reconnected with an exponential delay until it is stopped.
+ * <p>
+ * Only reports are sent upstream, see {@link PcepUpstreamRelay}. Requests
+ * of the parent PCE acting on LSPs are not supported and ignored.
+ */
+public class PcepUpstreamSession {
+
+    private static final Logger log = LoggerFactory.getLogger(PcepUpstreamSession.class);
+
+    private static final long MIN_RECONNECT_MILLIS = 1000;
+    private static final long MAX_RECONNECT_MILLIS = 60 * 1000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+
+    private final Controller controller;
+    private final InetSocketAddress address;
+    private final PcepUpstreamRelay relay;
+    private final ScheduledExecutorService executor;
+    private final byte sessionId;
+
+    private NioClientSocketChannelFactory channelFactory;
+    private ClientBootstrap bootstrap;
+    private volatile boolean running;
+    private volatile Channel channel;
+    private volatile PcepOutboundQueue outboundQueue;
+    private long reconnectMillis = MIN_RECONNECT_MILLIS;
+
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder ignoredMessages = new LongAdder();
+
+    /**
+     * Creates upstream session.
+     *
+     * @param controller controller relaying its pccs
+     * @param address address of the parent PCE
+     * @param relay relay feeding the session
+     * @param sessionId PCEP session id sent in our Open message
+     */
+    public PcepUpstreamSession(Controller controller, InetSocketAddress address, PcepUpstreamRelay relay,
+            byte sessionId) {
+        this.controller = controller;
+        this.address = address;
+        this.relay = relay;
+        this.executor = controller.outboundExecutor();
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Connects to the parent PCE.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        channelFactory = new NioClientSocketChannelFactory(
+                Executors.newCachedThreadPool(groupedThreads("onos/pcep", "upstream-boss-%d")),
+                Executors.newCachedThreadPool(groupedThreads("onos/pcep", "upstream-worker-%d")), 1);
+        bootstrap = new ClientBootstrap(channelFactory);
+        bootstrap.setOption("tcpNoDelay", true);
+        bootstrap.setOption("keepAlive", true);
+        bootstrap.setOption("connectTimeoutMillis", CONNECT_TIMEOUT_MILLIS);
+        bootstrap.setPipelineFactory(new PcepPipelineFactory(controller, this));
+        connect();
+    }
+
+    /**
+     * Closes the session and stops reconnecting.
+     */
+    public void stop() {
+        Channel ch;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            ch = channel;
+        }
+        // Not holding the lock, the disconnection callback takes it
+        if (ch != null) {
+            ch.close().awaitUninterruptibly();
+        }
+        channelFactory.releaseExternalResources();
+    }
+
+    private synchronized void connect() {
+        if (!running) {
+            return;
+        }
+        log.info("Connecting to parent PCE {}", address);
+        bootstrap.connect(address).addListener((ChannelFuture future) -> {
+            if (!future.isSuccess()) {
+                log.warn("Failed to connect to parent PCE {}: {}", address, future.getCause().getMessage());
+                scheduleReconnect();
+            }
+        });
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (!running) {
+            return;
+        }
+        long delay = reconnectMillis;
+        reconnectMillis = Math.min(reconnectMillis * 2, MAX_RECONNECT_MILLIS);
+        try {
+            executor.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Not reconnecting to {}, controller is stopping", address);
+        }
+    }
+
+    /**
+     * Returns the session id sent in our Open message.
+     *
+     * @return session id
+     */
+    byte sessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns the TLVs of our Open message: stateful capability, as LSPs are
+     * reported, and LS capability. The U flag is not set since the LSPs stay
+     * delegated to this controller and PCUpd is not acted on.
+     *
+     * @return Open object TLVs
+     */
+    LinkedList<PcepValueType> openTlvs() {
+        LinkedList<PcepValueType> tlvs = new LinkedList<>();
+        tlvs.add(new StatefulPceCapabilityTlv(false, false, false, false, false));
+        tlvs.add(new LsCapabilityTlv(true));
+        return tlvs;
+    }
+
+    /**
+     * Called by the channel handler once the handshake is complete.
+     *
+     * @param ch session channel
+     * @param pktStats packet statistics of the session
+     */
+    void sessionUp(Channel ch, PcepPacketStatsImpl pktStats) {
+        log.info("Session to parent PCE {} is up", address);
+        PcepOutboundQueue queue = new PcepOutboundQueue(ch, pktStats, executor, controller.flushWindowMicros(),
+                controller.flushByteBudget());
+        queue.setWatermarks(controller.writeHighWaterMark(), controller.writeLowWaterMark(),
+                PcepOutboundQueue.OverflowPolicy.REJECT, 0, 0);
+        synchronized (this) {
+            channel = ch;
+            outboundQueue = queue;
+            reconnectMillis = MIN_RECONNECT_MILLIS;
+        }
+        connects.increment();
+        relay.upstreamUp(this);
+    }
+
+    /**
+     * Called by the channel handler when the channel is closed.
+     *
+     * @param ch session channel
+     */
+    void sessionDown(Channel ch) {
+        synchronized (this) {
+            if (ch == channel) {
+                channel = null;
+                outboundQueue = null;
+            }
+        }
+        relay.upstreamDown(this);
+        log.info("Session to parent PCE {} is down", address);
+        scheduleReconnect();
+    }
+
+    /**
+     * Handles a message received from the parent PCE once the session is established.
+     *
+     * @param m pcep message
+     */
+    void handleMessage(PcepMessage m) {
+        switch (m.getType()) {
+        case KEEP_ALIVE:
+            break;
+        case CLOSE:
+            log.info("Parent PCE {} closed the session", address);
+            Channel ch = channel;
+            if (ch != null) {
+                ch.close();
+            }
+            break;
+        default:
+            // LSPs are not delegated upstream, PCUpd and PCInitiate have nothing to act on
+            ignoredMessages.increment();
+            log.debug("Ignoring {} message from parent PCE {}", m.getType(), address);
+            break;
+        }
+    }
+
+    /**
+     * Sends messages to the parent PCE.
+     *
+     * @param msgs messages
+     * @return future completed once the messages are accepted by the socket,
+     *         failed if the session is down or above its high watermark
+     */
+    public CompletableFuture<Void> send(List<PcepMessage> msgs) {
+        PcepOutboundQueue queue = outboundQueue;
+        if (queue == null) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RejectedExecutionException("Session to " + address + " is down"));
+            return failed;
+        }
+        return queue.enqueue(msgs, false);
+    }
+
+    /**
+     * Returns whether the session is established.
+     *
+     * @return true if established
+     */
+    public boolean isUp() {
+        return outboundQueue != null;
+    }
+
+    /**
+     * Returns whether the session is established and its outbound queue below its high watermark.
+     *
+     * @return true if messages may be sent
+     */
+    public boolean isWritable() {
+        PcepOutboundQueue queue = outboundQueue;
+        return queue != null && !queue.isAboveHighWaterMark();
+    }
+
+    /**
+     * Returns the address of the parent PCE.
+     *
+     * @return parent PCE address
+     */
+    public InetSocketAddress address() {
+        return address;
+    }
+
+    /**
+     * Returns the number of times the session came up.
+     *
+     * @return established session count
+     */
+    public long connectCount() {
+        return connects.sum();
+    }
+
+    /**
+     * Returns the number of messages of the parent PCE which were ignored.
+     *
+     * @return ignored message count
+     */
+    public long ignoredMessageCount() {
+        return ignoredMessages.sum();
+    }
+}
@@ -0,0 +1,697 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bandwidth reserved by the LSPs of the PCE on each TE link.
+ * <p>
+ * Every LSP the PCE admits is charged here before its PCInitiate, PCUpd or
+ * PCRep is sent, and every LSP a pcc reports is charged on the links of its
+ * reported path, so concurrent requests cannot oversubscribe a link.
+ * The reserved bandwidth of a link is kept per holding priority in pages of
+ * primitive counters indexed by link slot, next to the total reserved on the
+ * link. A reservation over several links adds to the total of each link with
+ * a compare-and-set which fails rather than exceed the maximum reservable
+ * bandwidth, and is rolled back if a later link is full. Threads admitting
+ * LSPs in parallel therefore never oversubscribe a link and never share a lock.
+ * <p>
+ * When a link is full, reservations with a holding priority numerically
+ * greater than the setup priority of the new LSP may be preempted, lowest
+ * priority first, as in RFC 3209.
+ * <p>
+ * A new reservation of an owner replaces its previous one with shared
+ * explicit style: links crossed by both paths carry the larger of the two
+ * bandwidths rather than their sum, as when RSVP-TE makes before breaking.
+ * <p>
+ * Reservations crossing a link removed from the topology are released, as
+ * the store hands its slot out to another link afterwards.
+ */
+public class TeBandwidthLedger implements TeTopologyListener {
+
+    // RFC 3209 default holding priority, used when the LSP has no LSPA object
+    static final int DEFAULT_HOLDING_PRIORITY = 0;
+
+    private static final int MAX_ADMISSION_ATTEMPTS = 3;
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int MAX_PAGES = 1 << 14;
+    // Total reserved, then reserved per holding priority
+    private static final int CELLS = 1 + TeLink.PRIORITY_LEVELS;
+
+    private final AtomicReferenceArray<AtomicLongArray> pages = new AtomicReferenceArray<>(MAX_PAGES);
+    private final Map<Integer, Set<Reservation>> byLink = new ConcurrentHashMap<>();
+    private final Map<Object, Reservation> byOwner = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder preempted = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+
+    /**
+     * Reserves bandwidth on the links of a path for the owner, replacing the
+     * reservation the owner already holds once the new one is in place. Links
+     * crossed by both the old and the new path are charged only the increase,
+     * so an LSP moving onto a path sharing full links is not rejected by its
+     * own reservation.
+     *
+     * @param owner LSP the bandwidth is reserved for
+     * @param topology topology the links belong to
+     * @param linkSlots link slots of the path
+     * @param bandwidth bandwidth in bytes per second
+     * @param setupPriority setup priority between 0 and 7
+     * @param holdingPriority holding priority between 0 and 7
+     * @param preempt whether reservations of lower priority may be preempted
+     * @return admission result
+     */
+    public Admission reserve(Object owner, TeTopology topology, int[] linkSlots, float bandwidth,
+            int setupPriority, int holdingPriority, boolean preempt) {
+        return reserve(owner, null, topology, linkSlots, bandwidth, setupPriority, holdingPriority, preempt);
+    }
+
+    /**
+     * Reserves bandwidth on the links of a path for the owner, replacing the
+     * reservation of the owner or, when it holds none, the reservation of the
+     * predecessor, such as the request the LSP was set up for. Links crossed
+     * by both paths are charged only the increase.
+     *
+     * @param owner LSP the bandwidth is reserved for
+     * @param predecessor previous owner of the reservation being replaced, may be null
+     * @param topology topology the links belong to
+     * @param linkSlots link slots of the path
+     * @param bandwidth bandwidth in bytes per second
+     * @param setupPriority setup priority between 0 and 7
+     * @param holdingPriority holding priority between 0 and 7
+     * @param preempt whether reservations of lower priority may be preempted
+     * @return admission result
+     */
+    public Admission reserve(Object owner, Object predecessor, TeTopology topology, int[] linkSlots,
+            float bandwidth, int setupPriority, int holdingPriority, boolean preempt) {
+        checkArgument(setupPriority >= 0 && setupPriority < TeLink.PRIORITY_LEVELS, "Invalid setup priority");
+        checkArgument(holdingPriority >= 0 && holdingPriority < TeLink.PRIORITY_LEVELS, "Invalid holding priority");
+        long amount = (long) Math.ceil(Math.max(0, bandwidth));
+        Reservation r = new Reservation(owner, linkSlots.clone(), amount, setupPriority, holdingPriority);
+        Reservation old = owner == null ? null : byOwner.get(owner);
+        if (old == null && predecessor != null) {
+            old = byOwner.get(predecessor);
+        }
+        if (old != null && old.isReleased()) {
+            old = null;
+        }
+
+        long[] capacities = new long[linkSlots.length];
+        long[] charges = new long[linkSlots.length];
+        for (int i = 0; i < linkSlots.length; i++) {
+            capacities[i] = capacity(topology.linkAt(linkSlots[i]));
+            charges[i] = old != null && contains(old.linkSlots, linkSlots[i])
+                    ? Math.max(0, amount - old.bandwidth) : amount;
+            // Reject up front rather than preempt on the first links of a path which cannot fit.
+            if (charges[i] > 0 && free(linkSlots[i], capacities[i], preempt ? setupPriority : -1) < charges[i]) {
+                rejected.increment();
+                return new Admission(null, linkSlots[i], Collections.<Reservation>emptyList());
+            }
+        }
+
+        List<Reservation> victims = new ArrayList<>();
+        for (int i = 0; i < linkSlots.length; i++) {
+            if (charges[i] == 0) {
+                continue;
+            }
+            while (!tryAdd(linkSlots[i], charges[i], capacities[i])) {
+                if (!preempt || !preemptOne(linkSlots[i], setupPriority, old, victims)) {
+                    rollback(linkSlots, charges, i);
+                    rejected.increment();
+                    return new Admission(null, linkSlots[i], victims);
+                }
+            }
+        }
+        if (old != null && !old.released.compareAndSet(false, true)) {
+            // Released meanwhile, the shared links no longer hold its bandwidth.
+            old = null;
+            for (int i = 0; i < linkSlots.length; i++) {
+                if (charges[i] < amount) {
+                    if (!tryAdd(linkSlots[i], amount - charges[i], capacities[i])) {
+                        rollback(linkSlots, charges, linkSlots.length);
+                        rejected.increment();
+                        return new Admission(null, linkSlots[i], victims);
+                    }
+                    charges[i] = amount;
+                }
+            }
+        }
+
+        for (int slot : r.linkSlots) {
+            if (amount > 0) {
+                page(slot).addAndGet(cell(slot) + 1 + holdingPriority, amount);
+            }
+            byLink.computeIfAbsent(slot, k -> ConcurrentHashMap.newKeySet()).add(r);
+        }
+        if (old != null) {
+            unaccount(old, r);
+        }
+        if (r.isReleased()) {
+            // Preempted while being registered, release missed the links added since.
+            for (int slot : r.linkSlots) {
+                byLink.get(slot).remove(r);
+            }
+        }
+        Reservation replaced = owner == null ? null : byOwner.put(owner, r);
+        if (replaced != null && replaced != old) {
+            release(replaced);
+        }
+        if (owner != null && r.isReleased()) {
+            byOwner.remove(owner, r);
+        }
+        admitted.increment();
+        return new Admission(r, -1, victims);
+    }
+
+    /**
+     * Computes a path and reserves its bandwidth for the owner. When a link
+     * of the path turns out to be full, the path is computed again without
+     * that link, a few times at most.
+     *
+     * @param owner LSP the bandwidth is reserved for
+     * @param pathCache path computation
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints, with the bandwidth and setup priority
+     * @param holdingPriority holding priority between 0 and 7
+     * @param preempted reservations preempted to make room, added to
+     * @return reserved path, null if no path could be reserved
+     */
+    public TePath reservePath(Object owner, TePathCache pathCache, TeGraph g, int src, int dst,
+            TeConstraints constraints, int holdingPriority, List<Reservation> preempted) {
+        return reservePath(owner, pathCache.computePath(g, src, dst, constraints), pathCache, g, src, dst,
+                constraints, holdingPriority, true, preempted);
+    }
+
+    /**
+     * Reserves the bandwidth of a computed path for the owner. When a link of
+     * the path turns out to be full, the path is computed again without that
+     * link, a few times at most.
+     *
+     * @param owner LSP the bandwidth is reserved for
+     * @param path path to try first, may be null
+     * @param pathCache path computation
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints, with the bandwidth and setup priority
+     * @param holdingPriority holding priority between 0 and 7
+     * @param preempt whether reservations of lower priority may be preempted
+     * @param preempted reservations preempted to make room, added to
+     * @return reserved path, null if no path could be reserved
+     */
+    public TePath reservePath(Object owner, TePath path, TePathCache pathCache, TeGraph g, int src, int dst,
+            TeConstraints constraints, int holdingPriority, boolean preempt, List<Reservation> preempted) {
+        BitSet excludedLinks = null;
+        for (int attempt = 0; path != null && attempt < MAX_ADMISSION_ATTEMPTS; attempt++) {
+            Admission admission = reserve(owner, g.topology(), path.linkSlots(), constraints.bandwidth(),
+                    constraints.setupPriority(), holdingPriority, preempt);
+            preempted.addAll(admission.preempted());
+            if (admission.isAdmitted()) {
+                return path;
+            }
+            if (excludedLinks == null) {
+                excludedLinks = new BitSet();
+            }
+            excludedLinks.set(admission.blockingLinkSlot());
+            path = pathCache.pathComputer().computePath(g, src, dst, constraints, null, excludedLinks);
+        }
+        return null;
+    }
+
+    /**
+     * Releases the reservation of the owner.
+     *
+     * @param owner LSP holding the reservation
+     * @return released reservation, null if the owner holds none
+     */
+    public Reservation release(Object owner) {
+        Reservation r = byOwner.get(owner);
+        return r != null && release(r) ? r : null;
+    }
+
+    /**
+     * Releases the reservation, at most once.
+     *
+     * @param r reservation
+     * @return true if this call released it
+     */
+    public boolean release(Reservation r) {
+        if (!r.released.compareAndSet(false, true)) {
+            return false;
+        }
+        for (int slot : r.linkSlots) {
+            if (r.bandwidth > 0) {
+                add(slot, 1 + r.holdingPriority, -r.bandwidth);
+                add(slot, 0, -r.bandwidth);
+            }
+            Set<Reservation> set = byLink.get(slot);
+            if (set != null) {
+                set.remove(r);
+            }
+        }
+        if (r.owner != null) {
+            byOwner.remove(r.owner, r);
+        }
+        return true;
+    }
+
+    /**
+     * Releases the reservations of the owners matching the filter.
+     *
+     * @param owners owner filter
+     * @return number of reservations released
+     */
+    public int releaseIf(Predicate<Object> owners) {
+        int count = 0;
+        for (Reservation r : byOwner.values()) {
+            if (owners.test(r.owner) && release(r)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void topologyChanged(TeTopology previous, TeTopology current) {
+        BitSet changed = current.changedLinkSlots(previous);
+        for (int s = changed.nextSetBit(0); s >= 0; s = changed.nextSetBit(s + 1)) {
+            if (current.linkAt(s) == null) {
+                for (Reservation r : reservations(s)) {
+                    release(r);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the reservation held by the owner.
+     *
+     * @param owner LSP
+     * @return reservation, null if none
+     */
+    public Reservation reservation(Object owner) {
+        return byOwner.get(owner);
+    }
+
+    /**
+     * Returns whether the owner holds the bandwidth at the holding priority
+     * on exactly these links.
+     *
+     * @param owner LSP
+     * @param linkSlots link slots of the path
+     * @param bandwidth bandwidth in bytes per second
+     * @param holdingPriority holding priority between 0 and 7
+     * @return true if reserving them again would change nothing
+     */
+    public boolean holds(Object owner, int[] linkSlots, float bandwidth, int holdingPriority) {
+        Reservation r = byOwner.get(owner);
+        return r != null && !r.isReleased() && r.bandwidth == (long) Math.ceil(Math.max(0, bandwidth))
+                && r.holdingPriority == holdingPriority && Arrays.equals(r.linkSlots, linkSlots);
+    }
+
+    /**
+     * Returns the reservations crossing the link.
+     *
+     * @param linkSlot link slot
+     * @return reservations on the link
+     */
+    public List<Reservation> reservations(int linkSlot) {
+        Set<Reservation> set = byLink.get(linkSlot);
+        return set == null ? Collections.<Reservation>emptyList() : new ArrayList<>(set);
+    }
+
+    /**
+     * Returns the bandwidth reserved on the link at all priorities.
+     *
+     * @param linkSlot link slot
+     * @return reserved bandwidth in bytes per second
+     */
+    public long reservedBandwidth(int linkSlot) {
+        AtomicLongArray page = pageIfPresent(linkSlot);
+        return page == null ? 0 : page.get(cell(linkSlot));
+    }
+
+    /**
+     * Returns the bandwidth an LSP of the setup priority can still reserve on
+     * the link, preempting the reservations of lower priority.
+     *
+     * @param link TE link
+     * @param linkSlot slot of the link
+     * @param setupPriority setup priority between 0 and 7
+     * @return unreserved bandwidth in bytes per second, {@link Long#MAX_VALUE} if unconstrained
+     */
+    public long unreservedBandwidth(TeLink link, int linkSlot, int setupPriority) {
+        return free(linkSlot, capacity(link), setupPriority);
+    }
+
+    /**
+     * Returns the number of reservations admitted.
+     *
+     * @return admitted count
+     */
+    public long admittedCount() {
+        return admitted.sum();
+    }
+
+    /**
+     * Returns the number of reservations rejected for lack of bandwidth.
+     *
+     * @return rejected count
+     */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the number of reservations preempted by higher priority LSPs.
+     *
+     * @return preempted count
+     */
+    public long preemptedCount() {
+        return preempted.sum();
+    }
+
+    /**
+     * Returns the number of compare-and-set attempts lost to concurrent updates.
+     *
+     * @return retry count
+     */
+    public long casRetryCount() {
+        return casRetries.sum();
+    }
+
+    /*
+     * Links advertising no reservable bandwidth are not constrained, as in path computation.
+     * An advertised 0 leaves no room.
+     */
+    private static long capacity(TeLink link) {
+        if (link == null) {
+            return 0;
+        }
+        return link.hasMaxReservableBandwidth() ? (long) link.maxReservableBandwidth() : Long.MAX_VALUE;
+    }
+
+    /*
+     * Bandwidth left on the link, counting reservations which an LSP of the setup priority
+     * may preempt as free. A negative setup priority preempts nothing.
+     */
+    private long free(int slot, long capacity, int setupPriority) {
+        if (capacity == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        AtomicLongArray page = pageIfPresent(slot);
+        if (page == null) {
+            return capacity;
+        }
+        int base = cell(slot);
+        long used = page.get(base);
+        for (int h = setupPriority + 1; h < TeLink.PRIORITY_LEVELS; h++) {
+            used -= page.get(base + 1 + h);
+        }
+        return Math.max(0, capacity - used);
+    }
+
+    private boolean tryAdd(int slot, long amount, long capacity) {
+        AtomicLongArray page = page(slot);
+        int i = cell(slot);
+        while (true) {
+            long total = page.get(i);
+            if (capacity != Long.MAX_VALUE && total + amount > capacity) {
+                return false;
+            }
+            if (page.compareAndSet(i, total, total + amount)) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    private void add(int slot, int offset, long delta) {
+        page(slot).addAndGet(cell(slot) + offset, delta);
+    }
+
+    private void rollback(int[] linkSlots, long[] charges, int count) {
+        for (int j = 0; j < count; j++) {
+            if (charges[j] > 0) {
+                add(linkSlots[j], 0, -charges[j]);
+            }
+        }
+    }
+
+    /*
+     * Removes the replaced reservation, claimed by the caller. Links the replacement
+     * also crosses were only charged the increase, and give back the decrease if any.
+     */
+    private void unaccount(Reservation old, Reservation replacement) {
+        for (int slot : old.linkSlots) {
+            if (old.bandwidth > 0) {
+                add(slot, 1 + old.holdingPriority, -old.bandwidth);
+                long total = contains(replacement.linkSlots, slot)
+                        ? Math.max(0, old.bandwidth - replacement.bandwidth) : old.bandwidth;
+                if (total > 0) {
+                    add(slot, 0, -total);
+                }
+            }
+            Set<Reservation> set = byLink.get(slot);
+            if (set != null) {
+                set.remove(old);
+            }
+        }
+        if (old.owner != null) {
+            byOwner.remove(old.owner, old);
+        }
+    }
+
+    private static boolean contains(int[] linkSlots, int slot) {
+        for (int s : linkSlots) {
+            if (s == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Preempts the reservation of the numerically greatest holding priority on the link,
+     * the largest one among equals. The reservation being replaced is not a candidate.
+     */
+    private boolean preemptOne(int slot, int setupPriority, Reservation replaced, List<Reservation> victims) {
+        Set<Reservation> set = byLink.get(slot);
+        if (set == null) {
+            return false;
+        }
+        while (true) {
+            Reservation victim = null;
+            for (Reservation r : set) {
+                if (r.isReleased()) {
+                    set.remove(r);
+                } else if (r != replaced && r.holdingPriority > setupPriority && (victim == null
+                        || r.holdingPriority > victim.holdingPriority
+                        || r.holdingPriority == victim.holdingPriority && r.bandwidth > victim.bandwidth)) {
+                    victim = r;
+                }
+            }
+            if (victim == null) {
+                return false;
+            }
+            if (release(victim)) {
+                preempted.increment();
+                victims.add(victim);
+                return true;
+            }
+        }
+    }
+
+    private static int cell(int slot) {
+        return (slot & (PAGE_SIZE - 1)) * CELLS;
+    }
+
+    private AtomicLongArray pageIfPresent(int slot) {
+        int p = slot >>> PAGE_SHIFT;
+        return p < MAX_PAGES ? pages.get(p) : null;
+    }
+
+    private AtomicLongArray page(int slot) {
+        int p = slot >>> PAGE_SHIFT;
+        checkArgument(p < MAX_PAGES, "Link slot out of range: %s", slot);
+        AtomicLongArray page = pages.get(p);
+        if (page == null) {
+            pages.compareAndSet(p, null, new AtomicLongArray(PAGE_SIZE * CELLS));
+            page = pages.get(p);
+        }
+        return page;
+    }
+
+    /**
+     * Result of a reservation attempt.
+     */
+    public static final class Admission {
+        private final Reservation reservation;
+        private final int blockingLinkSlot;
+        private final List<Reservation> preempted;
+
+        private Admission(Reservation reservation, int blockingLinkSlot, List<Reservation> preempted) {
+            this.reservation = reservation;
+            this.blockingLinkSlot = blockingLinkSlot;
+            this.preempted = preempted;
+        }
+
+        /**
+         * Returns whether the bandwidth is reserved.
+         *
+         * @return true if admitted
+         */
+        public boolean isAdmitted() {
+            return reservation != null;
+        }
+
+        /**
+         * Returns the reservation made.
+         *
+         * @return reservation, null if rejected
+         */
+        public Reservation reservation() {
+            return reservation;
+        }
+
+        /**
+         * Returns the link which did not have the bandwidth.
+         *
+         * @return link slot, -1 if admitted
+         */
+        public int blockingLinkSlot() {
+            return blockingLinkSlot;
+        }
+
+        /**
+         * Returns the reservations preempted to make room, which stay
+         * released even if the reservation was eventually rejected.
+         *
+         * @return preempted reservations
+         */
+        public List<Reservation> preempted() {
+            return preempted;
+        }
+    }
+
+    /**
+     * Bandwidth held by an LSP on the links of its path.
+     */
+    public static final class Reservation {
+        private final Object owner;
+        private final int[] linkSlots;
+        private final long bandwidth;
+        private final int setupPriority;
+        private final int holdingPriority;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(Object owner, int[] linkSlots, long bandwidth, int setupPriority,
+                int holdingPriority) {
+            this.owner = owner;
+            this.linkSlots = linkSlots;
+            this.bandwidth = bandwidth;
+            this.setupPriority = setupPriority;
+            this.holdingPriority = holdingPriority;
+        }
+
+        /**
+         * Returns the LSP holding the reservation.
+         *
+         * @return owner
+         */
+        public Object owner() {
+            return owner;
+        }
+
+        /**
+         * Returns the link slots of the reservation.
+         *
+         * @return link slots
+         */
+        public int[] linkSlots() {
+            return linkSlots.clone();
+        }
+
+        /**
+         * Returns the reserved bandwidth.
+         *
+         * @return bandwidth in bytes per second
+         */
+        public long bandwidth() {
+            return bandwidth;
+        }
+
+        /**
+         * Returns the setup priority of the LSP.
+         *
+         * @return setup priority
+         */
+        public int setupPriority() {
+            return setupPriority;
+        }
+
+        /**
+         * Returns the holding priority of the LSP.
+         *
+         * @return holding priority
+         */
+        public int holdingPriority() {
+            return holdingPriority;
+        }
+
+        /**
+         * Returns whether the reservation was released or preempted.
+         *
+         * @return true if released
+         */
+        public boolean isReleased() {
+            return released.get();
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("owner", owner)
+                    .add("links", linkSlots.length)
+                    .add("bandwidth", bandwidth)
+                    .add("setupPriority", setupPriority)
+                    .add("holdingPriority", holdingPriority)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Constraints of a TE path computation.
+ */
+public final class TeConstraints {
+
+    /**
+     * Metric minimized by the path computation.
+     */
+    public enum MetricType {
+        /**
+         * TE default metric, IGP metric on links without one.
+         */
+        TE,
+
+        /**
+         * IGP metric, TE metric on links without one.
+         */
+        IGP
+    }
+
+    /**
+     * Constraints of a shortest TE metric path without bandwidth.
+     */
+    public static final TeConstraints NONE = builder().build();
+
+    private final float bandwidth;
+    private final int setupPriority;
+    private final MetricType metricType;
+    private final int includeAny;
+    private final int excludeAny;
+
+    private TeConstraints(Builder b) {
+        this.bandwidth = b.bandwidth;
+        this.setupPriority = b.setupPriority;
+        this.metricType = b.metricType;
+        this.includeAny = b.includeAny;
+        this.excludeAny = b.excludeAny;
+    }
+
+    /**
+     * Returns new builder.
+     *
+     * @return constraints builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the bandwidth every link of the path must have available.
+     *
+     * @return bandwidth in bytes per second, 0 for none
+     */
+    public float bandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * Returns the setup priority the bandwidth is checked at.
+     *
+     * @return setup priority between 0 and 7
+     */
+    public int setupPriority() {
+        return setupPriority;
+    }
+
+    /**
+     * Returns the metric to minimize.
+     *
+     * @return metric type
+     */
+    public MetricType metricType() {
+        return metricType;
+    }
+
+    /**
+     * Returns the administrative groups of which links must have at least one.
+     *
+     * @return administrative group bits, 0 for any link
+     */
+    public int includeAny() {
+        return includeAny;
+    }
+
+    /**
+     * Returns the administrative groups links must not have.
+     *
+     * @return administrative group bits
+     */
+    public int excludeAny() {
+        return excludeAny;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("bandwidth", bandwidth)
+                .add("setupPriority", setupPriority)
+                .add("metricType", metricType)
+                .add("includeAny", includeAny)
+                .add("excludeAny", excludeAny)
+                .toString();
+    }
+
+    /**
+     * Builder of TE constraints.
+     */
+    public static final class Builder {
+        private float bandwidth;
+        private int setupPriority = PcepOutboundPacer.DEFAULT_SETUP_PRIORITY;
+        private MetricType metricType = MetricType.TE;
+        private int includeAny;
+        private int excludeAny;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the bandwidth.
+         *
+         * @param bandwidth bandwidth in bytes per second
+         * @return this builder
+         */
+        public Builder bandwidth(float bandwidth) {
+            checkArgument(bandwidth >= 0, "Bandwidth must not be negative");
+            this.bandwidth = bandwidth;
+            return this;
+        }
+
+        /**
+         * Sets the setup priority.
+         *
+         * @param setupPriority setup priority between 0 and 7
+         * @return this builder
+         */
+        public Builder setupPriority(int setupPriority) {
+            checkArgument(setupPriority >= 0 && setupPriority < TeLink.PRIORITY_LEVELS,
+                    "Setup priority must be between 0 and 7");
+            this.setupPriority = setupPriority;
+            return this;
+        }
+
+        /**
+         * Sets the metric to minimize.
+         *
+         * @param metricType metric type
+         * @return this builder
+         */
+        public Builder metricType(MetricType metricType) {
+            this.metricType = metricType;
+            return this;
+        }
+
+        /**
+         * Sets the include-any administrative groups.
+         *
+         * @param includeAny administrative group bits
+         * @return this builder
+         */
+        public Builder includeAny(int includeAny) {
+            this.includeAny = includeAny;
+            return this;
+        }
+
+        /**
+         * Sets the exclude-any administrative groups.
+         *
+         * @param excludeAny administrative group bits
+         * @return this builder
+         */
+        public Builder excludeAny(int excludeAny) {
+            this.excludeAny = excludeAny;
+            return this;
+        }
+
+        /**
+         * Builds the constraints.
+         *
+         * @return TE constraints
+         */
+        public TeConstraints build() {
+            return new TeConstraints(this);
+        }
+    }
+}
@@ -0,0 +1,774 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.PccId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Abstract view of the TE topology with one domain per reporting pcc, used to
+ * compute paths crossing domains without searching the union of their graphs.
+ * <p>
+ * Each domain is condensed into its border nodes, the nodes with a link to or
+ * from another domain, and a full mesh of virtual links between them costing
+ * the shortest path inside the domain for each metric type. Virtual links are
+ * computed on a background fork join pool, and after a topology change only
+ * the domains whose nodes or link routes changed are recomputed. Bandwidth
+ * changes never trigger a recomputation.
+ * <p>
+ * An inter-domain request is first solved on the abstract graph of border
+ * nodes, virtual links and inter-domain links, then the virtual links chosen
+ * are expanded into constrained paths inside their domains in parallel. A
+ * virtual link which cannot be expanded under the constraints is excluded and
+ * the abstract search is run again, a few times at most. The result is the
+ * shortest path through the chosen domains, not necessarily the shortest
+ * path of the whole topology.
+ */
+public class TeDomainAbstraction implements TeTopologyListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TeDomainAbstraction.class);
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long NO_PATH = Long.MAX_VALUE;
+    private static final int METRIC_TYPES = TeConstraints.MetricType.values().length;
+
+    private final TePathComputer pathComputer;
+    private final int parallelism;
+    private volatile ForkJoinPool pool;
+    private volatile View view = View.EMPTY;
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Object refreshLock = new Object();
+    // Topology the view was last brought up to date with and domain membership, guarded by refreshLock.
+    private TeTopology computedOn = TeTopology.EMPTY;
+    private final Map<Integer, PccId> domainOfSlot = new HashMap<>();
+    private final Map<PccId, BitSet> members = new HashMap<>();
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder virtualLinkComputations = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder abstractPaths = new LongAdder();
+    private final LongAdder expansionRetries = new LongAdder();
+
+    private final Runnable refreshTask = new Runnable() {
+        @Override
+        public void run() {
+            refreshPending.set(false);
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.error("Failed to refresh the domain abstraction", e);
+            }
+        }
+    };
+
+    /**
+     * Creates domain abstraction.
+     *
+     * @param pathComputer path computer running the searches
+     * @param parallelism number of threads computing virtual links and expansions
+     */
+    public TeDomainAbstraction(TePathComputer pathComputer, int parallelism) {
+        this.pathComputer = pathComputer;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Starts the background pool.
+     */
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+        scheduleRefresh();
+    }
+
+    /**
+     * Stops the background pool.
+     */
+    public void stop() {
+        ForkJoinPool p = pool;
+        pool = null;
+        if (p != null) {
+            p.shutdownNow();
+            try {
+                p.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of domains of the abstract view.
+     *
+     * @return domain count
+     */
+    public int domainCount() {
+        return view.domains.length;
+    }
+
+    /**
+     * Returns the number of border nodes of the abstract view.
+     *
+     * @return border node count
+     */
+    public int borderCount() {
+        return view.borderSlots.length;
+    }
+
+    /**
+     * Returns the domain of a node in the abstract view.
+     *
+     * @param nodeSlot node slot
+     * @return pcc which reported the node, null if not part of the view
+     */
+    public PccId domain(int nodeSlot) {
+        View v = view;
+        int d = v.domainOf(nodeSlot);
+        return d < 0 ? null : v.domains[d].id;
+    }
+
+    /**
+     * Returns the border nodes of a domain in the abstract view.
+     *
+     * @param domain pcc which reported the domain
+     * @return border node slots, empty if the domain is unknown
+     */
+    public int[] borders(PccId domain) {
+        for (Domain d : view.domains) {
+            if (d.id.equals(domain)) {
+                return d.borders.clone();
+            }
+        }
+        return new int[0];
+    }
+
+    /**
+     * Returns the number of background refreshes which recomputed a domain.
+     *
+     * @return refresh count
+     */
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Returns the number of virtual links computed.
+     *
+     * @return virtual link computation count
+     */
+    public long virtualLinkComputationCount() {
+        return virtualLinkComputations.sum();
+    }
+
+    /**
+     * Returns the number of path requests between two domains.
+     *
+     * @return inter-domain request count
+     */
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of inter-domain requests answered through the abstract view.
+     *
+     * @return abstract path count
+     */
+    public long abstractPathCount() {
+        return abstractPaths.sum();
+    }
+
+    /**
+     * Returns the number of abstract searches run again after a failed expansion.
+     *
+     * @return expansion retry count
+     */
+    public long expansionRetryCount() {
+        return expansionRetries.sum();
+    }
+
+    /**
+     * Computes a path between nodes of two different domains of the current topology.
+     *
+     * @param srcPccId pcc which reported the source node
+     * @param srcLsId LS-ID of the source node
+     * @param dstPccId pcc which reported the destination node
+     * @param dstLsId LS-ID of the destination node
+     * @param constraints path constraints
+     * @return path, null if the nodes are unknown, in the same domain or no
+     *         path through the abstract view satisfies the constraints
+     */
+    public TePath computePath(PccId srcPccId, long srcLsId, PccId dstPccId, long dstLsId,
+            TeConstraints constraints) {
+        TeGraph g = pathComputer.graph();
+        TeTopology topology = g.topology();
+        return computePath(g, topology.nodeSlot(srcPccId, srcLsId), topology.nodeSlot(dstPccId, dstLsId),
+                constraints);
+    }
+
+    /**
+     * Computes a path between node slots of two different domains. Callers fall
+     * back to a search of the whole graph when no path is returned.
+     *
+     * @param g TE graph of the current topology
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints
+     * @return path on the topology of the graph, null if the nodes are unknown,
+     *         in the same domain or no path through the abstract view
+     *         satisfies the constraints
+     */
+    public TePath computePath(final TeGraph g, final int src, int dst, final TeConstraints constraints) {
+        View v = view;
+        int srcDomain = v.domainOf(src);
+        int dstDomain = v.domainOf(dst);
+        if (srcDomain < 0 || dstDomain < 0 || srcDomain == dstDomain
+                || src >= g.nodeCount() || dst >= g.nodeCount()) {
+            return null;
+        }
+        requests.increment();
+
+        final Domain from = v.domains[srcDomain];
+        Domain to = v.domains[dstDomain];
+        // One search reaches every border of the source domain, the destination needs one per border.
+        final TePath[][] heads = new TePath[1][];
+        TePath[] tails = new TePath[to.borders.length];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(1 + tails.length);
+        tasks.add(ForkJoinTask.adapt(new Runnable() {
+            @Override
+            public void run() {
+                heads[0] = pathComputer.computePaths(g, src, from.borders, constraints, from.outside, null);
+            }
+        }));
+        for (int i = 0; i < tails.length; i++) {
+            tasks.add(segmentTask(g, to.borders[i], dst, to, constraints, tails, i));
+        }
+        invokeAll(tasks);
+
+        Set<Long> excluded = new HashSet<>();
+        Map<Long, TePath> expanded = new HashMap<>();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int[] hops = v.search(g, srcDomain, dstDomain, heads[0], tails, constraints, excluded);
+            if (hops == null) {
+                return null;
+            }
+            if (expand(g, v, hops, constraints, excluded, expanded)) {
+                TePath path = stitch(g, v, hops, heads[0], tails, expanded, constraints);
+                if (path != null) {
+                    abstractPaths.increment();
+                }
+                return path;
+            }
+            expansionRetries.increment();
+        }
+        return null;
+    }
+
+    private ForkJoinTask<?> segmentTask(final TeGraph g, final int src, final int dst, final Domain domain,
+            final TeConstraints constraints, final TePath[] result, final int index) {
+        return ForkJoinTask.adapt(new Runnable() {
+            @Override
+            public void run() {
+                result[index] = pathComputer.computePath(g, src, dst, constraints, domain.outside, null);
+            }
+        });
+    }
+
+    /*
+     * Expands the virtual links of the abstract path not expanded yet. Virtual
+     * links without a path under the constraints are excluded from later searches.
+     */
+    private boolean expand(TeGraph g, View v, int[] hops, TeConstraints constraints,
+            Set<Long> excluded, Map<Long, TePath> expanded) {
+        List<Long> keys = new ArrayList<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        final TePath[] paths = new TePath[hops.length];
+        for (int i = 2; i + 3 < hops.length; i += 2) {
+            if (hops[i + 1] >= 0) {
+                continue;
+            }
+            int a = v.borderSlots[hops[i]];
+            int b = v.borderSlots[hops[i + 2]];
+            long key = key(a, b);
+            if (expanded.containsKey(key)) {
+                continue;
+            }
+            keys.add(key);
+            tasks.add(segmentTask(g, a, b, v.domains[v.domainOf(a)], constraints, paths, keys.size() - 1));
+        }
+        invokeAll(tasks);
+        boolean complete = true;
+        for (int i = 0; i < keys.size(); i++) {
+            if (paths[i] == null) {
+                excluded.add(keys.get(i));
+                complete = false;
+            } else {
+                expanded.put(keys.get(i), paths[i]);
+            }
+        }
+        return complete;
+    }
+
+    /*
+     * Joins the segments of the abstract path into one path. Gives up when the
+     * segments meet, which happens when the path enters a domain twice.
+     */
+    private TePath stitch(TeGraph g, View v, int[] hops, TePath[] heads, TePath[] tails,
+            Map<Long, TePath> expanded, TeConstraints constraints) {
+        boolean teMetric = constraints.metricType() == TeConstraints.MetricType.TE;
+        List<TePath> segments = new ArrayList<>();
+        int first = v.borderSlots[hops[2]];
+        int last = v.borderSlots[hops[hops.length - 3]];
+        segments.add(heads[indexOf(v.domains[v.domainOf(first)].borders, first)]);
+        for (int i = 2; i + 3 < hops.length; i += 2) {
+            int a = v.borderSlots[hops[i]];
+            int b = v.borderSlots[hops[i + 2]];
+            int edge = hops[i + 1];
+            if (edge >= 0) {
+                segments.add(new TePath(g.version(), new int[] {a, b}, new int[] {g.linkSlot(edge)},
+                        TePathComputer.weight(g, edge, teMetric)));
+            } else {
+                segments.add(expanded.get(key(a, b)));
+            }
+        }
+        segments.add(tails[indexOf(v.domains[v.domainOf(last)].borders, last)]);
+
+        int hopCount = 0;
+        for (TePath s : segments) {
+            hopCount += s.hopCount();
+        }
+        int[] nodes = new int[hopCount + 1];
+        int[] links = new int[hopCount];
+        BitSet seen = new BitSet(g.nodeCount());
+        long cost = 0;
+        int n = 0;
+        int l = 0;
+        for (TePath s : segments) {
+            int[] segmentNodes = s.nodeSlots();
+            // Segments share their end nodes.
+            for (int i = n == 0 ? 0 : 1; i < segmentNodes.length; i++) {
+                if (seen.get(segmentNodes[i])) {
+                    return null;
+                }
+                seen.set(segmentNodes[i]);
+                nodes[n++] = segmentNodes[i];
+            }
+            int[] segmentLinks = s.linkSlots();
+            System.arraycopy(segmentLinks, 0, links, l, segmentLinks.length);
+            l += segmentLinks.length;
+            cost += s.cost();
+        }
+        return new TePath(g.version(), nodes, links, cost);
+    }
+
+    private void invokeAll(List<ForkJoinTask<?>> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        ForkJoinPool p = pool;
+        if (tasks.size() == 1 || ForkJoinTask.inForkJoinPool()) {
+            // Already on a pool, the tasks are forked to it.
+            ForkJoinTask.invokeAll(tasks);
+            return;
+        }
+        if (p == null) {
+            for (ForkJoinTask<?> task : tasks) {
+                task.invoke();
+            }
+            return;
+        }
+        try {
+            p.invoke(ForkJoinTask.adapt(new Runnable() {
+                @Override
+                public void run() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            for (ForkJoinTask<?> task : tasks) {
+                task.invoke();
+            }
+        }
+    }
+
+    @Override
+    public void topologyChanged(TeTopology previous, TeTopology current) {
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        ForkJoinPool p = pool;
+        if (p == null || !refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            p.execute(refreshTask);
+        } catch (RejectedExecutionException e) {
+            refreshPending.set(false);
+            log.debug("Domain abstraction pool is shut down");
+        }
+    }
+
+    /*
+     * Runs on the pool, several topology changes may be handled at once.
+     */
+    private void refresh() {
+        synchronized (refreshLock) {
+            final TeGraph g = pathComputer.graph();
+            TeTopology now = g.topology();
+            if (now.version() == computedOn.version()) {
+                return;
+            }
+            Set<PccId> dirty = new HashSet<>();
+            updateMembers(computedOn, now, dirty);
+            computedOn = now;
+
+            View old = view;
+            BitSet borderNodes = borderNodes(g);
+            List<Domain> domains = new ArrayList<>(members.size());
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (Map.Entry<PccId, BitSet> e : members.entrySet()) {
+                BitSet domainBorders = (BitSet) borderNodes.clone();
+                domainBorders.and(e.getValue());
+                int[] borders = domainBorders.stream().toArray();
+                Domain previous = old.domain(e.getKey());
+                final Domain domain;
+                if (!dirty.contains(e.getKey()) && previous != null && Arrays.equals(previous.borders, borders)) {
+                    domain = previous;
+                } else {
+                    domain = new Domain(e.getKey(), outside(e.getValue(), g.nodeCount()), borders);
+                    tasks.add(ForkJoinTask.adapt(new Runnable() {
+                        @Override
+                        public void run() {
+                            computeVirtualLinks(g, domain);
+                        }
+                    }));
+                }
+                domains.add(domain);
+            }
+            if (!tasks.isEmpty()) {
+                refreshes.increment();
+                ForkJoinTask.invokeAll(tasks);
+                log.debug("Recomputed virtual links of {} domains on topology version {}",
+                        tasks.size(), now.version());
+            }
+            view = new View(domains, domainOfSlot, borderNodes, now.nodeSlotCount());
+        }
+    }
+
+    /*
+     * Brings the domain of each node up to date and collects the domains whose
+     * nodes, or the route of links attached to their nodes, changed.
+     */
+    private void updateMembers(TeTopology prev, TeTopology now, Set<PccId> dirty) {
+        BitSet nodes = now.changedNodeSlots(prev);
+        for (int s = nodes.nextSetBit(0); s >= 0; s = nodes.nextSetBit(s + 1)) {
+            TeNode node = now.nodeAt(s);
+            PccId domain = node == null ? null : node.origin();
+            PccId old = domain == null ? domainOfSlot.remove(s) : domainOfSlot.put(s, domain);
+            if (old != null && old.equals(domain)) {
+                continue;
+            }
+            if (old != null) {
+                BitSet m = members.get(old);
+                m.clear(s);
+                if (m.isEmpty()) {
+                    members.remove(old);
+                }
+                dirty.add(old);
+            }
+            if (domain != null) {
+                BitSet m = members.get(domain);
+                if (m == null) {
+                    m = new BitSet();
+                    members.put(domain, m);
+                }
+                m.set(s);
+                dirty.add(domain);
+            }
+        }
+
+        BitSet links = now.changedLinkSlots(prev);
+        for (int s = links.nextSetBit(0); s >= 0; s = links.nextSetBit(s + 1)) {
+            TeLink old = prev.linkAt(s);
+            TeLink cur = now.linkAt(s);
+            if (old != null && cur != null && old.sameRoute(cur)) {
+                continue;
+            }
+            for (TeLink link : new TeLink[] {old, cur}) {
+                if (link != null) {
+                    markDirty(link.srcNode(), dirty);
+                    markDirty(link.dstNode(), dirty);
+                }
+            }
+        }
+    }
+
+    private void markDirty(int nodeSlot, Set<PccId> dirty) {
+        PccId domain = nodeSlot < 0 ? null : domainOfSlot.get(nodeSlot);
+        if (domain != null) {
+            dirty.add(domain);
+        }
+    }
+
+    /*
+     * Nodes with a link to or from a node of another domain.
+     */
+    private BitSet borderNodes(TeGraph g) {
+        BitSet borders = new BitSet(g.nodeCount());
+        for (int u = 0; u < g.nodeCount(); u++) {
+            PccId du = domainOfSlot.get(u);
+            if (du == null) {
+                continue;
+            }
+            for (int e = g.offset(u), end = g.offset(u + 1); e < end; e++) {
+                int v = g.target(e);
+                PccId dv = domainOfSlot.get(v);
+                if (dv != null && !dv.equals(du)) {
+                    borders.set(u);
+                    borders.set(v);
+                }
+            }
+        }
+        return borders;
+    }
+
+    private static BitSet outside(BitSet members, int nodeCount) {
+        BitSet outside = new BitSet(nodeCount);
+        outside.set(0, nodeCount);
+        outside.andNot(members);
+        return outside;
+    }
+
+    private void computeVirtualLinks(TeGraph g, Domain domain) {
+        int b = domain.borders.length;
+        for (TeConstraints.MetricType type : TeConstraints.MetricType.values()) {
+            TeConstraints c = TeConstraints.builder().metricType(type).build();
+            long[] costs = domain.costs[type.ordinal()];
+            for (int i = 0; i < b; i++) {
+                TePath[] paths = pathComputer.computePaths(g, domain.borders[i], domain.borders, c,
+                        domain.outside, null);
+                for (int j = 0; j < b; j++) {
+                    costs[i * b + j] = paths[j] == null ? NO_PATH : paths[j].cost();
+                }
+            }
+        }
+        virtualLinkComputations.add((long) b * (b - 1) * METRIC_TYPES);
+    }
+
+    private static long key(int from, int to) {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Domain condensed into its border nodes and the virtual links between them.
+     */
+    private static final class Domain {
+        private final PccId id;
+        // Node slots of the other domains, excluded from searches inside the domain.
+        private final BitSet outside;
+        private final int[] borders;
+        // Per metric type, cost between border i and border j at i * borders + j.
+        private final long[][] costs;
+
+        private Domain(PccId id, BitSet outside, int[] borders) {
+            this.id = id;
+            this.outside = outside;
+            this.borders = borders;
+            this.costs = new long[METRIC_TYPES][borders.length * borders.length];
+        }
+    }
+
+    /**
+     * Immutable abstract graph: the domains, the domain of each node slot and
+     * an identifier for each border node.
+     */
+    private static final class View {
+        private static final View EMPTY = new View(Collections.<Domain>emptyList(),
+                Collections.<Integer, PccId>emptyMap(), new BitSet(), 0);
+
+        private final Domain[] domains;
+        private final int[] domainBySlot;
+        private final int[] localBySlot;
+        private final int[] borderBySlot;
+        private final int[] borderSlots;
+
+        private View(List<Domain> domains, Map<Integer, PccId> domainOfSlot, BitSet borderNodes, int slots) {
+            this.domains = domains.toArray(new Domain[domains.size()]);
+            Map<PccId, Integer> index = new HashMap<>();
+            for (int d = 0; d < this.domains.length; d++) {
+                index.put(this.domains[d].id, d);
+            }
+            domainBySlot = new int[slots];
+            Arrays.fill(domainBySlot, -1);
+            for (Map.Entry<Integer, PccId> e : domainOfSlot.entrySet()) {
+                Integer d = index.get(e.getValue());
+                if (e.getKey() < slots && d != null) {
+                    domainBySlot[e.getKey()] = d;
+                }
+            }
+            localBySlot = new int[slots];
+            borderBySlot = new int[slots];
+            Arrays.fill(borderBySlot, -1);
+            borderSlots = borderNodes.stream().filter(s -> s < slots && domainBySlot[s] >= 0).toArray();
+            for (int i = 0; i < borderSlots.length; i++) {
+                borderBySlot[borderSlots[i]] = i;
+            }
+            for (Domain d : this.domains) {
+                for (int i = 0; i < d.borders.length; i++) {
+                    localBySlot[d.borders[i]] = i;
+                }
+            }
+        }
+
+        private int domainOf(int nodeSlot) {
+            return nodeSlot >= 0 && nodeSlot < domainBySlot.length ? domainBySlot[nodeSlot] : -1;
+        }
+
+        private Domain domain(PccId id) {
+            for (Domain d : domains) {
+                if (d.id.equals(id)) {
+                    return d;
+                }
+            }
+            return null;
+        }
+
+        /*
+         * Dijkstra over the abstract graph. Abstract nodes are the border
+         * nodes, plus the source and the destination after them. Returns the
+         * abstract path as source, -1, border, edge, border, ..., border, -1,
+         * destination, where edge is the graph edge of an inter-domain link
+         * or -1 for a virtual link.
+         */
+        private int[] search(TeGraph g, int srcDomain, int dstDomain, TePath[] heads, TePath[] tails,
+                TeConstraints c, Set<Long> excluded) {
+            int count = borderSlots.length;
+            final int src = count;
+            final int dst = count + 1;
+            final long[] dist = new long[count + 2];
+            int[] prev = new int[count + 2];
+            int[] prevEdge = new int[count + 2];
+            Arrays.fill(dist, NO_PATH);
+            dist[src] = 0;
+            PriorityQueue<long[]> queue = new PriorityQueue<>(16, (a, b) -> Long.compare(a[0], b[0]));
+
+            Domain from = domains[srcDomain];
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null) {
+                    relax(queue, dist, prev, prevEdge, src, borderBySlot[from.borders[i]], heads[i].cost(), -1);
+                }
+            }
+            boolean teMetric = c.metricType() == TeConstraints.MetricType.TE;
+            int metric = c.metricType().ordinal();
+            while (!queue.isEmpty()) {
+                long[] top = queue.poll();
+                int u = (int) top[1];
+                if (top[0] > dist[u]) {
+                    continue;
+                }
+                if (u == dst) {
+                    return path(prev, prevEdge, src, dst);
+                }
+                int slot = borderSlots[u];
+                int d = domainBySlot[slot];
+                Domain domain = domains[d];
+                int local = localBySlot[slot];
+                int b = domain.borders.length;
+                long[] costs = domain.costs[metric];
+                for (int j = 0; j < b; j++) {
+                    long cost = costs[local * b + j];
+                    if (j != local && cost != NO_PATH && !excluded.contains(key(slot, domain.borders[j]))) {
+                        relax(queue, dist, prev, prevEdge, u, borderBySlot[domain.borders[j]], dist[u] + cost, -1);
+                    }
+                }
+                for (int e = g.offset(slot), end = g.offset(slot + 1); e < end; e++) {
+                    int v = g.target(e);
+                    int dv = domainOf(v);
+                    if (dv < 0 || dv == d || borderBySlot[v] < 0 || !fits(g, e, c)) {
+                        continue;
+                    }
+                    relax(queue, dist, prev, prevEdge, u, borderBySlot[v],
+                            dist[u] + TePathComputer.weight(g, e, teMetric), e);
+                }
+                if (d == dstDomain && tails[local] != null) {
+                    relax(queue, dist, prev, prevEdge, u, dst, dist[u] + tails[local].cost(), -1);
+                }
+            }
+            return null;
+        }
+
+        private static void relax(PriorityQueue<long[]> queue, long[] dist, int[] prev, int[] prevEdge,
+                int u, int v, long d, int edge) {
+            if (d < dist[v]) {
+                dist[v] = d;
+                prev[v] = u;
+                prevEdge[v] = edge;
+                queue.add(new long[] {d, v});
+            }
+        }
+
+        private static int[] path(int[] prev, int[] prevEdge, int src, int dst) {
+            int hops = 0;
+            for (int n = dst; n != src; n = prev[n]) {
+                hops++;
+            }
+            int[] path = new int[2 * hops + 1];
+            int i = path.length - 1;
+            for (int n = dst; n != src; n = prev[n]) {
+                path[i--] = n;
+                path[i--] = prevEdge[n];
+            }
+            path[0] = src;
+            return path;
+        }
+
+        private static boolean fits(TeGraph g, int edge, TeConstraints c) {
+            int group = g.adminGroup(edge);
+            if ((group & c.excludeAny()) != 0 || (c.includeAny() != 0 && (group & c.includeAny()) == 0)) {
+                return false;
+            }
+            return c.bandwidth() <= 0 || g.availableBandwidth(edge, c.setupPriority()) >= c.bandwidth();
+        }
+    }
+}
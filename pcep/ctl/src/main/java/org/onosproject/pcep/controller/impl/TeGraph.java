@@ -0,0 +1,374 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compressed sparse row adjacency of a TE topology snapshot.
+ * <p>
+ * The outgoing edges of node slot n are the edge indexes from
+ * {@code offset(n)} to {@code offset(n + 1) - 1}. Edge attributes used by
+ * path computation are copied into flat arrays indexed by edge, so the search
+ * loop touches no link objects. SRLGs are numbered densely per graph and
+ * indexed both from link slot to SRLG and from SRLG to link slots.
+ */
+public final class TeGraph {
+
+    /**
+     * Available bandwidth of a link which does not advertise any.
+     */
+    public static final float UNLIMITED_BANDWIDTH = Float.MAX_VALUE;
+
+    private final TeTopology topology;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] linkSlots;
+    private final long[] teMetrics;
+    private final long[] igpMetrics;
+    private final int[] adminGroups;
+    // Available bandwidth of each edge, PRIORITY_LEVELS values per edge.
+    private final float[] available;
+    // IPv4 router ids, node prefixes and local interface addresses to node slot.
+    private final Map<Integer, Integer> addresses = new HashMap<>();
+    // SRLGs of each link slot as dense indexes, and link slots of each SRLG, both row compressed.
+    private final int[] srlgOffsets;
+    private final int[] srlgIndexes;
+    private final int[] srlgLinkOffsets;
+    private final int[] srlgLinks;
+
+    private TeGraph(TeTopology topology, int[] offsets, int[] targets, int[] linkSlots) {
+        this.topology = topology;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.linkSlots = linkSlots;
+
+        int edges = targets.length;
+        teMetrics = new long[edges];
+        igpMetrics = new long[edges];
+        adminGroups = new int[edges];
+        available = new float[edges * TeLink.PRIORITY_LEVELS];
+        for (int e = 0; e < edges; e++) {
+            TeLink link = topology.linkAt(linkSlots[e]);
+            teMetrics[e] = link.teMetric();
+            igpMetrics[e] = link.igpMetric();
+            adminGroups[e] = link.adminGroup();
+            for (int p = 0; p < TeLink.PRIORITY_LEVELS; p++) {
+                available[e * TeLink.PRIORITY_LEVELS + p] = availableBandwidth(link, p);
+            }
+            addAddress(link.localIfAddr(), link.srcNode());
+        }
+        boolean[] attached = new boolean[nodeCount()];
+        for (int e = 0; e < edges; e++) {
+            attached[targets[e]] = true;
+        }
+        Set<Integer> attachedRouterIds = new HashSet<>();
+        for (int n = 0; n < nodeCount(); n++) {
+            TeNode node = topology.nodeAt(n);
+            if (node == null) {
+                continue;
+            }
+            for (int address : node.localAddresses()) {
+                addAddress(address, n);
+            }
+            // Router id wins over interface addresses learnt from other nodes. Of the
+            // nodes several pccs report for one router, the one links attach to wins.
+            int routerId = node.ipv4RouterId();
+            if (routerId != 0) {
+                if (attached[n] || offsets[n + 1] > offsets[n]) {
+                    attachedRouterIds.add(routerId);
+                    addresses.put(routerId, n);
+                } else if (!attachedRouterIds.contains(routerId)) {
+                    addresses.put(routerId, n);
+                }
+            }
+        }
+
+        int links = topology.linkSlotCount();
+        Map<Integer, Integer> dense = new HashMap<>();
+        srlgOffsets = new int[links + 1];
+        for (int l = 0; l < links; l++) {
+            TeLink link = topology.linkAt(l);
+            srlgOffsets[l + 1] = srlgOffsets[l] + (link == null ? 0 : link.srlgs().length);
+        }
+        srlgIndexes = new int[srlgOffsets[links]];
+        for (int l = 0; l < links; l++) {
+            TeLink link = topology.linkAt(l);
+            int i = srlgOffsets[l];
+            for (int j = 0; link != null && j < link.srlgs().length; j++) {
+                Integer index = dense.get(link.srlgs()[j]);
+                if (index == null) {
+                    index = dense.size();
+                    dense.put(link.srlgs()[j], index);
+                }
+                srlgIndexes[i++] = index;
+            }
+        }
+        srlgLinkOffsets = new int[dense.size() + 1];
+        for (int index : srlgIndexes) {
+            srlgLinkOffsets[index + 1]++;
+        }
+        for (int r = 0; r < dense.size(); r++) {
+            srlgLinkOffsets[r + 1] += srlgLinkOffsets[r];
+        }
+        srlgLinks = new int[srlgIndexes.length];
+        int[] next = Arrays.copyOf(srlgLinkOffsets, dense.size());
+        for (int l = 0; l < links; l++) {
+            for (int i = srlgOffsets[l]; i < srlgOffsets[l + 1]; i++) {
+                srlgLinks[next[srlgIndexes[i]]++] = l;
+            }
+        }
+    }
+
+    private void addAddress(int address, int node) {
+        if (address != 0) {
+            addresses.putIfAbsent(address, node);
+        }
+    }
+
+    /**
+     * Builds the adjacency of the snapshot. Links whose nodes are not both
+     * known are left out.
+     *
+     * @param topology topology snapshot
+     * @return TE graph
+     */
+    public static TeGraph of(TeTopology topology) {
+        int nodes = topology.nodeSlotCount();
+        int[] offsets = new int[nodes + 1];
+        int links = topology.linkSlotCount();
+        for (int l = 0; l < links; l++) {
+            TeLink link = topology.linkAt(l);
+            if (isUsable(topology, link)) {
+                offsets[link.srcNode() + 1]++;
+            }
+        }
+        for (int n = 0; n < nodes; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+
+        int[] targets = new int[offsets[nodes]];
+        int[] linkSlots = new int[offsets[nodes]];
+        int[] next = new int[nodes];
+        System.arraycopy(offsets, 0, next, 0, nodes);
+        for (int l = 0; l < links; l++) {
+            TeLink link = topology.linkAt(l);
+            if (isUsable(topology, link)) {
+                int e = next[link.srcNode()]++;
+                targets[e] = link.dstNode();
+                linkSlots[e] = l;
+            }
+        }
+        return new TeGraph(topology, offsets, targets, linkSlots);
+    }
+
+    private static boolean isUsable(TeTopology topology, TeLink link) {
+        return link != null && link.srcNode() >= 0 && link.dstNode() >= 0
+                && topology.nodeAt(link.srcNode()) != null && topology.nodeAt(link.dstNode()) != null;
+    }
+
+    /**
+     * Returns the bandwidth which can still be reserved on the link: unreserved
+     * bandwidth when advertised, else maximum reservable bandwidth. An advertised
+     * 0 leaves no room. Links advertising neither, as in topologies without TE
+     * extensions, are not constrained.
+     *
+     * @param link TE link
+     * @param priority setup priority between 0 and 7
+     * @return bandwidth in bytes per second, {@link #UNLIMITED_BANDWIDTH} if not advertised
+     */
+    static float availableBandwidth(TeLink link, int priority) {
+        if (link.hasUnreservedBandwidth()) {
+            return link.unreservedBandwidth(priority);
+        }
+        if (link.hasMaxReservableBandwidth()) {
+            return link.maxReservableBandwidth();
+        }
+        return UNLIMITED_BANDWIDTH;
+    }
+
+    /**
+     * Returns the snapshot the graph was built from.
+     *
+     * @return topology snapshot
+     */
+    public TeTopology topology() {
+        return topology;
+    }
+
+    /**
+     * Returns the version of the snapshot the graph was built from.
+     *
+     * @return topology version
+     */
+    public long version() {
+        return topology.version();
+    }
+
+    /**
+     * Returns the number of node slots.
+     *
+     * @return node slot count
+     */
+    public int nodeCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the first outgoing edge of the node.
+     *
+     * @param node node slot, or node slot + 1 for the end of the previous node
+     * @return edge index
+     */
+    public int offset(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * Returns the node slot the edge leads to.
+     *
+     * @param edge edge index
+     * @return node slot
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the link slot of the edge in the snapshot.
+     *
+     * @param edge edge index
+     * @return link slot
+     */
+    public int linkSlot(int edge) {
+        return linkSlots[edge];
+    }
+
+    /**
+     * Returns the TE metric of the edge.
+     *
+     * @param edge edge index
+     * @return TE metric, {@link TeLink#NO_METRIC} if not advertised
+     */
+    public long teMetric(int edge) {
+        return teMetrics[edge];
+    }
+
+    /**
+     * Returns the IGP metric of the edge.
+     *
+     * @param edge edge index
+     * @return IGP metric, {@link TeLink#NO_METRIC} if not advertised
+     */
+    public long igpMetric(int edge) {
+        return igpMetrics[edge];
+    }
+
+    /**
+     * Returns the administrative group of the edge.
+     *
+     * @param edge edge index
+     * @return administrative group bits
+     */
+    public int adminGroup(int edge) {
+        return adminGroups[edge];
+    }
+
+    /**
+     * Returns the bandwidth which can still be reserved on the edge.
+     *
+     * @param edge edge index
+     * @param priority setup priority between 0 and 7
+     * @return bandwidth in bytes per second, {@link #UNLIMITED_BANDWIDTH} if not advertised
+     */
+    public float availableBandwidth(int edge, int priority) {
+        return available[edge * TeLink.PRIORITY_LEVELS + priority];
+    }
+
+    /**
+     * Returns the node owning the IPv4 address, as router id, prefix or
+     * local interface address.
+     *
+     * @param address IPv4 address
+     * @return node slot, -1 if no node owns the address
+     */
+    public int nodeByAddress(int address) {
+        Integer node = addresses.get(address);
+        return node == null ? -1 : node;
+    }
+
+    /**
+     * Returns the number of distinct SRLGs of the links.
+     *
+     * @return SRLG count
+     */
+    public int srlgCount() {
+        return srlgLinkOffsets.length - 1;
+    }
+
+    /**
+     * Returns the position of the first SRLG of the link in the SRLG list.
+     *
+     * @param linkSlot link slot, or link slot + 1 for the end of the previous link
+     * @return position for {@link #srlg(int)}
+     */
+    public int srlgOffset(int linkSlot) {
+        return srlgOffsets[linkSlot];
+    }
+
+    /**
+     * Returns the SRLG at the given position of the SRLG list.
+     *
+     * @param i position
+     * @return dense SRLG index
+     */
+    public int srlg(int i) {
+        return srlgIndexes[i];
+    }
+
+    /**
+     * Returns the position of the first link of the SRLG in the SRLG link list.
+     *
+     * @param srlg dense SRLG index, or index + 1 for the end of the previous SRLG
+     * @return position for {@link #srlgLink(int)}
+     */
+    public int srlgLinkOffset(int srlg) {
+        return srlgLinkOffsets[srlg];
+    }
+
+    /**
+     * Returns the link slot at the given position of the SRLG link list.
+     *
+     * @param i position
+     * @return link slot
+     */
+    public int srlgLink(int i) {
+        return srlgLinks[i];
+    }
+}
@@ -0,0 +1,684 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.Arrays;
+
+import org.onosproject.pcep.controller.LsId;
+import org.onosproject.pcep.controller.PccId;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable TE link of the topology learnt from LSRpt messages.
+ * <p>
+ * Attributes are kept in primitive form; absent metrics are reported as
+ * {@link #NO_METRIC} and absent bandwidths as 0. Whether the reservable
+ * bandwidths were advertised is kept apart, since an advertised 0 means the
+ * link is fully booked.
+ */
+public final class TeLink {
+
+    /**
+     * Value of a metric which is not advertised.
+     */
+    public static final long NO_METRIC = -1;
+
+    /**
+     * Number of priorities of the unreserved bandwidth.
+     */
+    public static final int PRIORITY_LEVELS = 8;
+
+    /**
+     * Value of the Adjacency-SID when none is advertised.
+     */
+    public static final int NO_SID = -1;
+
+    private static final int[] NO_SRLGS = new int[0];
+    private static final long[] NO_LABELS = new long[0];
+    private static final float[] NO_UNRESERVED = new float[PRIORITY_LEVELS];
+
+    private final PccId origin;
+    private final long lsId;
+    private final byte protocolId;
+    private final long srcRouterKey;
+    private final long dstRouterKey;
+    private final int srcNode;
+    private final int dstNode;
+    private final int localId;
+    private final int remoteId;
+    private final int localIfAddr;
+    private final int remoteIfAddr;
+    private final int adminGroup;
+    private final float maxBandwidth;
+    private final float maxReservableBandwidth;
+    private final float[] unreservedBandwidth;
+    private final boolean hasMaxReservableBandwidth;
+    private final boolean hasUnreservedBandwidth;
+    private final long teMetric;
+    private final long igpMetric;
+    private final int[] srlgs;
+    private final byte linkType;
+    private final int actnLinkId;
+    private final long[] availableLabels;
+    private final int labelCount;
+    private final byte labelPriority;
+    private final int adjacencySid;
+
+    private TeLink(Builder b) {
+        this.origin = b.origin;
+        this.lsId = b.lsId;
+        this.protocolId = b.protocolId;
+        this.srcRouterKey = b.srcRouterKey;
+        this.dstRouterKey = b.dstRouterKey;
+        this.srcNode = b.srcNode;
+        this.dstNode = b.dstNode;
+        this.localId = b.localId;
+        this.remoteId = b.remoteId;
+        this.localIfAddr = b.localIfAddr;
+        this.remoteIfAddr = b.remoteIfAddr;
+        this.adminGroup = b.adminGroup;
+        this.maxBandwidth = b.maxBandwidth;
+        this.maxReservableBandwidth = b.maxReservableBandwidth;
+        this.unreservedBandwidth = b.unreservedBandwidth;
+        this.hasMaxReservableBandwidth = b.hasMaxReservableBandwidth;
+        this.hasUnreservedBandwidth = b.hasUnreservedBandwidth;
+        this.teMetric = b.teMetric;
+        this.igpMetric = b.igpMetric;
+        this.srlgs = b.srlgs;
+        this.linkType = b.linkType;
+        this.actnLinkId = b.actnLinkId;
+        this.availableLabels = b.availableLabels;
+        this.labelCount = b.labelCount;
+        this.labelPriority = b.labelPriority;
+        this.adjacencySid = b.adjacencySid;
+    }
+
+    /**
+     * Returns new builder.
+     *
+     * @return TE link builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the pcc which reported the link. LS-IDs are only unique within
+     * the LS database of one pcc.
+     *
+     * @return pcc id, null if not set
+     */
+    public PccId origin() {
+        return origin;
+    }
+
+    /**
+     * Returns the LS-ID identifying the link within the LS database of its origin.
+     *
+     * @return LS-ID
+     */
+    public long lsId() {
+        return lsId;
+    }
+
+    /**
+     * Returns the routing protocol which learnt the link.
+     *
+     * @return protocol id of the LS object
+     */
+    public byte protocolId() {
+        return protocolId;
+    }
+
+    /**
+     * Returns the router key of the local node.
+     *
+     * @return router key, see {@link TeNode#routerKey()}
+     */
+    public long srcRouterKey() {
+        return srcRouterKey;
+    }
+
+    /**
+     * Returns the router key of the remote node.
+     *
+     * @return router key, see {@link TeNode#routerKey()}
+     */
+    public long dstRouterKey() {
+        return dstRouterKey;
+    }
+
+    /**
+     * Returns the node slot of the local node in the topology.
+     *
+     * @return node slot, -1 if the local node is not known yet
+     */
+    public int srcNode() {
+        return srcNode;
+    }
+
+    /**
+     * Returns the node slot of the remote node in the topology.
+     *
+     * @return node slot, -1 if the remote node is not known yet
+     */
+    public int dstNode() {
+        return dstNode;
+    }
+
+    /**
+     * Returns a copy of this link attached to the given node slots.
+     *
+     * @param src node slot of the local node, -1 if unknown
+     * @param dst node slot of the remote node, -1 if unknown
+     * @return TE link
+     */
+    public TeLink withNodes(int src, int dst) {
+        if (src == srcNode && dst == dstNode) {
+            return this;
+        }
+        Builder b = new Builder(this);
+        b.srcNode = src;
+        b.dstNode = dst;
+        return b.build();
+    }
+
+    /**
+     * Checks whether the other link routes traffic like this one, that is
+     * whether at most its bandwidth differs.
+     *
+     * @param other TE link
+     * @return true if endpoints, metrics and administrative group are equal
+     */
+    public boolean sameRoute(TeLink other) {
+        return srcNode == other.srcNode && dstNode == other.dstNode
+                && teMetric == other.teMetric && igpMetric == other.igpMetric
+                && adminGroup == other.adminGroup;
+    }
+
+    /**
+     * Returns the local link identifier.
+     *
+     * @return local identifier, 0 if not advertised
+     */
+    public int localId() {
+        return localId;
+    }
+
+    /**
+     * Returns the remote link identifier.
+     *
+     * @return remote identifier, 0 if not advertised
+     */
+    public int remoteId() {
+        return remoteId;
+    }
+
+    /**
+     * Returns the local interface address.
+     *
+     * @return IPv4 address, 0 if not advertised
+     */
+    public int localIfAddr() {
+        return localIfAddr;
+    }
+
+    /**
+     * Returns the remote interface address.
+     *
+     * @return IPv4 address, 0 if not advertised
+     */
+    public int remoteIfAddr() {
+        return remoteIfAddr;
+    }
+
+    /**
+     * Returns the administrative group (color) of the link.
+     *
+     * @return administrative group bits
+     */
+    public int adminGroup() {
+        return adminGroup;
+    }
+
+    /**
+     * Returns the maximum bandwidth.
+     *
+     * @return bandwidth in bytes per second
+     */
+    public float maxBandwidth() {
+        return maxBandwidth;
+    }
+
+    /**
+     * Returns the maximum reservable bandwidth.
+     *
+     * @return bandwidth in bytes per second, 0 if not advertised
+     */
+    public float maxReservableBandwidth() {
+        return maxReservableBandwidth;
+    }
+
+    /**
+     * Checks whether the maximum reservable bandwidth is advertised.
+     *
+     * @return true if advertised, even as 0
+     */
+    public boolean hasMaxReservableBandwidth() {
+        return hasMaxReservableBandwidth;
+    }
+
+    /**
+     * Returns the unreserved bandwidth at the given priority.
+     *
+     * @param priority priority between 0 and 7
+     * @return bandwidth in bytes per second, 0 if not advertised
+     */
+    public float unreservedBandwidth(int priority) {
+        return unreservedBandwidth[priority];
+    }
+
+    /**
+     * Checks whether the unreserved bandwidth is advertised.
+     *
+     * @return true if advertised, even as 0 at every priority
+     */
+    public boolean hasUnreservedBandwidth() {
+        return hasUnreservedBandwidth;
+    }
+
+    /**
+     * Returns the TE default metric.
+     *
+     * @return TE metric, {@link #NO_METRIC} if not advertised
+     */
+    public long teMetric() {
+        return teMetric;
+    }
+
+    /**
+     * Returns the IGP metric.
+     *
+     * @return IGP metric, {@link #NO_METRIC} if not advertised
+     */
+    public long igpMetric() {
+        return igpMetric;
+    }
+
+    /**
+     * Returns the shared risk link groups of the link.
+     *
+     * @return SRLG values, do not modify
+     */
+    public int[] srlgs() {
+        return srlgs;
+    }
+
+    /**
+     * Returns the ACTN link type.
+     *
+     * @return link type, 0 if not advertised
+     */
+    public byte linkType() {
+        return linkType;
+    }
+
+    /**
+     * Returns the ACTN link id.
+     *
+     * @return link id, 0 if not advertised
+     */
+    public int actnLinkId() {
+        return actnLinkId;
+    }
+
+    /**
+     * Returns the available labels of the link, bit i set when label i is available.
+     *
+     * @return label bitmap, do not modify
+     */
+    public long[] availableLabels() {
+        return availableLabels;
+    }
+
+    /**
+     * Returns the number of labels described by {@link #availableLabels()}.
+     *
+     * @return number of labels
+     */
+    public int labelCount() {
+        return labelCount;
+    }
+
+    /**
+     * Returns the priority the available labels apply to.
+     *
+     * @return PRI of the available labels field
+     */
+    public byte labelPriority() {
+        return labelPriority;
+    }
+
+    /**
+     * Returns the label of the Adjacency-SID of the link.
+     *
+     * @return label, NO_SID if not advertised
+     */
+    public int adjacencySid() {
+        return adjacencySid;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("origin", origin)
+                .add("lsId", new LsId(lsId))
+                .add("protocolId", protocolId)
+                .add("srcRouterKey", srcRouterKey)
+                .add("dstRouterKey", dstRouterKey)
+                .add("srcNode", srcNode)
+                .add("dstNode", dstNode)
+                .add("teMetric", teMetric)
+                .add("igpMetric", igpMetric)
+                .add("maxReservableBandwidth", maxReservableBandwidth)
+                .add("unreservedBandwidth", Arrays.toString(unreservedBandwidth))
+                .add("srlgs", Arrays.toString(srlgs))
+                .add("labelCount", labelCount)
+                .toString();
+    }
+
+    /**
+     * Builder of TE links.
+     */
+    public static final class Builder {
+        private PccId origin;
+        private long lsId;
+        private byte protocolId;
+        private long srcRouterKey;
+        private long dstRouterKey;
+        private int srcNode = -1;
+        private int dstNode = -1;
+        private int localId;
+        private int remoteId;
+        private int localIfAddr;
+        private int remoteIfAddr;
+        private int adminGroup;
+        private float maxBandwidth;
+        private float maxReservableBandwidth;
+        private float[] unreservedBandwidth = NO_UNRESERVED;
+        private boolean hasMaxReservableBandwidth;
+        private boolean hasUnreservedBandwidth;
+        private long teMetric = NO_METRIC;
+        private long igpMetric = NO_METRIC;
+        private int[] srlgs = NO_SRLGS;
+        private byte linkType;
+        private int actnLinkId;
+        private long[] availableLabels = NO_LABELS;
+        private int labelCount;
+        private byte labelPriority;
+        private int adjacencySid = NO_SID;
+
+        private Builder() {
+        }
+
+        private Builder(TeLink link) {
+            origin = link.origin;
+            lsId = link.lsId;
+            protocolId = link.protocolId;
+            srcRouterKey = link.srcRouterKey;
+            dstRouterKey = link.dstRouterKey;
+            srcNode = link.srcNode;
+            dstNode = link.dstNode;
+            localId = link.localId;
+            remoteId = link.remoteId;
+            localIfAddr = link.localIfAddr;
+            remoteIfAddr = link.remoteIfAddr;
+            adminGroup = link.adminGroup;
+            maxBandwidth = link.maxBandwidth;
+            maxReservableBandwidth = link.maxReservableBandwidth;
+            unreservedBandwidth = link.unreservedBandwidth;
+            hasMaxReservableBandwidth = link.hasMaxReservableBandwidth;
+            hasUnreservedBandwidth = link.hasUnreservedBandwidth;
+            teMetric = link.teMetric;
+            igpMetric = link.igpMetric;
+            srlgs = link.srlgs;
+            linkType = link.linkType;
+            actnLinkId = link.actnLinkId;
+            availableLabels = link.availableLabels;
+            labelCount = link.labelCount;
+            labelPriority = link.labelPriority;
+            adjacencySid = link.adjacencySid;
+        }
+
+        /**
+         * Sets the pcc which reported the link.
+         *
+         * @param origin pcc id
+         * @return this builder
+         */
+        public Builder origin(PccId origin) {
+            this.origin = origin;
+            return this;
+        }
+
+        /**
+         * Sets the LS-ID.
+         *
+         * @param lsId LS-ID
+         * @return this builder
+         */
+        public Builder lsId(long lsId) {
+            this.lsId = lsId;
+            return this;
+        }
+
+        /**
+         * Sets the protocol id.
+         *
+         * @param protocolId protocol id of the LS object
+         * @return this builder
+         */
+        public Builder protocolId(byte protocolId) {
+            this.protocolId = protocolId;
+            return this;
+        }
+
+        /**
+         * Sets the router keys of both ends.
+         *
+         * @param src router key of the local node
+         * @param dst router key of the remote node
+         * @return this builder
+         */
+        public Builder endpoints(long src, long dst) {
+            this.srcRouterKey = src;
+            this.dstRouterKey = dst;
+            return this;
+        }
+
+        /**
+         * Sets the local and remote link identifiers.
+         *
+         * @param localId local identifier
+         * @param remoteId remote identifier
+         * @return this builder
+         */
+        public Builder identifiers(int localId, int remoteId) {
+            this.localId = localId;
+            this.remoteId = remoteId;
+            return this;
+        }
+
+        /**
+         * Sets the local interface address.
+         *
+         * @param addr IPv4 address
+         * @return this builder
+         */
+        public Builder localIfAddr(int addr) {
+            this.localIfAddr = addr;
+            return this;
+        }
+
+        /**
+         * Sets the remote interface address.
+         *
+         * @param addr IPv4 address
+         * @return this builder
+         */
+        public Builder remoteIfAddr(int addr) {
+            this.remoteIfAddr = addr;
+            return this;
+        }
+
+        /**
+         * Sets the administrative group.
+         *
+         * @param adminGroup administrative group bits
+         * @return this builder
+         */
+        public Builder adminGroup(int adminGroup) {
+            this.adminGroup = adminGroup;
+            return this;
+        }
+
+        /**
+         * Sets the maximum bandwidth.
+         *
+         * @param bandwidth bandwidth in bytes per second
+         * @return this builder
+         */
+        public Builder maxBandwidth(float bandwidth) {
+            this.maxBandwidth = bandwidth;
+            return this;
+        }
+
+        /**
+         * Sets the maximum reservable bandwidth.
+         *
+         * @param bandwidth bandwidth in bytes per second
+         * @return this builder
+         */
+        public Builder maxReservableBandwidth(float bandwidth) {
+            this.maxReservableBandwidth = bandwidth;
+            this.hasMaxReservableBandwidth = true;
+            return this;
+        }
+
+        /**
+         * Sets the unreserved bandwidth of each priority.
+         *
+         * @param bandwidth eight bandwidths, priority 0 first
+         * @return this builder
+         */
+        public Builder unreservedBandwidth(float[] bandwidth) {
+            this.unreservedBandwidth = bandwidth;
+            this.hasUnreservedBandwidth = true;
+            return this;
+        }
+
+        /**
+         * Sets the TE default metric.
+         *
+         * @param metric TE metric
+         * @return this builder
+         */
+        public Builder teMetric(long metric) {
+            this.teMetric = metric;
+            return this;
+        }
+
+        /**
+         * Sets the IGP metric.
+         *
+         * @param metric IGP metric
+         * @return this builder
+         */
+        public Builder igpMetric(long metric) {
+            this.igpMetric = metric;
+            return this;
+        }
+
+        /**
+         * Sets the shared risk link groups.
+         *
+         * @param srlgs SRLG values
+         * @return this builder
+         */
+        public Builder srlgs(int[] srlgs) {
+            this.srlgs = srlgs;
+            return this;
+        }
+
+        /**
+         * Sets the ACTN link type.
+         *
+         * @param linkType link type
+         * @return this builder
+         */
+        public Builder linkType(byte linkType) {
+            this.linkType = linkType;
+            return this;
+        }
+
+        /**
+         * Sets the ACTN link id.
+         *
+         * @param actnLinkId link id
+         * @return this builder
+         */
+        public Builder actnLinkId(int actnLinkId) {
+            this.actnLinkId = actnLinkId;
+            return this;
+        }
+
+        /**
+         * Sets the available labels.
+         *
+         * @param labels label bitmap, bit i set when label i is available
+         * @param count number of labels described by the bitmap
+         * @param priority priority the labels apply to
+         * @return this builder
+         */
+        public Builder availableLabels(long[] labels, int count, byte priority) {
+            this.availableLabels = labels;
+            this.labelCount = count;
+            this.labelPriority = priority;
+            return this;
+        }
+
+        /**
+         * Sets the Adjacency-SID.
+         *
+         * @param label label of the Adjacency-SID
+         * @return this builder
+         */
+        public Builder adjacencySid(int label) {
+            this.adjacencySid = label;
+            return this;
+        }
+
+        /**
+         * Builds the TE link.
+         *
+         * @return TE link
+         */
+        public TeLink build() {
+            return new TeLink(this);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.Arrays;
+
+import org.onosproject.pcep.controller.LsId;
+import org.onosproject.pcep.controller.PccId;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable TE node of the topology learnt from LSRpt messages.
+ */
+public final class TeNode {
+
+    private static final int[] NO_ADDRESSES = new int[0];
+    private static final byte[] NO_PREFIX_LENGTHS = new byte[0];
+    private static final int[] NO_RANGES = new int[0];
+
+    /**
+     * Value of the SID fields when no SID is advertised.
+     */
+    public static final int NO_SID = -1;
+
+    private final PccId origin;
+    private final long lsId;
+    private final byte protocolId;
+    private final long routerKey;
+    private final int ipv4RouterId;
+    private final byte nodeFlags;
+    private final String name;
+    private final int[] localAddresses;
+    private final byte[] localPrefixLengths;
+    private final int prefixSidIndex;
+    private final int prefixSidLabel;
+    private final int[] srgbFirstLabels;
+    private final int[] srgbRangeSizes;
+
+    private TeNode(Builder b) {
+        this.origin = b.origin;
+        this.lsId = b.lsId;
+        this.protocolId = b.protocolId;
+        this.routerKey = b.routerKey;
+        this.ipv4RouterId = b.ipv4RouterId;
+        this.nodeFlags = b.nodeFlags;
+        this.name = b.name;
+        this.localAddresses = b.localAddresses;
+        this.localPrefixLengths = b.localPrefixLengths;
+        this.prefixSidIndex = b.prefixSidIndex;
+        this.prefixSidLabel = b.prefixSidLabel;
+        this.srgbFirstLabels = b.srgbFirstLabels;
+        this.srgbRangeSizes = b.srgbRangeSizes;
+    }
+
+    /**
+     * Returns new builder.
+     *
+     * @return TE node builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the pcc which reported the node. LS-IDs are only unique within
+     * the LS database of one pcc.
+     *
+     * @return pcc id, null if not set
+     */
+    public PccId origin() {
+        return origin;
+    }
+
+    /**
+     * Returns the LS-ID identifying the node within the LS database of its origin.
+     *
+     * @return LS-ID
+     */
+    public long lsId() {
+        return lsId;
+    }
+
+    /**
+     * Returns the routing protocol which learnt the node.
+     *
+     * @return protocol id of the LS object
+     */
+    public byte protocolId() {
+        return protocolId;
+    }
+
+    /**
+     * Returns the key links use to refer to this node, the IGP router id
+     * when advertised, else the IPv4 router id, else the LS-ID.
+     *
+     * @return router key
+     */
+    public long routerKey() {
+        return routerKey;
+    }
+
+    /**
+     * Returns the IPv4 router id.
+     *
+     * @return IPv4 router id, 0 if not advertised
+     */
+    public int ipv4RouterId() {
+        return ipv4RouterId;
+    }
+
+    /**
+     * Returns the node flag bits.
+     *
+     * @return node flags
+     */
+    public byte nodeFlags() {
+        return nodeFlags;
+    }
+
+    /**
+     * Returns the node name.
+     *
+     * @return node name, null if not advertised
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the local IPv4 prefixes of the node.
+     *
+     * @return prefix addresses, do not modify
+     */
+    public int[] localAddresses() {
+        return localAddresses;
+    }
+
+    /**
+     * Returns the prefix lengths matching {@link #localAddresses()}.
+     *
+     * @return prefix lengths, do not modify
+     */
+    public byte[] localPrefixLengths() {
+        return localPrefixLengths;
+    }
+
+    /**
+     * Returns the SRGB index of the Prefix-SID of the node.
+     *
+     * @return SRGB index, NO_SID if not advertised or advertised as a label
+     */
+    public int prefixSidIndex() {
+        return prefixSidIndex;
+    }
+
+    /**
+     * Returns the label of the Prefix-SID of the node when advertised as a label.
+     *
+     * @return label, NO_SID if not advertised or advertised as an index
+     */
+    public int prefixSidLabel() {
+        return prefixSidLabel;
+    }
+
+    /**
+     * Returns the first label of each SRGB range of the node.
+     *
+     * @return first labels, empty if no SRGB is advertised
+     */
+    public int[] srgbFirstLabels() {
+        return srgbFirstLabels;
+    }
+
+    /**
+     * Returns the number of labels of each SRGB range of the node.
+     *
+     * @return range sizes, same size as {@link #srgbFirstLabels()}
+     */
+    public int[] srgbRangeSizes() {
+        return srgbRangeSizes;
+    }
+
+    /**
+     * Returns the label this node expects for the given SRGB index, that is
+     * the label at that offset of its SRGB ranges taken in order.
+     *
+     * @param index SRGB index
+     * @return label, NO_SID if the index is beyond the SRGB
+     */
+    public int srgbLabel(int index) {
+        if (index < 0) {
+            return NO_SID;
+        }
+        for (int i = 0; i < srgbRangeSizes.length; i++) {
+            if (index < srgbRangeSizes[i]) {
+                return srgbFirstLabels[i] + index;
+            }
+            index -= srgbRangeSizes[i];
+        }
+        return NO_SID;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .omitNullValues()
+                .add("origin", origin)
+                .add("lsId", new LsId(lsId))
+                .add("protocolId", protocolId)
+                .add("routerKey", routerKey)
+                .add("name", name)
+                .add("localAddresses", localAddresses.length > 0 ? Arrays.toString(localAddresses) : null)
+                .add("prefixSidIndex", prefixSidIndex != NO_SID ? prefixSidIndex : null)
+                .add("prefixSidLabel", prefixSidLabel != NO_SID ? prefixSidLabel : null)
+                .toString();
+    }
+
+    /**
+     * Builder of TE nodes.
+     */
+    public static final class Builder {
+        private PccId origin;
+        private long lsId;
+        private byte protocolId;
+        private long routerKey;
+        private int ipv4RouterId;
+        private byte nodeFlags;
+        private String name;
+        private int[] localAddresses = NO_ADDRESSES;
+        private byte[] localPrefixLengths = NO_PREFIX_LENGTHS;
+        private int prefixSidIndex = NO_SID;
+        private int prefixSidLabel = NO_SID;
+        private int[] srgbFirstLabels = NO_RANGES;
+        private int[] srgbRangeSizes = NO_RANGES;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the pcc which reported the node.
+         *
+         * @param origin pcc id
+         * @return this builder
+         */
+        public Builder origin(PccId origin) {
+            this.origin = origin;
+            return this;
+        }
+
+        /**
+         * Sets the LS-ID.
+         *
+         * @param lsId LS-ID
+         * @return this builder
+         */
+        public Builder lsId(long lsId) {
+            this.lsId = lsId;
+            return this;
+        }
+
+        /**
+         * Sets the protocol id.
+         *
+         * @param protocolId protocol id of the LS object
+         * @return this builder
+         */
+        public Builder protocolId(byte protocolId) {
+            this.protocolId = protocolId;
+            return this;
+        }
+
+        /**
+         * Sets the router key.
+         *
+         * @param routerKey key links use to refer to this node
+         * @return this builder
+         */
+        public Builder routerKey(long routerKey) {
+            this.routerKey = routerKey;
+            return this;
+        }
+
+        /**
+         * Sets the IPv4 router id.
+         *
+         * @param ipv4RouterId IPv4 router id
+         * @return this builder
+         */
+        public Builder ipv4RouterId(int ipv4RouterId) {
+            this.ipv4RouterId = ipv4RouterId;
+            return this;
+        }
+
+        /**
+         * Sets the node flag bits.
+         *
+         * @param nodeFlags node flags
+         * @return this builder
+         */
+        public Builder nodeFlags(byte nodeFlags) {
+            this.nodeFlags = nodeFlags;
+            return this;
+        }
+
+        /**
+         * Sets the node name.
+         *
+         * @param name node name
+         * @return this builder
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Sets the local IPv4 prefixes.
+         *
+         * @param addresses prefix addresses
+         * @param prefixLengths prefix lengths, same size as addresses
+         * @return this builder
+         */
+        public Builder localPrefixes(int[] addresses, byte[] prefixLengths) {
+            this.localAddresses = addresses;
+            this.localPrefixLengths = prefixLengths;
+            return this;
+        }
+
+        /**
+         * Sets the Prefix-SID as an SRGB index.
+         *
+         * @param index SRGB index
+         * @return this builder
+         */
+        public Builder prefixSidIndex(int index) {
+            this.prefixSidIndex = index;
+            this.prefixSidLabel = NO_SID;
+            return this;
+        }
+
+        /**
+         * Sets the Prefix-SID as a label.
+         *
+         * @param label label
+         * @return this builder
+         */
+        public Builder prefixSidLabel(int label) {
+            this.prefixSidLabel = label;
+            this.prefixSidIndex = NO_SID;
+            return this;
+        }
+
+        /**
+         * Sets the SRGB.
+         *
+         * @param firstLabels first label of each range
+         * @param rangeSizes number of labels of each range, same size as firstLabels
+         * @return this builder
+         */
+        public Builder srgb(int[] firstLabels, int[] rangeSizes) {
+            this.srgbFirstLabels = firstLabels;
+            this.srgbRangeSizes = rangeSizes;
+            return this;
+        }
+
+        /**
+         * Builds the TE node.
+         *
+         * @return TE node
+         */
+        public TeNode build() {
+            return new TeNode(this);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Path computed over a TE topology snapshot.
+ */
+public final class TePath {
+
+    private final long version;
+    private final int[] nodes;
+    private final int[] links;
+    private final long cost;
+
+    /**
+     * Creates path.
+     *
+     * @param version version of the topology the path was computed on
+     * @param nodes node slots from source to destination
+     * @param links link slots, one less than nodes
+     * @param cost sum of the metric of the links
+     */
+    public TePath(long version, int[] nodes, int[] links, long cost) {
+        this.version = version;
+        this.nodes = nodes;
+        this.links = links;
+        this.cost = cost;
+    }
+
+    /**
+     * Returns the version of the topology the path was computed on.
+     *
+     * @return topology version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the node slots from source to destination.
+     *
+     * @return node slots, do not modify
+     */
+    public int[] nodeSlots() {
+        return nodes;
+    }
+
+    /**
+     * Returns the link slots from source to destination.
+     *
+     * @return link slots, do not modify
+     */
+    public int[] linkSlots() {
+        return links;
+    }
+
+    /**
+     * Returns the number of links of the path.
+     *
+     * @return hop count
+     */
+    public int hopCount() {
+        return links.length;
+    }
+
+    /**
+     * Returns the cost of the path.
+     *
+     * @return sum of the link metrics
+     */
+    public long cost() {
+        return cost;
+    }
+
+    /**
+     * Returns the links of the path in the given snapshot.
+     *
+     * @param topology snapshot the path was computed on, or a later one
+     * @return links, null entries for links removed since
+     */
+    public List<TeLink> links(TeTopology topology) {
+        List<TeLink> list = new ArrayList<>(links.length);
+        for (int slot : links) {
+            list.add(topology.linkAt(slot));
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("version", version)
+                .add("nodes", Arrays.toString(nodes))
+                .add("links", Arrays.toString(links))
+                .add("cost", cost)
+                .toString();
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.PccId;
+
+/**
+ * Bounded cache of computed paths in front of a {@link TePathComputer}.
+ * <p>
+ * Entries are keyed by source, destination and normalized constraints, where
+ * the requested bandwidth is rounded up to a bandwidth class, and are tagged
+ * with the topology version they were last checked against. When the topology
+ * moves on, an entry is checked once against the new version: it is evicted
+ * only if one of its links or nodes changed, or if a link no longer has the
+ * bandwidth of the class. Cached NO-PATH results are valid for their version only.
+ */
+public class TePathCache {
+
+    /**
+     * Reason an entry left the cache.
+     */
+    public enum EvictionCause {
+        /**
+         * A link or node of the path was removed or changed.
+         */
+        LINK_CHANGED,
+
+        /**
+         * A link of the path no longer has the bandwidth of the class.
+         */
+        BANDWIDTH,
+
+        /**
+         * The topology changed after a NO-PATH result was cached.
+         */
+        NO_PATH_STALE,
+
+        /**
+         * The least recently used entry made room for a new one.
+         */
+        CAPACITY
+    }
+
+    // Bandwidth classes are 2^(k / BANDWIDTH_CLASS_STEPS), about 19% apart.
+    private static final int BANDWIDTH_CLASS_STEPS = 4;
+
+    private final TePathComputer pathComputer;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder[] evictions = new LongAdder[EvictionCause.values().length];
+
+    /**
+     * Creates path cache.
+     *
+     * @param pathComputer path computer answering cache misses
+     * @param maxEntries maximum number of cached paths
+     */
+    public TePathCache(TePathComputer pathComputer, final int maxEntries) {
+        this.pathComputer = pathComputer;
+        this.maxEntries = maxEntries;
+        for (int i = 0; i < evictions.length; i++) {
+            evictions[i] = new LongAdder();
+        }
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > TePathCache.this.maxEntries) {
+                    evictions[EvictionCause.CAPACITY.ordinal()].increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the path computer behind the cache.
+     *
+     * @return TE path computer
+     */
+    public TePathComputer pathComputer() {
+        return pathComputer;
+    }
+
+    /**
+     * Returns the adjacency of the current topology.
+     *
+     * @return TE graph
+     */
+    public TeGraph graph() {
+        return pathComputer.graph();
+    }
+
+    /**
+     * Returns the shortest path between two nodes of the current topology.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param constraints path constraints
+     * @return path, null if the nodes are unknown or no path satisfies the constraints
+     */
+    public TePath computePath(PccId pccId, long srcLsId, long dstLsId, TeConstraints constraints) {
+        TeGraph g = graph();
+        TeTopology topology = g.topology();
+        int src = topology.nodeSlot(pccId, srcLsId);
+        int dst = topology.nodeSlot(pccId, dstLsId);
+        if (topology.nodeAt(src) == null || topology.nodeAt(dst) == null) {
+            return null;
+        }
+        return computePath(g, src, dst, constraints);
+    }
+
+    /**
+     * Returns the shortest path between two node slots of the graph, from the
+     * cache when possible.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints
+     * @return path, null if no path satisfies the constraints
+     */
+    public TePath computePath(TeGraph g, int src, int dst, TeConstraints constraints) {
+        Key key = new Key(src, dst, constraints);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        Entry valid = entry == null ? null : revalidate(g, key, entry);
+        if (valid != null && (valid.path != null || key.bandwidth == constraints.bandwidth())) {
+            hits.increment();
+            return valid.path;
+        }
+        misses.increment();
+
+        TePath path = null;
+        if (valid == null) {
+            path = pathComputer.computePath(g, src, dst, key.constraints());
+            put(key, new Entry(g.topology(), path));
+        }
+        if (path == null && key.bandwidth != constraints.bandwidth()) {
+            // The bandwidth class may be too much where the request itself still fits.
+            return pathComputer.computePath(g, src, dst, constraints);
+        }
+        return path;
+    }
+
+    /**
+     * Drops all entries, counted as no eviction.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached paths.
+     *
+     * @return cache size
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return hit count
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which ran a path computation.
+     *
+     * @return miss count
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return hit rate between 0 and 1
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Returns the number of entries evicted for the given cause.
+     *
+     * @param cause eviction cause
+     * @return eviction count
+     */
+    public long evictionCount(EvictionCause cause) {
+        return evictions[cause.ordinal()].sum();
+    }
+
+    /**
+     * Returns the smallest bandwidth class holding the bandwidth.
+     *
+     * @param bandwidth requested bandwidth
+     * @return bandwidth class, 0 for no bandwidth
+     */
+    static float bandwidthClass(float bandwidth) {
+        if (bandwidth <= 0) {
+            return 0;
+        }
+        double k = Math.ceil(BANDWIDTH_CLASS_STEPS * Math.log(bandwidth) / Math.log(2));
+        float cls = (float) Math.pow(2, k / BANDWIDTH_CLASS_STEPS);
+        // Rounding may land just below the request.
+        return cls >= bandwidth ? cls : (float) Math.pow(2, (k + 1) / BANDWIDTH_CLASS_STEPS);
+    }
+
+    private void put(Key key, Entry entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private void evict(Key key, Entry entry, EvictionCause cause) {
+        synchronized (entries) {
+            if (entries.get(key) == entry) {
+                entries.remove(key);
+                evictions[cause.ordinal()].increment();
+            }
+        }
+    }
+
+    /*
+     * Returns the entry valid for the version of the graph, or null after evicting it.
+     * Link records are immutable and shared between versions, so a link which did not
+     * change is the same object in both snapshots.
+     */
+    private Entry revalidate(TeGraph g, Key key, Entry entry) {
+        TeTopology topology = g.topology();
+        if (entry.version == topology.version()) {
+            return entry;
+        }
+        if (entry.path == null) {
+            evict(key, entry, EvictionCause.NO_PATH_STALE);
+            return null;
+        }
+
+        for (int node : entry.path.nodeSlots()) {
+            if (topology.nodeAt(node) == null) {
+                evict(key, entry, EvictionCause.LINK_CHANGED);
+                return null;
+            }
+        }
+        int[] linkSlots = entry.path.linkSlots();
+        TeLink[] links = new TeLink[linkSlots.length];
+        for (int i = 0; i < linkSlots.length; i++) {
+            TeLink cur = topology.linkAt(linkSlots[i]);
+            TeLink old = entry.links[i];
+            if (cur != old) {
+                if (cur == null || !old.sameRoute(cur)) {
+                    evict(key, entry, EvictionCause.LINK_CHANGED);
+                    return null;
+                }
+                if (key.bandwidth > 0 && TeGraph.availableBandwidth(cur, key.priority) < key.bandwidth) {
+                    evict(key, entry, EvictionCause.BANDWIDTH);
+                    return null;
+                }
+            }
+            links[i] = cur;
+        }
+
+        TePath path = entry.path;
+        Entry valid = new Entry(topology.version(),
+                new TePath(topology.version(), path.nodeSlots(), linkSlots, path.cost()), links);
+        synchronized (entries) {
+            entries.replace(key, entry, valid);
+        }
+        return valid;
+    }
+
+    /**
+     * Cached path with the link records it was checked against.
+     */
+    private static final class Entry {
+        private final long version;
+        private final TePath path;
+        private final TeLink[] links;
+
+        private Entry(TeTopology topology, TePath path) {
+            this.version = topology.version();
+            this.path = path;
+            if (path == null) {
+                this.links = null;
+            } else {
+                int[] linkSlots = path.linkSlots();
+                this.links = new TeLink[linkSlots.length];
+                for (int i = 0; i < linkSlots.length; i++) {
+                    links[i] = topology.linkAt(linkSlots[i]);
+                }
+            }
+        }
+
+        private Entry(long version, TePath path, TeLink[] links) {
+            this.version = version;
+            this.path = path;
+            this.links = links;
+        }
+    }
+
+    /**
+     * Source, destination and normalized constraints. The setup priority only
+     * matters when bandwidth is requested.
+     */
+    private static final class Key {
+        private final int src;
+        private final int dst;
+        private final float bandwidth;
+        private final int priority;
+        private final TeConstraints.MetricType metricType;
+        private final int includeAny;
+        private final int excludeAny;
+
+        private Key(int src, int dst, TeConstraints c) {
+            this.src = src;
+            this.dst = dst;
+            this.bandwidth = bandwidthClass(c.bandwidth());
+            this.priority = bandwidth > 0 ? c.setupPriority() : TeLink.PRIORITY_LEVELS - 1;
+            this.metricType = c.metricType();
+            this.includeAny = c.includeAny();
+            this.excludeAny = c.excludeAny();
+        }
+
+        private TeConstraints constraints() {
+            return TeConstraints.builder().bandwidth(bandwidth).setupPriority(priority)
+                    .metricType(metricType).includeAny(includeAny).excludeAny(excludeAny).build();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(src, dst, bandwidth, priority, metricType, includeAny, excludeAny);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return src == other.src && dst == other.dst
+                        && Float.compare(bandwidth, other.bandwidth) == 0
+                        && priority == other.priority && metricType == other.metricType
+                        && includeAny == other.includeAny && excludeAny == other.excludeAny;
+            }
+            return false;
+        }
+    }
+}
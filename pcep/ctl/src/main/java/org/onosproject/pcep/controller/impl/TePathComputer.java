@@ -0,0 +1,661 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.onosproject.pcep.controller.PccId;
+
+/**
+ * Constrained shortest path first computation over the TE topology.
+ * <p>
+ * Links which do not satisfy the constraints are pruned while they are
+ * relaxed, and the search is a Dijkstra over the {@link TeGraph} adjacency
+ * with an indexed binary heap of node slots. All working arrays are kept per
+ * thread and reused, nothing is allocated per node or per edge.
+ * <p>
+ * Disjoint path pairs for protected LSPs are computed with Suurballe's
+ * algorithm: a second search on the residual graph of the shortest path, with
+ * edge weights reduced by the distances of the first search, gives the pair of
+ * link-disjoint paths of least total cost. SRLG disjointness is not preserved by
+ * this construction; pairs sharing an SRLG are replaced by the cheapest pair
+ * found routing around all links at risk of one of the candidate paths.
+ */
+public class TePathComputer {
+
+    // Candidate working paths tried when the Suurballe pair shares an SRLG
+    private static final int MAX_DISJOINT_CANDIDATES = 8;
+
+    private final TeTopologyStore store;
+    private volatile TeGraph graph;
+
+    private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+        @Override
+        protected Workspace initialValue() {
+            return new Workspace();
+        }
+    };
+
+    /**
+     * Creates path computer over the topology of the store.
+     *
+     * @param store TE topology store
+     */
+    public TePathComputer(TeTopologyStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the adjacency of the current topology, built once per topology version.
+     *
+     * @return TE graph
+     */
+    public TeGraph graph() {
+        TeTopology topology = store.snapshot();
+        TeGraph g = graph;
+        if (g == null || g.version() != topology.version()) {
+            g = TeGraph.of(topology);
+            graph = g;
+        }
+        return g;
+    }
+
+    /**
+     * Computes the shortest path between two nodes of the current topology.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param constraints path constraints
+     * @return path, null if the nodes are unknown or no path satisfies the constraints
+     */
+    public TePath computePath(PccId pccId, long srcLsId, long dstLsId, TeConstraints constraints) {
+        TeGraph g = graph();
+        TeTopology topology = g.topology();
+        int src = topology.nodeSlot(pccId, srcLsId);
+        int dst = topology.nodeSlot(pccId, dstLsId);
+        if (topology.nodeAt(src) == null || topology.nodeAt(dst) == null) {
+            return null;
+        }
+        return computePath(g, src, dst, constraints);
+    }
+
+    /**
+     * Computes the shortest path between two node slots of the graph.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints
+     * @return path, null if no path satisfies the constraints
+     */
+    public TePath computePath(TeGraph g, int src, int dst, TeConstraints constraints) {
+        return computePath(g, src, dst, constraints, null, null);
+    }
+
+    /**
+     * Computes the shortest path between two node slots of the graph avoiding
+     * the given nodes and links, as needed by k-shortest and disjoint path searches.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints
+     * @param excludedNodes node slots the path must not go through, may be null
+     * @param excludedLinks link slots the path must not use, may be null
+     * @return path, null if no path satisfies the constraints
+     */
+    public TePath computePath(TeGraph g, int src, int dst, TeConstraints constraints,
+            BitSet excludedNodes, BitSet excludedLinks) {
+        if (src == dst) {
+            return new TePath(g.version(), new int[] {src}, new int[0], 0);
+        }
+
+        Workspace ws = workspaces.get();
+        ws.reset(g.nodeCount());
+        ws.visit(src, 0, -1, -1);
+        while (ws.heapSize > 0) {
+            int u = ws.pop();
+            if (u == dst) {
+                return ws.path(g, src, dst);
+            }
+            relaxEdges(ws, g, u, constraints, excludedNodes, excludedLinks);
+        }
+        return null;
+    }
+
+    /**
+     * Computes the shortest paths from one node slot to several others with a
+     * single search, as needed to reach the border nodes of a domain.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dsts destination node slots
+     * @param constraints path constraints
+     * @param excludedNodes node slots the paths must not go through, may be null
+     * @param excludedLinks link slots the paths must not use, may be null
+     * @return path to each destination in the same order, null where no path
+     *         satisfies the constraints
+     */
+    public TePath[] computePaths(TeGraph g, int src, int[] dsts, TeConstraints constraints,
+            BitSet excludedNodes, BitSet excludedLinks) {
+        TePath[] paths = new TePath[dsts.length];
+        Workspace ws = workspaces.get();
+        ws.reset(g.nodeCount());
+        ws.visit(src, 0, -1, -1);
+        int remaining = dsts.length;
+        while (ws.heapSize > 0 && remaining > 0) {
+            int u = ws.pop();
+            for (int i = 0; i < dsts.length; i++) {
+                if (dsts[i] == u) {
+                    paths[i] = ws.path(g, src, u);
+                    remaining--;
+                }
+            }
+            relaxEdges(ws, g, u, constraints, excludedNodes, excludedLinks);
+        }
+        return paths;
+    }
+
+    /**
+     * Computes a pair of disjoint paths between two nodes of the current topology.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param constraints constraints applying to both paths
+     * @param srlgDisjoint true if the paths must not share any SRLG, false for link-disjoint paths
+     * @return working and protection paths, working being the cheaper one,
+     *         null if the nodes are unknown or no such pair exists
+     */
+    public TePath[] computeDisjointPaths(PccId pccId, long srcLsId, long dstLsId, TeConstraints constraints,
+            boolean srlgDisjoint) {
+        TeGraph g = graph();
+        TeTopology topology = g.topology();
+        int src = topology.nodeSlot(pccId, srcLsId);
+        int dst = topology.nodeSlot(pccId, dstLsId);
+        if (topology.nodeAt(src) == null || topology.nodeAt(dst) == null) {
+            return null;
+        }
+        return computeDisjointPaths(g, src, dst, constraints, srlgDisjoint);
+    }
+
+    /**
+     * Computes a pair of disjoint paths between two node slots of the graph.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints constraints applying to both paths
+     * @param srlgDisjoint true if the paths must not share any SRLG, false for link-disjoint paths
+     * @return working and protection paths, working being the cheaper one, null if no such pair exists
+     */
+    public TePath[] computeDisjointPaths(TeGraph g, int src, int dst, TeConstraints constraints,
+            boolean srlgDisjoint) {
+        if (src == dst) {
+            return null;
+        }
+        boolean teMetric = constraints.metricType() == TeConstraints.MetricType.TE;
+        Workspace ws = workspaces.get();
+
+        // Shortest path, settling only the nodes closer than the destination
+        ws.reset(g.nodeCount());
+        ws.visit(src, 0, -1, -1);
+        boolean reached = false;
+        while (ws.heapSize > 0) {
+            int u = ws.pop();
+            if (u == dst) {
+                reached = true;
+                break;
+            }
+            relaxEdges(ws, g, u, constraints, null, null);
+        }
+        if (!reached) {
+            return null;
+        }
+        TePath shortest = ws.path(g, src, dst);
+        ws.markFirst(g, src, dst);
+
+        // Residual search: edges of the shortest path are reversed, the others weigh w + p(u) - p(v) >= 0
+        ws.reset(g.nodeCount());
+        ws.visit(src, 0, -1, -1);
+        reached = false;
+        while (ws.heapSize > 0) {
+            int u = ws.pop();
+            if (u == dst) {
+                reached = true;
+                break;
+            }
+            relaxResidual(ws, g, u, constraints, teMetric);
+        }
+        if (!reached) {
+            // Cut edge, no link-disjoint pair
+            return null;
+        }
+
+        TePath[] pair = ws.disjointPair(g, src, dst, teMetric);
+        if (pair == null || !srlgDisjoint || !sharesRisk(g, pair[0], pair[1])) {
+            return pair;
+        }
+
+        // Candidate working paths: the paths found so far, and the shortest paths
+        // avoiding one of the SRLGs shared by the pair
+        List<TePath> candidates = new ArrayList<>(Arrays.asList(shortest, pair[0], pair[1]));
+        BitSet shared = srlgs(g, pair[0]);
+        shared.and(srlgs(g, pair[1]));
+        for (int r = shared.nextSetBit(0); r >= 0 && candidates.size() < MAX_DISJOINT_CANDIDATES;
+                r = shared.nextSetBit(r + 1)) {
+            BitSet excluded = new BitSet();
+            for (int j = g.srlgLinkOffset(r), last = g.srlgLinkOffset(r + 1); j < last; j++) {
+                excluded.set(g.srlgLink(j));
+            }
+            TePath working = computePath(g, src, dst, constraints, null, excluded);
+            if (working != null) {
+                candidates.add(working);
+            }
+        }
+
+        // Route around everything at risk of each candidate, keep the cheapest pair
+        TePath[] best = null;
+        for (TePath working : candidates) {
+            TePath protection = computePath(g, src, dst, constraints, null, riskLinks(g, working));
+            if (protection != null && (best == null
+                    || working.cost() + protection.cost() < best[0].cost() + best[1].cost())) {
+                best = working.cost() <= protection.cost() ? new TePath[] {working, protection}
+                        : new TePath[] {protection, working};
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the link slots at risk of failing with the path: its own links
+     * and every link sharing an SRLG with one of them.
+     *
+     * @param g TE graph
+     * @param path path of the graph
+     * @return link slots
+     */
+    static BitSet riskLinks(TeGraph g, TePath path) {
+        BitSet links = new BitSet();
+        BitSet srlgs = new BitSet(g.srlgCount());
+        for (int l : path.linkSlots()) {
+            links.set(l);
+            for (int i = g.srlgOffset(l), end = g.srlgOffset(l + 1); i < end; i++) {
+                int r = g.srlg(i);
+                if (!srlgs.get(r)) {
+                    srlgs.set(r);
+                    for (int j = g.srlgLinkOffset(r), last = g.srlgLinkOffset(r + 1); j < last; j++) {
+                        links.set(g.srlgLink(j));
+                    }
+                }
+            }
+        }
+        return links;
+    }
+
+    private static BitSet srlgs(TeGraph g, TePath path) {
+        BitSet srlgs = new BitSet(g.srlgCount());
+        for (int l : path.linkSlots()) {
+            for (int i = g.srlgOffset(l), end = g.srlgOffset(l + 1); i < end; i++) {
+                srlgs.set(g.srlg(i));
+            }
+        }
+        return srlgs;
+    }
+
+    /**
+     * Returns whether two paths share a link or an SRLG.
+     *
+     * @param g TE graph
+     * @param a first path
+     * @param b second path
+     * @return true if a single failure can hit both paths
+     */
+    static boolean sharesRisk(TeGraph g, TePath a, TePath b) {
+        BitSet risk = riskLinks(g, a);
+        for (int l : b.linkSlots()) {
+            if (risk.get(l)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Relaxes the edges of u in the residual graph of the shortest path marked in
+     * the workspace. Reversed edges are stored as ~edge in prevEdge.
+     */
+    private static void relaxResidual(Workspace ws, TeGraph g, int u, TeConstraints constraints,
+            boolean teMetric) {
+        float bandwidth = constraints.bandwidth();
+        int priority = constraints.setupPriority();
+        int includeAny = constraints.includeAny();
+        int excludeAny = constraints.excludeAny();
+        long du = ws.dist[u];
+        long pu = ws.potential[u];
+        for (int e = g.offset(u), end = g.offset(u + 1); e < end; e++) {
+            int group = g.adminGroup(e);
+            if ((group & excludeAny) != 0 || (includeAny != 0 && (group & includeAny) == 0)) {
+                continue;
+            }
+            if (bandwidth > 0 && g.availableBandwidth(e, priority) < bandwidth) {
+                continue;
+            }
+            int v = g.target(e);
+            if (ws.isFirstEdge(v, e)) {
+                continue;
+            }
+            ws.relax(v, du + weight(g, e, teMetric) + pu - ws.potential[v], u, e);
+        }
+        if (ws.isOnFirst(u) && ws.firstPrevEdge[u] >= 0) {
+            // Reversed edge of the shortest path, its reduced weight is 0
+            ws.relax(ws.firstPrevNode[u], du, u, ~ws.firstPrevEdge[u]);
+        }
+    }
+
+    private static void relaxEdges(Workspace ws, TeGraph g, int u, TeConstraints constraints,
+            BitSet excludedNodes, BitSet excludedLinks) {
+        boolean teMetric = constraints.metricType() == TeConstraints.MetricType.TE;
+        float bandwidth = constraints.bandwidth();
+        int priority = constraints.setupPriority();
+        int includeAny = constraints.includeAny();
+        int excludeAny = constraints.excludeAny();
+        long du = ws.dist[u];
+        for (int e = g.offset(u), end = g.offset(u + 1); e < end; e++) {
+            int group = g.adminGroup(e);
+            if ((group & excludeAny) != 0 || (includeAny != 0 && (group & includeAny) == 0)) {
+                continue;
+            }
+            if (bandwidth > 0 && g.availableBandwidth(e, priority) < bandwidth) {
+                continue;
+            }
+            if (excludedLinks != null && excludedLinks.get(g.linkSlot(e))) {
+                continue;
+            }
+            int v = g.target(e);
+            if (excludedNodes != null && excludedNodes.get(v)) {
+                continue;
+            }
+            long dv = du + weight(g, e, teMetric);
+            if (!ws.isVisited(v)) {
+                ws.visit(v, dv, u, e);
+            } else if (dv < ws.dist[v] && ws.heapPos[v] >= 0) {
+                ws.dist[v] = dv;
+                ws.prevNode[v] = u;
+                ws.prevEdge[v] = e;
+                ws.siftUp(ws.heapPos[v]);
+            }
+        }
+    }
+
+    /**
+     * Returns the metric of the edge, falling back to the other metric type
+     * and then to 1 when the preferred one is not advertised.
+     *
+     * @param g TE graph
+     * @param edge edge index
+     * @param teMetric true to prefer the TE metric
+     * @return edge weight
+     */
+    static long weight(TeGraph g, int edge, boolean teMetric) {
+        return weight(g.teMetric(edge), g.igpMetric(edge), teMetric);
+    }
+
+    /**
+     * Returns the metric of the link, with the same fallbacks as the edge weight.
+     *
+     * @param link TE link
+     * @param teMetric true to prefer the TE metric
+     * @return link weight
+     */
+    static long weight(TeLink link, boolean teMetric) {
+        return weight(link.teMetric(), link.igpMetric(), teMetric);
+    }
+
+    private static long weight(long te, long igp, boolean teMetric) {
+        long first = teMetric ? te : igp;
+        if (first != TeLink.NO_METRIC) {
+            return first;
+        }
+        long second = teMetric ? igp : te;
+        return second != TeLink.NO_METRIC ? second : 1;
+    }
+
+    /**
+     * Per thread search state. Node state is valid only when its stamp matches
+     * the current search, so the arrays are never cleared.
+     */
+    private static final class Workspace {
+        private long[] dist = new long[0];
+        private int[] prevNode = new int[0];
+        private int[] prevEdge = new int[0];
+        private int[] stamp = new int[0];
+        // Position of the node in the heap, -1 once settled.
+        private int[] heapPos = new int[0];
+        private int[] heap = new int[0];
+        private int heapSize;
+        private int search;
+        // Shortest path of a disjoint pair search and the potentials it leaves.
+        private long[] potential = new long[0];
+        private int[] firstPrevNode = new int[0];
+        private int[] firstPrevEdge = new int[0];
+        private int[] firstStamp = new int[0];
+        private int firstSearch;
+
+        private void reset(int nodes) {
+            if (stamp.length < nodes) {
+                int size = Math.max(nodes, stamp.length * 2);
+                dist = new long[size];
+                prevNode = new int[size];
+                prevEdge = new int[size];
+                stamp = new int[size];
+                heapPos = new int[size];
+                heap = new int[size];
+                potential = new long[size];
+                firstPrevNode = new int[size];
+                firstPrevEdge = new int[size];
+                firstStamp = new int[size];
+                search = 0;
+                firstSearch = 0;
+            }
+            heapSize = 0;
+            if (++search == 0) {
+                // Stamp wrapped around, old stamps could match again.
+                Arrays.fill(stamp, 0);
+                Arrays.fill(firstStamp, 0);
+                firstSearch = 0;
+                search = 1;
+            }
+        }
+
+        /*
+         * Keeps the shortest path found by the current search and turns its
+         * distances into potentials: settled nodes keep their distance, the
+         * others get the distance of the destination.
+         */
+        private void markFirst(TeGraph g, int src, int dst) {
+            long limit = dist[dst];
+            for (int n = 0; n < g.nodeCount(); n++) {
+                potential[n] = isVisited(n) && heapPos[n] < 0 ? dist[n] : limit;
+            }
+            firstSearch = search;
+            for (int n = dst; n != -1; n = prevNode[n]) {
+                firstStamp[n] = firstSearch;
+                firstPrevNode[n] = prevNode[n];
+                firstPrevEdge[n] = prevEdge[n];
+            }
+        }
+
+        private boolean isOnFirst(int node) {
+            return firstStamp[node] == firstSearch;
+        }
+
+        private boolean isFirstEdge(int node, int edge) {
+            return isOnFirst(node) && firstPrevEdge[node] == edge;
+        }
+
+        private void relax(int v, long dv, int from, int edge) {
+            if (!isVisited(v)) {
+                visit(v, dv, from, edge);
+            } else if (dv < dist[v] && heapPos[v] >= 0) {
+                dist[v] = dv;
+                prevNode[v] = from;
+                prevEdge[v] = edge;
+                siftUp(heapPos[v]);
+            }
+        }
+
+        /*
+         * Merges the marked shortest path with the residual path of the current
+         * search, dropping the edges traversed in both directions, and splits the
+         * remaining edges into two paths.
+         */
+        private TePath[] disjointPair(TeGraph g, int src, int dst, boolean teMetric) {
+            BitSet edges = new BitSet(g.edgeCount());
+            for (int n = dst; n != src; n = firstPrevNode[n]) {
+                edges.set(firstPrevEdge[n]);
+            }
+            for (int n = dst; n != src; n = prevNode[n]) {
+                int e = prevEdge[n];
+                if (e >= 0) {
+                    edges.set(e);
+                } else {
+                    edges.clear(~e);
+                }
+            }
+            TePath a = walk(g, edges, src, dst, teMetric);
+            TePath b = walk(g, edges, src, dst, teMetric);
+            if (a == null || b == null) {
+                return null;
+            }
+            return a.cost() <= b.cost() ? new TePath[] {a, b} : new TePath[] {b, a};
+        }
+
+        private static TePath walk(TeGraph g, BitSet edges, int src, int dst, boolean teMetric) {
+            // Every step consumes one edge, the path is at most as long as the edges left
+            int[] links = new int[edges.cardinality()];
+            int[] nodes = new int[links.length + 1];
+            int hops = 0;
+            long cost = 0;
+            nodes[0] = src;
+            for (int n = src; n != dst;) {
+                int next = -1;
+                for (int e = g.offset(n), end = g.offset(n + 1); e < end; e++) {
+                    if (edges.get(e)) {
+                        next = e;
+                        break;
+                    }
+                }
+                if (next < 0) {
+                    return null;
+                }
+                edges.clear(next);
+                cost += weight(g, next, teMetric);
+                links[hops++] = g.linkSlot(next);
+                n = g.target(next);
+                nodes[hops] = n;
+            }
+            return new TePath(g.version(), Arrays.copyOf(nodes, hops + 1), Arrays.copyOf(links, hops), cost);
+        }
+
+        private boolean isVisited(int node) {
+            return stamp[node] == search;
+        }
+
+        private void visit(int node, long d, int from, int edge) {
+            stamp[node] = search;
+            dist[node] = d;
+            prevNode[node] = from;
+            prevEdge[node] = edge;
+            heap[heapSize] = node;
+            heapPos[node] = heapSize;
+            siftUp(heapSize++);
+        }
+
+        private int pop() {
+            int top = heap[0];
+            heapPos[top] = -1;
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                heap[0] = last;
+                heapPos[last] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int pos) {
+            int node = heap[pos];
+            long d = dist[node];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                int p = heap[parent];
+                if (dist[p] <= d) {
+                    break;
+                }
+                heap[pos] = p;
+                heapPos[p] = pos;
+                pos = parent;
+            }
+            heap[pos] = node;
+            heapPos[node] = pos;
+        }
+
+        private void siftDown(int pos) {
+            int node = heap[pos];
+            long d = dist[node];
+            int half = heapSize >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int c = heap[child];
+                int right = child + 1;
+                if (right < heapSize && dist[heap[right]] < dist[c]) {
+                    child = right;
+                    c = heap[child];
+                }
+                if (d <= dist[c]) {
+                    break;
+                }
+                heap[pos] = c;
+                heapPos[c] = pos;
+                pos = child;
+            }
+            heap[pos] = node;
+            heapPos[node] = pos;
+        }
+
+        private TePath path(TeGraph g, int src, int dst) {
+            int hops = 0;
+            for (int n = dst; n != src; n = prevNode[n]) {
+                hops++;
+            }
+            int[] nodes = new int[hops + 1];
+            int[] links = new int[hops];
+            int n = dst;
+            for (int i = hops; i > 0; i--) {
+                nodes[i] = n;
+                links[i - 1] = g.linkSlot(prevEdge[n]);
+                n = prevNode[n];
+            }
+            nodes[0] = src;
+            return new TePath(g.version(), nodes, links, dist[dst]);
+        }
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.LsId;
+import org.onosproject.pcep.controller.PccId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.primitives.Ints;
+
+/**
+ * Keeps the K shortest paths of configured PE pairs precomputed, so path
+ * requests between them are answered without a search.
+ * <p>
+ * Candidates are computed with Yen's algorithm, without bandwidth constraint,
+ * on a background fork join pool after each topology change. Only the pairs
+ * affected by the change are recomputed: a removed link or a link whose metric
+ * grew only affects the pairs with a candidate over it, while a new node or
+ * link, or a link getting cheaper, may shorten any pair. Bandwidth changes
+ * never trigger a recomputation, available bandwidth is checked against the
+ * current topology when a candidate is selected.
+ */
+public class TePathPrecomputer implements TeTopologyListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TePathPrecomputer.class);
+
+    private static final Comparator<TePath> BY_COST = new Comparator<TePath>() {
+        @Override
+        public int compare(TePath a, TePath b) {
+            int c = Long.compare(a.cost(), b.cost());
+            return c != 0 ? c : Integer.compare(a.hopCount(), b.hopCount());
+        }
+    };
+
+    private final TePathComputer pathComputer;
+    private final int k;
+    private final int parallelism;
+    private volatile ForkJoinPool pool;
+
+    private final Map<PePair, Candidates> candidates = new ConcurrentHashMap<>();
+    private final Set<PePair> dirtyPairs = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final Object refreshLock = new Object();
+    // Topology the candidates were last brought up to date with, guarded by refreshLock.
+    private TeTopology computedOn = TeTopology.EMPTY;
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder pairComputations = new LongAdder();
+    private final LongAdder selectHits = new LongAdder();
+    private final LongAdder selectMisses = new LongAdder();
+
+    private final Runnable refreshTask = new Runnable() {
+        @Override
+        public void run() {
+            refreshPending.set(false);
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                log.error("Failed to precompute candidate paths", e);
+            }
+        }
+    };
+
+    /**
+     * Creates path precomputer.
+     *
+     * @param pathComputer path computer running the searches
+     * @param k number of candidate paths kept per PE pair
+     * @param parallelism number of threads computing candidates
+     */
+    public TePathPrecomputer(TePathComputer pathComputer, int k, int parallelism) {
+        this.pathComputer = pathComputer;
+        this.k = Math.max(1, k);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Starts the background pool.
+     */
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+        scheduleRefresh();
+    }
+
+    /**
+     * Stops the background pool.
+     */
+    public void stop() {
+        ForkJoinPool p = pool;
+        pool = null;
+        if (p != null) {
+            p.shutdownNow();
+            try {
+                p.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Adds a PE pair whose candidate paths are kept precomputed.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param metricType metric the candidates are ranked by
+     */
+    public void addPair(PccId pccId, long srcLsId, long dstLsId, TeConstraints.MetricType metricType) {
+        PePair pair = new PePair(pccId, srcLsId, dstLsId, metricType);
+        if (candidates.putIfAbsent(pair, Candidates.NONE) == null) {
+            dirtyPairs.add(pair);
+            scheduleRefresh();
+        }
+    }
+
+    /**
+     * Removes a PE pair.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param metricType metric the candidates are ranked by
+     */
+    public void removePair(PccId pccId, long srcLsId, long dstLsId, TeConstraints.MetricType metricType) {
+        PePair pair = new PePair(pccId, srcLsId, dstLsId, metricType);
+        candidates.remove(pair);
+        dirtyPairs.remove(pair);
+    }
+
+    /**
+     * Returns the number of configured PE pairs.
+     *
+     * @return pair count
+     */
+    public int pairCount() {
+        return candidates.size();
+    }
+
+    /**
+     * Returns the candidate paths of a PE pair, best first.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param metricType metric the candidates are ranked by
+     * @return candidate paths, empty if the pair is not configured or not computed yet
+     */
+    public List<TePath> candidates(PccId pccId, long srcLsId, long dstLsId,
+            TeConstraints.MetricType metricType) {
+        Candidates c = candidates.get(new PePair(pccId, srcLsId, dstLsId, metricType));
+        return c == null ? Collections.<TePath>emptyList() : Collections.unmodifiableList(c.paths);
+    }
+
+    /**
+     * Returns the first candidate path of a PE pair satisfying the constraints.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param constraints path constraints
+     * @return path on the current topology, null if the pair is not configured
+     *         or none of its candidates fits
+     */
+    public TePath select(PccId pccId, long srcLsId, long dstLsId, TeConstraints constraints) {
+        TeGraph g = pathComputer.graph();
+        TeTopology topology = g.topology();
+        return select(g, topology.nodeSlot(pccId, srcLsId), topology.nodeSlot(pccId, dstLsId), constraints);
+    }
+
+    /**
+     * Returns the first candidate path between two node slots satisfying the constraints.
+     *
+     * @param g TE graph of the current topology
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints
+     * @return path on the topology of the graph, null if the nodes are not a
+     *         configured pair or none of its candidates fits
+     */
+    public TePath select(TeGraph g, int src, int dst, TeConstraints constraints) {
+        TeTopology topology = g.topology();
+        TeNode srcNode = topology.nodeAt(src);
+        TeNode dstNode = topology.nodeAt(dst);
+        if (srcNode == null || dstNode == null || candidates.isEmpty()
+                || !Objects.equals(srcNode.origin(), dstNode.origin())) {
+            return null;
+        }
+        Candidates c = candidates.get(new PePair(srcNode.origin(), srcNode.lsId(), dstNode.lsId(),
+                constraints.metricType()));
+        if (c == null) {
+            return null;
+        }
+        for (int i = 0; i < c.paths.size(); i++) {
+            if (fits(topology, c.paths.get(i), c.links.get(i), constraints)) {
+                selectHits.increment();
+                TePath path = c.paths.get(i);
+                return new TePath(topology.version(), path.nodeSlots(), path.linkSlots(), path.cost());
+            }
+        }
+        selectMisses.increment();
+        return null;
+    }
+
+    /**
+     * Returns the number of background refreshes run.
+     *
+     * @return refresh count
+     */
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Returns the number of PE pairs whose candidates were computed.
+     *
+     * @return pair computation count
+     */
+    public long pairComputationCount() {
+        return pairComputations.sum();
+    }
+
+    /**
+     * Returns the number of selections answered by a candidate.
+     *
+     * @return selection hit count
+     */
+    public long selectHitCount() {
+        return selectHits.sum();
+    }
+
+    /**
+     * Returns the number of selections of a configured pair where no candidate fitted.
+     *
+     * @return selection miss count
+     */
+    public long selectMissCount() {
+        return selectMisses.sum();
+    }
+
+    @Override
+    public void topologyChanged(TeTopology previous, TeTopology current) {
+        if (!candidates.isEmpty()) {
+            scheduleRefresh();
+        }
+    }
+
+    private void scheduleRefresh() {
+        ForkJoinPool p = pool;
+        if (p == null || !refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            p.execute(refreshTask);
+        } catch (RejectedExecutionException e) {
+            refreshPending.set(false);
+            log.debug("Precomputation pool is shut down");
+        }
+    }
+
+    /*
+     * Runs on the pool, several topology changes may be handled at once.
+     */
+    private void refresh() {
+        synchronized (refreshLock) {
+            final TeGraph g = pathComputer.graph();
+            TeTopology now = g.topology();
+            Set<PePair> affected = new HashSet<>();
+            for (PePair pair : dirtyPairs) {
+                dirtyPairs.remove(pair);
+                affected.add(pair);
+            }
+            if (now.version() != computedOn.version()) {
+                affectedPairs(computedOn, now, affected);
+            }
+            computedOn = now;
+            if (affected.isEmpty()) {
+                return;
+            }
+
+            refreshes.increment();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(affected.size());
+            for (final PePair pair : affected) {
+                tasks.add(ForkJoinTask.adapt(new Runnable() {
+                    @Override
+                    public void run() {
+                        compute(g, pair);
+                    }
+                }));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            log.debug("Recomputed candidate paths of {} PE pairs on topology version {}",
+                    affected.size(), now.version());
+        }
+    }
+
+    private void affectedPairs(TeTopology prev, TeTopology now, Set<PePair> affected) {
+        BitSet removedNodes = new BitSet();
+        BitSet changedNodes = now.changedNodeSlots(prev);
+        for (int s = changedNodes.nextSetBit(0); s >= 0; s = changedNodes.nextSetBit(s + 1)) {
+            if (prev.nodeAt(s) == null) {
+                affected.addAll(candidates.keySet());
+                return;
+            } else if (now.nodeAt(s) == null) {
+                removedNodes.set(s);
+            }
+        }
+        BitSet changedLinks = new BitSet();
+        BitSet links = now.changedLinkSlots(prev);
+        for (int s = links.nextSetBit(0); s >= 0; s = links.nextSetBit(s + 1)) {
+            TeLink old = prev.linkAt(s);
+            TeLink cur = now.linkAt(s);
+            if (old != null && cur != null && old.sameRoute(cur)) {
+                continue;
+            }
+            if (old == null || (cur != null && mayShorten(old, cur))) {
+                affected.addAll(candidates.keySet());
+                return;
+            }
+            changedLinks.set(s);
+        }
+        if (removedNodes.isEmpty() && changedLinks.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<PePair, Candidates> e : candidates.entrySet()) {
+            if (e.getValue().uses(removedNodes, changedLinks)) {
+                affected.add(e.getKey());
+            }
+        }
+    }
+
+    /*
+     * Whether the link may now be part of a shorter path than before: it moved,
+     * got cheaper, or its admin group may now let it through.
+     */
+    private static boolean mayShorten(TeLink old, TeLink cur) {
+        return old.srcNode() != cur.srcNode() || old.dstNode() != cur.dstNode()
+                || old.adminGroup() != cur.adminGroup()
+                || TePathComputer.weight(cur, true) < TePathComputer.weight(old, true)
+                || TePathComputer.weight(cur, false) < TePathComputer.weight(old, false);
+    }
+
+    private void compute(TeGraph g, PePair pair) {
+        TeTopology topology = g.topology();
+        int src = topology.nodeSlot(pair.pccId, pair.srcLsId);
+        int dst = topology.nodeSlot(pair.pccId, pair.dstLsId);
+        List<TePath> paths = Collections.emptyList();
+        if (topology.nodeAt(src) != null && topology.nodeAt(dst) != null) {
+            TeConstraints c = TeConstraints.builder().metricType(pair.metricType).build();
+            paths = kShortestPaths(g, src, dst, c);
+        }
+        pairComputations.increment();
+        final Candidates computed = new Candidates(topology, paths);
+        // The pair may have been removed meanwhile.
+        candidates.computeIfPresent(pair, (p, old) -> computed);
+    }
+
+    /**
+     * Computes up to k loopless shortest paths with Yen's algorithm.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param c path constraints
+     * @return paths by increasing cost
+     */
+    List<TePath> kShortestPaths(TeGraph g, int src, int dst, TeConstraints c) {
+        List<TePath> found = new ArrayList<>(k);
+        TePath first = pathComputer.computePath(g, src, dst, c);
+        if (first == null) {
+            return found;
+        }
+        found.add(first);
+
+        boolean teMetric = c.metricType() == TeConstraints.MetricType.TE;
+        TeTopology topology = g.topology();
+        PriorityQueue<TePath> pending = new PriorityQueue<>(BY_COST);
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(Ints.asList(first.linkSlots()));
+        BitSet excludedNodes = new BitSet(g.nodeCount());
+        BitSet excludedLinks = new BitSet();
+
+        while (found.size() < k) {
+            TePath prev = found.get(found.size() - 1);
+            int[] prevNodes = prev.nodeSlots();
+            int[] prevLinks = prev.linkSlots();
+            long rootCost = 0;
+            for (int i = 0; i < prevLinks.length; i++) {
+                // Root path is prev up to node i, the spur path leaves from node i.
+                excludedNodes.clear();
+                excludedLinks.clear();
+                for (int r = 0; r < i; r++) {
+                    excludedNodes.set(prevNodes[r]);
+                }
+                for (TePath p : found) {
+                    int[] links = p.linkSlots();
+                    if (links.length > i && samePrefix(links, prevLinks, i)) {
+                        excludedLinks.set(links[i]);
+                    }
+                }
+
+                TePath spur = pathComputer.computePath(g, prevNodes[i], dst, c, excludedNodes, excludedLinks);
+                if (spur != null) {
+                    TePath candidate = join(prev, i, spur, rootCost + spur.cost(), topology.version());
+                    if (seen.add(Ints.asList(candidate.linkSlots()))) {
+                        pending.add(candidate);
+                    }
+                }
+                rootCost += TePathComputer.weight(topology.linkAt(prevLinks[i]), teMetric);
+            }
+            if (pending.isEmpty()) {
+                break;
+            }
+            found.add(pending.poll());
+        }
+        return found;
+    }
+
+    private static boolean samePrefix(int[] a, int[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static TePath join(TePath root, int rootHops, TePath spur, long cost, long version) {
+        int[] spurNodes = spur.nodeSlots();
+        int[] spurLinks = spur.linkSlots();
+        int[] nodes = new int[rootHops + spurNodes.length];
+        int[] links = new int[rootHops + spurLinks.length];
+        System.arraycopy(root.nodeSlots(), 0, nodes, 0, rootHops);
+        System.arraycopy(spurNodes, 0, nodes, rootHops, spurNodes.length);
+        System.arraycopy(root.linkSlots(), 0, links, 0, rootHops);
+        System.arraycopy(spurLinks, 0, links, rootHops, spurLinks.length);
+        return new TePath(version, nodes, links, cost);
+    }
+
+    /*
+     * A candidate fits if its nodes are still there, its links route as when it
+     * was computed and they satisfy the constraints on the current topology.
+     */
+    private static boolean fits(TeTopology topology, TePath path, TeLink[] records, TeConstraints c) {
+        for (int node : path.nodeSlots()) {
+            if (topology.nodeAt(node) == null) {
+                return false;
+            }
+        }
+        int[] linkSlots = path.linkSlots();
+        for (int i = 0; i < linkSlots.length; i++) {
+            TeLink cur = topology.linkAt(linkSlots[i]);
+            if (cur == null || (cur != records[i] && !records[i].sameRoute(cur))) {
+                return false;
+            }
+            int group = cur.adminGroup();
+            if ((group & c.excludeAny()) != 0 || (c.includeAny() != 0 && (group & c.includeAny()) == 0)) {
+                return false;
+            }
+            if (c.bandwidth() > 0 && TeGraph.availableBandwidth(cur, c.setupPriority()) < c.bandwidth()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Candidate paths of a pair with the link records they were computed on.
+     */
+    private static final class Candidates {
+        private static final Candidates NONE = new Candidates(TeTopology.EMPTY,
+                Collections.<TePath>emptyList());
+
+        private final List<TePath> paths;
+        private final List<TeLink[]> links;
+
+        private Candidates(TeTopology topology, List<TePath> paths) {
+            this.paths = paths;
+            this.links = new ArrayList<>(paths.size());
+            for (TePath path : paths) {
+                int[] linkSlots = path.linkSlots();
+                TeLink[] records = new TeLink[linkSlots.length];
+                for (int i = 0; i < linkSlots.length; i++) {
+                    records[i] = topology.linkAt(linkSlots[i]);
+                }
+                links.add(records);
+            }
+        }
+
+        private boolean uses(BitSet nodes, BitSet linkSlots) {
+            for (TePath path : paths) {
+                for (int node : path.nodeSlots()) {
+                    if (nodes.get(node)) {
+                        return true;
+                    }
+                }
+                for (int link : path.linkSlots()) {
+                    if (linkSlots.get(link)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Source and destination of precomputed paths.
+     */
+    private static final class PePair {
+        private final PccId pccId;
+        private final long srcLsId;
+        private final long dstLsId;
+        private final TeConstraints.MetricType metricType;
+
+        private PePair(PccId pccId, long srcLsId, long dstLsId, TeConstraints.MetricType metricType) {
+            this.pccId = pccId;
+            this.srcLsId = srcLsId;
+            this.dstLsId = dstLsId;
+            this.metricType = metricType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pccId, srcLsId, dstLsId, metricType);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof PePair) {
+                PePair other = (PePair) obj;
+                return Objects.equals(pccId, other.pccId) && srcLsId == other.srcLsId
+                        && dstLsId == other.dstLsId && metricType == other.metricType;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("pccId", pccId)
+                    .add("src", new LsId(srcLsId))
+                    .add("dst", new LsId(dstLsId))
+                    .add("metricType", metricType)
+                    .toString();
+        }
+    }
+}
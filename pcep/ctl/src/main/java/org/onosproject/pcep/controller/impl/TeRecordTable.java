@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable table of topology records indexed by slot.
+ * <p>
+ * Records are kept in fixed size pages. A new version of the table copies
+ * only the page directory and the pages it modifies, all other pages are
+ * shared with the previous version.
+ *
+ * @param <T> record type
+ */
+final class TeRecordTable<T> {
+
+    static final int PAGE_SHIFT = 10;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final TeRecordTable<?> EMPTY = new TeRecordTable<>(new Object[0][], 0, 0);
+
+    private final Object[][] pages;
+    private final int size;
+    private final int count;
+
+    private TeRecordTable(Object[][] pages, int size, int count) {
+        this.pages = pages;
+        this.size = size;
+        this.count = count;
+    }
+
+    /**
+     * Returns the empty table.
+     *
+     * @param <T> record type
+     * @return empty table
+     */
+    @SuppressWarnings("unchecked")
+    static <T> TeRecordTable<T> empty() {
+        return (TeRecordTable<T>) EMPTY;
+    }
+
+    /**
+     * Returns the record stored in the slot.
+     *
+     * @param slot slot of the record
+     * @return record, null if the slot is empty or out of range
+     */
+    @SuppressWarnings("unchecked")
+    T get(int slot) {
+        if (slot < 0 || slot >= size) {
+            return null;
+        }
+        return (T) pages[slot >>> PAGE_SHIFT][slot & PAGE_MASK];
+    }
+
+    /**
+     * Returns the number of slots, including empty ones.
+     *
+     * @return slot count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return record count
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Collects the slots whose record differs from the other version of the
+     * table. Pages shared by both versions are skipped without being read.
+     *
+     * @param other other version of the table
+     * @param changed set receiving the changed slots
+     */
+    void changedSlots(TeRecordTable<T> other, BitSet changed) {
+        int pageCount = Math.max(pages.length, other.pages.length);
+        for (int p = 0; p < pageCount; p++) {
+            Object[] a = p < pages.length ? pages[p] : null;
+            Object[] b = p < other.pages.length ? other.pages[p] : null;
+            if (a == b) {
+                continue;
+            }
+            int base = p << PAGE_SHIFT;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                Object ra = a == null ? null : a[i];
+                Object rb = b == null ? null : b[i];
+                if (ra != rb) {
+                    changed.set(base + i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Single writer which derives new versions of a table. Pages copied during
+     * a batch are modified in place until the batch is published.
+     *
+     * @param <T> record type
+     */
+    static final class Writer<T> {
+        private Object[][] pages;
+        private int size;
+        private int count;
+        private boolean ownsDirectory;
+        private boolean[] ownsPage;
+
+        /**
+         * Creates writer starting from the given table.
+         *
+         * @param table table to derive new versions from
+         */
+        Writer(TeRecordTable<T> table) {
+            reset(table);
+        }
+
+        /**
+         * Discards unpublished changes and continues from the given table.
+         *
+         * @param table table to derive new versions from
+         */
+        void reset(TeRecordTable<T> table) {
+            pages = table.pages;
+            size = table.size;
+            count = table.count;
+            ownsDirectory = false;
+            ownsPage = new boolean[pages.length];
+        }
+
+        /**
+         * Returns the record stored in the slot, including unpublished changes.
+         *
+         * @param slot slot of the record
+         * @return record, null if the slot is empty
+         */
+        @SuppressWarnings("unchecked")
+        T get(int slot) {
+            if (slot < 0 || slot >= size) {
+                return null;
+            }
+            return (T) pages[slot >>> PAGE_SHIFT][slot & PAGE_MASK];
+        }
+
+        /**
+         * Stores the record in the slot, null clears the slot.
+         *
+         * @param slot slot of the record
+         * @param record record to be stored
+         */
+        void set(int slot, T record) {
+            int page = slot >>> PAGE_SHIFT;
+            if (page >= pages.length) {
+                int newLength = Math.max(page + 1, pages.length * 2);
+                pages = Arrays.copyOf(pages, newLength);
+                ownsPage = Arrays.copyOf(ownsPage, newLength);
+                ownsDirectory = true;
+            } else if (!ownsDirectory) {
+                pages = pages.clone();
+                ownsDirectory = true;
+            }
+            if (!ownsPage[page]) {
+                pages[page] = pages[page] == null ? new Object[PAGE_SIZE] : pages[page].clone();
+                ownsPage[page] = true;
+            }
+
+            Object[] p = pages[page];
+            Object old = p[slot & PAGE_MASK];
+            p[slot & PAGE_MASK] = record;
+            if (old == null && record != null) {
+                count++;
+            } else if (old != null && record == null) {
+                count--;
+            }
+            size = Math.max(size, slot + 1);
+        }
+
+        /**
+         * Publishes the changes made so far. Later changes copy the pages again.
+         *
+         * @return immutable table
+         */
+        TeRecordTable<T> publish() {
+            TeRecordTable<T> table = new TeRecordTable<>(pages, size, count);
+            ownsDirectory = false;
+            Arrays.fill(ownsPage, false);
+            return table;
+        }
+    }
+}
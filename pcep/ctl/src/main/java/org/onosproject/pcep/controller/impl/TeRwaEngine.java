@@ -0,0 +1,437 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcepio.types.GeneralizedLabelObject;
+import org.onosproject.pcepio.types.IPv4SubObject;
+import org.onosproject.pcepio.types.LabelEroSubObject;
+import org.onosproject.pcepio.types.PcepValueType;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Routing and wavelength assignment over the available label bitmaps of
+ * ACTN links.
+ * <p>
+ * A lightpath needs the same label on every link (wavelength continuity).
+ * The k shortest paths are tried by increasing cost: the bitmaps of their
+ * links are AND-ed word by word, stopping as soon as no label is left, and
+ * the first path with a common label wins. Only when none of them has one,
+ * the shortest path is searched label by label over the links offering it.
+ * Requests without any continuous label are rejected up front by a single
+ * propagation of label sets from the source.
+ * Links advertising no labels do not constrain the label.
+ */
+public class TeRwaEngine {
+
+    /**
+     * Choice among the labels available along the path.
+     */
+    public enum Policy {
+        /**
+         * Lowest label index.
+         */
+        FIRST_FIT,
+
+        /**
+         * Label already in use on the most links, which keeps the other
+         * labels free for longer paths.
+         */
+        MOST_USED
+    }
+
+    // Marker for paths over links without labels only
+    private static final long[] UNCONSTRAINED = new long[0];
+
+    private final TePathComputer pathComputer;
+    private final TePathPrecomputer candidates;
+    private volatile LabelUsage usage = new LabelUsage(-1, new int[0]);
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder labelSearches = new LongAdder();
+
+    /**
+     * Creates RWA engine.
+     *
+     * @param pathComputer path computation over the TE topology
+     * @param candidates source of the k shortest candidate paths
+     */
+    public TeRwaEngine(TePathComputer pathComputer, TePathPrecomputer candidates) {
+        this.pathComputer = pathComputer;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Computes a lightpath between two nodes of the current topology.
+     *
+     * @param pccId pcc which reported both nodes
+     * @param srcLsId LS-ID of the source node
+     * @param dstLsId LS-ID of the destination node
+     * @param constraints path constraints
+     * @param policy label assignment policy
+     * @return lightpath, null if the nodes are unknown or no label is continuous along any path
+     */
+    public Lightpath computePath(PccId pccId, long srcLsId, long dstLsId, TeConstraints constraints,
+            Policy policy) {
+        TeGraph g = pathComputer.graph();
+        TeTopology topology = g.topology();
+        int src = topology.nodeSlot(pccId, srcLsId);
+        int dst = topology.nodeSlot(pccId, dstLsId);
+        if (topology.nodeAt(src) == null || topology.nodeAt(dst) == null) {
+            return null;
+        }
+        return computePath(g, src, dst, constraints, policy);
+    }
+
+    /**
+     * Computes a lightpath between two node slots of the graph.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @param constraints path constraints
+     * @param policy label assignment policy
+     * @return lightpath, null if no label is continuous along any path
+     */
+    public Lightpath computePath(TeGraph g, int src, int dst, TeConstraints constraints, Policy policy) {
+        requests.increment();
+        TeTopology topology = g.topology();
+        long[] reachable = reachableLabels(g, src, dst);
+        if (reachable == null) {
+            blocked.increment();
+            return null;
+        }
+        long[] common = null;
+        for (TePath path : candidates.kShortestPaths(g, src, dst, constraints)) {
+            common = commonLabels(topology, path.linkSlots(), common);
+            if (common == UNCONSTRAINED) {
+                return new Lightpath(path, -1);
+            }
+            int label = select(topology, common, policy);
+            if (label >= 0) {
+                return new Lightpath(path, label);
+            }
+        }
+
+        Lightpath lightpath = searchByLabel(g, src, dst, constraints, policy, reachable);
+        if (lightpath == null) {
+            blocked.increment();
+        }
+        return lightpath;
+    }
+
+    /**
+     * Returns the ERO hops of the lightpath, each hop over a link with labels
+     * followed by the label of the lightpath.
+     *
+     * @param topology topology the lightpath belongs to
+     * @param lightpath lightpath
+     * @return ERO subobjects
+     */
+    public static LinkedList<PcepValueType> eroSubObjects(TeTopology topology, Lightpath lightpath) {
+        LinkedList<PcepValueType> subObjects = PcepStatelessPce.eroSubObjects(topology, lightpath.path());
+        if (lightpath.label() < 0) {
+            return subObjects;
+        }
+        int[] links = lightpath.path().linkSlots();
+        ListIterator<PcepValueType> it = subObjects.listIterator();
+        for (int link : links) {
+            PcepValueType hop = it.next();
+            if (hop instanceof IPv4SubObject && topology.linkAt(link).labelCount() > 0) {
+                it.add(LabelEroSubObject.of(GeneralizedLabelObject.cType,
+                        GeneralizedLabelObject.of(lightpath.label())));
+            }
+        }
+        return subObjects;
+    }
+
+    /**
+     * Returns the number of lightpaths requested.
+     *
+     * @return request count
+     */
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of requests for which no label was continuous.
+     *
+     * @return blocked count
+     */
+    public long blockedCount() {
+        return blocked.sum();
+    }
+
+    /**
+     * Returns the number of requests which fell back to the search label by label.
+     *
+     * @return label search count
+     */
+    public long labelSearchCount() {
+        return labelSearches.sum();
+    }
+
+    /**
+     * Returns the labels available on every link of the path, reusing the
+     * scratch array when it is large enough.
+     *
+     * @param topology topology the links belong to
+     * @param linkSlots link slots of the path
+     * @param scratch array the result may be written to, may be null
+     * @return common label bitmap, {@code UNCONSTRAINED} if no link has labels
+     */
+    static long[] commonLabels(TeTopology topology, int[] linkSlots, long[] scratch) {
+        long[] common = null;
+        int words = 0;
+        for (int slot : linkSlots) {
+            TeLink link = topology.linkAt(slot);
+            if (link.labelCount() == 0) {
+                continue;
+            }
+            long[] labels = link.availableLabels();
+            if (common == null) {
+                words = labels.length;
+                common = scratch != null && scratch != UNCONSTRAINED && scratch.length >= words
+                        ? scratch : new long[words];
+                System.arraycopy(labels, 0, common, 0, words);
+            } else {
+                words = Math.min(words, labels.length);
+            }
+            long any = 0;
+            for (int w = 0; w < words; w++) {
+                common[w] &= labels[w];
+                any |= common[w];
+            }
+            if (any == 0) {
+                return new long[0];
+            }
+        }
+        if (common == null) {
+            return UNCONSTRAINED;
+        }
+        for (int w = words; w < common.length; w++) {
+            common[w] = 0;
+        }
+        return common;
+    }
+
+    private int select(TeTopology topology, long[] labels, Policy policy) {
+        if (policy == Policy.FIRST_FIT) {
+            for (int w = 0; w < labels.length; w++) {
+                if (labels[w] != 0) {
+                    return w * Long.SIZE + Long.numberOfTrailingZeros(labels[w]);
+                }
+            }
+            return -1;
+        }
+
+        int[] used = usage(topology);
+        int best = -1;
+        for (int w = 0; w < labels.length; w++) {
+            for (long bits = labels[w]; bits != 0; bits &= bits - 1) {
+                int label = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                if (best < 0 || count(used, label) > count(used, best)) {
+                    best = label;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int count(int[] used, int label) {
+        return label < used.length ? used[label] : 0;
+    }
+
+    /*
+     * Number of links on which each label is described but not available, kept per version.
+     */
+    private int[] usage(TeTopology topology) {
+        LabelUsage u = usage;
+        if (u.version == topology.version()) {
+            return u.used;
+        }
+        int max = 0;
+        for (int s = 0; s < topology.linkSlotCount(); s++) {
+            TeLink link = topology.linkAt(s);
+            if (link != null) {
+                max = Math.max(max, link.labelCount());
+            }
+        }
+        int[] used = new int[max];
+        for (int s = 0; s < topology.linkSlotCount(); s++) {
+            TeLink link = topology.linkAt(s);
+            if (link == null) {
+                continue;
+            }
+            long[] labels = link.availableLabels();
+            for (int label = 0; label < link.labelCount(); label++) {
+                if ((labels[label >>> 6] & (1L << label)) == 0) {
+                    used[label]++;
+                }
+            }
+        }
+        usage = new LabelUsage(topology.version(), used);
+        return used;
+    }
+
+    /*
+     * Shortest path over the links offering each label which reaches the destination, in
+     * the order of the policy. The first label with a path wins.
+     */
+    private Lightpath searchByLabel(TeGraph g, int src, int dst, TeConstraints constraints, Policy policy,
+            long[] offered) {
+        TeTopology topology = g.topology();
+        labelSearches.increment();
+        BitSet excluded = new BitSet(topology.linkSlotCount());
+        int label;
+        while ((label = select(topology, offered, policy)) >= 0) {
+            offered[label >>> 6] &= ~(1L << label);
+            excluded.clear();
+            for (int s = 0; s < topology.linkSlotCount(); s++) {
+                TeLink link = topology.linkAt(s);
+                if (link != null && link.labelCount() > 0 && (label >= link.labelCount()
+                        || (link.availableLabels()[label >>> 6] & (1L << label)) == 0)) {
+                    excluded.set(s);
+                }
+            }
+            TePath path = pathComputer.computePath(g, src, dst, constraints, null, excluded);
+            if (path != null) {
+                return new Lightpath(path, label);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the labels continuous from the source to the destination along
+     * some path, ignoring all other constraints. Label sets are propagated
+     * from the source until no node gains a label, each link passing on the
+     * labels it offers.
+     *
+     * @param g TE graph
+     * @param src source node slot
+     * @param dst destination node slot
+     * @return label bitmap, null if the destination is not reachable
+     */
+    static long[] reachableLabels(TeGraph g, int src, int dst) {
+        TeTopology topology = g.topology();
+        int words = 0;
+        for (int s = 0; s < topology.linkSlotCount(); s++) {
+            TeLink link = topology.linkAt(s);
+            if (link != null) {
+                words = Math.max(words, link.availableLabels().length);
+            }
+        }
+
+        long[][] reach = new long[g.nodeCount()][];
+        reach[src] = new long[words];
+        Arrays.fill(reach[src], -1L);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        boolean[] queued = new boolean[g.nodeCount()];
+        queue.add(src);
+        queued[src] = true;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            queued[u] = false;
+            for (int e = g.offset(u); e < g.offset(u + 1); e++) {
+                TeLink link = topology.linkAt(g.linkSlot(e));
+                long[] labels = link.labelCount() > 0 ? link.availableLabels() : null;
+                int v = g.target(e);
+                boolean grown = false;
+                for (int w = 0; w < words; w++) {
+                    long passed = reach[u][w] & (labels == null ? -1L : w < labels.length ? labels[w] : 0);
+                    if (passed == 0) {
+                        continue;
+                    }
+                    if (reach[v] == null) {
+                        reach[v] = new long[words];
+                    }
+                    if ((reach[v][w] | passed) != reach[v][w]) {
+                        reach[v][w] |= passed;
+                        grown = true;
+                    }
+                }
+                if (grown && !queued[v] && v != dst) {
+                    queue.add(v);
+                    queued[v] = true;
+                }
+            }
+        }
+        return reach[dst];
+    }
+
+    /**
+     * Label usage counts of a topology version.
+     */
+    private static final class LabelUsage {
+        private final long version;
+        private final int[] used;
+
+        private LabelUsage(long version, int[] used) {
+            this.version = version;
+            this.used = used;
+        }
+    }
+
+    /**
+     * Path with the label assigned on all of its links.
+     */
+    public static final class Lightpath {
+        private final TePath path;
+        private final int label;
+
+        private Lightpath(TePath path, int label) {
+            this.path = path;
+            this.label = label;
+        }
+
+        /**
+         * Returns the path.
+         *
+         * @return TE path
+         */
+        public TePath path() {
+            return path;
+        }
+
+        /**
+         * Returns the label index assigned along the path.
+         *
+         * @return label, -1 if no link of the path has labels
+         */
+        public int label() {
+            return label;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(getClass())
+                    .add("path", path)
+                    .add("label", label)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.onosproject.pcepio.protocol.PcepNai;
+import org.onosproject.pcepio.types.PathSetupTypeTlv;
+import org.onosproject.pcepio.types.PcepNaiIpv4Adjacency;
+import org.onosproject.pcepio.types.PcepNaiIpv4NodeId;
+import org.onosproject.pcepio.types.PcepNaiUnnumberedAdjacencyIpv4;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.onosproject.pcepio.types.SrEroSubObject;
+
+/**
+ * Encodes TE paths as SR-MPLS segment lists for SR-ERO subobjects.
+ * <p>
+ * A path is cut into as few segments as possible: from the start of a
+ * segment, the segment is extended along the path as long as the path so far
+ * is the only shortest IGP path to its end, so that forwarding on the
+ * Prefix-SID of that end follows the path whatever the ECMP hashing. When not
+ * even the first link qualifies, the Adjacency-SID of the link is used.
+ * <p>
+ * Prefix-SIDs, SRGBs and Adjacency-SIDs of the topology are copied into
+ * arrays indexed by node and link slot once per topology version. Shortest
+ * path trees of segment start nodes and the encodings of paths are kept, in
+ * bounded LRU maps, until the topology changes.
+ */
+public class TeSrEncoder {
+
+    /**
+     * Path setup type of SR-TE LSPs [RFC8664].
+     */
+    public static final byte PST_SEGMENT_ROUTING = 1;
+
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+    // Shortest path counts saturate, only one or more than one matters
+    private static final byte MULTIPLE_PATHS = 2;
+    private static final int NO_SID = TeNode.NO_SID;
+
+    // Fixed part of an SR-ERO subobject: header, flags and SID
+    private static final int SR_ERO_HEADER_LENGTH = 8;
+    private static final int IPV4_NODE_NAI_LENGTH = 4;
+    private static final int IPV4_ADJACENCY_NAI_LENGTH = 8;
+    private static final int UNNUMBERED_NAI_LENGTH = 16;
+
+    private static final Encoding UNENCODABLE = new Encoding(new int[0], new int[0]);
+
+    private final int maxTrees;
+    private final int maxEncodings;
+    private volatile State state;
+
+    private final LongAdder encodings = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder trees = new LongAdder();
+    private final LongAdder unencodable = new LongAdder();
+    private final LongAdder depthExceeded = new LongAdder();
+
+    /**
+     * Creates SR encoder.
+     *
+     * @param maxTrees maximum number of shortest path trees kept per topology version
+     * @param maxEncodings maximum number of path encodings kept per topology version
+     */
+    public TeSrEncoder(int maxTrees, int maxEncodings) {
+        this.maxTrees = maxTrees;
+        this.maxEncodings = maxEncodings;
+    }
+
+    /**
+     * Returns whether the TLVs of an SRP or RP object ask for an SR-TE path.
+     *
+     * @param tlvs optional TLVs, may be null
+     * @return true if a PATH-SETUP-TYPE TLV carries the SR path setup type
+     */
+    public static boolean isSegmentRouting(List<PcepValueType> tlvs) {
+        if (tlvs != null) {
+            for (PcepValueType tlv : tlvs) {
+                if (tlv instanceof PathSetupTypeTlv) {
+                    return ((PathSetupTypeTlv) tlv).getPst() == PST_SEGMENT_ROUTING;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the SR-ERO subobjects steering traffic along the path, one per
+     * segment, with the SIDs as labels.
+     *
+     * @param g TE graph the path was computed on
+     * @param path TE path
+     * @param maxSidDepth maximum SID depth of the head end
+     * @return SR-ERO subobjects, null if a segment has no usable SID or the
+     *         path needs more segments than the maximum SID depth
+     */
+    public LinkedList<PcepValueType> eroSubObjects(TeGraph g, TePath path, int maxSidDepth) {
+        Encoding encoding = encode(g, path);
+        if (encoding == UNENCODABLE) {
+            unencodable.increment();
+            return null;
+        }
+        if (encoding.segments.length > maxSidDepth) {
+            depthExceeded.increment();
+            return null;
+        }
+        TeTopology topology = g.topology();
+        LinkedList<PcepValueType> subObjects = new LinkedList<>();
+        for (int i = 0; i < encoding.segments.length; i++) {
+            int segment = encoding.segments[i];
+            subObjects.add(segment >= 0 ? nodeSubObject(topology, segment, encoding.labels[i])
+                    : adjacencySubObject(topology, ~segment, encoding.labels[i]));
+        }
+        return subObjects;
+    }
+
+    /**
+     * Returns the segments of the path: node slots for Prefix-SIDs and the
+     * complement of link slots for Adjacency-SIDs.
+     *
+     * @param g TE graph the path was computed on
+     * @param path TE path
+     * @return segments, null if a segment has no usable SID
+     */
+    public int[] segments(TeGraph g, TePath path) {
+        Encoding encoding = encode(g, path);
+        return encoding == UNENCODABLE ? null : encoding.segments.clone();
+    }
+
+    /**
+     * Returns the encoded length of an ERO subobject built by this class or
+     * by {@link PcepStatelessPce#eroSubObjects}.
+     *
+     * @param subObject ERO subobject
+     * @return length in bytes
+     */
+    static int subObjectLength(PcepValueType subObject) {
+        if (!(subObject instanceof SrEroSubObject)) {
+            return subObject.getLength();
+        }
+        SrEroSubObject sr = (SrEroSubObject) subObject;
+        if (sr.getFFlag() || sr.getNai() == null) {
+            return SR_ERO_HEADER_LENGTH;
+        }
+        switch (sr.getNai().getType()) {
+        case PcepNaiIpv4NodeId.ST_TYPE:
+            return SR_ERO_HEADER_LENGTH + IPV4_NODE_NAI_LENGTH;
+        case PcepNaiIpv4Adjacency.ST_TYPE:
+            return SR_ERO_HEADER_LENGTH + IPV4_ADJACENCY_NAI_LENGTH;
+        default:
+            return SR_ERO_HEADER_LENGTH + UNNUMBERED_NAI_LENGTH;
+        }
+    }
+
+    private Encoding encode(TeGraph g, TePath path) {
+        if (path.hopCount() == 0) {
+            return UNENCODABLE;
+        }
+        State s = state;
+        if (s == null || s.graph != g) {
+            s = state(g);
+        }
+
+        PathKey key = new PathKey(path.linkSlots());
+        Encoding encoding = s.encoding(key);
+        if (encoding != null) {
+            cacheHits.increment();
+            return encoding;
+        }
+        encoding = compress(s, path);
+        encodings.increment();
+        s.putEncoding(key, encoding);
+        return encoding;
+    }
+
+    /*
+     * Tables of the graph. Paths of a snapshot older than the current state
+     * are encoded without replacing it.
+     */
+    private synchronized State state(TeGraph g) {
+        State s = state;
+        if (s != null && s.graph == g) {
+            return s;
+        }
+        State fresh = new State(g);
+        if (s == null || s.graph.version() <= g.version()) {
+            state = fresh;
+        }
+        return fresh;
+    }
+
+    /*
+     * Greedy compression. From the segment start the path is followed while
+     * its cost so far equals the shortest distance and the shortest path is
+     * unique; the last such node with a Prefix-SID ends the segment. Since a
+     * sub-path of a unique shortest path is itself one, how far a segment can
+     * reach never decreases along the path and the farthest end is optimal.
+     */
+    private Encoding compress(State s, TePath path) {
+        int[] nodes = path.nodeSlots();
+        int[] links = path.linkSlots();
+        int hops = links.length;
+        long[] cost = new long[hops + 1];
+        for (int i = 0; i < hops; i++) {
+            cost[i + 1] = cost[i] + s.linkMetrics[links[i]];
+        }
+
+        int[] segments = new int[hops];
+        int[] labels = new int[hops];
+        int count = 0;
+        int i = 0;
+        while (i < hops) {
+            int start = nodes[i];
+            Tree tree = s.tree(start);
+            int end = -1;
+            int endLabel = NO_SID;
+            for (int j = i + 1; j <= hops; j++) {
+                int n = nodes[j];
+                if (tree.dist[n] != cost[j] - cost[i] || tree.paths[n] == MULTIPLE_PATHS) {
+                    break;
+                }
+                int label = s.prefixLabel(start, n);
+                if (label != NO_SID) {
+                    end = j;
+                    endLabel = label;
+                }
+            }
+            if (end > 0) {
+                segments[count] = nodes[end];
+                labels[count++] = endLabel;
+                i = end;
+            } else if (s.adjacencySids[links[i]] != NO_SID) {
+                segments[count] = ~links[i];
+                labels[count++] = s.adjacencySids[links[i]];
+                i++;
+            } else {
+                return UNENCODABLE;
+            }
+        }
+        return new Encoding(Arrays.copyOf(segments, count), Arrays.copyOf(labels, count));
+    }
+
+    private static SrEroSubObject nodeSubObject(TeTopology topology, int node, int label) {
+        int routerId = topology.nodeAt(node).ipv4RouterId();
+        PcepNai nai = routerId != 0 ? PcepNaiIpv4NodeId.of(routerId) : null;
+        return SrEroSubObject.of(PcepNaiIpv4NodeId.ST_TYPE, nai == null, false, false, true, label, nai);
+    }
+
+    private static SrEroSubObject adjacencySubObject(TeTopology topology, int link, int label) {
+        TeLink l = topology.linkAt(link);
+        if (l.localIfAddr() != 0 && l.remoteIfAddr() != 0) {
+            return SrEroSubObject.of(PcepNaiIpv4Adjacency.ST_TYPE, false, false, false, true, label,
+                    PcepNaiIpv4Adjacency.of(l.localIfAddr(), l.remoteIfAddr()));
+        }
+        int srcRouterId = topology.nodeAt(l.srcNode()).ipv4RouterId();
+        int dstRouterId = topology.nodeAt(l.dstNode()).ipv4RouterId();
+        if (l.localId() != 0 && srcRouterId != 0 && dstRouterId != 0) {
+            return SrEroSubObject.of(PcepNaiUnnumberedAdjacencyIpv4.ST_TYPE, false, false, false, true, label,
+                    PcepNaiUnnumberedAdjacencyIpv4.of(srcRouterId, l.localId(), dstRouterId, l.remoteId()));
+        }
+        return SrEroSubObject.of(PcepNaiIpv4Adjacency.ST_TYPE, true, false, false, true, label, null);
+    }
+
+    /**
+     * Returns the number of paths encoded, cache misses included.
+     *
+     * @return encoding count
+     */
+    public long encodingCount() {
+        return encodings.sum();
+    }
+
+    /**
+     * Returns the number of encodings answered from the cache.
+     *
+     * @return cache hit count
+     */
+    public long cacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of shortest path trees computed.
+     *
+     * @return tree count
+     */
+    public long treeCount() {
+        return trees.sum();
+    }
+
+    /**
+     * Returns the number of paths which could not be encoded for lack of SIDs.
+     *
+     * @return unencodable path count
+     */
+    public long unencodableCount() {
+        return unencodable.sum();
+    }
+
+    /**
+     * Returns the number of paths needing more segments than the head end supports.
+     *
+     * @return count of paths beyond the maximum SID depth
+     */
+    public long depthExceededCount() {
+        return depthExceeded.sum();
+    }
+
+    /*
+     * SID tables, trees and encodings of one topology version.
+     */
+    private final class State {
+        private final TeGraph graph;
+        // IGP weight of each link slot, as used for the trees
+        private final long[] linkMetrics;
+        private final int[] prefixIndexes;
+        private final int[] prefixLabels;
+        private final int[] adjacencySids;
+        private final Map<Integer, Tree> trees;
+        private final Map<PathKey, Encoding> encodings;
+
+        private State(TeGraph g) {
+            graph = g;
+            TeTopology topology = g.topology();
+            int nodes = g.nodeCount();
+            prefixIndexes = new int[nodes];
+            prefixLabels = new int[nodes];
+            for (int n = 0; n < nodes; n++) {
+                TeNode node = topology.nodeAt(n);
+                prefixIndexes[n] = node == null ? NO_SID : node.prefixSidIndex();
+                prefixLabels[n] = node == null ? NO_SID : node.prefixSidLabel();
+            }
+            int links = topology.linkSlotCount();
+            linkMetrics = new long[links];
+            adjacencySids = new int[links];
+            for (int l = 0; l < links; l++) {
+                TeLink link = topology.linkAt(l);
+                linkMetrics[l] = link == null ? 0 : metric(TePathComputer.weight(link, false));
+                adjacencySids[l] = link == null ? NO_SID : link.adjacencySid();
+            }
+            trees = new LinkedHashMap<Integer, Tree>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Tree> eldest) {
+                    return size() > maxTrees;
+                }
+            };
+            encodings = new LinkedHashMap<PathKey, Encoding>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PathKey, Encoding> eldest) {
+                    return size() > maxEncodings;
+                }
+            };
+        }
+
+        /*
+         * Label the start node of a segment expects for the Prefix-SID of the
+         * end node: the label itself, or the index in the SRGB of the start node.
+         */
+        private int prefixLabel(int start, int end) {
+            if (prefixLabels[end] != NO_SID) {
+                return prefixLabels[end];
+            }
+            if (prefixIndexes[end] == NO_SID) {
+                return NO_SID;
+            }
+            return graph.topology().nodeAt(start).srgbLabel(prefixIndexes[end]);
+        }
+
+        private Tree tree(int root) {
+            Tree tree;
+            synchronized (trees) {
+                tree = trees.get(root);
+            }
+            if (tree == null) {
+                tree = new Tree(graph, root);
+                TeSrEncoder.this.trees.increment();
+                synchronized (trees) {
+                    trees.put(root, tree);
+                }
+            }
+            return tree;
+        }
+
+        private Encoding encoding(PathKey key) {
+            synchronized (encodings) {
+                return encodings.get(key);
+            }
+        }
+
+        private void putEncoding(PathKey key, Encoding encoding) {
+            synchronized (encodings) {
+                encodings.put(key, encoding);
+            }
+        }
+    }
+
+    /*
+     * IGP metric of 0 would make shortest path counts depend on the order
+     * nodes are settled in; routers do not advertise it.
+     */
+    private static long metric(long weight) {
+        return Math.max(1, weight);
+    }
+
+    /*
+     * Shortest IGP path tree of a root, with distances and a saturated count
+     * of shortest paths to every node. Parallel links count as distinct paths.
+     */
+    private static final class Tree {
+        private final long[] dist;
+        private final byte[] paths;
+
+        private Tree(TeGraph g, int root) {
+            int nodes = g.nodeCount();
+            dist = new long[nodes];
+            paths = new byte[nodes];
+            Arrays.fill(dist, UNREACHABLE);
+            int[] heap = new int[nodes];
+            int[] heapPos = new int[nodes];
+            Arrays.fill(heapPos, -1);
+            boolean[] settled = new boolean[nodes];
+            int heapSize = 0;
+
+            dist[root] = 0;
+            paths[root] = 1;
+            heap[heapSize] = root;
+            heapPos[root] = heapSize++;
+            while (heapSize > 0) {
+                int u = heap[0];
+                heapPos[u] = -1;
+                if (--heapSize > 0) {
+                    heap[0] = heap[heapSize];
+                    heapPos[heap[0]] = 0;
+                    siftDown(heap, heapPos, heapSize, 0);
+                }
+                settled[u] = true;
+                for (int e = g.offset(u), end = g.offset(u + 1); e < end; e++) {
+                    int v = g.target(e);
+                    if (settled[v]) {
+                        continue;
+                    }
+                    long dv = dist[u] + metric(TePathComputer.weight(g, e, false));
+                    if (dv < dist[v]) {
+                        dist[v] = dv;
+                        paths[v] = paths[u];
+                        if (heapPos[v] < 0) {
+                            heap[heapSize] = v;
+                            heapPos[v] = heapSize++;
+                        }
+                        siftUp(heap, heapPos, heapPos[v]);
+                    } else if (dv == dist[v]) {
+                        paths[v] = MULTIPLE_PATHS;
+                    }
+                }
+            }
+        }
+
+        private void siftUp(int[] heap, int[] heapPos, int pos) {
+            int node = heap[pos];
+            long d = dist[node];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                int p = heap[parent];
+                if (dist[p] <= d) {
+                    break;
+                }
+                heap[pos] = p;
+                heapPos[p] = pos;
+                pos = parent;
+            }
+            heap[pos] = node;
+            heapPos[node] = pos;
+        }
+
+        private void siftDown(int[] heap, int[] heapPos, int heapSize, int pos) {
+            int node = heap[pos];
+            long d = dist[node];
+            int half = heapSize >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int c = heap[child];
+                int right = child + 1;
+                if (right < heapSize && dist[heap[right]] < dist[c]) {
+                    child = right;
+                    c = heap[child];
+                }
+                if (d <= dist[c]) {
+                    break;
+                }
+                heap[pos] = c;
+                heapPos[c] = pos;
+                pos = child;
+            }
+            heap[pos] = node;
+            heapPos[node] = pos;
+        }
+    }
+
+    /*
+     * Segments of a path and the label of each.
+     */
+    private static final class Encoding {
+        private final int[] segments;
+        private final int[] labels;
+
+        private Encoding(int[] segments, int[] labels) {
+            this.segments = segments;
+            this.labels = labels;
+        }
+    }
+
+    /*
+     * Link slots of a path as a map key.
+     */
+    private static final class PathKey {
+        private final int[] links;
+        private final int hash;
+
+        private PathKey(int[] links) {
+            this.links = links;
+            this.hash = Arrays.hashCode(links);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof PathKey && Arrays.equals(links, ((PathKey) obj).links);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.onosproject.pcep.controller.LsId;
+import org.onosproject.pcep.controller.PccId;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Immutable, versioned snapshot of the TE topology.
+ * <p>
+ * Nodes and links are stored in slots. A record keeps its slot for as long
+ * as it is present, so algorithms may index per node or per link arrays by
+ * slot and compare results across versions. Empty slots belong to removed
+ * records; the store reuses them for new records once a version showing
+ * them empty has been published.
+ * <p>
+ * Records are identified by the pcc which reported them and their LS-ID,
+ * since LS-IDs are only unique within the LS database of one pcc.
+ */
+public final class TeTopology {
+
+    static final TeTopology EMPTY = new TeTopology(0, TeRecordTable.<TeNode>empty(),
+            TeRecordTable.<TeLink>empty(), null, null);
+
+    private final long version;
+    private final TeRecordTable<TeNode> nodes;
+    private final TeRecordTable<TeLink> links;
+    // Maintained by the store and shared by all versions, lookups check the record found.
+    private final Map<Key, Integer> nodeSlots;
+    private final Map<Key, Integer> linkSlots;
+
+    TeTopology(long version, TeRecordTable<TeNode> nodes, TeRecordTable<TeLink> links,
+            Map<Key, Integer> nodeSlots, Map<Key, Integer> linkSlots) {
+        this.version = version;
+        this.nodes = nodes;
+        this.links = links;
+        this.nodeSlots = nodeSlots;
+        this.linkSlots = linkSlots;
+    }
+
+    /**
+     * Returns the version of the snapshot, incremented on every change.
+     *
+     * @return topology version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return node count
+     */
+    public int nodeCount() {
+        return nodes.count();
+    }
+
+    /**
+     * Returns the number of links.
+     *
+     * @return link count
+     */
+    public int linkCount() {
+        return links.count();
+    }
+
+    /**
+     * Returns the number of node slots, the size of arrays indexed by node slot.
+     *
+     * @return node slot count
+     */
+    public int nodeSlotCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of link slots, the size of arrays indexed by link slot.
+     *
+     * @return link slot count
+     */
+    public int linkSlotCount() {
+        return links.size();
+    }
+
+    /**
+     * Returns the node slots whose record differs from the other snapshot.
+     *
+     * @param other other snapshot, typically the previous version
+     * @return changed node slots
+     */
+    public BitSet changedNodeSlots(TeTopology other) {
+        BitSet changed = new BitSet();
+        nodes.changedSlots(other.nodes, changed);
+        return changed;
+    }
+
+    /**
+     * Returns the link slots whose record differs from the other snapshot.
+     *
+     * @param other other snapshot, typically the previous version
+     * @return changed link slots
+     */
+    public BitSet changedLinkSlots(TeTopology other) {
+        BitSet changed = new BitSet();
+        links.changedSlots(other.links, changed);
+        return changed;
+    }
+
+    /**
+     * Returns the node in the slot.
+     *
+     * @param slot node slot
+     * @return node, null if the slot is empty
+     */
+    public TeNode nodeAt(int slot) {
+        return nodes.get(slot);
+    }
+
+    /**
+     * Returns the link in the slot.
+     *
+     * @param slot link slot
+     * @return link, null if the slot is empty
+     */
+    public TeLink linkAt(int slot) {
+        return links.get(slot);
+    }
+
+    /**
+     * Returns the node reported by the pcc with the given LS-ID.
+     *
+     * @param pccId pcc which reported the node
+     * @param lsId LS-ID of the node
+     * @return node, null if not present in this snapshot
+     */
+    public TeNode node(PccId pccId, long lsId) {
+        return nodes.get(nodeSlot(pccId, lsId));
+    }
+
+    /**
+     * Returns the link reported by the pcc with the given LS-ID.
+     *
+     * @param pccId pcc which reported the link
+     * @param lsId LS-ID of the link
+     * @return link, null if not present in this snapshot
+     */
+    public TeLink link(PccId pccId, long lsId) {
+        return links.get(linkSlot(pccId, lsId));
+    }
+
+    /**
+     * Returns the slot of the node reported by the pcc with the given LS-ID.
+     *
+     * @param pccId pcc which reported the node
+     * @param lsId LS-ID of the node
+     * @return node slot, -1 if the node is not present in this snapshot
+     */
+    public int nodeSlot(PccId pccId, long lsId) {
+        Integer slot = nodeSlots == null ? null : nodeSlots.get(new Key(pccId, lsId));
+        TeNode node = slot == null ? null : nodes.get(slot);
+        return node != null && node.lsId() == lsId && pccId.equals(node.origin()) ? slot : -1;
+    }
+
+    /**
+     * Returns the slot of the link reported by the pcc with the given LS-ID.
+     *
+     * @param pccId pcc which reported the link
+     * @param lsId LS-ID of the link
+     * @return link slot, -1 if the link is not present in this snapshot
+     */
+    public int linkSlot(PccId pccId, long lsId) {
+        Integer slot = linkSlots == null ? null : linkSlots.get(new Key(pccId, lsId));
+        TeLink link = slot == null ? null : links.get(slot);
+        return link != null && link.lsId() == lsId && pccId.equals(link.origin()) ? slot : -1;
+    }
+
+    /**
+     * Returns all nodes of the snapshot.
+     *
+     * @return list of nodes
+     */
+    public List<TeNode> nodes() {
+        List<TeNode> list = new ArrayList<>(nodes.count());
+        for (int i = 0; i < nodes.size(); i++) {
+            TeNode node = nodes.get(i);
+            if (node != null) {
+                list.add(node);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns all links of the snapshot.
+     *
+     * @return list of links
+     */
+    public List<TeLink> links() {
+        List<TeLink> list = new ArrayList<>(links.count());
+        for (int i = 0; i < links.size(); i++) {
+            TeLink link = links.get(i);
+            if (link != null) {
+                list.add(link);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("version", version)
+                .add("nodes", nodes.count())
+                .add("links", links.count())
+                .toString();
+    }
+
+    /**
+     * Identity of a node or link: the pcc which reported it and its LS-ID.
+     */
+    static final class Key {
+        private final PccId pccId;
+        private final long lsId;
+
+        Key(PccId pccId, long lsId) {
+            this.pccId = pccId;
+            this.lsId = lsId;
+        }
+
+        PccId pccId() {
+            return pccId;
+        }
+
+        long lsId() {
+            return lsId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pccId, lsId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return lsId == other.lsId && Objects.equals(pccId, other.pccId);
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return pccId + "/" + new LsId(lsId);
+        }
+    }
+}
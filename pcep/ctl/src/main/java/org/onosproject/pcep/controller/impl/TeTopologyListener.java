@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+/**
+ * Notifies components working on the TE topology about new versions.
+ */
+public interface TeTopologyListener {
+
+    /**
+     * Handles a new topology version. Called on the ingest thread while the
+     * store is locked, so implementations hand longer work to their own threads.
+     *
+     * @param previous topology before the update
+     * @param current topology after the update
+     */
+    void topologyChanged(TeTopology previous, TeTopology current);
+}
@@ -0,0 +1,716 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcep.controller.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.onosproject.pcep.controller.LsId;
+import org.onosproject.pcep.controller.PccId;
+import org.onosproject.pcepio.protocol.PcepLSObject;
+import org.onosproject.pcepio.types.ActnAvailableLabelsFieldSubTlv;
+import org.onosproject.pcepio.types.ActnLinkTlv;
+import org.onosproject.pcepio.types.ActnNodeTlv;
+import org.onosproject.pcepio.types.AdjacencySidSubTlv;
+import org.onosproject.pcepio.types.AdministrativeGroupSubTlv;
+import org.onosproject.pcepio.types.IPv4InterfaceAddressSubTlv;
+import org.onosproject.pcepio.types.IPv4NeighborAddressSubTlv;
+import org.onosproject.pcepio.types.IPv4RouterIdOfLocalNodeSubTlv;
+import org.onosproject.pcepio.types.IPv4RouterIdOfRemoteNodeSubTlv;
+import org.onosproject.pcepio.types.IgpMetricSubTlv;
+import org.onosproject.pcepio.types.IgpRouterIdSubTlv;
+import org.onosproject.pcepio.types.LabelSet;
+import org.onosproject.pcepio.types.LinkAttributesTlv;
+import org.onosproject.pcepio.types.LinkDescriptorsTlv;
+import org.onosproject.pcepio.types.LinkIdSubTlv;
+import org.onosproject.pcepio.types.LinkLocalRemoteIdentifiersSubTlv;
+import org.onosproject.pcepio.types.LinkTypeSubTlv;
+import org.onosproject.pcepio.types.LocalInterfaceIPAddressSubTlv;
+import org.onosproject.pcepio.types.LocalNodeDescriptorsTlv;
+import org.onosproject.pcepio.types.MaximumLinkBandwidthSubTlv;
+import org.onosproject.pcepio.types.MaximumReservableLinkBandwidthSubTlv;
+import org.onosproject.pcepio.types.NodeAttributesTlv;
+import org.onosproject.pcepio.types.NodeFlagBitsSubTlv;
+import org.onosproject.pcepio.types.NodeIPv4LocalAddressSubTlv;
+import org.onosproject.pcepio.types.NodeNameSubTlv;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.onosproject.pcepio.types.PortLabelRestrictionsSubTlv;
+import org.onosproject.pcepio.types.PrefixSidSubTlv;
+import org.onosproject.pcepio.types.RemoteInterfaceIPAddressSubTlv;
+import org.onosproject.pcepio.types.RemoteNodeDescriptorsTlv;
+import org.onosproject.pcepio.types.SharedRiskLinkGroupSubTlv;
+import org.onosproject.pcepio.types.SrCapabilitiesSubTlv;
+import org.onosproject.pcepio.types.SrlgSubTlv;
+import org.onosproject.pcepio.types.TEDefaultMetricSubTlv;
+import org.onosproject.pcepio.types.TEMetricSubTlv;
+import org.onosproject.pcepio.types.UnreservedBandwidthSubTlv;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TE topology built incrementally from the LS objects of LSRpt messages.
+ * <p>
+ * A single ingest thread applies LS objects to private copies of the
+ * modified pages and publishes a new immutable {@link TeTopology} once per
+ * LSRpt message. Readers take the current snapshot without locking and keep
+ * a consistent view for as long as they hold on to it.
+ * <p>
+ * The initial LS database of a pcc is loaded in bulk: LS objects carrying the
+ * S flag are staged in a {@link BulkLoad} outside of the store and switched in
+ * with a single new version once the synchronization completes.
+ * <p>
+ * LS-IDs are only unique within the LS database of one pcc, so nodes and
+ * links are identified by the reporting pcc and their LS-ID. Pccs reporting
+ * the same router each own a node record; links attach to the one which
+ * registered the router key last. The slot of a removed record is handed
+ * out again once a version without the record has been published.
+ */
+public class TeTopologyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TeTopologyStore.class);
+
+    static final byte LS_OBJ_TYPE_NODE = 1;
+    static final byte LS_OBJ_TYPE_LINK = 2;
+
+    // Keeps router keys derived from IPv4 router ids apart from IGP router ids.
+    private static final long IPV4_ROUTER_ID_KEY = 1L << 63;
+    private static final long NO_KEY = 0;
+
+    private volatile TeTopology current = TeTopology.EMPTY;
+
+    private final Slots nodeSlots = new Slots();
+    private final Slots linkSlots = new Slots();
+    private final TeRecordTable.Writer<TeNode> nodeWriter = new TeRecordTable.Writer<>(TeRecordTable.empty());
+    private final TeRecordTable.Writer<TeLink> linkWriter = new TeRecordTable.Writer<>(TeRecordTable.empty());
+
+    // Router key to the slots of the nodes carrying it, latest last, and to the slots of the links attached to it.
+    private final Map<Long, List<Integer>> nodesByKey = new HashMap<>();
+    private final Map<Long, Set<Integer>> linksByKey = new HashMap<>();
+
+    private final Set<TeTopologyListener> listeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * Returns the current topology snapshot.
+     *
+     * @return immutable topology
+     */
+    public TeTopology snapshot() {
+        return current;
+    }
+
+    /**
+     * Adds a listener notified of every new topology version.
+     *
+     * @param listener topology listener
+     */
+    public void addListener(TeTopologyListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a topology listener.
+     *
+     * @param listener topology listener
+     */
+    public void removeListener(TeTopologyListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Applies the LS objects of one LSRpt message and publishes the result as
+     * a single new version.
+     *
+     * @param pccId pcc which sent the LSRpt message
+     * @param lsObjects LS objects in the order they were reported
+     * @return topology after the update
+     */
+    public synchronized TeTopology apply(PccId pccId, List<PcepLSObject> lsObjects) {
+        boolean changed = false;
+        for (PcepLSObject ls : lsObjects) {
+            changed |= applyObject(pccId, ls);
+        }
+        return changed ? publish() : current;
+    }
+
+    /**
+     * Starts staging the initial LS database of a pcc.
+     *
+     * @param pccId pcc being synchronized
+     * @return empty bulk load
+     */
+    public BulkLoad newBulkLoad(PccId pccId) {
+        return new BulkLoad(pccId);
+    }
+
+    /**
+     * Switches in the LS database staged by the bulk load with a single new
+     * version. Nodes and links of the same pcc which are not part of the bulk
+     * load are removed.
+     *
+     * @param bulk staged LS database
+     * @return topology after the update
+     */
+    public synchronized TeTopology commit(BulkLoad bulk) {
+        boolean changed = false;
+        for (long lsId : staleRecords(linkSlots, bulk.pccId, bulk.links)) {
+            changed |= removeLink(bulk.pccId, lsId);
+        }
+        for (long lsId : staleRecords(nodeSlots, bulk.pccId, bulk.nodes)) {
+            changed |= removeNode(bulk.pccId, lsId);
+        }
+        // Nodes first, links are then attached to their nodes as they are inserted.
+        for (TeNode node : bulk.nodes.values()) {
+            putNode(bulk.pccId, node);
+            changed = true;
+        }
+        for (TeLink link : bulk.links.values()) {
+            putLink(bulk.pccId, link);
+            changed = true;
+        }
+        log.info("Loaded {} nodes and {} links from {}", bulk.nodes.size(), bulk.links.size(), bulk.pccId);
+        return changed ? publish() : current;
+    }
+
+    private TeTopology publish() {
+        TeTopology previous = current;
+        current = new TeTopology(previous.version() + 1, nodeWriter.publish(), linkWriter.publish(),
+                nodeSlots.index, linkSlots.index);
+        log.debug("Published TE topology {}", current);
+        for (TeTopologyListener listener : listeners) {
+            try {
+                listener.topologyChanged(previous, current);
+            } catch (RuntimeException e) {
+                log.error("Topology listener {} failed", listener, e);
+            }
+        }
+        // Listeners have seen the removals, the emptied slots may now be reused.
+        nodeSlots.recycle();
+        linkSlots.recycle();
+        return current;
+    }
+
+    private static List<Long> staleRecords(Slots slots, PccId pccId, Map<Long, ?> staged) {
+        List<Long> stale = new ArrayList<>();
+        for (TeTopology.Key key : slots.index.keySet()) {
+            if (pccId.equals(key.pccId()) && !staged.containsKey(key.lsId())) {
+                stale.add(key.lsId());
+            }
+        }
+        return stale;
+    }
+
+    private boolean applyObject(PccId pccId, PcepLSObject ls) {
+        byte objType = ls.getLSObjHeader().getObjType();
+        if (objType == LS_OBJ_TYPE_NODE) {
+            if (ls.getRemoveFlag()) {
+                return removeNode(pccId, ls.getLSId());
+            }
+            putNode(pccId, parseNode(pccId, ls));
+            return true;
+        } else if (objType == LS_OBJ_TYPE_LINK) {
+            if (ls.getRemoveFlag()) {
+                return removeLink(pccId, ls.getLSId());
+            }
+            putLink(pccId, parseLink(pccId, ls));
+            return true;
+        }
+        log.debug("Ignoring LS object of type {}", objType);
+        return false;
+    }
+
+    private void putNode(PccId pccId, TeNode node) {
+        int slot = nodeSlots.slotOf(new TeTopology.Key(pccId, node.lsId()));
+        TeNode old = nodeWriter.get(slot);
+        if (old != null) {
+            unregisterKeys(old, slot);
+        }
+        nodeWriter.set(slot, node);
+        registerKey(node.routerKey(), slot);
+        registerKey(ipv4Key(node.ipv4RouterId()), slot);
+    }
+
+    private boolean removeNode(PccId pccId, long lsId) {
+        TeTopology.Key key = new TeTopology.Key(pccId, lsId);
+        int slot = nodeSlots.get(key);
+        TeNode old = nodeWriter.get(slot);
+        if (old == null) {
+            return false;
+        }
+        nodeWriter.set(slot, null);
+        nodeSlots.release(slot, key);
+        unregisterKeys(old, slot);
+        return true;
+    }
+
+    /*
+     * Links attach to the node which registered the router key last; when it goes
+     * away they fall back to the node another pcc reported for the same router.
+     */
+    private void registerKey(long key, int slot) {
+        if (key == NO_KEY) {
+            return;
+        }
+        List<Integer> slots = nodesByKey.get(key);
+        if (slots == null) {
+            slots = new ArrayList<>(1);
+            nodesByKey.put(key, slots);
+        } else if (slots.get(slots.size() - 1) == slot) {
+            return;
+        } else {
+            slots.remove(Integer.valueOf(slot));
+        }
+        slots.add(slot);
+        resolveLinks(key);
+    }
+
+    private void unregisterKeys(TeNode node, int slot) {
+        for (long key : new long[] {node.routerKey(), ipv4Key(node.ipv4RouterId())}) {
+            List<Integer> slots = key == NO_KEY ? null : nodesByKey.get(key);
+            if (slots == null) {
+                continue;
+            }
+            int index = slots.lastIndexOf(slot);
+            if (index < 0) {
+                continue;
+            }
+            slots.remove(index);
+            if (slots.isEmpty()) {
+                nodesByKey.remove(key);
+            }
+            if (index == slots.size()) {
+                resolveLinks(key);
+            }
+        }
+    }
+
+    private void resolveLinks(long key) {
+        Set<Integer> slots = linksByKey.get(key);
+        if (slots == null) {
+            return;
+        }
+        for (int slot : slots) {
+            TeLink link = linkWriter.get(slot);
+            if (link != null) {
+                TeLink resolved = resolve(link);
+                if (resolved != link) {
+                    linkWriter.set(slot, resolved);
+                }
+            }
+        }
+    }
+
+    private TeLink resolve(TeLink link) {
+        return link.withNodes(nodeOf(link.srcRouterKey()), nodeOf(link.dstRouterKey()));
+    }
+
+    private int nodeOf(long key) {
+        List<Integer> slots = key == NO_KEY ? null : nodesByKey.get(key);
+        return slots == null ? -1 : slots.get(slots.size() - 1);
+    }
+
+    private void putLink(PccId pccId, TeLink link) {
+        int slot = linkSlots.slotOf(new TeTopology.Key(pccId, link.lsId()));
+        TeLink old = linkWriter.get(slot);
+        if (old != null) {
+            unindexLink(old, slot);
+        }
+        linkWriter.set(slot, resolve(link));
+        indexLink(link.srcRouterKey(), slot);
+        indexLink(link.dstRouterKey(), slot);
+    }
+
+    private boolean removeLink(PccId pccId, long lsId) {
+        TeTopology.Key key = new TeTopology.Key(pccId, lsId);
+        int slot = linkSlots.get(key);
+        TeLink old = linkWriter.get(slot);
+        if (old == null) {
+            return false;
+        }
+        linkWriter.set(slot, null);
+        linkSlots.release(slot, key);
+        unindexLink(old, slot);
+        return true;
+    }
+
+    private void indexLink(long key, int slot) {
+        if (key == NO_KEY) {
+            return;
+        }
+        Set<Integer> slots = linksByKey.get(key);
+        if (slots == null) {
+            slots = new HashSet<>();
+            linksByKey.put(key, slots);
+        }
+        slots.add(slot);
+    }
+
+    private void unindexLink(TeLink link, int slot) {
+        for (long key : new long[] {link.srcRouterKey(), link.dstRouterKey()}) {
+            Set<Integer> slots = linksByKey.get(key);
+            if (slots != null && slots.remove(slot) && slots.isEmpty()) {
+                linksByKey.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Builds the TE node described by a node LS object.
+     *
+     * @param pccId pcc which reported the node
+     * @param ls LS object of type node
+     * @return TE node
+     */
+    static TeNode parseNode(PccId pccId, PcepLSObject ls) {
+        TeNode.Builder b = TeNode.builder().origin(pccId).lsId(ls.getLSId()).protocolId(ls.getProtocolId());
+        long routerKey = NO_KEY;
+        int ipv4RouterId = 0;
+
+        List<PcepValueType> tlvs = ls.getOptionalTlv();
+        if (tlvs != null) {
+            for (PcepValueType tlv : tlvs) {
+                if (tlv instanceof LocalNodeDescriptorsTlv) {
+                    routerKey = igpKey(((LocalNodeDescriptorsTlv) tlv).getllNodeDescriptorSubTLVs());
+                } else if (tlv instanceof NodeAttributesTlv) {
+                    for (PcepValueType sub : ((NodeAttributesTlv) tlv).getllNodeAttributesSubTLVs()) {
+                        if (sub instanceof NodeFlagBitsSubTlv) {
+                            b.nodeFlags(((NodeFlagBitsSubTlv) sub).getbyte());
+                        } else if (sub instanceof NodeNameSubTlv) {
+                            b.name(new String(((NodeNameSubTlv) sub).getValue(), StandardCharsets.UTF_8));
+                        } else if (sub instanceof IPv4RouterIdOfLocalNodeSubTlv) {
+                            ipv4RouterId = ((IPv4RouterIdOfLocalNodeSubTlv) sub).getInt();
+                        } else if (sub instanceof SrCapabilitiesSubTlv) {
+                            SrCapabilitiesSubTlv srgb = (SrCapabilitiesSubTlv) sub;
+                            b.srgb(srgb.getFirstLabels(), srgb.getRangeSizes());
+                        } else if (sub instanceof PrefixSidSubTlv) {
+                            PrefixSidSubTlv sid = (PrefixSidSubTlv) sub;
+                            // Only the SID of the default algorithm steers along IGP shortest paths
+                            if (sid.getAlgorithm() == 0) {
+                                if (sid.isLabel()) {
+                                    b.prefixSidLabel(sid.getSid());
+                                } else {
+                                    b.prefixSidIndex(sid.getSid());
+                                }
+                            }
+                        }
+                    }
+                } else if (tlv instanceof ActnNodeTlv) {
+                    for (PcepValueType sub : ((ActnNodeTlv) tlv).getActnNodeSubTLVs()) {
+                        if (sub instanceof NodeIPv4LocalAddressSubTlv) {
+                            Pair<Byte, Integer>[] prefixes = ((NodeIPv4LocalAddressSubTlv) sub).getIpPrefix();
+                            int[] addresses = new int[prefixes.length];
+                            byte[] lengths = new byte[prefixes.length];
+                            for (int i = 0; i < prefixes.length; i++) {
+                                lengths[i] = prefixes[i].getLeft();
+                                addresses[i] = prefixes[i].getRight();
+                            }
+                            b.localPrefixes(addresses, lengths);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (routerKey == NO_KEY) {
+            routerKey = ipv4Key(ipv4RouterId);
+        }
+        if (routerKey == NO_KEY) {
+            log.debug("Node {} has no router id, links cannot refer to it", new LsId(ls.getLSId()));
+        }
+        return b.routerKey(routerKey).ipv4RouterId(ipv4RouterId).build();
+    }
+
+    /**
+     * Builds the TE link described by a link LS object. The node slots of the
+     * link are left unresolved.
+     *
+     * @param pccId pcc which reported the link
+     * @param ls LS object of type link
+     * @return TE link
+     */
+    static TeLink parseLink(PccId pccId, PcepLSObject ls) {
+        TeLink.Builder b = TeLink.builder().origin(pccId).lsId(ls.getLSId()).protocolId(ls.getProtocolId());
+        long srcKey = NO_KEY;
+        long dstKey = NO_KEY;
+        int srcRouterId = 0;
+        int dstRouterId = 0;
+        int[] srlgs = null;
+        long[] labels = null;
+        int labelCount = 0;
+        byte labelPriority = 0;
+        long[] restrictions = null;
+
+        List<PcepValueType> tlvs = ls.getOptionalTlv();
+        if (tlvs != null) {
+            for (PcepValueType tlv : tlvs) {
+                if (tlv instanceof LocalNodeDescriptorsTlv) {
+                    srcKey = igpKey(((LocalNodeDescriptorsTlv) tlv).getllNodeDescriptorSubTLVs());
+                } else if (tlv instanceof RemoteNodeDescriptorsTlv) {
+                    dstKey = igpKey(((RemoteNodeDescriptorsTlv) tlv).getllRemoteTENodeDescriptorSubTLVs());
+                } else if (tlv instanceof LinkDescriptorsTlv) {
+                    for (PcepValueType sub : ((LinkDescriptorsTlv) tlv).getllLinkDescriptorsSubTLVs()) {
+                        if (sub instanceof LinkLocalRemoteIdentifiersSubTlv) {
+                            LinkLocalRemoteIdentifiersSubTlv ids = (LinkLocalRemoteIdentifiersSubTlv) sub;
+                            b.identifiers(ids.getLinkLocalIdentifier(), ids.getLinkRemoteIdentifier());
+                        } else if (sub instanceof IPv4InterfaceAddressSubTlv) {
+                            b.localIfAddr(((IPv4InterfaceAddressSubTlv) sub).getInt());
+                        } else if (sub instanceof IPv4NeighborAddressSubTlv) {
+                            b.remoteIfAddr(((IPv4NeighborAddressSubTlv) sub).getInt());
+                        }
+                    }
+                } else if (tlv instanceof LinkAttributesTlv) {
+                    for (PcepValueType sub : ((LinkAttributesTlv) tlv).getllLinkAttributesSubTLVs()) {
+                        if (sub instanceof IPv4RouterIdOfLocalNodeSubTlv) {
+                            srcRouterId = ((IPv4RouterIdOfLocalNodeSubTlv) sub).getInt();
+                        } else if (sub instanceof IPv4RouterIdOfRemoteNodeSubTlv) {
+                            dstRouterId = ((IPv4RouterIdOfRemoteNodeSubTlv) sub).getInt();
+                        } else if (sub instanceof AdministrativeGroupSubTlv) {
+                            b.adminGroup(((AdministrativeGroupSubTlv) sub).getInt());
+                        } else if (sub instanceof MaximumLinkBandwidthSubTlv) {
+                            b.maxBandwidth(((MaximumLinkBandwidthSubTlv) sub).getrewValue());
+                        } else if (sub instanceof MaximumReservableLinkBandwidthSubTlv) {
+                            b.maxReservableBandwidth(((MaximumReservableLinkBandwidthSubTlv) sub).getrawValue());
+                        } else if (sub instanceof UnreservedBandwidthSubTlv) {
+                            b.unreservedBandwidth(unreserved(((UnreservedBandwidthSubTlv) sub).getRawValue()));
+                        } else if (sub instanceof TEDefaultMetricSubTlv) {
+                            b.teMetric(((TEDefaultMetricSubTlv) sub).getInt() & 0xFFFFFFFFL);
+                        } else if (sub instanceof IgpMetricSubTlv) {
+                            b.igpMetric(unsigned(((IgpMetricSubTlv) sub).getValue()));
+                        } else if (sub instanceof SharedRiskLinkGroupSubTlv) {
+                            srlgs = union(srlgs, ((SharedRiskLinkGroupSubTlv) sub).getValue());
+                        } else if (sub instanceof AdjacencySidSubTlv) {
+                            AdjacencySidSubTlv sid = (AdjacencySidSubTlv) sub;
+                            // Index Adjacency-SIDs are local to the node and of no use to the PCE
+                            if (sid.isLabel()) {
+                                b.adjacencySid(sid.getSid());
+                            }
+                        }
+                    }
+                } else if (tlv instanceof ActnLinkTlv) {
+                    for (PcepValueType sub : ((ActnLinkTlv) tlv).getActnLinkSubTLVs()) {
+                        if (sub instanceof LinkTypeSubTlv) {
+                            b.linkType(((LinkTypeSubTlv) sub).getLinkType());
+                        } else if (sub instanceof LinkIdSubTlv) {
+                            b.actnLinkId(((LinkIdSubTlv) sub).getLinkId());
+                        } else if (sub instanceof LocalInterfaceIPAddressSubTlv) {
+                            int[] addrs = ((LocalInterfaceIPAddressSubTlv) sub).getValue();
+                            if (addrs.length > 0) {
+                                b.localIfAddr(addrs[0]);
+                            }
+                        } else if (sub instanceof RemoteInterfaceIPAddressSubTlv) {
+                            int[] addrs = ((RemoteInterfaceIPAddressSubTlv) sub).getValue();
+                            if (addrs.length > 0) {
+                                b.remoteIfAddr(addrs[0]);
+                            }
+                        } else if (sub instanceof TEMetricSubTlv) {
+                            b.teMetric(((TEMetricSubTlv) sub).getInt() & 0xFFFFFFFFL);
+                        } else if (sub instanceof SrlgSubTlv) {
+                            srlgs = union(srlgs, ((SrlgSubTlv) sub).getValue());
+                        } else if (sub instanceof ActnAvailableLabelsFieldSubTlv) {
+                            ActnAvailableLabelsFieldSubTlv available = (ActnAvailableLabelsFieldSubTlv) sub;
+                            LabelSet set = available.getLabelSet();
+                            labels = set.words();
+                            labelCount = set.size();
+                            labelPriority = available.getPri();
+                        } else if (sub instanceof PortLabelRestrictionsSubTlv) {
+                            restrictions = ((PortLabelRestrictionsSubTlv) sub).getLabelSet().words();
+                        }
+                    }
+                }
+            }
+        }
+
+        if (srcKey == NO_KEY) {
+            srcKey = ipv4Key(srcRouterId);
+        }
+        if (dstKey == NO_KEY) {
+            dstKey = ipv4Key(dstRouterId);
+        }
+        if (srlgs != null) {
+            b.srlgs(srlgs);
+        }
+        if (labels != null) {
+            if (restrictions != null) {
+                // Labels the port cannot switch are not available for path computation.
+                for (int w = 0; w < labels.length; w++) {
+                    labels[w] &= w < restrictions.length ? restrictions[w] : 0;
+                }
+            }
+            b.availableLabels(labels, labelCount, labelPriority);
+        }
+        return b.endpoints(srcKey, dstKey).build();
+    }
+
+    private static long igpKey(List<PcepValueType> descriptors) {
+        if (descriptors != null) {
+            for (PcepValueType sub : descriptors) {
+                if (sub instanceof IgpRouterIdSubTlv) {
+                    return unsigned(((IgpRouterIdSubTlv) sub).getValue());
+                }
+            }
+        }
+        return NO_KEY;
+    }
+
+    private static long ipv4Key(int routerId) {
+        return routerId == 0 ? NO_KEY : IPV4_ROUTER_ID_KEY | (routerId & 0xFFFFFFFFL);
+    }
+
+    /*
+     * Big endian value of up to 8 bytes; IGP router ids are 4 to 8 bytes long.
+     */
+    private static long unsigned(byte[] value) {
+        long result = 0;
+        for (byte v : value) {
+            result = (result << 8) | (v & 0xFF);
+        }
+        return result;
+    }
+
+    private static float[] unreserved(List<Float> values) {
+        float[] result = new float[TeLink.PRIORITY_LEVELS];
+        for (int i = 0; i < result.length && i < values.size(); i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    private static int[] union(int[] current, int[] values) {
+        if (current == null) {
+            return values.clone();
+        }
+        Set<Integer> all = new HashSet<>();
+        for (int v : current) {
+            all.add(v);
+        }
+        int[] result = new int[current.length + values.length];
+        System.arraycopy(current, 0, result, 0, current.length);
+        int n = current.length;
+        for (int v : values) {
+            if (all.add(v)) {
+                result[n++] = v;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /*
+     * Slots of the nodes or of the links by pcc and LS-ID. A slot emptied by a
+     * removal keeps its key until the next version is published, so that the
+     * record comes back to it when reported again meanwhile, and is then reused
+     * for the next new record.
+     */
+    private static final class Slots {
+        // Shared with the snapshots, which check the record found in the slot.
+        private final Map<TeTopology.Key, Integer> index = new ConcurrentHashMap<>();
+        private final Map<Integer, TeTopology.Key> released = new HashMap<>();
+        private final Deque<Integer> free = new ArrayDeque<>();
+        private int next;
+
+        private int get(TeTopology.Key key) {
+            Integer slot = index.get(key);
+            return slot == null ? -1 : slot;
+        }
+
+        private int slotOf(TeTopology.Key key) {
+            Integer slot = index.get(key);
+            if (slot != null) {
+                released.remove(slot);
+                return slot;
+            }
+            slot = free.isEmpty() ? next++ : free.poll();
+            index.put(key, slot);
+            return slot;
+        }
+
+        private void release(int slot, TeTopology.Key key) {
+            released.put(slot, key);
+        }
+
+        private void recycle() {
+            for (Map.Entry<Integer, TeTopology.Key> e : released.entrySet()) {
+                index.remove(e.getValue());
+                free.add(e.getKey());
+            }
+            released.clear();
+        }
+    }
+
+    /**
+     * Initial LS database of a pcc staged outside of the store. The bulk load
+     * is filled by the thread handling the pcc only and does not lock the store.
+     */
+    public static final class BulkLoad {
+        private final PccId pccId;
+        private final Map<Long, TeNode> nodes = new LinkedHashMap<>();
+        private final Map<Long, TeLink> links = new LinkedHashMap<>();
+
+        private BulkLoad(PccId pccId) {
+            this.pccId = pccId;
+        }
+
+        /**
+         * Returns the pcc being synchronized.
+         *
+         * @return pcc id
+         */
+        public PccId pccId() {
+            return pccId;
+        }
+
+        /**
+         * Stages an LS object, later objects replace earlier ones with the same LS-ID.
+         *
+         * @param ls LS object of the synchronization
+         */
+        public void stage(PcepLSObject ls) {
+            byte objType = ls.getLSObjHeader().getObjType();
+            if (objType == LS_OBJ_TYPE_NODE) {
+                if (ls.getRemoveFlag()) {
+                    nodes.remove(ls.getLSId());
+                } else {
+                    nodes.put(ls.getLSId(), parseNode(pccId, ls));
+                }
+            } else if (objType == LS_OBJ_TYPE_LINK) {
+                if (ls.getRemoveFlag()) {
+                    links.remove(ls.getLSId());
+                } else {
+                    links.put(ls.getLSId(), parseLink(pccId, ls));
+                }
+            }
+        }
+
+        /**
+         * Returns the number of staged nodes and links.
+         *
+         * @return staged record count
+         */
+        public int size() {
+            return nodes.size() + links.size();
+        }
+    }
+}
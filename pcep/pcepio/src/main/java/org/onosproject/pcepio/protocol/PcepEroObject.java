@@ -20,6 +20,7 @@ import java.util.LinkedList;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.types.PackedPath;
 import org.onosproject.pcepio.types.PcepObjectHeader;
 import org.onosproject.pcepio.types.PcepValueType;
 
@@ -30,6 +31,8 @@ public interface PcepEroObject {
 
     /**
      * Return LinkedList of SubObjects of ERO Object.
+     * Objects read from the wire decode a new list on every call, so changes
+     * to it have to be set back with setSubObjects.
      *
      * @return list of subobjects
      */
@@ -42,6 +45,14 @@ public interface PcepEroObject {
      */
     void setSubObjects(LinkedList<PcepValueType> llSubObjects);
 
+    /**
+     * Returns the subobjects of the ERO Object in interned wire format. ERO
+     * objects reported over the same route return the same instance.
+     *
+     * @return packed subobjects, null if the object has no subobjects
+     */
+    PackedPath getPath();
+
     /**
      * Writes the ERO Object into channel buffer.
      *
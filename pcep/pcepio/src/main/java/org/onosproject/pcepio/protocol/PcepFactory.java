@@ -272,4 +272,67 @@ public interface PcepFactory {
      * @return Builder Object for PcepLSReportMsg
      * */
     PcepLSReportMsg.Builder buildPcepLSReportMsg();
+
+    /**
+     * Returns Builder Object for Notification Message.
+     *
+     * @return Builder Object for Notification Message
+     */
+    PcepNotificationMsg.Builder buildPcepNotificationMsg();
+
+    /**
+     * Returns Builder Object for PcepNotification.
+     *
+     * @return Builder Object for PcepNotification
+     */
+    PcepNotification.Builder buildPcepNotification();
+
+    /**
+     * Returns Builder Object for Notification Object.
+     *
+     * @return Builder Object for Notification Object
+     */
+    PcepNotificationObject.Builder buildPcepNotificationObject();
+
+    /**
+     * Returns Builder Object for Path Computation Request Message.
+     *
+     * @return Builder Object for Path Computation Request Message
+     */
+    PcepPathRequestMsg.Builder buildPcepPathRequestMsg();
+
+    /**
+     * Returns Builder Object for PcepPathRequest.
+     *
+     * @return Builder Object for PcepPathRequest
+     */
+    PcepPathRequest.Builder buildPcepPathRequest();
+
+    /**
+     * Returns Builder Object for Path Computation Reply Message.
+     *
+     * @return Builder Object for Path Computation Reply Message
+     */
+    PcepPathReplyMsg.Builder buildPcepPathReplyMsg();
+
+    /**
+     * Returns Builder Object for PcepPathReply.
+     *
+     * @return Builder Object for PcepPathReply
+     */
+    PcepPathReply.Builder buildPcepPathReply();
+
+    /**
+     * Returns Builder Object for RP Object.
+     *
+     * @return Builder Object for RP Object
+     */
+    PcepRPObject.Builder buildRPObject();
+
+    /**
+     * Returns Builder Object for NO-PATH Object.
+     *
+     * @return Builder Object for NO-PATH Object
+     */
+    PcepNoPathObject.Builder buildNoPathObject();
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol;
+
+import java.util.LinkedList;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.types.PcepObjectHeader;
+import org.onosproject.pcepio.types.PcepValueType;
+
+/**
+ * Abstraction of an entity providing PCEP NO-PATH Object.
+ */
+public interface PcepNoPathObject {
+
+    /**
+     * Nature of Issue: no path satisfying the constraints was found.
+     */
+    byte NI_NO_PATH_FOUND = 0;
+
+    /**
+     * Nature of Issue: the PCE chain is broken.
+     */
+    byte NI_PCE_CHAIN_BROKEN = 1;
+
+    /**
+     * Returns Nature of Issue in NO-PATH Object.
+     *
+     * @return Nature of Issue
+     */
+    byte getNatureOfIssue();
+
+    /**
+     * Sets Nature of Issue in NO-PATH Object.
+     *
+     * @param value Nature of Issue
+     */
+    void setNatureOfIssue(byte value);
+
+    /**
+     * Returns C flag in NO-PATH Object.
+     *
+     * @return C flag, set when the unsatisfied constraints are reported
+     */
+    boolean getCFlag();
+
+    /**
+     * Sets C flag in NO-PATH Object.
+     *
+     * @param value C flag
+     */
+    void setCFlag(boolean value);
+
+    /**
+     * Returns Optional Tlvs in NO-PATH Object.
+     *
+     * @return list of Optional Tlvs in NO-PATH Object
+     */
+    LinkedList<PcepValueType> getOptionalTlv();
+
+    /**
+     * Sets Optional Tlvs in NO-PATH Object.
+     *
+     * @param llOptionalTlv list of Optional Tlvs
+     */
+    void setOptionalTlv(LinkedList<PcepValueType> llOptionalTlv);
+
+    /**
+     * Writes the NO-PATH Object into channel buffer.
+     *
+     * @param bb channel buffer
+     * @return Returns the writerIndex of this buffer
+     * @throws PcepParseException while writing NO-PATH Object into ChannelBuffer
+     */
+    int write(ChannelBuffer bb) throws PcepParseException;
+
+    /**
+     * Builder interface with get and set functions to build NO-PATH object.
+     */
+    interface Builder {
+
+        /**
+         * Builds NO-PATH Object.
+         *
+         * @return NO-PATH Object.
+         */
+        PcepNoPathObject build();
+
+        /**
+         * Returns NO-PATH Object header.
+         *
+         * @return NO-PATH Object header
+         */
+        PcepObjectHeader getNoPathObjHeader();
+
+        /**
+         * Sets NO-PATH Object header and returns its Builder.
+         *
+         * @param obj NO-PATH Object header
+         * @return Builder by setting NO-PATH Object header
+         */
+        Builder setNoPathObjHeader(PcepObjectHeader obj);
+
+        /**
+         * Returns Nature of Issue in NO-PATH Object.
+         *
+         * @return Nature of Issue
+         */
+        byte getNatureOfIssue();
+
+        /**
+         * Sets Nature of Issue and returns its builder.
+         *
+         * @param value of Nature of Issue field
+         * @return Builder by setting Nature of Issue field.
+         */
+        Builder setNatureOfIssue(byte value);
+
+        /**
+         * Returns C flag in NO-PATH Object.
+         *
+         * @return C flag
+         */
+        boolean getCFlag();
+
+        /**
+         * Sets C flag and returns its builder.
+         *
+         * @param value C flag
+         * @return Builder by setting C flag.
+         */
+        Builder setCFlag(boolean value);
+
+        /**
+         * Returns list of Optional Tlvs of NO-PATH Object.
+         *
+         * @return list of Optional Tlvs of NO-PATH Object
+         */
+        LinkedList<PcepValueType> getOptionalTlv();
+
+        /**
+         * Sets Optional Tlvs of NO-PATH Object and returns its Builder.
+         *
+         * @param llOptionalTlv Optional Tlvs of NO-PATH Object
+         * @return Builder by setting Optional Tlvs.
+         */
+        Builder setOptionalTlv(LinkedList<PcepValueType> llOptionalTlv);
+
+        /**
+         * Sets P flag in NO-PATH object header and returns its builder.
+         *
+         * @param value boolean value to set P flag
+         * @return Builder by setting P flag
+         */
+        Builder setPFlag(boolean value);
+
+        /**
+         * Sets I flag in NO-PATH object header and returns its builder.
+         *
+         * @param value boolean value to set I flag
+         * @return Builder by setting I flag
+         */
+        Builder setIFlag(boolean value);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol;
+
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+/**
+ * Abstraction of an entity which provides PCEP notify element for PCEP notification message.
+ */
+public interface PcepNotification {
+
+    /**
+     * Returns the PcepRPObject List.
+     *
+     * @return list of type PcepRPObject
+     */
+    List<PcepRPObject> getRPObjList();
+
+    /**
+     * Sets the RP Objects lists.
+     *
+     * @param rpObjList list of type PcepRPObject
+     */
+    void setRPObjList(List<PcepRPObject> rpObjList);
+
+    /**
+     * Returns the PcepNotificationObject List.
+     *
+     * @return list of type PcepNotificationObject
+     */
+    List<PcepNotificationObject> getNotificationObjList();
+
+    /**
+     * Sets the Notification Objects lists.
+     *
+     * @param notificationObjList list of type PcepNotificationObject
+     */
+    void setNotificationObjList(List<PcepNotificationObject> notificationObjList);
+
+    /**
+     * Writes the byte stream of PCEP notify element to the channel buffer.
+     *
+     * @param bb of type channel buffer
+     * @return object length index
+     * @throws PcepParseException while writing notify element into ChannelBuffer
+     */
+    int write(ChannelBuffer bb) throws PcepParseException;
+
+    /**
+     * Builder interface with get and set functions to build PcepNotification.
+     */
+    interface Builder {
+
+        /**
+         * Builds PcepNotification Object.
+         *
+         * @return PcepNotification Object
+         */
+        PcepNotification build();
+
+        /**
+         * Returns the PcepRPObject.
+         *
+         * @return list of type PcepRPObject
+         */
+        List<PcepRPObject> getRPObjList();
+
+        /**
+         * Sets RP Object lists and returns its builder.
+         *
+         * @param rpObjList list of type PcepRpObject
+         * @return builder by setting Linked list of RP Object
+         */
+        Builder setRPObjList(List<PcepRPObject> rpObjList);
+
+        /**
+         * Returns the PcepNotificationObject.
+         *
+         * @return list of type PcepNotificationObject
+         */
+        List<PcepNotificationObject> getNotificationObjList();
+
+        /**
+         * Sets Notification Object lists and returns its builder.
+         *
+         * @param notificationObjList list of type PcepNotificationObject
+         * @return builder by setting list of Notification Object
+         */
+        Builder setNotificationObjList(List<PcepNotificationObject> notificationObjList);
+    }
+}
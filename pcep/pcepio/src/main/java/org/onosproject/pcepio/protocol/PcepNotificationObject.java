@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol;
+
+import java.util.LinkedList;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.types.PcepObjectHeader;
+import org.onosproject.pcepio.types.PcepValueType;
+
+/**
+ * Abstraction of an entity providing PCEP Notification Object.
+ */
+public interface PcepNotificationObject {
+
+    /**
+     * Returns Notification Type in Notification Object.
+     *
+     * @return Notification Type
+     */
+    byte getNotificationType();
+
+    /**
+     * Sets Notification Type in Notification Object.
+     *
+     * @param value Notification Type
+     */
+    void setNotificationType(byte value);
+
+    /**
+     * Returns Notification Value in Notification Object.
+     *
+     * @return Notification Value
+     */
+    byte getNotificationValue();
+
+    /**
+     * Sets Notification Value in Notification Object.
+     *
+     * @param value Notification Value
+     */
+    void setNotificationValue(byte value);
+
+    /**
+     * Returns Optional Tlvs in Notification Object.
+     *
+     * @return list of Optional Tlvs in Notification Object
+     */
+    LinkedList<PcepValueType> getOptionalTlv();
+
+    /**
+     * Sets Optional Tlvs in Notification Object.
+     *
+     * @param llOptionalTlv list of Optional Tlvs
+     */
+    void setOptionalTlv(LinkedList<PcepValueType> llOptionalTlv);
+
+    /**
+     * Writes the Notification Object into channel buffer.
+     *
+     * @param bb channel buffer
+     * @return Returns the writerIndex of this buffer
+     * @throws PcepParseException while writing Notification Object into ChannelBuffer
+     */
+    int write(ChannelBuffer bb) throws PcepParseException;
+
+    /**
+     * Builder interface with get and set functions to build Notification object.
+     */
+    interface Builder {
+
+        /**
+         * Builds Notification Object.
+         *
+         * @return Notification Object.
+         */
+        PcepNotificationObject build();
+
+        /**
+         * Returns Notification Object header.
+         *
+         * @return Notification Object header
+         */
+        PcepObjectHeader getNotificationObjHeader();
+
+        /**
+         * Sets Notification Object header and returns its Builder.
+         *
+         * @param obj Notification Object header
+         * @return Builder by setting Notification Object header
+         */
+        Builder setNotificationObjHeader(PcepObjectHeader obj);
+
+        /**
+         * Returns Notification Type in Notification Object.
+         *
+         * @return Notification Type
+         */
+        byte getNotificationType();
+
+        /**
+         * Sets Notification Type and returns its builder.
+         *
+         * @param value of Notification-Type field
+         * @return builder by setting Notification Type field.
+         */
+        Builder setNotificationType(byte value);
+
+        /**
+         * Returns Notification Value in Notification Object.
+         *
+         * @return Notification Value
+         */
+        byte getNotificationValue();
+
+        /**
+         * Sets Notification Value and returns its builder.
+         *
+         * @param value of Notification-Value field
+         * @return Builder by setting Notification Value field.
+         */
+        Builder setNotificationValue(byte value);
+
+        /**
+         * Returns list of Optional Tlvs of Notification Object.
+         *
+         * @return list of Optional Tlvs of Notification Object
+         */
+        LinkedList<PcepValueType> getOptionalTlv();
+
+        /**
+         * Sets Optional Tlvs of Notification Object and returns its Builder.
+         *
+         * @param llOptionalTlv Optional Tlvs of Notification Object
+         * @return Builder by setting Optional Tlvs.
+         */
+        Builder setOptionalTlv(LinkedList<PcepValueType> llOptionalTlv);
+
+        /**
+         * Sets P flag in Notification object header and returns its builder.
+         *
+         * @param value boolean value to set P flag
+         * @return Builder by setting P flag
+         */
+        Builder setPFlag(boolean value);
+
+        /**
+         * Sets I flag in Notification object header and returns its builder.
+         *
+         * @param value boolean value to set I flag
+         * @return Builder by setting I flag
+         */
+        Builder setIFlag(boolean value);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol;
+
+import java.util.LinkedList;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+/**
+ * Abstraction of an entity which provides PCEP response element for PCEP path computation reply message.
+ */
+public interface PcepPathReply {
+
+    /**
+     * Returns the RP Object.
+     *
+     * @return RP Object
+     */
+    PcepRPObject getRPObject();
+
+    /**
+     * Sets the RP Object.
+     *
+     * @param rpObject RP Object
+     */
+    void setRPObject(PcepRPObject rpObject);
+
+    /**
+     * Returns the NO-PATH Object.
+     *
+     * @return NO-PATH Object, null if a path was found
+     */
+    PcepNoPathObject getNoPathObject();
+
+    /**
+     * Sets the NO-PATH Object.
+     *
+     * @param noPathObject NO-PATH Object
+     */
+    void setNoPathObject(PcepNoPathObject noPathObject);
+
+    /**
+     * Returns the attribute list of the response.
+     *
+     * @return PcepAttribute, null if not present
+     */
+    PcepAttribute getPcepAttribute();
+
+    /**
+     * Sets the attribute list of the response.
+     *
+     * @param pcepAttribute PcepAttribute
+     */
+    void setPcepAttribute(PcepAttribute pcepAttribute);
+
+    /**
+     * Returns the computed paths.
+     *
+     * @return list of paths, each an ERO with its attribute list
+     */
+    LinkedList<PcepMsgPath> getPathList();
+
+    /**
+     * Sets the computed paths.
+     *
+     * @param llPathList list of paths
+     */
+    void setPathList(LinkedList<PcepMsgPath> llPathList);
+
+    /**
+     * Writes the byte stream of PCEP response element to the channel buffer.
+     *
+     * @param bb of type channel buffer
+     * @return object length index
+     * @throws PcepParseException while writing response element into ChannelBuffer
+     */
+    int write(ChannelBuffer bb) throws PcepParseException;
+
+    /**
+     * Builder interface with get and set functions to build PcepPathReply.
+     */
+    interface Builder {
+
+        /**
+         * Builds PcepPathReply.
+         *
+         * @return PcepPathReply
+         * @throws PcepParseException if RP Object is not set
+         */
+        PcepPathReply build() throws PcepParseException;
+
+        /**
+         * Returns the RP Object.
+         *
+         * @return RP Object
+         */
+        PcepRPObject getRPObject();
+
+        /**
+         * Sets RP Object and returns its builder.
+         *
+         * @param rpObject RP Object
+         * @return builder by setting RP Object
+         */
+        Builder setRPObject(PcepRPObject rpObject);
+
+        /**
+         * Returns the NO-PATH Object.
+         *
+         * @return NO-PATH Object
+         */
+        PcepNoPathObject getNoPathObject();
+
+        /**
+         * Sets NO-PATH Object and returns its builder.
+         *
+         * @param noPathObject NO-PATH Object
+         * @return builder by setting NO-PATH Object
+         */
+        Builder setNoPathObject(PcepNoPathObject noPathObject);
+
+        /**
+         * Returns the PcepAttribute.
+         *
+         * @return PcepAttribute
+         */
+        PcepAttribute getPcepAttribute();
+
+        /**
+         * Sets PcepAttribute and returns its builder.
+         *
+         * @param pcepAttribute PcepAttribute
+         * @return builder by setting PcepAttribute
+         */
+        Builder setPcepAttribute(PcepAttribute pcepAttribute);
+
+        /**
+         * Returns the computed paths.
+         *
+         * @return list of paths
+         */
+        LinkedList<PcepMsgPath> getPathList();
+
+        /**
+         * Sets computed paths and returns its builder.
+         *
+         * @param llPathList list of paths
+         * @return builder by setting the paths
+         */
+        Builder setPathList(LinkedList<PcepMsgPath> llPathList);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol;
+
+import java.util.LinkedList;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+/**
+ * Abstraction of an entity providing PCEP Path Computation Reply Message (PCRep).
+ */
+public interface PcepPathReplyMsg extends PcepObject, PcepMessage {
+
+    @Override
+    PcepVersion getVersion();
+
+    @Override
+    PcepType getType();
+
+    /**
+     * Returns the response list.
+     *
+     * @return list of PcepPathReply
+     */
+    LinkedList<PcepPathReply> getReplyList();
+
+    /**
+     * Sets the response list.
+     *
+     * @param ll list of PcepPathReply
+     */
+    void setReplyList(LinkedList<PcepPathReply> ll);
+
+    @Override
+    void writeTo(ChannelBuffer channelBuffer) throws PcepParseException;
+
+    /**
+     * Builder interface with get and set functions to build PCRep message.
+     */
+    interface Builder extends PcepMessage.Builder {
+
+        @Override
+        PcepPathReplyMsg build();
+
+        @Override
+        PcepVersion getVersion();
+
+        @Override
+        PcepType getType();
+
+        /**
+         * Returns the response list.
+         *
+         * @return list of PcepPathReply
+         */
+        LinkedList<PcepPathReply> getReplyList();
+
+        /**
+         * Sets the response list and returns its builder.
+         *
+         * @param ll list of PcepPathReply
+         * @return builder by setting the response list
+         */
+        Builder setReplyList(LinkedList<PcepPathReply> ll);
+    }
+}
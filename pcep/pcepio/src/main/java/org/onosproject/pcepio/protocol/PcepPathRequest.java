@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+/**
+ * Abstraction of an entity which provides PCEP request element for PCEP path computation request message.
+ */
+public interface PcepPathRequest {
+
+    /**
+     * Returns the RP Object.
+     *
+     * @return RP Object
+     */
+    PcepRPObject getRPObject();
+
+    /**
+     * Sets the RP Object.
+     *
+     * @param rpObject RP Object
+     */
+    void setRPObject(PcepRPObject rpObject);
+
+    /**
+     * Returns the END-POINTS Object.
+     *
+     * @return END-POINTS Object
+     */
+    PcepEndPointsObject getEndPointsObject();
+
+    /**
+     * Sets the END-POINTS Object.
+     *
+     * @param endPointsObject END-POINTS Object
+     */
+    void setEndPointsObject(PcepEndPointsObject endPointsObject);
+
+    /**
+     * Returns the LSPA, BANDWIDTH, METRIC and IRO objects of the request.
+     *
+     * @return PcepAttribute, null if none of them is present
+     */
+    PcepAttribute getPcepAttribute();
+
+    /**
+     * Sets the LSPA, BANDWIDTH, METRIC and IRO objects of the request.
+     *
+     * @param pcepAttribute PcepAttribute
+     */
+    void setPcepAttribute(PcepAttribute pcepAttribute);
+
+    /**
+     * Returns the RRO Object.
+     *
+     * @return RRO Object, null if not present
+     */
+    PcepRroObject getRroObject();
+
+    /**
+     * Sets the RRO Object.
+     *
+     * @param rroObject RRO Object
+     */
+    void setRroObject(PcepRroObject rroObject);
+
+    /**
+     * Writes the byte stream of PCEP request element to the channel buffer.
+     *
+     * @param bb of type channel buffer
+     * @return object length index
+     * @throws PcepParseException while writing request element into ChannelBuffer
+     */
+    int write(ChannelBuffer bb) throws PcepParseException;
+
+    /**
+     * Builder interface with get and set functions to build PcepPathRequest.
+     */
+    interface Builder {
+
+        /**
+         * Builds PcepPathRequest.
+         *
+         * @return PcepPathRequest
+         * @throws PcepParseException if RP or END-POINTS Object is not set
+         */
+        PcepPathRequest build() throws PcepParseException;
+
+        /**
+         * Returns the RP Object.
+         *
+         * @return RP Object
+         */
+        PcepRPObject getRPObject();
+
+        /**
+         * Sets RP Object and returns its builder.
+         *
+         * @param rpObject RP Object
+         * @return builder by setting RP Object
+         */
+        Builder setRPObject(PcepRPObject rpObject);
+
+        /**
+         * Returns the END-POINTS Object.
+         *
+         * @return END-POINTS Object
+         */
+        PcepEndPointsObject getEndPointsObject();
+
+        /**
+         * Sets END-POINTS Object and returns its builder.
+         *
+         * @param endPointsObject END-POINTS Object
+         * @return builder by setting END-POINTS Object
+         */
+        Builder setEndPointsObject(PcepEndPointsObject endPointsObject);
+
+        /**
+         * Returns the PcepAttribute.
+         *
+         * @return PcepAttribute
+         */
+        PcepAttribute getPcepAttribute();
+
+        /**
+         * Sets PcepAttribute and returns its builder.
+         *
+         * @param pcepAttribute PcepAttribute
+         * @return builder by setting PcepAttribute
+         */
+        Builder setPcepAttribute(PcepAttribute pcepAttribute);
+
+        /**
+         * Returns the RRO Object.
+         *
+         * @return RRO Object
+         */
+        PcepRroObject getRroObject();
+
+        /**
+         * Sets RRO Object and returns its builder.
+         *
+         * @param rroObject RRO Object
+         * @return builder by setting RRO Object
+         */
+        Builder setRroObject(PcepRroObject rroObject);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol;
+
+import java.util.LinkedList;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+/**
+ * Abstraction of an entity providing PCEP Path Computation Request Message (PCReq).
+ */
+public interface PcepPathRequestMsg extends PcepObject, PcepMessage {
+
+    @Override
+    PcepVersion getVersion();
+
+    @Override
+    PcepType getType();
+
+    /**
+     * Returns the request list.
+     *
+     * @return list of PcepPathRequest
+     */
+    LinkedList<PcepPathRequest> getRequestList();
+
+    /**
+     * Sets the request list.
+     *
+     * @param ll list of PcepPathRequest
+     */
+    void setRequestList(LinkedList<PcepPathRequest> ll);
+
+    @Override
+    void writeTo(ChannelBuffer channelBuffer) throws PcepParseException;
+
+    /**
+     * Builder interface with get and set functions to build PCReq message.
+     */
+    interface Builder extends PcepMessage.Builder {
+
+        @Override
+        PcepPathRequestMsg build();
+
+        @Override
+        PcepVersion getVersion();
+
+        @Override
+        PcepType getType();
+
+        /**
+         * Returns the request list.
+         *
+         * @return list of PcepPathRequest
+         */
+        LinkedList<PcepPathRequest> getRequestList();
+
+        /**
+         * Sets the request list and returns its builder.
+         *
+         * @param ll list of PcepPathRequest
+         * @return builder by setting the request list
+         */
+        Builder setRequestList(LinkedList<PcepPathRequest> ll);
+    }
+}
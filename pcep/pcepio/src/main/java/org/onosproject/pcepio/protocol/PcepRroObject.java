@@ -19,6 +19,7 @@ import java.util.LinkedList;
 
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.types.PackedPath;
 import org.onosproject.pcepio.types.PcepObjectHeader;
 import org.onosproject.pcepio.types.PcepValueType;
 
@@ -29,6 +30,8 @@ public interface PcepRroObject {
 
     /**
      * Returns list of SubObjects.
+     * Objects read from the wire decode a new list on every call, so changes
+     * to it have to be set back with setSubObjects.
      *
      * @return list of SubObjects
      */
@@ -41,6 +44,14 @@ public interface PcepRroObject {
      */
     void setSubObjects(LinkedList<PcepValueType> llSubObjects);
 
+    /**
+     * Returns the subobjects of the RRO Object in interned wire format. RRO
+     * objects reported over the same route return the same instance.
+     *
+     * @return packed subobjects, null if the object has no subobjects
+     */
+    PackedPath getPath();
+
     /**
      * Writes the RRO Object into channel buffer.
      *
@@ -16,7 +16,6 @@
 
 package org.onosproject.pcepio.protocol.ver1;
 
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.Objects;
@@ -149,6 +148,8 @@ public class PcepEroObjectVer1 implements PcepEroObject {
 
     private PcepObjectHeader eroObjHeader;
     private LinkedList<PcepValueType> subObjectList = new LinkedList<>();
+    // Set instead of subObjectList when read from the wire
+    private PackedPath path;
 
     /**
      * reset variables.
@@ -170,6 +171,18 @@ public class PcepEroObjectVer1 implements PcepEroObject {
         this.subObjectList = subObjectList;
     }
 
+    /**
+     * Constructor to initialize ERO object with subobjects kept in wire format.
+     *
+     * @param eroObjHeader ERO object header
+     * @param path interned subobjects
+     */
+    private PcepEroObjectVer1(PcepObjectHeader eroObjHeader, PackedPath path) {
+        this.eroObjHeader = eroObjHeader;
+        this.subObjectList = null;
+        this.path = path;
+    }
+
     /**
      * Returns ERO object header.
      *
@@ -190,12 +203,29 @@ public class PcepEroObjectVer1 implements PcepEroObject {
 
     @Override
     public LinkedList<PcepValueType> getSubObjects() {
+        if (subObjectList == null && path != null) {
+            try {
+                return parseSubObjects(path.buffer());
+            } catch (PcepParseException e) {
+                // the path was parsed when it was read
+                throw new IllegalStateException(e);
+            }
+        }
         return this.subObjectList;
     }
 
     @Override
     public void setSubObjects(LinkedList<PcepValueType> subObjectList) {
         this.subObjectList = subObjectList;
+        this.path = null;
+    }
+
+    @Override
+    public PackedPath getPath() {
+        if (path == null && subObjectList != null) {
+            return PackedPath.of(subObjectList);
+        }
+        return path;
     }
 
     /**
@@ -208,7 +238,6 @@ public class PcepEroObjectVer1 implements PcepEroObject {
     public static PcepEroObject read(ChannelBuffer cb) throws PcepParseException {
 
         PcepObjectHeader eroObjHeader;
-        LinkedList<PcepValueType> subObjectList = new LinkedList<>();
 
         eroObjHeader = PcepObjectHeader.read(cb);
 
@@ -218,11 +247,14 @@ public class PcepEroObjectVer1 implements PcepEroObject {
             throw new PcepParseException(PcepErrorDetailInfo.ERROR_TYPE_6, PcepErrorDetailInfo.ERROR_VALUE_9);
         }
 
-        if (eroObjHeader.getObjLen() > OBJECT_HEADER_LENGTH) {
-            ChannelBuffer tempCb = cb.readBytes(eroObjHeader.getObjLen() - OBJECT_HEADER_LENGTH);
-            subObjectList = parseSubObjects(tempCb);
+        if (eroObjHeader.getObjLen() <= OBJECT_HEADER_LENGTH) {
+            return new PcepEroObjectVer1(eroObjHeader, new LinkedList<PcepValueType>());
         }
-        return new PcepEroObjectVer1(eroObjHeader, subObjectList);
+        ChannelBuffer tempCb = cb.readBytes(eroObjHeader.getObjLen() - OBJECT_HEADER_LENGTH);
+        // keep only the interned wire format, once it is known to parse
+        PackedPath path = PackedPath.copyOf(tempCb);
+        parseSubObjects(tempCb);
+        return new PcepEroObjectVer1(eroObjHeader, path);
     }
 
     /**
@@ -299,10 +331,14 @@ public class PcepEroObjectVer1 implements PcepEroObject {
             throw new PcepParseException("Failed to write ERO object header. Index " + objLenIndex);
         }
 
-        ListIterator<PcepValueType> listIterator = subObjectList.listIterator();
+        if (subObjectList != null) {
+            ListIterator<PcepValueType> listIterator = subObjectList.listIterator();
 
-        while (listIterator.hasNext()) {
-            listIterator.next().write(cb);
+            while (listIterator.hasNext()) {
+                listIterator.next().write(cb);
+            }
+        } else if (path != null) {
+            path.write(cb);
         }
 
         //Update object length now
@@ -398,14 +434,14 @@ public class PcepEroObjectVer1 implements PcepEroObject {
 
     @Override
     public int hashCode() {
-        return Objects.hash(eroObjHeader, subObjectList);
+        return Objects.hash(eroObjHeader, getPath());
     }
 
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass()).omitNullValues()
                 .add("EroObjHeader", eroObjHeader)
-                .add("SubObjects", subObjectList)
+                .add("SubObjects", getSubObjects())
                 .toString();
     }
 
@@ -416,27 +452,8 @@ public class PcepEroObjectVer1 implements PcepEroObject {
         }
 
         if (obj instanceof PcepEroObjectVer1) {
-            int countObjSubTlv = 0;
-            int countOtherSubTlv = 0;
-            boolean isCommonSubTlv = true;
             PcepEroObjectVer1 other = (PcepEroObjectVer1) obj;
-            Iterator<PcepValueType> objListIterator = other.subObjectList.iterator();
-            countOtherSubTlv = other.subObjectList.size();
-            countObjSubTlv = subObjectList.size();
-            if (countObjSubTlv != countOtherSubTlv) {
-                return false;
-            } else {
-                while (objListIterator.hasNext() && isCommonSubTlv) {
-                    PcepValueType subTlv = objListIterator.next();
-                    if (subObjectList.contains(subTlv)) {
-                        isCommonSubTlv = Objects.equals(subObjectList.get(subObjectList.indexOf(subTlv)),
-                                         other.subObjectList.get(other.subObjectList.indexOf(subTlv)));
-                    } else {
-                        isCommonSubTlv = false;
-                    }
-                }
-                return isCommonSubTlv && Objects.equals(eroObjHeader, other.eroObjHeader);
-            }
+            return Objects.equals(getPath(), other.getPath()) && Objects.equals(eroObjHeader, other.eroObjHeader);
         }
         return false;
     }
@@ -44,8 +44,17 @@ import org.onosproject.pcepio.protocol.PcepMessage;
 import org.onosproject.pcepio.protocol.PcepMessageReader;
 import org.onosproject.pcepio.protocol.PcepMetricObject;
 import org.onosproject.pcepio.protocol.PcepMsgPath;
+import org.onosproject.pcepio.protocol.PcepNoPathObject;
+import org.onosproject.pcepio.protocol.PcepNotification;
+import org.onosproject.pcepio.protocol.PcepNotificationMsg;
+import org.onosproject.pcepio.protocol.PcepNotificationObject;
 import org.onosproject.pcepio.protocol.PcepOpenMsg;
 import org.onosproject.pcepio.protocol.PcepOpenObject;
+import org.onosproject.pcepio.protocol.PcepPathReply;
+import org.onosproject.pcepio.protocol.PcepPathReplyMsg;
+import org.onosproject.pcepio.protocol.PcepPathRequest;
+import org.onosproject.pcepio.protocol.PcepPathRequestMsg;
+import org.onosproject.pcepio.protocol.PcepRPObject;
 import org.onosproject.pcepio.protocol.PcepReportMsg;
 import org.onosproject.pcepio.protocol.PcepRroObject;
 import org.onosproject.pcepio.protocol.PcepSrpObject;
@@ -233,6 +242,51 @@ public class PcepFactoryVer1 implements PcepFactory {
         return new PcepLSReportMsgVer1.Builder();
     }
 
+    @Override
+    public PcepNotificationMsg.Builder buildPcepNotificationMsg() {
+        return new PcepNotificationMsgVer1.Builder();
+    }
+
+    @Override
+    public PcepNotification.Builder buildPcepNotification() {
+        return new PcepNotificationVer1.Builder();
+    }
+
+    @Override
+    public PcepNotificationObject.Builder buildPcepNotificationObject() {
+        return new PcepNotificationObjectVer1.Builder();
+    }
+
+    @Override
+    public PcepPathRequestMsg.Builder buildPcepPathRequestMsg() {
+        return new PcepPathRequestMsgVer1.Builder();
+    }
+
+    @Override
+    public PcepPathRequest.Builder buildPcepPathRequest() {
+        return new PcepPathRequestVer1.Builder();
+    }
+
+    @Override
+    public PcepPathReplyMsg.Builder buildPcepPathReplyMsg() {
+        return new PcepPathReplyMsgVer1.Builder();
+    }
+
+    @Override
+    public PcepPathReply.Builder buildPcepPathReply() {
+        return new PcepPathReplyVer1.Builder();
+    }
+
+    @Override
+    public PcepRPObject.Builder buildRPObject() {
+        return new PcepRPObjectVer1.Builder();
+    }
+
+    @Override
+    public PcepNoPathObject.Builder buildNoPathObject() {
+        return new PcepNoPathObjectVer1.Builder();
+    }
+
     // added for Huawei ACTN
     @Override
     public PcepLSObject.Builder buildLsObject() {
@@ -98,7 +98,7 @@ public class PcepInitiateMsgVer1 implements PcepInitiateMsg {
             if (type != MSG_TYPE.getType()) {
                 throw new PcepParseException("Wrong type. Expected=PcepType.INITIATE(12), recived=" + type);
             }
-            short length = cb.readShort();
+            int length = cb.readUnsignedShort();
 
             if (length < PACKET_MINIMUM_LENGTH) {
                 throw new PcepParseException("Wrong length. Initiate message length expected to be >= "
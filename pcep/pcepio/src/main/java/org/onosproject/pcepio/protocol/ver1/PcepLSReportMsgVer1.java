@@ -83,7 +83,7 @@ class PcepLSReportMsgVer1 implements PcepLSReportMsg {
                 throw new PcepParseException("Wrong type. Expected=PcepType.LS_REPORT(224), got=" + type);
             }
 
-            short length = cb.readShort();
+            int length = cb.readUnsignedShort();
             if (length < PACKET_MINIMUM_LENGTH) {
                 throw new PcepParseException(
                         "Wrong length. Expected to be >= " + PACKET_MINIMUM_LENGTH + ", is: " + length);
@@ -169,6 +169,7 @@ public class PcepLabelRangeObjectVer1 implements PcepLabelRangeObject {
         temp = temp << 24;
         temp = temp | rangeSize;
         cb.writeInt(temp);
+        cb.writeInt(labelBase);
 
         // Add optional TLV
         if (!packOptionalTlv(cb)) {
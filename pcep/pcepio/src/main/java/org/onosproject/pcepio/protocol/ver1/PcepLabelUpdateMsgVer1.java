@@ -98,7 +98,7 @@ class PcepLabelUpdateMsgVer1 implements PcepLabelUpdateMsg {
             if (type != MSG_TYPE.getType()) {
                 throw new PcepParseException("Wrong type. Expected=PcepType.LABEL_UPDATE(13), got=" + type);
             }
-            short length = cb.readShort();
+            int length = cb.readUnsignedShort();
             if (length < PACKET_MINIMUM_LENGTH) {
                 throw new PcepParseException("Wrong length. Expected to be >= " + PACKET_MINIMUM_LENGTH + ", is: "
                         + length);
@@ -64,7 +64,7 @@ public abstract class PcepMessageVer1 {
                 }
 
                 byte type = cb.readByte();
-                short length = cb.readShort();
+                int length = cb.readUnsignedShort();
                 cb.readerIndex(start);
 
                 // Check the out-of-bound message.
@@ -79,6 +79,15 @@ public abstract class PcepMessageVer1 {
                 } else if (type == (byte) PcepType.KEEP_ALIVE.getType()) {
                     log.debug("KEEPALIVE MESSAGE is received");
                     return PcepKeepaliveMsgVer1.READER.readFrom(cb.readBytes(length));
+                } else if (type == (byte) PcepType.PATH_COMPUTATION_REQUEST.getType()) {
+                    log.debug("PATH COMPUTATION REQUEST MESSAGE is received");
+                    return PcepPathRequestMsgVer1.READER.readFrom(cb.readBytes(length));
+                } else if (type == (byte) PcepType.PATH_COMPUTATION_REPLY.getType()) {
+                    log.debug("PATH COMPUTATION REPLY MESSAGE is received");
+                    return PcepPathReplyMsgVer1.READER.readFrom(cb.readBytes(length));
+                } else if (type == (byte) PcepType.NOTIFICATION.getType()) {
+                    log.debug("NOTIFICATION MESSAGE is received");
+                    return PcepNotificationMsgVer1.READER.readFrom(cb.readBytes(length));
                 } else if (type == (byte) PcepType.ERROR.getType()) {
                     log.debug("ERROR MESSAGE is received");
                     return PcepErrorMsgVer1.READER.readFrom(cb.readBytes(length));
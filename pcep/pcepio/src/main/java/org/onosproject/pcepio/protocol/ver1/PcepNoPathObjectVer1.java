@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepNoPathObject;
+import org.onosproject.pcepio.types.PcepObjectHeader;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PCEP NO-PATH Object.
+ */
+public class PcepNoPathObjectVer1 implements PcepNoPathObject {
+
+    /*
+    Reference: RFC 5440, section 7.5.
+    0                   1                   2                   3
+    0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    | Object-Class  |   OT  |Res|P|I|   Object Length (bytes)       |
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    |Nature of Issue|C|          Flags              |   Reserved    |
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    |                                                               |
+    //                      Optional TLVs                          //
+    |                                                               |
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     */
+    protected static final Logger log = LoggerFactory.getLogger(PcepNoPathObjectVer1.class);
+
+    public static final byte NO_PATH_OBJ_TYPE = 1;
+    public static final byte NO_PATH_OBJ_CLASS = 3;
+    public static final byte NO_PATH_OBJECT_VERSION = 1;
+    //NO_PATH_OBJ_MINIMUM_LENGTH = CommonHeaderLen(4)+NoPathObjectHeaderLen(4)
+    public static final short NO_PATH_OBJ_MINIMUM_LENGTH = 8;
+    public static final int OBJECT_HEADER_LENGTH = 4;
+    public static final int MINIMUM_COMMON_HEADER_LENGTH = 4;
+    public static final int CFLAG_SET = 0x80;
+
+    private PcepObjectHeader noPathObjHeader;
+    private byte natureOfIssue;
+    private boolean cFlag;
+    private LinkedList<PcepValueType> optionalTlv; // Optional TLV
+
+    /**
+     * Constructor to initialize variables.
+     *
+     * @param noPathObjHeader NO-PATH Object header
+     * @param natureOfIssue Nature of Issue
+     * @param cFlag C flag
+     * @param optionalTlv list of optional TLV
+     */
+    public PcepNoPathObjectVer1(PcepObjectHeader noPathObjHeader, byte natureOfIssue, boolean cFlag,
+            LinkedList<PcepValueType> optionalTlv) {
+        this.noPathObjHeader = noPathObjHeader;
+        this.natureOfIssue = natureOfIssue;
+        this.cFlag = cFlag;
+        this.optionalTlv = optionalTlv;
+    }
+
+    /**
+     * Sets Object Header.
+     *
+     * @param obj NO-PATH Object header
+     */
+    public void setNoPathObjHeader(PcepObjectHeader obj) {
+        this.noPathObjHeader = obj;
+    }
+
+    /**
+     * Returns object header.
+     *
+     * @return noPathObjHeader NO-PATH Object header
+     */
+    public PcepObjectHeader getNoPathObjHeader() {
+        return this.noPathObjHeader;
+    }
+
+    @Override
+    public byte getNatureOfIssue() {
+        return this.natureOfIssue;
+    }
+
+    @Override
+    public void setNatureOfIssue(byte value) {
+        this.natureOfIssue = value;
+    }
+
+    @Override
+    public boolean getCFlag() {
+        return this.cFlag;
+    }
+
+    @Override
+    public void setCFlag(boolean value) {
+        this.cFlag = value;
+    }
+
+    @Override
+    public LinkedList<PcepValueType> getOptionalTlv() {
+        return this.optionalTlv;
+    }
+
+    @Override
+    public void setOptionalTlv(LinkedList<PcepValueType> optionalTlv) {
+        this.optionalTlv = optionalTlv;
+    }
+
+    /**
+     * Reads from channel buffer and returns object of PcepNoPathObject.
+     *
+     * @param cb of channel buffer.
+     * @return object of PCEP NO-PATH Object
+     * @throws PcepParseException if the object length is not valid
+     */
+    public static PcepNoPathObject read(ChannelBuffer cb) throws PcepParseException {
+
+        PcepObjectHeader noPathObjHeader;
+        byte natureOfIssue;
+        boolean cFlag;
+        LinkedList<PcepValueType> optionalTlv;
+
+        noPathObjHeader = PcepObjectHeader.read(cb);
+        if (noPathObjHeader.getObjLen() < NO_PATH_OBJ_MINIMUM_LENGTH) {
+            throw new PcepParseException("Wrong length in NO-PATH Object: " + noPathObjHeader.getObjLen());
+        }
+
+        //take only NoPathObject buffer.
+        ChannelBuffer tempCb = cb.readBytes(noPathObjHeader.getObjLen() - OBJECT_HEADER_LENGTH);
+        natureOfIssue = tempCb.readByte();
+        cFlag = (tempCb.readByte() & CFLAG_SET) == CFLAG_SET;
+        tempCb.readByte(); //ignore remaining Flags
+        tempCb.readByte(); //ignore Reserved
+
+        optionalTlv = parseOptionalTlv(tempCb);
+
+        return new PcepNoPathObjectVer1(noPathObjHeader, natureOfIssue, cFlag, optionalTlv);
+    }
+
+    /**
+     * Returns Linked list of optional tlvs, unknown tlvs are skipped.
+     *
+     * @param cb channel buffer.
+     * @return Linked list of optional tlvs
+     */
+    protected static LinkedList<PcepValueType> parseOptionalTlv(ChannelBuffer cb) {
+
+        LinkedList<PcepValueType> llOutOptionalTlv = new LinkedList<>();
+
+        while (MINIMUM_COMMON_HEADER_LENGTH <= cb.readableBytes()) {
+
+            short hType = cb.readShort();
+            short hLength = cb.readShort();
+            if (cb.readableBytes() < hLength) {
+                log.debug("Length is not valid in TLV of type {}, ignoring remaining bytes", hType);
+                break;
+            }
+
+            log.debug("Unsupported TLV of type {} received in NO-PATH Object", hType);
+            cb.skipBytes(hLength);
+
+            // Check for the padding
+            int pad = hLength % 4;
+            if (0 < pad) {
+                pad = 4 - pad;
+                if (pad <= cb.readableBytes()) {
+                    cb.skipBytes(pad);
+                }
+            }
+        }
+
+        return llOutOptionalTlv;
+    }
+
+    @Override
+    public int write(ChannelBuffer cb) throws PcepParseException {
+
+        //write Object header
+        int objStartIndex = cb.writerIndex();
+
+        int objLenIndex = noPathObjHeader.write(cb);
+
+        if (objLenIndex <= 0) {
+            throw new PcepParseException("While writing NO-PATH Object Header.");
+        }
+
+        //write Nature of Issue
+        cb.writeByte(this.natureOfIssue);
+        //write Flags
+        cb.writeByte(this.cFlag ? CFLAG_SET : 0);
+        cb.writeByte(0);
+        //write Reserved
+        cb.writeByte(0);
+
+        // Add optional TLV
+        packOptionalTlv(cb);
+
+        //Update object length now
+        int length = cb.writerIndex() - objStartIndex;
+        //will be helpful during print().
+        noPathObjHeader.setObjLen((short) length);
+        // As per RFC the length of object should be
+        // multiples of 4
+        int pad = length % 4;
+        if (pad != 0) {
+            pad = 4 - pad;
+            for (int i = 0; i < pad; i++) {
+                cb.writeByte((byte) 0);
+            }
+            length = length + pad;
+        }
+
+        cb.setShort(objLenIndex, (short) length);
+        return length;
+    }
+
+    /**
+     * Pack the Optional tlvs.
+     *
+     * @param cb channel buffer.
+     * @return writer index.
+     */
+    protected int packOptionalTlv(ChannelBuffer cb) {
+
+        int startIndex = cb.writerIndex();
+        if (optionalTlv == null) {
+            return 0;
+        }
+
+        ListIterator<PcepValueType> listIterator = optionalTlv.listIterator();
+        while (listIterator.hasNext()) {
+            PcepValueType tlv = listIterator.next();
+
+            if (tlv == null) {
+                log.debug("TLV is null from OptionalTlv list");
+                continue;
+            }
+            tlv.write(cb);
+        }
+
+        return cb.writerIndex() - startIndex;
+    }
+
+    /**
+     * Builder class for PCEP NO-PATH object.
+     */
+    public static class Builder implements PcepNoPathObject.Builder {
+
+        private boolean bIsHeaderSet = false;
+
+        private PcepObjectHeader noPathObjHeader;
+        private byte natureOfIssue = NI_NO_PATH_FOUND;
+        private boolean cFlag;
+
+        private boolean bIsPFlagSet = false;
+        private boolean bPFlag;
+
+        private boolean bIsIFlagSet = false;
+        private boolean bIFlag;
+
+        private LinkedList<PcepValueType> optionalTlv = new LinkedList<>();
+
+        @Override
+        public PcepNoPathObject build() {
+
+            PcepObjectHeader noPathObjHeader = this.bIsHeaderSet ? this.noPathObjHeader
+                    : new PcepObjectHeader(NO_PATH_OBJ_CLASS, NO_PATH_OBJ_TYPE,
+                            PcepObjectHeader.REQ_OBJ_OPTIONAL_PROCESS, PcepObjectHeader.RSP_OBJ_PROCESSED,
+                            NO_PATH_OBJ_MINIMUM_LENGTH);
+
+            if (bIsPFlagSet) {
+                noPathObjHeader.setPFlag(bPFlag);
+            }
+
+            if (bIsIFlagSet) {
+                noPathObjHeader.setIFlag(bIFlag);
+            }
+
+            return new PcepNoPathObjectVer1(noPathObjHeader, natureOfIssue, cFlag, optionalTlv);
+        }
+
+        @Override
+        public PcepObjectHeader getNoPathObjHeader() {
+            return this.noPathObjHeader;
+        }
+
+        @Override
+        public Builder setNoPathObjHeader(PcepObjectHeader obj) {
+            this.noPathObjHeader = obj;
+            this.bIsHeaderSet = true;
+            return this;
+        }
+
+        @Override
+        public byte getNatureOfIssue() {
+            return this.natureOfIssue;
+        }
+
+        @Override
+        public Builder setNatureOfIssue(byte value) {
+            this.natureOfIssue = value;
+            return this;
+        }
+
+        @Override
+        public boolean getCFlag() {
+            return this.cFlag;
+        }
+
+        @Override
+        public Builder setCFlag(boolean value) {
+            this.cFlag = value;
+            return this;
+        }
+
+        @Override
+        public Builder setOptionalTlv(LinkedList<PcepValueType> optionalTlv) {
+            this.optionalTlv = optionalTlv;
+            return this;
+        }
+
+        @Override
+        public LinkedList<PcepValueType> getOptionalTlv() {
+            return this.optionalTlv;
+        }
+
+        @Override
+        public Builder setPFlag(boolean value) {
+            this.bPFlag = value;
+            this.bIsPFlagSet = true;
+            return this;
+        }
+
+        @Override
+        public Builder setIFlag(boolean value) {
+            this.bIFlag = value;
+            this.bIsIFlagSet = true;
+            return this;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("ObjectHeader", noPathObjHeader).add("NatureOfIssue", natureOfIssue)
+                .add("CFlag", cFlag).add("OptionalTlv", optionalTlv).toString();
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepMessageReader;
+import org.onosproject.pcepio.protocol.PcepMessageWriter;
+import org.onosproject.pcepio.protocol.PcepNotification;
+import org.onosproject.pcepio.protocol.PcepNotificationMsg;
+import org.onosproject.pcepio.protocol.PcepType;
+import org.onosproject.pcepio.protocol.PcepVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PCEP Notification Message.
+ */
+class PcepNotificationMsgVer1 implements PcepNotificationMsg {
+
+    // Pcep version: 1
+
+    /*
+      The format of the PCNtf message:
+      Reference: RFC 5440, section 6.6.
+
+                  <PCNtf Message>              ::=     <Common Header>
+                                                       <notify-list>
+                Where:
+
+                <notify-list>                  ::=     <notify> [<notify-list>]
+
+                <notify>                       ::=     [<request-id-list>]
+                                                       <notification-list>
+
+                <request-id-list>              ::=     <RP>[<request-id-list>]
+
+                <notification-list>            ::=     <NOTIFICATION>[<notification-list>]
+     */
+    protected static final Logger log = LoggerFactory.getLogger(PcepNotificationMsgVer1.class);
+
+    public static final byte PACKET_VERSION = 1;
+
+    //NotificationMsgMinLength = COMMON-HEADER(4)+NotificationObjMinLength(8)
+    public static final int PACKET_MINIMUM_LENGTH = 12;
+    public static final PcepType MSG_TYPE = PcepType.NOTIFICATION;
+    //notify-list
+    private LinkedList<PcepNotification> llNotificationList;
+
+    static final PcepNotificationMsgVer1.Reader READER = new Reader();
+
+    /**
+     * Reader reads Notification Message from the channel.
+     */
+    static class Reader implements PcepMessageReader<PcepNotificationMsg> {
+
+        @Override
+        public PcepNotificationMsg readFrom(ChannelBuffer cb) throws PcepParseException {
+
+            if (cb.readableBytes() < PACKET_MINIMUM_LENGTH) {
+                throw new PcepParseException("Readable bytes are less than Packet minimum length.");
+            }
+
+            // fixed value property version == 1
+            byte version = cb.readByte();
+            version = (byte) (version >> PcepMessageVer1.SHIFT_FLAG);
+            if (version != PACKET_VERSION) {
+                throw new PcepParseException("Wrong version.Expected=PcepVersion.PCEP_1(1), got=" + version);
+            }
+            // fixed value property type == 5
+            byte type = cb.readByte();
+            if (type != MSG_TYPE.getType()) {
+                throw new PcepParseException("Wrong type. Expected=PcepType.NOTIFICATION(5), got=" + type);
+            }
+            int length = cb.readUnsignedShort();
+            if (length < PACKET_MINIMUM_LENGTH) {
+                throw new PcepParseException("Wrong length. Expected to be >= " + PACKET_MINIMUM_LENGTH + ", is: "
+                        + length);
+            }
+            // parse <notify-list>
+            LinkedList<PcepNotification> llNotificationList = parseNotificationList(cb);
+            return new PcepNotificationMsgVer1(llNotificationList);
+        }
+
+        /**
+         * Returns list of PCEP notify elements.
+         *
+         * @param cb of type channel buffer
+         * @return llNotificationList list of PCEP notify elements
+         * @throws PcepParseException when fails to parse list of PCEP notify elements
+         */
+        public LinkedList<PcepNotification> parseNotificationList(ChannelBuffer cb) throws PcepParseException {
+
+            LinkedList<PcepNotification> llNotificationList = new LinkedList<>();
+
+            while (0 < cb.readableBytes()) {
+                llNotificationList.add(PcepNotificationVer1.read(cb));
+            }
+            return llNotificationList;
+        }
+    }
+
+    /**
+     * Constructor to initialize PCEP notify list.
+     *
+     * @param llNotificationList list of PCEP notify elements
+     */
+    PcepNotificationMsgVer1(LinkedList<PcepNotification> llNotificationList) {
+        this.llNotificationList = llNotificationList;
+    }
+
+    /**
+     * Builder class for PCEP notification message.
+     */
+    static class Builder implements PcepNotificationMsg.Builder {
+
+        LinkedList<PcepNotification> llNotificationList;
+
+        @Override
+        public PcepVersion getVersion() {
+            return PcepVersion.PCEP_1;
+        }
+
+        @Override
+        public PcepType getType() {
+            return PcepType.NOTIFICATION;
+        }
+
+        @Override
+        public PcepNotificationMsg build() {
+            return new PcepNotificationMsgVer1(this.llNotificationList);
+        }
+
+        @Override
+        public LinkedList<PcepNotification> getNotificationList() {
+            return this.llNotificationList;
+        }
+
+        @Override
+        public Builder setNotificationList(LinkedList<PcepNotification> ll) {
+            this.llNotificationList = ll;
+            return this;
+        }
+    }
+
+    @Override
+    public void writeTo(ChannelBuffer cb) throws PcepParseException {
+        WRITER.write(cb, this);
+    }
+
+    static final Writer WRITER = new Writer();
+
+    /**
+     * Writer writes Notification Message to the channel.
+     */
+    static class Writer implements PcepMessageWriter<PcepNotificationMsgVer1> {
+
+        @Override
+        public void write(ChannelBuffer cb, PcepNotificationMsgVer1 message) throws PcepParseException {
+
+            if (message.llNotificationList == null || message.llNotificationList.isEmpty()) {
+                throw new PcepParseException("Empty PCNtf message.");
+            }
+
+            int startIndex = cb.writerIndex();
+
+            // first 3 bits set to version
+            cb.writeByte((byte) (PACKET_VERSION << PcepMessageVer1.SHIFT_FLAG));
+
+            // message type
+            cb.writeByte(MSG_TYPE.getType());
+
+            // Length will be set after calculating length, but currently set it as 0.
+            int msgLenIndex = cb.writerIndex();
+
+            cb.writeShort((short) 0);
+            ListIterator<PcepNotification> listIterator = message.llNotificationList.listIterator();
+
+            while (listIterator.hasNext()) {
+                listIterator.next().write(cb);
+            }
+
+            // update message length field
+            int length = cb.writerIndex() - startIndex;
+            cb.setShort(msgLenIndex, (short) length);
+        }
+    }
+
+    @Override
+    public PcepVersion getVersion() {
+        return PcepVersion.PCEP_1;
+    }
+
+    @Override
+    public PcepType getType() {
+        return MSG_TYPE;
+    }
+
+    @Override
+    public LinkedList<PcepNotification> getNotificationList() {
+        return this.llNotificationList;
+    }
+
+    @Override
+    public void setNotificationList(LinkedList<PcepNotification> ll) {
+        this.llNotificationList = ll;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("NotificationList", llNotificationList)
+                .toString();
+    }
+}
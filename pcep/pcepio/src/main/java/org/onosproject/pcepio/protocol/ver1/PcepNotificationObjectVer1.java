@@ -0,0 +1,380 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepNotificationObject;
+import org.onosproject.pcepio.types.OverloadedDurationTlv;
+import org.onosproject.pcepio.types.PcepObjectHeader;
+import org.onosproject.pcepio.types.PcepValueType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PCEP Notification Object.
+ */
+public class PcepNotificationObjectVer1 implements PcepNotificationObject {
+
+    /*
+    Reference: RFC 5440, section 7.14.
+    0                   1                   2                   3
+    0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    | Object-Class  |   OT  |Res|P|I|   Object Length (bytes)       |
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    |   Reserved    |      Flags    |       NT      |     NV        |
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+    |                                                               |
+    //                      Optional TLVs                          //
+    |                                                               |
+    +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     */
+    protected static final Logger log = LoggerFactory.getLogger(PcepNotificationObjectVer1.class);
+
+    public static final byte NOTIFICATION_OBJ_TYPE = 1;
+    public static final byte NOTIFICATION_OBJ_CLASS = 12;
+    public static final byte NOTIFICATION_OBJECT_VERSION = 1;
+    //NOTIFICATION_OBJ_MINIMUM_LENGTH = CommonHeaderLen(4)+NotificationObjectHeaderLen(4)
+    public static final short NOTIFICATION_OBJ_MINIMUM_LENGTH = 8;
+    public static final int OBJECT_HEADER_LENGTH = 4;
+    public static final int MINIMUM_COMMON_HEADER_LENGTH = 4;
+
+    public static final PcepObjectHeader DEFAULT_NOTIFICATION_OBJECT_HEADER = new PcepObjectHeader(
+            NOTIFICATION_OBJ_CLASS, NOTIFICATION_OBJ_TYPE, PcepObjectHeader.REQ_OBJ_OPTIONAL_PROCESS,
+            PcepObjectHeader.RSP_OBJ_PROCESSED, NOTIFICATION_OBJ_MINIMUM_LENGTH);
+
+    private PcepObjectHeader notificationObjHeader;
+    private byte notificationType;
+    private byte notificationValue;
+    private LinkedList<PcepValueType> optionalTlv; // Optional TLV
+
+    /**
+     * Constructor to initialize variables.
+     *
+     * @param notificationObjHeader Notification Object header
+     * @param notificationType Notification Type
+     * @param notificationValue Notification Value
+     * @param optionalTlv list of optional TLV
+     */
+    public PcepNotificationObjectVer1(PcepObjectHeader notificationObjHeader, byte notificationType,
+            byte notificationValue, LinkedList<PcepValueType> optionalTlv) {
+        this.notificationObjHeader = notificationObjHeader;
+        this.notificationType = notificationType;
+        this.notificationValue = notificationValue;
+        this.optionalTlv = optionalTlv;
+    }
+
+    /**
+     * Sets Object Header.
+     *
+     * @param obj Notification-Object header
+     */
+    public void setNotificationObjHeader(PcepObjectHeader obj) {
+        this.notificationObjHeader = obj;
+    }
+
+    /**
+     * Returns object header.
+     *
+     * @return notificationObjHeader Notification-Object header
+     */
+    public PcepObjectHeader getNotificationObjHeader() {
+        return this.notificationObjHeader;
+    }
+
+    @Override
+    public byte getNotificationType() {
+        return this.notificationType;
+    }
+
+    @Override
+    public void setNotificationType(byte value) {
+        this.notificationType = value;
+    }
+
+    @Override
+    public byte getNotificationValue() {
+        return this.notificationValue;
+    }
+
+    @Override
+    public void setNotificationValue(byte value) {
+        this.notificationValue = value;
+    }
+
+    @Override
+    public LinkedList<PcepValueType> getOptionalTlv() {
+        return this.optionalTlv;
+    }
+
+    @Override
+    public void setOptionalTlv(LinkedList<PcepValueType> optionalTlv) {
+        this.optionalTlv = optionalTlv;
+    }
+
+    /**
+     * Reads from channel buffer and returns object of PcepNotificationObject.
+     *
+     * @param cb of channel buffer.
+     * @return object of PCEP-NOTIFICATION-OBJECT
+     * @throws PcepParseException if the object length is not valid
+     */
+    public static PcepNotificationObject read(ChannelBuffer cb) throws PcepParseException {
+
+        PcepObjectHeader notificationObjHeader;
+        byte notificationType;
+        byte notificationValue;
+        LinkedList<PcepValueType> optionalTlv;
+
+        notificationObjHeader = PcepObjectHeader.read(cb);
+        if (notificationObjHeader.getObjLen() < NOTIFICATION_OBJ_MINIMUM_LENGTH) {
+            throw new PcepParseException("Wrong length in Notification Object: "
+                    + notificationObjHeader.getObjLen());
+        }
+
+        //take only NotificationObject buffer.
+        ChannelBuffer tempCb = cb.readBytes(notificationObjHeader.getObjLen() - OBJECT_HEADER_LENGTH);
+        tempCb.readByte(); //ignore Reserved
+        tempCb.readByte(); //ignore Flags
+        notificationType = tempCb.readByte();
+        notificationValue = tempCb.readByte();
+
+        optionalTlv = parseOptionalTlv(tempCb);
+
+        return new PcepNotificationObjectVer1(notificationObjHeader, notificationType, notificationValue,
+                optionalTlv);
+    }
+
+    /**
+     * Returns Linked list of optional tlvs, unknown tlvs are skipped.
+     *
+     * @param cb channel buffer.
+     * @return Linked list of optional tlvs
+     */
+    protected static LinkedList<PcepValueType> parseOptionalTlv(ChannelBuffer cb) {
+
+        LinkedList<PcepValueType> llOutOptionalTlv = new LinkedList<>();
+
+        while (MINIMUM_COMMON_HEADER_LENGTH <= cb.readableBytes()) {
+
+            short hType = cb.readShort();
+            short hLength = cb.readShort();
+            if (cb.readableBytes() < hLength) {
+                log.debug("Length is not valid in TLV of type {}, ignoring remaining bytes", hType);
+                break;
+            }
+
+            if (hType == OverloadedDurationTlv.TYPE && hLength == OverloadedDurationTlv.LENGTH) {
+                llOutOptionalTlv.add(OverloadedDurationTlv.read(cb));
+            } else {
+                log.debug("Unsupported TLV of type {} received in Notification Object", hType);
+                cb.skipBytes(hLength);
+            }
+
+            // Check for the padding
+            int pad = hLength % 4;
+            if (0 < pad) {
+                pad = 4 - pad;
+                if (pad <= cb.readableBytes()) {
+                    cb.skipBytes(pad);
+                }
+            }
+        }
+
+        return llOutOptionalTlv;
+    }
+
+    @Override
+    public int write(ChannelBuffer cb) throws PcepParseException {
+
+        //write Object header
+        int objStartIndex = cb.writerIndex();
+
+        int objLenIndex = notificationObjHeader.write(cb);
+
+        if (objLenIndex <= 0) {
+            throw new PcepParseException("While writing Notification Object Header.");
+        }
+
+        //write Reserved
+        cb.writeByte(0);
+        //write Flags
+        cb.writeByte(0);
+        //write NotificationType and NotificationValue
+        cb.writeByte(this.notificationType);
+        cb.writeByte(this.notificationValue);
+
+        // Add optional TLV
+        packOptionalTlv(cb);
+
+        //Update object length now
+        int length = cb.writerIndex() - objStartIndex;
+        //will be helpful during print().
+        notificationObjHeader.setObjLen((short) length);
+        // As per RFC the length of object should be
+        // multiples of 4
+        int pad = length % 4;
+        if (pad != 0) {
+            pad = 4 - pad;
+            for (int i = 0; i < pad; i++) {
+                cb.writeByte((byte) 0);
+            }
+            length = length + pad;
+        }
+
+        cb.setShort(objLenIndex, (short) length);
+        return length;
+    }
+
+    /**
+     * Pack the Optional tlvs.
+     *
+     * @param cb channel buffer.
+     * @return writer index.
+     */
+    protected int packOptionalTlv(ChannelBuffer cb) {
+
+        int startIndex = cb.writerIndex();
+        if (optionalTlv == null) {
+            return 0;
+        }
+
+        ListIterator<PcepValueType> listIterator = optionalTlv.listIterator();
+        while (listIterator.hasNext()) {
+            PcepValueType tlv = listIterator.next();
+
+            if (tlv == null) {
+                log.debug("TLV is null from OptionalTlv list");
+                continue;
+            }
+            tlv.write(cb);
+        }
+
+        return cb.writerIndex() - startIndex;
+    }
+
+    /**
+     * Builder class for PCEP notification object.
+     */
+    public static class Builder implements PcepNotificationObject.Builder {
+
+        private boolean bIsHeaderSet = false;
+
+        private PcepObjectHeader notificationObjHeader;
+        private byte notificationType;
+        private byte notificationValue;
+
+        private boolean bIsPFlagSet = false;
+        private boolean bPFlag;
+
+        private boolean bIsIFlagSet = false;
+        private boolean bIFlag;
+
+        private LinkedList<PcepValueType> optionalTlv = new LinkedList<>();
+
+        @Override
+        public PcepNotificationObject build() {
+
+            PcepObjectHeader notificationObjHeader = this.bIsHeaderSet ? this.notificationObjHeader
+                    : new PcepObjectHeader(NOTIFICATION_OBJ_CLASS, NOTIFICATION_OBJ_TYPE,
+                            PcepObjectHeader.REQ_OBJ_OPTIONAL_PROCESS, PcepObjectHeader.RSP_OBJ_PROCESSED,
+                            NOTIFICATION_OBJ_MINIMUM_LENGTH);
+
+            if (bIsPFlagSet) {
+                notificationObjHeader.setPFlag(bPFlag);
+            }
+
+            if (bIsIFlagSet) {
+                notificationObjHeader.setIFlag(bIFlag);
+            }
+
+            return new PcepNotificationObjectVer1(notificationObjHeader, notificationType, notificationValue,
+                    optionalTlv);
+        }
+
+        @Override
+        public PcepObjectHeader getNotificationObjHeader() {
+            return this.notificationObjHeader;
+        }
+
+        @Override
+        public Builder setNotificationObjHeader(PcepObjectHeader obj) {
+            this.notificationObjHeader = obj;
+            this.bIsHeaderSet = true;
+            return this;
+        }
+
+        @Override
+        public byte getNotificationType() {
+            return this.notificationType;
+        }
+
+        @Override
+        public Builder setNotificationType(byte value) {
+            this.notificationType = value;
+            return this;
+        }
+
+        @Override
+        public byte getNotificationValue() {
+            return this.notificationValue;
+        }
+
+        @Override
+        public Builder setNotificationValue(byte value) {
+            this.notificationValue = value;
+            return this;
+        }
+
+        @Override
+        public Builder setOptionalTlv(LinkedList<PcepValueType> optionalTlv) {
+            this.optionalTlv = optionalTlv;
+            return this;
+        }
+
+        @Override
+        public LinkedList<PcepValueType> getOptionalTlv() {
+            return this.optionalTlv;
+        }
+
+        @Override
+        public Builder setPFlag(boolean value) {
+            this.bPFlag = value;
+            this.bIsPFlagSet = true;
+            return this;
+        }
+
+        @Override
+        public Builder setIFlag(boolean value) {
+            this.bIFlag = value;
+            this.bIsIFlagSet = true;
+            return this;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("ObjectHeader", notificationObjHeader).add("NotificationType", notificationType)
+                .add("NotificationValue", notificationValue).add("OptionalTlv", optionalTlv).toString();
+    }
+}
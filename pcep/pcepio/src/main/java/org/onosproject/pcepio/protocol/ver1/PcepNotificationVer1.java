@@ -0,0 +1,245 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepNotification;
+import org.onosproject.pcepio.protocol.PcepNotificationObject;
+import org.onosproject.pcepio.protocol.PcepRPObject;
+import org.onosproject.pcepio.types.PcepObjectHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PcepNotification list which contains RP and NOTIFICATION objects.
+ * Reference: RFC 5440, section 6.6.
+ */
+public class PcepNotificationVer1 implements PcepNotification {
+
+    /*
+           <notify>::=[<request-id-list>]
+                      <notification-list>
+
+           <request-id-list>::=<RP>[<request-id-list>]
+
+           <notification-list>::=<NOTIFICATION>[<notification-list>]
+     */
+
+    protected static final Logger log = LoggerFactory.getLogger(PcepNotificationVer1.class);
+
+    //PcepRPObject list
+    private List<PcepRPObject> rpObjList;
+    //PcepNotificationObject list
+    private List<PcepNotificationObject> notificationObjList;
+
+    public static final int OBJECT_HEADER_LENGTH = 4;
+
+    /**
+     * Constructor to initialize variable.
+     */
+    public PcepNotificationVer1() {
+        this.rpObjList = null;
+        this.notificationObjList = null;
+    }
+
+    /**
+     * Constructor to initialize variable.
+     *
+     * @param rpObjList list of PcepRPObject
+     * @param notificationObjList list of PcepNotificationObject
+     */
+    public PcepNotificationVer1(List<PcepRPObject> rpObjList, List<PcepNotificationObject> notificationObjList) {
+        this.rpObjList = rpObjList;
+        this.notificationObjList = notificationObjList;
+    }
+
+    @Override
+    public List<PcepRPObject> getRPObjList() {
+        return this.rpObjList;
+    }
+
+    @Override
+    public void setRPObjList(List<PcepRPObject> rpObjList) {
+        this.rpObjList = rpObjList;
+    }
+
+    @Override
+    public List<PcepNotificationObject> getNotificationObjList() {
+        return this.notificationObjList;
+    }
+
+    @Override
+    public void setNotificationObjList(List<PcepNotificationObject> notificationObjList) {
+        this.notificationObjList = notificationObjList;
+    }
+
+    /**
+     * Parse RP List from the channel buffer.
+     *
+     * @param cb of type channel buffer
+     * @throws PcepParseException if mandatory fields are missing
+     */
+    public void parseRPList(ChannelBuffer cb) throws PcepParseException {
+        rpObjList = new LinkedList<>();
+
+        while (checkNextObject(cb) == PcepRPObjectVer1.RP_OBJ_CLASS) {
+            rpObjList.add(PcepRPObjectVer1.read(cb));
+        }
+    }
+
+    /**
+     * Parse Notification Object List from the channel buffer.
+     *
+     * @param cb of type channel buffer
+     * @throws PcepParseException if mandatory fields are missing
+     */
+    public void parseNotificationObjList(ChannelBuffer cb) throws PcepParseException {
+        notificationObjList = new LinkedList<>();
+
+        while (checkNextObject(cb) == PcepNotificationObjectVer1.NOTIFICATION_OBJ_CLASS) {
+            notificationObjList.add(PcepNotificationObjectVer1.read(cb));
+        }
+
+        if (notificationObjList.isEmpty()) {
+            throw new PcepParseException("At least one NOTIFICATION Object should be present.");
+        }
+    }
+
+    /**
+     * Reads the byte stream of PcepNotification from channel buffer.
+     *
+     * @param cb of type channel buffer
+     * @return PcepNotification notify element of PCNtf
+     * @throws PcepParseException if mandatory fields are missing
+     */
+    public static PcepNotificationVer1 read(ChannelBuffer cb) throws PcepParseException {
+        if (cb.readableBytes() < OBJECT_HEADER_LENGTH) {
+            throw new PcepParseException("Unknown Object");
+        }
+
+        PcepNotificationVer1 pcepNotification = new PcepNotificationVer1();
+
+        //RP list is optional
+        if (checkNextObject(cb) == PcepRPObjectVer1.RP_OBJ_CLASS) {
+            log.debug("RP_LIST");
+            pcepNotification.parseRPList(cb);
+        }
+
+        log.debug("NOTIFICATION obj list");
+        pcepNotification.parseNotificationObjList(cb);
+
+        return pcepNotification;
+    }
+
+    /**
+     * Checks Next Object.
+     *
+     * @param cb of type channel buffer.
+     * @return object type class.
+     */
+    static byte checkNextObject(ChannelBuffer cb) {
+        if (cb.readableBytes() < OBJECT_HEADER_LENGTH) {
+            return 0;
+        }
+        cb.markReaderIndex();
+        PcepObjectHeader tempObjHeader = PcepObjectHeader.read(cb);
+        cb.resetReaderIndex();
+        return tempObjHeader.getObjClass();
+    }
+
+    /**
+     * Writes the byte stream of PCEP notify element to the channel buffer.
+     *
+     * @param cb of type channel buffer
+     * @return object length index
+     * @throws PcepParseException if mandatory fields are missing
+     */
+    @Override
+    public int write(ChannelBuffer cb) throws PcepParseException {
+        int iLenStartIndex = cb.writerIndex();
+
+        // RPlist is optional
+        if (this.rpObjList != null) {
+            ListIterator<PcepRPObject> rpObjlistIterator = this.rpObjList.listIterator();
+            while (rpObjlistIterator.hasNext()) {
+                rpObjlistIterator.next().write(cb);
+            }
+        }
+
+        //NotificationList is mandatory
+        if (this.notificationObjList == null || this.notificationObjList.isEmpty()) {
+            throw new PcepParseException("At least one NOTIFICATION Object should be present.");
+        }
+        ListIterator<PcepNotificationObject> listIterator = this.notificationObjList.listIterator();
+        while (listIterator.hasNext()) {
+            listIterator.next().write(cb);
+        }
+
+        return cb.writerIndex() - iLenStartIndex;
+    }
+
+    /**
+     * Builder for notify element of PCNtf.
+     */
+    public static class Builder implements PcepNotification.Builder {
+
+        private List<PcepRPObject> rpObjList;
+        private List<PcepNotificationObject> notificationObjList;
+
+        @Override
+        public PcepNotification build() {
+            return new PcepNotificationVer1(rpObjList, notificationObjList);
+        }
+
+        @Override
+        public List<PcepRPObject> getRPObjList() {
+            return this.rpObjList;
+        }
+
+        @Override
+        public Builder setRPObjList(List<PcepRPObject> rpObjList) {
+            this.rpObjList = rpObjList;
+            return this;
+        }
+
+        @Override
+        public List<PcepNotificationObject> getNotificationObjList() {
+            return this.notificationObjList;
+        }
+
+        @Override
+        public Builder setNotificationObjList(List<PcepNotificationObject> notificationObjList) {
+            this.notificationObjList = notificationObjList;
+            return this;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .omitNullValues()
+                .add("RpObjectList", rpObjList)
+                .add("NotificationObjectList", notificationObjList)
+                .toString();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepMessageReader;
+import org.onosproject.pcepio.protocol.PcepMessageWriter;
+import org.onosproject.pcepio.protocol.PcepPathReply;
+import org.onosproject.pcepio.protocol.PcepPathReplyMsg;
+import org.onosproject.pcepio.protocol.PcepType;
+import org.onosproject.pcepio.protocol.PcepVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PCEP Path Computation Reply Message (PCRep).
+ */
+class PcepPathReplyMsgVer1 implements PcepPathReplyMsg {
+
+    // Pcep version: 1
+
+    /*
+      The format of the PCRep message:
+      Reference: RFC 5440, section 6.5.
+
+                  <PCRep Message>              ::=     <Common Header>
+                                                       <response-list>
+                Where:
+
+                <response-list>                ::=     <response>[<response-list>]
+
+                <response>                     ::=     <RP>
+                                                       [<NO-PATH>]
+                                                       [<attribute-list>]
+                                                       [<path-list>]
+
+                <path-list>                    ::=     <path>[<path-list>]
+
+                <path>                         ::=     <ERO><attribute-list>
+     */
+    protected static final Logger log = LoggerFactory.getLogger(PcepPathReplyMsgVer1.class);
+
+    public static final byte PACKET_VERSION = 1;
+
+    //PCRepMsgMinLength = COMMON-HEADER(4)+RPObjMinLength(12)
+    public static final int PACKET_MINIMUM_LENGTH = 16;
+    public static final PcepType MSG_TYPE = PcepType.PATH_COMPUTATION_REPLY;
+    //response-list
+    private LinkedList<PcepPathReply> llReplyList;
+
+    static final PcepPathReplyMsgVer1.Reader READER = new Reader();
+
+    /**
+     * Reader reads PCRep Message from the channel.
+     */
+    static class Reader implements PcepMessageReader<PcepPathReplyMsg> {
+
+        @Override
+        public PcepPathReplyMsg readFrom(ChannelBuffer cb) throws PcepParseException {
+
+            if (cb.readableBytes() < PACKET_MINIMUM_LENGTH) {
+                throw new PcepParseException("Readable bytes are less than Packet minimum length.");
+            }
+
+            // fixed value property version == 1
+            byte version = cb.readByte();
+            version = (byte) (version >> PcepMessageVer1.SHIFT_FLAG);
+            if (version != PACKET_VERSION) {
+                throw new PcepParseException("Wrong version.Expected=PcepVersion.PCEP_1(1), got=" + version);
+            }
+            // fixed value property type == 4
+            byte type = cb.readByte();
+            if (type != MSG_TYPE.getType()) {
+                throw new PcepParseException("Wrong type. Expected=PcepType.PATH_COMPUTATION_REPLY(4), got=" + type);
+            }
+            int length = cb.readUnsignedShort();
+            if (length < PACKET_MINIMUM_LENGTH) {
+                throw new PcepParseException("Wrong length. Expected to be >= " + PACKET_MINIMUM_LENGTH + ", is: "
+                        + length);
+            }
+            // parse <response-list>
+            LinkedList<PcepPathReply> llReplyList = parseReplyList(cb);
+            return new PcepPathReplyMsgVer1(llReplyList);
+        }
+
+        /**
+         * Returns list of PCEP response elements.
+         *
+         * @param cb of type channel buffer
+         * @return llReplyList list of PCEP response elements
+         * @throws PcepParseException when fails to parse list of PCEP response elements
+         */
+        public LinkedList<PcepPathReply> parseReplyList(ChannelBuffer cb) throws PcepParseException {
+
+            LinkedList<PcepPathReply> llReplyList = new LinkedList<>();
+
+            while (0 < cb.readableBytes()) {
+                llReplyList.add(PcepPathReplyVer1.read(cb));
+            }
+
+            if (llReplyList.isEmpty()) {
+                throw new PcepParseException("At least one response should be present.");
+            }
+            return llReplyList;
+        }
+    }
+
+    /**
+     * Constructor to initialize PCEP response list.
+     *
+     * @param llReplyList list of PCEP response elements
+     */
+    PcepPathReplyMsgVer1(LinkedList<PcepPathReply> llReplyList) {
+        this.llReplyList = llReplyList;
+    }
+
+    /**
+     * Builder class for PCEP PCRep message.
+     */
+    static class Builder implements PcepPathReplyMsg.Builder {
+
+        LinkedList<PcepPathReply> llReplyList;
+
+        @Override
+        public PcepVersion getVersion() {
+            return PcepVersion.PCEP_1;
+        }
+
+        @Override
+        public PcepType getType() {
+            return PcepType.PATH_COMPUTATION_REPLY;
+        }
+
+        @Override
+        public PcepPathReplyMsg build() {
+            return new PcepPathReplyMsgVer1(this.llReplyList);
+        }
+
+        @Override
+        public LinkedList<PcepPathReply> getReplyList() {
+            return this.llReplyList;
+        }
+
+        @Override
+        public Builder setReplyList(LinkedList<PcepPathReply> ll) {
+            this.llReplyList = ll;
+            return this;
+        }
+    }
+
+    @Override
+    public void writeTo(ChannelBuffer cb) throws PcepParseException {
+        WRITER.write(cb, this);
+    }
+
+    static final Writer WRITER = new Writer();
+
+    /**
+     * Writer writes PCRep Message to the channel.
+     */
+    static class Writer implements PcepMessageWriter<PcepPathReplyMsgVer1> {
+
+        @Override
+        public void write(ChannelBuffer cb, PcepPathReplyMsgVer1 message) throws PcepParseException {
+
+            if (message.llReplyList == null || message.llReplyList.isEmpty()) {
+                throw new PcepParseException("Empty PCRep message.");
+            }
+
+            int startIndex = cb.writerIndex();
+
+            // first 3 bits set to version
+            cb.writeByte((byte) (PACKET_VERSION << PcepMessageVer1.SHIFT_FLAG));
+
+            // message type
+            cb.writeByte(MSG_TYPE.getType());
+
+            // Length will be set after calculating length, but currently set it as 0.
+            int msgLenIndex = cb.writerIndex();
+
+            cb.writeShort((short) 0);
+            ListIterator<PcepPathReply> listIterator = message.llReplyList.listIterator();
+
+            while (listIterator.hasNext()) {
+                listIterator.next().write(cb);
+            }
+
+            // update message length field
+            int length = cb.writerIndex() - startIndex;
+            cb.setShort(msgLenIndex, (short) length);
+        }
+    }
+
+    @Override
+    public PcepVersion getVersion() {
+        return PcepVersion.PCEP_1;
+    }
+
+    @Override
+    public PcepType getType() {
+        return MSG_TYPE;
+    }
+
+    @Override
+    public LinkedList<PcepPathReply> getReplyList() {
+        return this.llReplyList;
+    }
+
+    @Override
+    public void setReplyList(LinkedList<PcepPathReply> ll) {
+        this.llReplyList = ll;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("ReplyList", llReplyList)
+                .toString();
+    }
+}
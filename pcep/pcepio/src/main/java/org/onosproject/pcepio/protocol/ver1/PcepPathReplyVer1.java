@@ -0,0 +1,261 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepAttribute;
+import org.onosproject.pcepio.protocol.PcepMsgPath;
+import org.onosproject.pcepio.protocol.PcepNoPathObject;
+import org.onosproject.pcepio.protocol.PcepPathReply;
+import org.onosproject.pcepio.protocol.PcepRPObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PcepPathReply which contains RP, NO-PATH, attribute list and the computed paths.
+ * Reference: RFC 5440, section 6.5.
+ */
+public class PcepPathReplyVer1 implements PcepPathReply {
+
+    /*
+           <response>::=<RP>
+                        [<NO-PATH>]
+                        [<attribute-list>]
+                        [<path-list>]
+
+           <path-list>::=<path>[<path-list>]
+
+           <path>::= <ERO><attribute-list>
+     */
+
+    protected static final Logger log = LoggerFactory.getLogger(PcepPathReplyVer1.class);
+
+    //PCEP RP Object
+    private PcepRPObject rpObject;
+    //PCEP NO-PATH Object
+    private PcepNoPathObject noPathObject;
+    //PCEP attribute list
+    private PcepAttribute pcepAttribute;
+    //PCEP path list
+    private LinkedList<PcepMsgPath> llPathList;
+
+    /**
+     * Constructor to initialize variables.
+     *
+     * @param rpObject RP Object
+     * @param noPathObject NO-PATH Object
+     * @param pcepAttribute attribute list
+     * @param llPathList list of paths
+     */
+    public PcepPathReplyVer1(PcepRPObject rpObject, PcepNoPathObject noPathObject, PcepAttribute pcepAttribute,
+            LinkedList<PcepMsgPath> llPathList) {
+        this.rpObject = rpObject;
+        this.noPathObject = noPathObject;
+        this.pcepAttribute = pcepAttribute;
+        this.llPathList = llPathList;
+    }
+
+    @Override
+    public PcepRPObject getRPObject() {
+        return this.rpObject;
+    }
+
+    @Override
+    public void setRPObject(PcepRPObject rpObject) {
+        this.rpObject = rpObject;
+    }
+
+    @Override
+    public PcepNoPathObject getNoPathObject() {
+        return this.noPathObject;
+    }
+
+    @Override
+    public void setNoPathObject(PcepNoPathObject noPathObject) {
+        this.noPathObject = noPathObject;
+    }
+
+    @Override
+    public PcepAttribute getPcepAttribute() {
+        return this.pcepAttribute;
+    }
+
+    @Override
+    public void setPcepAttribute(PcepAttribute pcepAttribute) {
+        this.pcepAttribute = pcepAttribute;
+    }
+
+    @Override
+    public LinkedList<PcepMsgPath> getPathList() {
+        return this.llPathList;
+    }
+
+    @Override
+    public void setPathList(LinkedList<PcepMsgPath> llPathList) {
+        this.llPathList = llPathList;
+    }
+
+    /**
+     * Reads the byte stream of PcepPathReply from channel buffer.
+     *
+     * @param cb of type channel buffer
+     * @return PcepPathReply response element of PCRep
+     * @throws PcepParseException if mandatory fields are missing
+     */
+    public static PcepPathReply read(ChannelBuffer cb) throws PcepParseException {
+
+        if (PcepPathRequestVer1.checkNextObject(cb) != PcepRPObjectVer1.RP_OBJ_CLASS) {
+            throw new PcepParseException("RP Object is mandatory in a response.");
+        }
+        PcepRPObject rpObject = PcepRPObjectVer1.read(cb);
+
+        //NO-PATH is optional
+        PcepNoPathObject noPathObject = null;
+        if (PcepPathRequestVer1.checkNextObject(cb) == PcepNoPathObjectVer1.NO_PATH_OBJ_CLASS) {
+            noPathObject = PcepNoPathObjectVer1.read(cb);
+        }
+
+        //attribute-list is optional
+        PcepAttribute pcepAttribute = PcepAttributeVer1.read(cb);
+
+        //path-list is optional
+        LinkedList<PcepMsgPath> llPathList = new LinkedList<>();
+        byte yObjClass = PcepPathRequestVer1.checkNextObject(cb);
+        while (yObjClass == PcepEroObjectVer1.ERO_OBJ_CLASS) {
+            llPathList.add(new PcepMsgPathVer1().read(cb));
+            yObjClass = PcepPathRequestVer1.checkNextObject(cb);
+        }
+
+        //Skip unsupported objects up to the next response
+        while (yObjClass != 0 && yObjClass != PcepRPObjectVer1.RP_OBJ_CLASS) {
+            PcepPathRequestVer1.skipObject(cb);
+            yObjClass = PcepPathRequestVer1.checkNextObject(cb);
+        }
+
+        return new PcepPathReplyVer1(rpObject, noPathObject, pcepAttribute, llPathList);
+    }
+
+    @Override
+    public int write(ChannelBuffer cb) throws PcepParseException {
+        int iLenStartIndex = cb.writerIndex();
+
+        //RP Object is mandatory
+        if (this.rpObject == null) {
+            throw new PcepParseException("RP Object is mandatory in a response.");
+        }
+        this.rpObject.write(cb);
+
+        //NO-PATH is optional
+        if (this.noPathObject != null) {
+            this.noPathObject.write(cb);
+        }
+
+        //attribute-list is optional
+        if (this.pcepAttribute != null) {
+            this.pcepAttribute.write(cb);
+        }
+
+        //path-list is optional
+        if (this.llPathList != null) {
+            ListIterator<PcepMsgPath> listIterator = this.llPathList.listIterator();
+            while (listIterator.hasNext()) {
+                listIterator.next().write(cb);
+            }
+        }
+
+        return cb.writerIndex() - iLenStartIndex;
+    }
+
+    /**
+     * Builder for response element of PCRep.
+     */
+    public static class Builder implements PcepPathReply.Builder {
+
+        private PcepRPObject rpObject;
+        private PcepNoPathObject noPathObject;
+        private PcepAttribute pcepAttribute;
+        private LinkedList<PcepMsgPath> llPathList = new LinkedList<>();
+
+        @Override
+        public PcepPathReply build() throws PcepParseException {
+            if (rpObject == null) {
+                throw new PcepParseException("RP Object NOT Set while building PcepPathReply.");
+            }
+            return new PcepPathReplyVer1(rpObject, noPathObject, pcepAttribute, llPathList);
+        }
+
+        @Override
+        public PcepRPObject getRPObject() {
+            return this.rpObject;
+        }
+
+        @Override
+        public Builder setRPObject(PcepRPObject rpObject) {
+            this.rpObject = rpObject;
+            return this;
+        }
+
+        @Override
+        public PcepNoPathObject getNoPathObject() {
+            return this.noPathObject;
+        }
+
+        @Override
+        public Builder setNoPathObject(PcepNoPathObject noPathObject) {
+            this.noPathObject = noPathObject;
+            return this;
+        }
+
+        @Override
+        public PcepAttribute getPcepAttribute() {
+            return this.pcepAttribute;
+        }
+
+        @Override
+        public Builder setPcepAttribute(PcepAttribute pcepAttribute) {
+            this.pcepAttribute = pcepAttribute;
+            return this;
+        }
+
+        @Override
+        public LinkedList<PcepMsgPath> getPathList() {
+            return this.llPathList;
+        }
+
+        @Override
+        public Builder setPathList(LinkedList<PcepMsgPath> llPathList) {
+            this.llPathList = llPathList;
+            return this;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .omitNullValues()
+                .add("RpObject", rpObject)
+                .add("NoPathObject", noPathObject)
+                .add("PcepAttribute", pcepAttribute)
+                .add("PathList", llPathList)
+                .toString();
+    }
+}
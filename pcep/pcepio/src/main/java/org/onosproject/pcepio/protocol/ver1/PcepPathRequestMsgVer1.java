@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepMessageReader;
+import org.onosproject.pcepio.protocol.PcepMessageWriter;
+import org.onosproject.pcepio.protocol.PcepPathRequest;
+import org.onosproject.pcepio.protocol.PcepPathRequestMsg;
+import org.onosproject.pcepio.protocol.PcepType;
+import org.onosproject.pcepio.protocol.PcepVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PCEP Path Computation Request Message (PCReq).
+ */
+class PcepPathRequestMsgVer1 implements PcepPathRequestMsg {
+
+    // Pcep version: 1
+
+    /*
+      The format of the PCReq message:
+      Reference: RFC 5440, section 6.4.
+
+                  <PCReq Message>              ::=     <Common Header>
+                                                       [<svec-list>]
+                                                       <request-list>
+                Where:
+
+                <svec-list>                    ::=     <SVEC>[<svec-list>]
+
+                <request-list>                 ::=     <request>[<request-list>]
+
+                <request>                      ::=     <RP>
+                                                       <END-POINTS>
+                                                       [<LSPA>]
+                                                       [<BANDWIDTH>]
+                                                       [<metric-list>]
+                                                       [<RRO>[<BANDWIDTH>]]
+                                                       [<IRO>]
+                                                       [<LOAD-BALANCING>]
+
+      SVEC objects are skipped, requests are answered independently.
+     */
+    protected static final Logger log = LoggerFactory.getLogger(PcepPathRequestMsgVer1.class);
+
+    public static final byte PACKET_VERSION = 1;
+
+    //PCReqMsgMinLength = COMMON-HEADER(4)+RPObjMinLength(12)+END-POINTSObjLength(12)
+    public static final int PACKET_MINIMUM_LENGTH = 28;
+    public static final PcepType MSG_TYPE = PcepType.PATH_COMPUTATION_REQUEST;
+    public static final byte SVEC_OBJ_CLASS = 11;
+    //request-list
+    private LinkedList<PcepPathRequest> llRequestList;
+
+    static final PcepPathRequestMsgVer1.Reader READER = new Reader();
+
+    /**
+     * Reader reads PCReq Message from the channel.
+     */
+    static class Reader implements PcepMessageReader<PcepPathRequestMsg> {
+
+        @Override
+        public PcepPathRequestMsg readFrom(ChannelBuffer cb) throws PcepParseException {
+
+            if (cb.readableBytes() < PACKET_MINIMUM_LENGTH) {
+                throw new PcepParseException("Readable bytes are less than Packet minimum length.");
+            }
+
+            // fixed value property version == 1
+            byte version = cb.readByte();
+            version = (byte) (version >> PcepMessageVer1.SHIFT_FLAG);
+            if (version != PACKET_VERSION) {
+                throw new PcepParseException("Wrong version.Expected=PcepVersion.PCEP_1(1), got=" + version);
+            }
+            // fixed value property type == 3
+            byte type = cb.readByte();
+            if (type != MSG_TYPE.getType()) {
+                throw new PcepParseException("Wrong type. Expected=PcepType.PATH_COMPUTATION_REQUEST(3), got=" + type);
+            }
+            int length = cb.readUnsignedShort();
+            if (length < PACKET_MINIMUM_LENGTH) {
+                throw new PcepParseException("Wrong length. Expected to be >= " + PACKET_MINIMUM_LENGTH + ", is: "
+                        + length);
+            }
+            // parse <request-list>
+            LinkedList<PcepPathRequest> llRequestList = parseRequestList(cb);
+            return new PcepPathRequestMsgVer1(llRequestList);
+        }
+
+        /**
+         * Returns list of PCEP request elements.
+         *
+         * @param cb of type channel buffer
+         * @return llRequestList list of PCEP request elements
+         * @throws PcepParseException when fails to parse list of PCEP request elements
+         */
+        public LinkedList<PcepPathRequest> parseRequestList(ChannelBuffer cb) throws PcepParseException {
+
+            LinkedList<PcepPathRequest> llRequestList = new LinkedList<>();
+
+            // requests are computed independently, synchronization vectors are ignored
+            while (PcepPathRequestVer1.checkNextObject(cb) == SVEC_OBJ_CLASS) {
+                PcepPathRequestVer1.skipObject(cb);
+            }
+
+            while (0 < cb.readableBytes()) {
+                llRequestList.add(PcepPathRequestVer1.read(cb));
+            }
+
+            if (llRequestList.isEmpty()) {
+                throw new PcepParseException("At least one request should be present.");
+            }
+            return llRequestList;
+        }
+    }
+
+    /**
+     * Constructor to initialize PCEP request list.
+     *
+     * @param llRequestList list of PCEP request elements
+     */
+    PcepPathRequestMsgVer1(LinkedList<PcepPathRequest> llRequestList) {
+        this.llRequestList = llRequestList;
+    }
+
+    /**
+     * Builder class for PCEP PCReq message.
+     */
+    static class Builder implements PcepPathRequestMsg.Builder {
+
+        LinkedList<PcepPathRequest> llRequestList;
+
+        @Override
+        public PcepVersion getVersion() {
+            return PcepVersion.PCEP_1;
+        }
+
+        @Override
+        public PcepType getType() {
+            return PcepType.PATH_COMPUTATION_REQUEST;
+        }
+
+        @Override
+        public PcepPathRequestMsg build() {
+            return new PcepPathRequestMsgVer1(this.llRequestList);
+        }
+
+        @Override
+        public LinkedList<PcepPathRequest> getRequestList() {
+            return this.llRequestList;
+        }
+
+        @Override
+        public Builder setRequestList(LinkedList<PcepPathRequest> ll) {
+            this.llRequestList = ll;
+            return this;
+        }
+    }
+
+    @Override
+    public void writeTo(ChannelBuffer cb) throws PcepParseException {
+        WRITER.write(cb, this);
+    }
+
+    static final Writer WRITER = new Writer();
+
+    /**
+     * Writer writes PCReq Message to the channel.
+     */
+    static class Writer implements PcepMessageWriter<PcepPathRequestMsgVer1> {
+
+        @Override
+        public void write(ChannelBuffer cb, PcepPathRequestMsgVer1 message) throws PcepParseException {
+
+            if (message.llRequestList == null || message.llRequestList.isEmpty()) {
+                throw new PcepParseException("Empty PCReq message.");
+            }
+
+            int startIndex = cb.writerIndex();
+
+            // first 3 bits set to version
+            cb.writeByte((byte) (PACKET_VERSION << PcepMessageVer1.SHIFT_FLAG));
+
+            // message type
+            cb.writeByte(MSG_TYPE.getType());
+
+            // Length will be set after calculating length, but currently set it as 0.
+            int msgLenIndex = cb.writerIndex();
+
+            cb.writeShort((short) 0);
+            ListIterator<PcepPathRequest> listIterator = message.llRequestList.listIterator();
+
+            while (listIterator.hasNext()) {
+                listIterator.next().write(cb);
+            }
+
+            // update message length field
+            int length = cb.writerIndex() - startIndex;
+            cb.setShort(msgLenIndex, (short) length);
+        }
+    }
+
+    @Override
+    public PcepVersion getVersion() {
+        return PcepVersion.PCEP_1;
+    }
+
+    @Override
+    public PcepType getType() {
+        return MSG_TYPE;
+    }
+
+    @Override
+    public LinkedList<PcepPathRequest> getRequestList() {
+        return this.llRequestList;
+    }
+
+    @Override
+    public void setRequestList(LinkedList<PcepPathRequest> ll) {
+        this.llRequestList = ll;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("RequestList", llRequestList)
+                .toString();
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.protocol.ver1;
+
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepAttribute;
+import org.onosproject.pcepio.protocol.PcepBandwidthObject;
+import org.onosproject.pcepio.protocol.PcepEndPointsObject;
+import org.onosproject.pcepio.protocol.PcepIroObject;
+import org.onosproject.pcepio.protocol.PcepLspaObject;
+import org.onosproject.pcepio.protocol.PcepMetricObject;
+import org.onosproject.pcepio.protocol.PcepPathRequest;
+import org.onosproject.pcepio.protocol.PcepRPObject;
+import org.onosproject.pcepio.protocol.PcepRroObject;
+import org.onosproject.pcepio.types.PcepObjectHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides PcepPathRequest which contains RP, END-POINTS and the optional objects of a path request.
+ * Reference: RFC 5440, section 6.4.
+ */
+public class PcepPathRequestVer1 implements PcepPathRequest {
+
+    /*
+           <request>::= <RP>
+                        <END-POINTS>
+                        [<LSPA>]
+                        [<BANDWIDTH>]
+                        [<metric-list>]
+                        [<RRO>[<BANDWIDTH>]]
+                        [<IRO>]
+                        [<LOAD-BALANCING>]
+
+           <metric-list>::=<METRIC>[<metric-list>]
+     */
+
+    protected static final Logger log = LoggerFactory.getLogger(PcepPathRequestVer1.class);
+
+    public static final int OBJECT_HEADER_LENGTH = 4;
+
+    //PCEP RP Object
+    private PcepRPObject rpObject;
+    //PCEP END-POINTS Object
+    private PcepEndPointsObject endPointsObject;
+    //PCEP LSPA, BANDWIDTH, METRIC and IRO Objects
+    private PcepAttribute pcepAttribute;
+    //PCEP RRO Object
+    private PcepRroObject rroObject;
+
+    /**
+     * Constructor to initialize variables.
+     *
+     * @param rpObject RP Object
+     * @param endPointsObject END-POINTS Object
+     * @param pcepAttribute LSPA, BANDWIDTH, METRIC and IRO Objects
+     * @param rroObject RRO Object
+     */
+    public PcepPathRequestVer1(PcepRPObject rpObject, PcepEndPointsObject endPointsObject,
+            PcepAttribute pcepAttribute, PcepRroObject rroObject) {
+        this.rpObject = rpObject;
+        this.endPointsObject = endPointsObject;
+        this.pcepAttribute = pcepAttribute;
+        this.rroObject = rroObject;
+    }
+
+    @Override
+    public PcepRPObject getRPObject() {
+        return this.rpObject;
+    }
+
+    @Override
+    public void setRPObject(PcepRPObject rpObject) {
+        this.rpObject = rpObject;
+    }
+
+    @Override
+    public PcepEndPointsObject getEndPointsObject() {
+        return this.endPointsObject;
+    }
+
+    @Override
+    public void setEndPointsObject(PcepEndPointsObject endPointsObject) {
+        this.endPointsObject = endPointsObject;
+    }
+
+    @Override
+    public PcepAttribute getPcepAttribute() {
+        return this.pcepAttribute;
+    }
+
+    @Override
+    public void setPcepAttribute(PcepAttribute pcepAttribute) {
+        this.pcepAttribute = pcepAttribute;
+    }
+
+    @Override
+    public PcepRroObject getRroObject() {
+        return this.rroObject;
+    }
+
+    @Override
+    public void setRroObject(PcepRroObject rroObject) {
+        this.rroObject = rroObject;
+    }
+
+    /**
+     * Reads the byte stream of PcepPathRequest from channel buffer.
+     *
+     * @param cb of type channel buffer
+     * @return PcepPathRequest request element of PCReq
+     * @throws PcepParseException if mandatory fields are missing
+     */
+    public static PcepPathRequest read(ChannelBuffer cb) throws PcepParseException {
+
+        if (checkNextObject(cb) != PcepRPObjectVer1.RP_OBJ_CLASS) {
+            throw new PcepParseException("RP Object is mandatory in a request.");
+        }
+        PcepRPObject rpObject = PcepRPObjectVer1.read(cb);
+
+        if (checkNextObject(cb) != PcepEndPointsObjectVer1.END_POINTS_OBJ_CLASS) {
+            throw new PcepParseException("END-POINTS Object is mandatory in a request.");
+        }
+        PcepEndPointsObject endPointsObject = PcepEndPointsObjectVer1.read(cb);
+
+        PcepLspaObject lspaObject = null;
+        PcepBandwidthObject bandwidthObject = null;
+        LinkedList<PcepMetricObject> llMetricList = null;
+        PcepRroObject rroObject = null;
+        PcepIroObject iroObject = null;
+
+        byte yObjClass = checkNextObject(cb);
+        //LSPA is optional
+        if (yObjClass == PcepLspaObjectVer1.LSPA_OBJ_CLASS) {
+            lspaObject = PcepLspaObjectVer1.read(cb);
+            yObjClass = checkNextObject(cb);
+        }
+
+        //BANDWIDTH is optional
+        if (yObjClass == PcepBandwidthObjectVer1.BANDWIDTH_OBJ_CLASS) {
+            bandwidthObject = PcepBandwidthObjectVer1.read(cb);
+            yObjClass = checkNextObject(cb);
+        }
+
+        //Metric list is optional
+        while (yObjClass == PcepMetricObjectVer1.METRIC_OBJ_CLASS) {
+            if (llMetricList == null) {
+                llMetricList = new LinkedList<>();
+            }
+            llMetricList.add(PcepMetricObjectVer1.read(cb));
+            yObjClass = checkNextObject(cb);
+        }
+
+        //RRO is optional, optionally followed by the BANDWIDTH currently reserved for the LSP
+        if (yObjClass == PcepRroObjectVer1.RRO_OBJ_CLASS) {
+            rroObject = PcepRroObjectVer1.read(cb);
+            yObjClass = checkNextObject(cb);
+            if (yObjClass == PcepBandwidthObjectVer1.BANDWIDTH_OBJ_CLASS) {
+                PcepBandwidthObjectVer1.read(cb);
+                yObjClass = checkNextObject(cb);
+            }
+        }
+
+        //IRO is optional
+        if (yObjClass == PcepIroObjectVer1.IRO_OBJ_CLASS) {
+            iroObject = PcepIroObjectVer1.read(cb);
+            yObjClass = checkNextObject(cb);
+        }
+
+        //Skip LOAD-BALANCING and other unsupported objects up to the next request
+        while (yObjClass != 0 && yObjClass != PcepRPObjectVer1.RP_OBJ_CLASS) {
+            skipObject(cb);
+            yObjClass = checkNextObject(cb);
+        }
+
+        PcepAttribute pcepAttribute = null;
+        if (lspaObject != null || bandwidthObject != null || llMetricList != null || iroObject != null) {
+            pcepAttribute = new PcepAttributeVer1(lspaObject, bandwidthObject, llMetricList, iroObject);
+        }
+        return new PcepPathRequestVer1(rpObject, endPointsObject, pcepAttribute, rroObject);
+    }
+
+    /**
+     * Checks Next Object.
+     *
+     * @param cb of type channel buffer.
+     * @return object type class, 0 if no object is left.
+     */
+    static byte checkNextObject(ChannelBuffer cb) {
+        if (cb.readableBytes() < OBJECT_HEADER_LENGTH) {
+            return 0;
+        }
+        cb.markReaderIndex();
+        PcepObjectHeader tempObjHeader = PcepObjectHeader.read(cb);
+        cb.resetReaderIndex();
+        return tempObjHeader.getObjClass();
+    }
+
+    /**
+     * Skips an object which is not supported.
+     *
+     * @param cb of type channel buffer.
+     * @throws PcepParseException if the object length is not valid
+     */
+    static void skipObject(ChannelBuffer cb) throws PcepParseException {
+        PcepObjectHeader objHeader = PcepObjectHeader.read(cb);
+        int bodyLength = objHeader.getObjLen() - OBJECT_HEADER_LENGTH;
+        if (bodyLength < 0 || bodyLength > cb.readableBytes()) {
+            throw new PcepParseException("Wrong length in object of class " + objHeader.getObjClass());
+        }
+        log.debug("Skipping unsupported object of class {}", objHeader.getObjClass());
+        cb.skipBytes(bodyLength);
+    }
+
+    @Override
+    public int write(ChannelBuffer cb) throws PcepParseException {
+        int iLenStartIndex = cb.writerIndex();
+
+        //RP Object is mandatory
+        if (this.rpObject == null) {
+            throw new PcepParseException("RP Object is mandatory in a request.");
+        }
+        this.rpObject.write(cb);
+
+        //END-POINTS Object is mandatory
+        if (this.endPointsObject == null) {
+            throw new PcepParseException("END-POINTS Object is mandatory in a request.");
+        }
+        this.endPointsObject.write(cb);
+
+        //RRO goes between the metric list and IRO, so attributes are written one by one
+        if (this.pcepAttribute != null) {
+            if (this.pcepAttribute.getLspaObject() != null) {
+                this.pcepAttribute.getLspaObject().write(cb);
+            }
+            if (this.pcepAttribute.getBandwidthObject() != null) {
+                this.pcepAttribute.getBandwidthObject().write(cb);
+            }
+            if (this.pcepAttribute.getMetricObjectList() != null) {
+                ListIterator<PcepMetricObject> listIterator = this.pcepAttribute.getMetricObjectList().listIterator();
+                while (listIterator.hasNext()) {
+                    listIterator.next().write(cb);
+                }
+            }
+        }
+
+        if (this.rroObject != null) {
+            this.rroObject.write(cb);
+        }
+
+        if (this.pcepAttribute != null && this.pcepAttribute.getIroObject() != null) {
+            this.pcepAttribute.getIroObject().write(cb);
+        }
+
+        return cb.writerIndex() - iLenStartIndex;
+    }
+
+    /**
+     * Builder for request element of PCReq.
+     */
+    public static class Builder implements PcepPathRequest.Builder {
+
+        private PcepRPObject rpObject;
+        private PcepEndPointsObject endPointsObject;
+        private PcepAttribute pcepAttribute;
+        private PcepRroObject rroObject;
+
+        @Override
+        public PcepPathRequest build() throws PcepParseException {
+            if (rpObject == null) {
+                throw new PcepParseException("RP Object NOT Set while building PcepPathRequest.");
+            }
+            if (endPointsObject == null) {
+                throw new PcepParseException("END-POINTS Object NOT Set while building PcepPathRequest.");
+            }
+            return new PcepPathRequestVer1(rpObject, endPointsObject, pcepAttribute, rroObject);
+        }
+
+        @Override
+        public PcepRPObject getRPObject() {
+            return this.rpObject;
+        }
+
+        @Override
+        public Builder setRPObject(PcepRPObject rpObject) {
+            this.rpObject = rpObject;
+            return this;
+        }
+
+        @Override
+        public PcepEndPointsObject getEndPointsObject() {
+            return this.endPointsObject;
+        }
+
+        @Override
+        public Builder setEndPointsObject(PcepEndPointsObject endPointsObject) {
+            this.endPointsObject = endPointsObject;
+            return this;
+        }
+
+        @Override
+        public PcepAttribute getPcepAttribute() {
+            return this.pcepAttribute;
+        }
+
+        @Override
+        public Builder setPcepAttribute(PcepAttribute pcepAttribute) {
+            this.pcepAttribute = pcepAttribute;
+            return this;
+        }
+
+        @Override
+        public PcepRroObject getRroObject() {
+            return this.rroObject;
+        }
+
+        @Override
+        public Builder setRroObject(PcepRroObject rroObject) {
+            this.rroObject = rroObject;
+            return this;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .omitNullValues()
+                .add("RpObject", rpObject)
+                .add("EndPointsObject", endPointsObject)
+                .add("PcepAttribute", pcepAttribute)
+                .add("RroObject", rroObject)
+                .toString();
+    }
+}
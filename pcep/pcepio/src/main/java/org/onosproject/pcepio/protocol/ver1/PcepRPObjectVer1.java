@@ -21,6 +21,7 @@ import java.util.ListIterator;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.onosproject.pcepio.exceptions.PcepParseException;
 import org.onosproject.pcepio.protocol.PcepRPObject;
+import org.onosproject.pcepio.types.PathSetupTypeTlv;
 import org.onosproject.pcepio.types.PcepObjectHeader;
 import org.onosproject.pcepio.types.PcepValueType;
 import org.slf4j.Logger;
@@ -254,7 +255,37 @@ public class PcepRPObjectVer1 implements PcepRPObject {
     protected static LinkedList<PcepValueType> parseOptionalTlv(ChannelBuffer cb) throws PcepParseException {
 
         LinkedList<PcepValueType> llOutOptionalTlv = new LinkedList<>();
-        //Currently no optional TLvs, will be added based on requirements.
+
+        while (MINIMUM_COMMON_HEADER_LENGTH <= cb.readableBytes()) {
+
+            short hType = cb.readShort();
+            short hLength = cb.readShort();
+            if (cb.readableBytes() < hLength) {
+                throw new PcepParseException("Optional TLV of type " + hType + " exceeds the RP object.");
+            }
+
+            switch (hType) {
+            case PathSetupTypeTlv.TYPE:
+                if (hLength != PathSetupTypeTlv.LENGTH) {
+                    throw new PcepParseException("Length is not valid in PathSetupTypeTlv");
+                }
+                llOutOptionalTlv.add(PathSetupTypeTlv.of(cb.readInt()));
+                break;
+            default:
+                // Other TLVs are not used yet, skip them
+                cb.skipBytes(hLength);
+                break;
+            }
+
+            // Check for the padding
+            int pad = hLength % 4;
+            if (0 < pad) {
+                pad = 4 - pad;
+                if (pad <= cb.readableBytes()) {
+                    cb.skipBytes(pad);
+                }
+            }
+        }
         return llOutOptionalTlv;
     }
 
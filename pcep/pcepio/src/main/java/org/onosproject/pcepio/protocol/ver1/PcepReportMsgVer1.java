@@ -102,7 +102,7 @@ class PcepReportMsgVer1 implements PcepReportMsg {
                 throw new PcepParseException("Unexpected type: " + type);
             }
 
-            short length = cb.readShort();
+            int length = cb.readUnsignedShort();
 
             if (length < PACKET_MINIMUM_LENGTH) {
                 throw new PcepParseException("Wrong length. Expected to be >= " + PACKET_MINIMUM_LENGTH + ", was: "
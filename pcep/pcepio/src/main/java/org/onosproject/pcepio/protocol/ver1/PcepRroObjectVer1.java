@@ -25,6 +25,7 @@ import org.onosproject.pcepio.protocol.PcepRroObject;
 import org.onosproject.pcepio.types.IPv4SubObject;
 import org.onosproject.pcepio.types.IPv6SubObject;
 import org.onosproject.pcepio.types.LabelSubObject;
+import org.onosproject.pcepio.types.PackedPath;
 import org.onosproject.pcepio.types.PcepObjectHeader;
 import org.onosproject.pcepio.types.PcepValueType;
 import org.slf4j.Logger;
@@ -112,6 +113,8 @@ public class PcepRroObjectVer1 implements PcepRroObject {
     private byte resvd;
     PcepObjectHeader rroObjHeader;
     private LinkedList<PcepValueType> llSubObjects = new LinkedList<>();
+    // Set instead of llSubObjects when read from the wire
+    private PackedPath path;
 
     /**
      * Reset variables.
@@ -133,6 +136,18 @@ public class PcepRroObjectVer1 implements PcepRroObject {
         this.llSubObjects = llSubObjects;
     }
 
+    /**
+     * Constructor to initialize RRO object with subobjects kept in wire format.
+     *
+     * @param rroObjHeader RRO object header
+     * @param path interned subobjects
+     */
+    private PcepRroObjectVer1(PcepObjectHeader rroObjHeader, PackedPath path) {
+        this.rroObjHeader = rroObjHeader;
+        this.llSubObjects = null;
+        this.path = path;
+    }
+
     /**
      * Returns PCEP RRO Object Header.
      *
@@ -153,12 +168,29 @@ public class PcepRroObjectVer1 implements PcepRroObject {
 
     @Override
     public LinkedList<PcepValueType> getSubObjects() {
+        if (llSubObjects == null && path != null) {
+            try {
+                return parseSubObjects(path.buffer());
+            } catch (PcepParseException e) {
+                // the path was parsed when it was read
+                throw new IllegalStateException(e);
+            }
+        }
         return this.llSubObjects;
     }
 
     @Override
     public void setSubObjects(LinkedList<PcepValueType> llSubObjects) {
         this.llSubObjects = llSubObjects;
+        this.path = null;
+    }
+
+    @Override
+    public PackedPath getPath() {
+        if (path == null && llSubObjects != null) {
+            return PackedPath.of(llSubObjects);
+        }
+        return path;
     }
 
     /**
@@ -171,14 +203,15 @@ public class PcepRroObjectVer1 implements PcepRroObject {
     public static PcepRroObject read(ChannelBuffer cb) throws PcepParseException {
 
         PcepObjectHeader rroObjHeader;
-        LinkedList<PcepValueType> llSubObjects;
         rroObjHeader = PcepObjectHeader.read(cb);
 
         //take only RroObject buffer.
         ChannelBuffer tempCb = cb.readBytes(rroObjHeader.getObjLen() - OBJECT_HEADER_LENGTH);
-        llSubObjects = parseSubObjects(tempCb);
+        // keep only the interned wire format, once it is known to parse
+        PackedPath path = PackedPath.copyOf(tempCb);
+        parseSubObjects(tempCb);
 
-        return new PcepRroObjectVer1(rroObjHeader, llSubObjects);
+        return new PcepRroObjectVer1(rroObjHeader, path);
     }
 
     /**
@@ -242,10 +275,14 @@ public class PcepRroObjectVer1 implements PcepRroObject {
             throw new PcepParseException(" object Length Index" + objLenIndex);
         }
 
-        ListIterator<PcepValueType> listIterator = llSubObjects.listIterator();
+        if (llSubObjects != null) {
+            ListIterator<PcepValueType> listIterator = llSubObjects.listIterator();
 
-        while (listIterator.hasNext()) {
-            listIterator.next().write(cb);
+            while (listIterator.hasNext()) {
+                listIterator.next().write(cb);
+            }
+        } else if (path != null) {
+            path.write(cb);
         }
 
         //Update object length now
@@ -339,7 +376,7 @@ public class PcepRroObjectVer1 implements PcepRroObject {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass())
-                .add("SubObjects", llSubObjects)
+                .add("SubObjects", getSubObjects())
                 .toString();
     }
 }
@@ -113,7 +113,7 @@ class PcepUpdateMsgVer1 implements PcepUpdateMsg {
             if (type != MSG_TYPE.getType()) {
                 throw new PcepParseException("Wrong type. Expected=PcepType.UPDATE(11), got=" + type);
             }
-            short length = cb.readShort();
+            int length = cb.readUnsignedShort();
             if (length < PACKET_MINIMUM_LENGTH) {
                 throw new PcepParseException("Wrong length. Expected to be >= " + PACKET_MINIMUM_LENGTH + ", was: "
                         + length);
@@ -132,6 +132,14 @@ public class ActnAvailableLabelsFieldSubTlv implements PcepValueType {
 
     }
 
+    /**
+     * Returns the available labels.
+     * @return available labels
+     */
+    public LabelSet getLabelSet() {
+        return labelSetField.getLabelSet();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
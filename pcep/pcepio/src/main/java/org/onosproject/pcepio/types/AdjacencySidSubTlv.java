@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.types;
+
+import java.util.Objects;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepVersion;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides Adjacency-SID of the link.
+ */
+public class AdjacencySidSubTlv implements PcepValueType {
+
+    /* Reference :[RFC9085] /2.2.1
+     *  0                   1                   2                   3
+      0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |              Type=TBD              |            Length         |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |     Flags     |     Weight    |             Reserved          |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |                  SID/Index/Label (variable)                   |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     Flags are the IS-IS ones: F B V L S P.
+     With V and L set the SID is a 20 bit label in 3 bytes, else a 4 byte
+     index into the SRGB.
+     */
+
+    public static final short TYPE = 37;
+    public static final short INDEX_LENGTH = 8;
+    public static final short LABEL_LENGTH = 7;
+
+    public static final byte BFLAG_SET = 0x40;
+    public static final byte VFLAG_SET = 0x20;
+    public static final byte LFLAG_SET = 0x10;
+
+    private final byte flags;
+    private final byte weight;
+    private final int sid;
+
+    /**
+     * Constructor to initialize member variables.
+     *
+     * @param flags Adjacency-SID flags
+     * @param weight weight of the SID for load balancing
+     * @param sid label if V and L flags are set, else SRGB index
+     */
+    public AdjacencySidSubTlv(byte flags, byte weight, int sid) {
+        this.flags = flags;
+        this.weight = weight;
+        this.sid = sid;
+    }
+
+    /**
+     * Returns object of AdjacencySidSubTlv.
+     *
+     * @param flags Adjacency-SID flags
+     * @param weight weight of the SID for load balancing
+     * @param sid label if V and L flags are set, else SRGB index
+     * @return object of AdjacencySidSubTlv
+     */
+    public static AdjacencySidSubTlv of(byte flags, byte weight, int sid) {
+        return new AdjacencySidSubTlv(flags, weight, sid);
+    }
+
+    /**
+     * Returns the flags.
+     *
+     * @return Adjacency-SID flags
+     */
+    public byte getFlags() {
+        return flags;
+    }
+
+    /**
+     * Returns the weight.
+     *
+     * @return weight
+     */
+    public byte getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns whether the SID is a label rather than an SRGB index.
+     *
+     * @return true if V and L flags are set
+     */
+    public boolean isLabel() {
+        return (flags & (VFLAG_SET | LFLAG_SET)) == (VFLAG_SET | LFLAG_SET);
+    }
+
+    /**
+     * Returns the SID.
+     *
+     * @return label if {@link #isLabel()}, else SRGB index
+     */
+    public int getSid() {
+        return sid;
+    }
+
+    @Override
+    public PcepVersion getVersion() {
+        return PcepVersion.PCEP_1;
+    }
+
+    @Override
+    public short getType() {
+        return TYPE;
+    }
+
+    @Override
+    public short getLength() {
+        return isLabel() ? LABEL_LENGTH : INDEX_LENGTH;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(flags, weight, sid);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof AdjacencySidSubTlv) {
+            AdjacencySidSubTlv other = (AdjacencySidSubTlv) obj;
+            return flags == other.flags && weight == other.weight && sid == other.sid;
+        }
+        return false;
+    }
+
+    @Override
+    public int write(ChannelBuffer c) {
+        int iLenStartIndex = c.writerIndex();
+        c.writeShort(TYPE);
+        c.writeShort(getLength());
+        c.writeByte(flags);
+        c.writeByte(weight);
+        c.writeShort(0);
+        if (isLabel()) {
+            c.writeMedium(sid & 0xFFFFF);
+            c.writeByte(0);
+        } else {
+            c.writeInt(sid);
+        }
+        return c.writerIndex() - iLenStartIndex;
+    }
+
+    /**
+     * Reads the channel buffer and returns object of AdjacencySidSubTlv.
+     *
+     * @param c input channel buffer
+     * @param hLength length
+     * @return object of AdjacencySidSubTlv
+     * @throws PcepParseException if the length does not match the flags
+     */
+    public static PcepValueType read(ChannelBuffer c, short hLength) throws PcepParseException {
+        byte flags = c.readByte();
+        byte weight = c.readByte();
+        c.skipBytes(2);
+        boolean label = (flags & (VFLAG_SET | LFLAG_SET)) == (VFLAG_SET | LFLAG_SET);
+        if (hLength != (label ? LABEL_LENGTH : INDEX_LENGTH)) {
+            throw new PcepParseException("Invalid Adjacency-SID length " + hLength);
+        }
+        int sid = label ? c.readUnsignedMedium() & 0xFFFFF : c.readInt();
+        return new AdjacencySidSubTlv(flags, weight, sid);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("Type", TYPE)
+                .add("Length", getLength())
+                .add("Flags", flags)
+                .add("Weight", weight)
+                .add("Sid", sid)
+                .toString();
+    }
+}
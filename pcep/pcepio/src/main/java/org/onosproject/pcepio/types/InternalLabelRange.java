@@ -1,11 +1,8 @@
 package org.onosproject.pcepio.types;
 
-import com.google.common.base.Objects;
-import com.google.common.collect.Lists;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.onosproject.pcepio.exceptions.PcepParseException;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,7 +13,7 @@ public class InternalLabelRange {
     /*      0                   1                   2                   3
              0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
             +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
-            |  4    | Num Labels = 40       |    Length = 16 bytes          |
+            |  4    | Num Labels = N        |    Length = 8 + bitmap bytes  |
             +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
             |Grid |  C.S. |      Reserved   | n  for lowest frequency = -11 |
             +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
@@ -24,64 +21,50 @@ public class InternalLabelRange {
             +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
             |1 0 0 0 0 0 1 0|   Not used in 40 Channel system (all zeros)   |
             +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+
+       Bitmap Set action [RFC7579 2.6]: one bit per label starting at the
+       lowest frequency, padded with zeros to a 32 bit boundary. The example
+       above is a 40 channel system; any Num Labels up to 4095 is accepted.
     */
 
-    public static final byte ACTION = 64;
-    public static final byte NUMLABELS = 40;
-    public static final short LENGTH = 16;
-    private static final byte GRID_CS = 17;
+    public static final int BITMAP_ACTION = 4;
+    public static final short HEADER_LENGTH = 8;
+    public static final byte GRID_CS = 17;
     private static final byte RESERVED = 0;
-    private final short LOWEST_FREQUENCY = 0;
-    private List<Boolean> labelList;
-    public static final byte PADDING1 = 0;
-    public static final short PADDING2 = 0;
-    //private boolean[] lables;
+    private final byte gridCs;
+    private final short lowestFrequency;
+    private final LabelSet labels;
 
 
     /**
+     * Constructor to initialize the label range from one boolean per label.
      *
-     * @param labelList
+     * @param labelList label availability, one entry per label
      */
-    public InternalLabelRange(List labelList) {
-        this.labelList = labelList;
-
+    public InternalLabelRange(List<Boolean> labelList) {
+        this(LabelSet.of(labelList));
     }
 
-    public List getBooleanArray(boolean[] a) {
-        List booleanArrayList =  Lists.newArrayList();
-        int num = a.length / 8;
-        int arrayNum = a.length / num;
-        for(int j = 0; j < arrayNum; j ++) {
-            for(int i = 0; i < 8; i ++) {
-                boolean[] s = new boolean[8];
-                s[i] = a[i +(j * 8)];
-                booleanArrayList.add(s);
-            }
-        }
-        return booleanArrayList;
+    /**
+     * Constructor to initialize the label range with the default grid.
+     *
+     * @param labels label set
+     */
+    public InternalLabelRange(LabelSet labels) {
+        this(labels, GRID_CS, (short) 0);
     }
 
-
-
-    public static boolean[] byte2boolean(byte a) {
-        boolean[] array = new boolean[8];
-        for(int i = 7; i >= 0;i --) {
-            array[i] = (a & 1) == 1;
-            a = (byte) (a >> 1);
-        }
-        return array;
-    }
-    // 1 byte translates to a boolean[8];
-
-    public static byte booleanList2byte(List<Boolean> a) {
-        byte b = 0;
-        for(int i = 0; i <= 7 ; i ++ ) {
-            if(a.get(i)) {
-                int c = (1 << (7-i));
-                b += c;
-            }
-        }
-        return b;
+    /**
+     * Constructor to initialize the label range.
+     *
+     * @param labels label set
+     * @param gridCs grid and channel spacing byte
+     * @param lowestFrequency n for the lowest frequency
+     */
+    public InternalLabelRange(LabelSet labels, byte gridCs, short lowestFrequency) {
+        this.labels = labels;
+        this.gridCs = gridCs;
+        this.lowestFrequency = lowestFrequency;
     }
 
     /**
@@ -91,39 +74,49 @@ public class InternalLabelRange {
      */
     public int write(ChannelBuffer c) {
         int iLenStartIndex = c.writerIndex();
-        c.writeByte(ACTION);
-        c.writeByte(NUMLABELS);
-        c.writeShort(LENGTH);
-        c.writeByte(GRID_CS);
+        c.writeShort((BITMAP_ACTION << 12) | labels.size());
+        c.writeShort(length());
+        c.writeByte(gridCs);
         c.writeByte(RESERVED);
-        c.writeShort(LOWEST_FREQUENCY);
-        for (int i = 0; i < labelList.size(); i = i + 8) {
-            List<Boolean> subLabels = labelList.subList(i, (i+8));
-            byte labels = booleanList2byte(subLabels);
-            c.writeByte(labels);
-        }
-        c.writeByte(PADDING1);
-        c.writeShort(PADDING2);
+        c.writeShort(lowestFrequency);
+        labels.writeBitmap(c);
         return c.writerIndex() - iLenStartIndex;
     }
 
-    byte name(List<Boolean> param) {
-        byte rtn = 0x00;
-        if (param.size() ==8 ) {
-            int i=0;
-            for (; i< param.size(); i++) {
-                Boolean m  = (Boolean) param.get(i);
-                byte a = 0x01;
-                if (m.booleanValue()) {
-                    a = (byte) (a << (7-i));
-                    rtn = (byte) (rtn | a);
-                }
-            }
-        }
-        return rtn;
-    }
+    /**
+     * Returns the labels as one boolean per label.
+     *
+     * @return read-only view of the label set
+     */
     public List<Boolean> getLabels() {
-        return labelList;
+        return labels.asList();
+    }
+
+    /**
+     * Returns the label set.
+     *
+     * @return label set
+     */
+    public LabelSet getLabelSet() {
+        return labels;
+    }
+
+    /**
+     * Returns the grid and channel spacing byte.
+     *
+     * @return grid and channel spacing
+     */
+    public byte getGridCs() {
+        return gridCs;
+    }
+
+    /**
+     * Returns n for the lowest frequency.
+     *
+     * @return n for the lowest frequency
+     */
+    public short getLowestFrequency() {
+        return lowestFrequency;
     }
 
     /**
@@ -131,7 +124,7 @@ public class InternalLabelRange {
      * @return The length of (Label Set Field + MaxLabelRange) in bytes.
      */
     public int length() {
-        return LENGTH;
+        return HEADER_LENGTH + labels.bitmapLength();
     }
 
     public static boolean[] print(boolean[] a, boolean[] b) {
@@ -144,32 +137,31 @@ public class InternalLabelRange {
     /**
      * Reads from channel buffer and returns object of InternalLabelRange.
      * @param c input channel buffer
+     * @param length length of the enclosing field in bytes
      * @return object of InternalLabelRange
      * @throws PcepParseException pcep parse exception.
      */
     public static InternalLabelRange read(ChannelBuffer c, int length) throws PcepParseException {
-        if (length == LENGTH) {
-            c.readByte();
-            int num = c.readByte();
-            c.readShort();
-            c.readInt();
-            List labelList = new ArrayList();
-            for (int i = 0; i < num / 8; i ++) {
-                byte label = c.readByte();
-                boolean[] labelBool = byte2boolean(label);
-                for (int j = 0; j < 8; j ++) {
-                    labelList.add(labelBool[i]);
-                }
-            }
-            c.readByte();
-            c.readShort();
-
-            return new InternalLabelRange(labelList);
-
-        } else {
+        if (length < HEADER_LENGTH || c.readableBytes() < length) {
+            throw new PcepParseException(
+                    "The length can not match Restriction Parameters in Restriction Type equals 2");
+        }
+        int actionAndNum = c.readUnsignedShort();
+        int num = actionAndNum & LabelSet.MAX_LABELS;
+        int fieldLength = c.readUnsignedShort();
+        if ((actionAndNum >>> 12) != BITMAP_ACTION) {
+            throw new PcepParseException("Unsupported label set action " + (actionAndNum >>> 12));
+        }
+        if (fieldLength != HEADER_LENGTH + LabelSet.bitmapLength(num) || fieldLength > length) {
             throw new PcepParseException(
                     "The length can not match Restriction Parameters in Restriction Type equals 2");
         }
+        byte gridCs = c.readByte();
+        c.readByte();
+        short lowestFrequency = c.readShort();
+        LabelSet labels = LabelSet.readBitmap(c, num);
+        c.skipBytes(length - fieldLength);
+        return new InternalLabelRange(labels, gridCs, lowestFrequency);
     }
 
     public boolean equals(Object o) {
@@ -178,21 +170,23 @@ public class InternalLabelRange {
 
         InternalLabelRange that = (InternalLabelRange) o;
 
-        if (LOWEST_FREQUENCY != that.LOWEST_FREQUENCY) return false;
-        return labelList.equals(that.labelList);
+        if (lowestFrequency != that.lowestFrequency || gridCs != that.gridCs) return false;
+        return labels.equals(that.labels);
 
     }
 
     public int hashCode() {
-        int result = (int) LOWEST_FREQUENCY;
-        result = 31 * result + labelList.hashCode();
+        int result = (int) lowestFrequency;
+        result = 31 * result + gridCs;
+        result = 31 * result + labels.hashCode();
         return result;
     }
 
     public String toString() {
         return "InternalLabelRange{" +
-                "LOWEST_FREQUENCY=" + LOWEST_FREQUENCY +
-                ", labelList=" + labelList +
+                "gridCs=" + gridCs +
+                ", lowestFrequency=" + lowestFrequency +
+                ", labels=" + labels +
                 '}';
     }
 }
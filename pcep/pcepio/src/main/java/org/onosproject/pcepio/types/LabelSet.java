@@ -0,0 +1,386 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.pcepio.types;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+/**
+ * Immutable set of labels (channels) packed into 64 bit words.
+ * Label i is bit (i mod 64) of word (i / 64), so set operations run word by
+ * word and the words can be handed to the path computation as they are.
+ */
+public final class LabelSet {
+
+    /**
+     * Largest number of labels the 12 bit Num Labels field of a label set
+     * field can carry [RFC7579].
+     */
+    public static final int MAX_LABELS = 0xFFF;
+
+    private static final long[] NO_WORDS = new long[0];
+
+    private final long[] words;
+    private final int size;
+
+    private LabelSet(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Returns a label set of the given size backed by a copy of the words.
+     * Bits at or above size are cleared.
+     *
+     * @param words label bits, label i in bit (i mod 64) of word (i / 64)
+     * @param size number of labels
+     * @return label set
+     */
+    public static LabelSet of(long[] words, int size) {
+        checkSize(size);
+        long[] copy = Arrays.copyOf(words, wordCount(size));
+        clearTail(copy, size);
+        return new LabelSet(copy, size);
+    }
+
+    /**
+     * Returns a label set with the bits of the given boolean list.
+     *
+     * @param labels label availability, one entry per label
+     * @return label set
+     */
+    public static LabelSet of(List<Boolean> labels) {
+        checkSize(labels.size());
+        long[] w = new long[wordCount(labels.size())];
+        for (int i = 0; i < labels.size(); i++) {
+            if (Boolean.TRUE.equals(labels.get(i))) {
+                w[i >>> 6] |= 1L << i;
+            }
+        }
+        return new LabelSet(w, labels.size());
+    }
+
+    /**
+     * Returns a label set of the given size with no label set.
+     *
+     * @param size number of labels
+     * @return empty label set
+     */
+    public static LabelSet empty(int size) {
+        checkSize(size);
+        return new LabelSet(size == 0 ? NO_WORDS : new long[wordCount(size)], size);
+    }
+
+    /**
+     * Returns a label set of the given size with every label set.
+     *
+     * @param size number of labels
+     * @return full label set
+     */
+    public static LabelSet full(int size) {
+        checkSize(size);
+        long[] w = new long[wordCount(size)];
+        Arrays.fill(w, -1L);
+        clearTail(w, size);
+        return new LabelSet(w, size);
+    }
+
+    /**
+     * Returns the number of labels (set or not) in this set.
+     *
+     * @return number of labels
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the given label is set.
+     *
+     * @param label label index
+     * @return true if set, false if unset or out of range
+     */
+    public boolean get(int label) {
+        return label >= 0 && label < size && (words[label >>> 6] & (1L << label)) != 0;
+    }
+
+    /**
+     * Returns a copy of the label words.
+     *
+     * @return label words, label i in bit (i mod 64) of word (i / 64)
+     */
+    public long[] words() {
+        return words.clone();
+    }
+
+    /**
+     * Returns the number of labels set.
+     *
+     * @return number of set labels
+     */
+    public int cardinality() {
+        int n = 0;
+        for (long w : words) {
+            n += Long.bitCount(w);
+        }
+        return n;
+    }
+
+    /**
+     * Returns whether no label is set.
+     *
+     * @return true if no label is set
+     */
+    public boolean isEmpty() {
+        for (long w : words) {
+            if (w != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the labels set in both this and the other set. The result has
+     * the size of the smaller set.
+     *
+     * @param other label set
+     * @return intersection
+     */
+    public LabelSet and(LabelSet other) {
+        int n = Math.min(size, other.size);
+        long[] w = new long[wordCount(n)];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = words[i] & other.words[i];
+        }
+        clearTail(w, n);
+        return new LabelSet(w, n);
+    }
+
+    /**
+     * Returns the labels set in either this or the other set. The result has
+     * the size of the larger set.
+     *
+     * @param other label set
+     * @return union
+     */
+    public LabelSet or(LabelSet other) {
+        LabelSet big = size >= other.size ? this : other;
+        LabelSet small = big == this ? other : this;
+        long[] w = big.words.clone();
+        for (int i = 0; i < small.words.length; i++) {
+            w[i] |= small.words[i];
+        }
+        return new LabelSet(w, big.size);
+    }
+
+    /**
+     * Returns the labels set in this set and not in the other one.
+     *
+     * @param other label set
+     * @return difference
+     */
+    public LabelSet andNot(LabelSet other) {
+        long[] w = words.clone();
+        for (int i = 0; i < Math.min(w.length, other.words.length); i++) {
+            w[i] &= ~other.words[i];
+        }
+        return new LabelSet(w, size);
+    }
+
+    /**
+     * Returns the lowest set label at or above the given index.
+     *
+     * @param from first label to look at
+     * @return label index, or -1 if there is none
+     */
+    public int nextSet(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= size) {
+            return -1;
+        }
+        int i = from >>> 6;
+        long w = words[i] & (-1L << from);
+        while (true) {
+            if (w != 0) {
+                return (i << 6) + Long.numberOfTrailingZeros(w);
+            }
+            if (++i == words.length) {
+                return -1;
+            }
+            w = words[i];
+        }
+    }
+
+    /**
+     * Returns the lowest set label.
+     *
+     * @return label index, or -1 if no label is set
+     */
+    public int firstSet() {
+        return nextSet(0);
+    }
+
+    /**
+     * Returns the lowest unset label.
+     *
+     * @return label index, or -1 if every label is set
+     */
+    public int firstClear() {
+        for (int i = 0; i < words.length; i++) {
+            long w = ~words[i];
+            if (w != 0) {
+                int label = (i << 6) + Long.numberOfTrailingZeros(w);
+                return label < size ? label : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the labels as a read-only boolean list view.
+     *
+     * @return label availability, one entry per label
+     */
+    public List<Boolean> asList() {
+        return new AbstractList<Boolean>() {
+            @Override
+            public Boolean get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(String.valueOf(index));
+                }
+                return LabelSet.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the length in bytes of the bitmap, padded to 32 bits.
+     *
+     * @return bitmap length in bytes
+     */
+    public int bitmapLength() {
+        return bitmapLength(size);
+    }
+
+    /**
+     * Returns the length in bytes of a bitmap of the given number of labels,
+     * padded to 32 bits.
+     *
+     * @param size number of labels
+     * @return bitmap length in bytes
+     */
+    public static int bitmapLength(int size) {
+        return ((size + 31) >>> 5) << 2;
+    }
+
+    /**
+     * Writes the labels as a bitmap, first label in the most significant bit
+     * of the first byte, padded to 32 bits.
+     *
+     * @param c channel buffer
+     * @return number of bytes written
+     */
+    public int writeBitmap(ChannelBuffer c) {
+        int len = bitmapLength();
+        for (int b = 0; b < len; b++) {
+            int bits = (int) (words.length > (b >>> 3) ? words[b >>> 3] >>> ((b & 7) << 3) : 0) & 0xFF;
+            c.writeByte(Integer.reverse(bits) >>> 24);
+        }
+        return len;
+    }
+
+    /**
+     * Reads a bitmap of the given number of labels written by writeBitmap.
+     *
+     * @param c channel buffer
+     * @param size number of labels
+     * @return label set
+     * @throws PcepParseException if the bitmap does not fit the buffer
+     */
+    public static LabelSet readBitmap(ChannelBuffer c, int size) throws PcepParseException {
+        if (size < 0 || size > MAX_LABELS) {
+            throw new PcepParseException("Invalid number of labels " + size);
+        }
+        int len = bitmapLength(size);
+        if (c.readableBytes() < len) {
+            throw new PcepParseException("Label bitmap of " + size + " labels exceeds the buffer");
+        }
+        long[] w = new long[wordCount(size)];
+        for (int b = 0; b < len; b++) {
+            long bits = (Integer.reverse(c.readUnsignedByte()) >>> 24) & 0xFFL;
+            if ((b >>> 3) < w.length) {
+                w[b >>> 3] |= bits << ((b & 7) << 3);
+            }
+        }
+        clearTail(w, size);
+        return new LabelSet(w, size);
+    }
+
+    private static int wordCount(int size) {
+        return (size + Long.SIZE - 1) >>> 6;
+    }
+
+    private static void clearTail(long[] w, int size) {
+        if ((size & 63) != 0 && w.length > 0) {
+            w[w.length - 1] &= (1L << size) - 1;
+        }
+    }
+
+    private static void checkSize(int size) {
+        if (size < 0 || size > MAX_LABELS) {
+            throw new IllegalArgumentException("Invalid number of labels " + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LabelSet)) {
+            return false;
+        }
+        LabelSet that = (LabelSet) o;
+        return size == that.size && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size + 2).append('[');
+        for (int i = 0; i < size; i++) {
+            sb.append(get(i) ? '1' : '0');
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -259,6 +259,9 @@ public class LinkAttributesTlv implements PcepValueType {
             case LinkNameAttributeSubTlv.TYPE:
                 tlv = LinkNameAttributeSubTlv.read(tempCb, length);
                 break;
+            case AdjacencySidSubTlv.TYPE:
+                tlv = AdjacencySidSubTlv.read(tempCb, length);
+                break;
             default:
                 throw new PcepParseException("Unsupported Sub TLV type :" + hType);
             }
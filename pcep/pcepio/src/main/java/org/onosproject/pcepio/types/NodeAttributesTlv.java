@@ -218,6 +218,12 @@ public class NodeAttributesTlv implements PcepValueType {
                 tempCb.readBytes(ipv6Value, 0, IPv6RouterIdofLocalNodeSubTlv.VALUE_LENGTH);
                 tlv = new IPv6RouterIdofLocalNodeSubTlv(ipv6Value);
                 break;
+            case SrCapabilitiesSubTlv.TYPE:
+                tlv = SrCapabilitiesSubTlv.read(tempCb, length);
+                break;
+            case PrefixSidSubTlv.TYPE:
+                tlv = PrefixSidSubTlv.read(tempCb, length);
+                break;
             default:
                 throw new PcepParseException("Unsupported Sub TLV type :" + hType);
             }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.types;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Immutable route (ERO or RRO subobjects) kept in wire format, packed into
+ * 32 bit words. Instances are interned, so LSPs reported over the same route
+ * share one path and two interned paths are equal only if they are the same
+ * instance.
+ */
+public final class PackedPath {
+
+    private static final Interner<PackedPath> INTERNER = Interners.newWeakInterner();
+
+    private final int[] words;
+    private final int length;
+    private final int hash;
+
+    private PackedPath(int[] words, int length) {
+        this.words = words;
+        this.length = length;
+        this.hash = 31 * Arrays.hashCode(words) + length;
+    }
+
+    /**
+     * Returns the interned path holding the readable bytes of the buffer.
+     * The reader index of the buffer is left unchanged.
+     *
+     * @param cb subobjects in wire format
+     * @return interned path
+     */
+    public static PackedPath copyOf(ChannelBuffer cb) {
+        int index = cb.readerIndex();
+        int length = cb.readableBytes();
+        int[] words = new int[(length + 3) >>> 2];
+        int i = 0;
+        for (; i < length >>> 2; i++) {
+            words[i] = cb.getInt(index + (i << 2));
+        }
+        for (int b = i << 2; b < length; b++) {
+            words[i] |= (cb.getByte(index + b) & 0xFF) << (24 - ((b & 3) << 3));
+        }
+        return INTERNER.intern(new PackedPath(words, length));
+    }
+
+    /**
+     * Returns the interned path of the subobjects.
+     *
+     * @param subObjects subobjects
+     * @return interned path
+     */
+    public static PackedPath of(List<? extends PcepValueType> subObjects) {
+        ChannelBuffer cb = ChannelBuffers.dynamicBuffer();
+        for (PcepValueType subObject : subObjects) {
+            subObject.write(cb);
+        }
+        return copyOf(cb);
+    }
+
+    /**
+     * Returns the length of the path in bytes.
+     *
+     * @return length in bytes
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns a new buffer with the path in wire format, for decoding.
+     *
+     * @return buffer holding the subobjects
+     */
+    public ChannelBuffer buffer() {
+        ChannelBuffer cb = ChannelBuffers.buffer(length);
+        write(cb);
+        return cb;
+    }
+
+    /**
+     * Writes the path in wire format to the buffer.
+     *
+     * @param cb channel buffer
+     * @return number of bytes written
+     */
+    public int write(ChannelBuffer cb) {
+        int full = length >>> 2;
+        for (int i = 0; i < full; i++) {
+            cb.writeInt(words[i]);
+        }
+        for (int b = full << 2; b < length; b++) {
+            cb.writeByte(words[full] >>> (24 - ((b & 3) << 3)));
+        }
+        return length;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof PackedPath) {
+            PackedPath other = (PackedPath) obj;
+            return hash == other.hash && length == other.length && Arrays.equals(words, other.words);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length * 2);
+        for (int b = 0; b < length; b++) {
+            int value = (words[b >>> 2] >>> (24 - ((b & 3) << 3))) & 0xFF;
+            sb.append(Character.forDigit(value >>> 4, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -71,6 +71,42 @@ public class PcepNaiUnnumberedAdjacencyIpv4 implements PcepNai {
         return ST_TYPE;
     }
 
+    /**
+     * Returns local node id.
+     *
+     * @return local node id
+     */
+    public int getLocalNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * Returns local interface id.
+     *
+     * @return local interface id
+     */
+    public int getLocalInterfaceId() {
+        return localInterfaceId;
+    }
+
+    /**
+     * Returns remote node id.
+     *
+     * @return remote node id
+     */
+    public int getRemoteNodeId() {
+        return remoteNodeId;
+    }
+
+    /**
+     * Returns remote interface id.
+     *
+     * @return remote interface id
+     */
+    public int getRemoteInterfaceId() {
+        return remoteInterfaceId;
+    }
+
     @Override
     public int write(ChannelBuffer bb) {
         int iLenStartIndex = bb.writerIndex();
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.types;
+
+/**
+ * Provide the PCEP Notification Info Details.
+ */
+public final class PcepNotificationDetailInfo {
+
+    private PcepNotificationDetailInfo() {
+    }
+
+    // Notification Types
+    /**
+    Notification-  Meaning                                        Reference:RFC 5440
+    Type
+    1     Pending Request cancelled
+        Notification-value=1: PCC cancels a set of pending requests
+        Notification-value=2: PCE cancels a set of pending requests
+    2     Overloaded PCE
+        Notification-value=1: PCE in congested state
+        Notification-value=2: PCE no longer in congested state
+     */
+    public static final byte NOTIFICATION_TYPE_1 = 1;
+    public static final byte NOTIFICATION_TYPE_2 = 2;
+
+    // Notification Values
+    public static final byte NOTIFICATION_VALUE_1 = 1;
+    public static final byte NOTIFICATION_VALUE_2 = 2;
+}
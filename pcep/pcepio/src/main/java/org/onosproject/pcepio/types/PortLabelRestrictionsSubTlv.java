@@ -178,6 +178,14 @@ public class PortLabelRestrictionsSubTlv implements PcepValueType {
         return restrictionParams.getLabelList();
     }
 
+    /**
+     * Returns the labels the port can switch.
+     * @return labels the port can switch
+     */
+    public LabelSet getLabelSet() {
+        return restrictionParams.getLabelSet();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.types;
+
+import java.util.Objects;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepVersion;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides Prefix-SID of the node, advertised with the node attributes as
+ * LS objects have no prefix type.
+ */
+public class PrefixSidSubTlv implements PcepValueType {
+
+    /* Reference :[RFC9085] /2.3.1
+     *  0                   1                   2                   3
+      0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |              Type=TBD              |            Length         |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |     Flags     |   Algorithm   |             Reserved          |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |                  SID/Index/Label (variable)                   |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     Flags are the IS-IS ones: R N P E V L.
+     With V and L set the SID is a 20 bit label in 3 bytes, else a 4 byte
+     index into the SRGB.
+     */
+
+    public static final short TYPE = 36;
+    public static final short INDEX_LENGTH = 8;
+    public static final short LABEL_LENGTH = 7;
+
+    public static final byte NFLAG_SET = 0x40;
+    public static final byte VFLAG_SET = 0x08;
+    public static final byte LFLAG_SET = 0x04;
+
+    private final byte flags;
+    private final byte algorithm;
+    private final int sid;
+
+    /**
+     * Constructor to initialize member variables.
+     *
+     * @param flags Prefix-SID flags
+     * @param algorithm algorithm the SID applies to
+     * @param sid label if V and L flags are set, else SRGB index
+     */
+    public PrefixSidSubTlv(byte flags, byte algorithm, int sid) {
+        this.flags = flags;
+        this.algorithm = algorithm;
+        this.sid = sid;
+    }
+
+    /**
+     * Returns object of PrefixSidSubTlv.
+     *
+     * @param flags Prefix-SID flags
+     * @param algorithm algorithm the SID applies to
+     * @param sid label if V and L flags are set, else SRGB index
+     * @return object of PrefixSidSubTlv
+     */
+    public static PrefixSidSubTlv of(byte flags, byte algorithm, int sid) {
+        return new PrefixSidSubTlv(flags, algorithm, sid);
+    }
+
+    /**
+     * Returns the flags.
+     *
+     * @return Prefix-SID flags
+     */
+    public byte getFlags() {
+        return flags;
+    }
+
+    /**
+     * Returns the algorithm, 0 for shortest path first on the IGP metric.
+     *
+     * @return algorithm
+     */
+    public byte getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns whether the SID is a label rather than an SRGB index.
+     *
+     * @return true if V and L flags are set
+     */
+    public boolean isLabel() {
+        return (flags & (VFLAG_SET | LFLAG_SET)) == (VFLAG_SET | LFLAG_SET);
+    }
+
+    /**
+     * Returns the SID.
+     *
+     * @return label if {@link #isLabel()}, else SRGB index
+     */
+    public int getSid() {
+        return sid;
+    }
+
+    @Override
+    public PcepVersion getVersion() {
+        return PcepVersion.PCEP_1;
+    }
+
+    @Override
+    public short getType() {
+        return TYPE;
+    }
+
+    @Override
+    public short getLength() {
+        return isLabel() ? LABEL_LENGTH : INDEX_LENGTH;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(flags, algorithm, sid);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof PrefixSidSubTlv) {
+            PrefixSidSubTlv other = (PrefixSidSubTlv) obj;
+            return flags == other.flags && algorithm == other.algorithm && sid == other.sid;
+        }
+        return false;
+    }
+
+    @Override
+    public int write(ChannelBuffer c) {
+        int iLenStartIndex = c.writerIndex();
+        c.writeShort(TYPE);
+        c.writeShort(getLength());
+        c.writeByte(flags);
+        c.writeByte(algorithm);
+        c.writeShort(0);
+        if (isLabel()) {
+            c.writeMedium(sid & 0xFFFFF);
+            c.writeByte(0);
+        } else {
+            c.writeInt(sid);
+        }
+        return c.writerIndex() - iLenStartIndex;
+    }
+
+    /**
+     * Reads the channel buffer and returns object of PrefixSidSubTlv.
+     *
+     * @param c input channel buffer
+     * @param hLength length
+     * @return object of PrefixSidSubTlv
+     * @throws PcepParseException if the length does not match the flags
+     */
+    public static PcepValueType read(ChannelBuffer c, short hLength) throws PcepParseException {
+        byte flags = c.readByte();
+        byte algorithm = c.readByte();
+        c.skipBytes(2);
+        boolean label = (flags & (VFLAG_SET | LFLAG_SET)) == (VFLAG_SET | LFLAG_SET);
+        if (hLength != (label ? LABEL_LENGTH : INDEX_LENGTH)) {
+            throw new PcepParseException("Invalid Prefix-SID length " + hLength);
+        }
+        int sid = label ? c.readUnsignedMedium() & 0xFFFFF : c.readInt();
+        return new PrefixSidSubTlv(flags, algorithm, sid);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("Type", TYPE)
+                .add("Length", getLength())
+                .add("Flags", flags)
+                .add("Algorithm", algorithm)
+                .add("Sid", sid)
+                .toString();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.types;
+
+import java.util.Arrays;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+import org.onosproject.pcepio.protocol.PcepVersion;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Provides SR Capabilities of the node, that is its SRGB label ranges.
+ */
+public class SrCapabilitiesSubTlv implements PcepValueType {
+
+    /* Reference :[RFC9085] /2.1.2
+     *  0                   1                   2                   3
+      0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |              Type=TBD              |            Length         |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |      Flags    |   Reserved    |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |                  Range Size                   |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |        Type=1161 (SID/Label)  |           Length=3            |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     |                  First Label                  |
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     //          Range Size and SID/Label repeated per range        //
+     +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+     */
+
+    public static final short TYPE = 35;
+    public static final short SID_LABEL_TYPE = 1161;
+    public static final short SID_LABEL_LENGTH = 3;
+    public static final int HEADER_LENGTH = 2;
+    public static final int RANGE_LENGTH = 10;
+
+    private final byte flags;
+    private final int[] rangeSizes;
+    private final int[] firstLabels;
+
+    /**
+     * Constructor to initialize member variables.
+     *
+     * @param flags SR capabilities flags
+     * @param rangeSizes number of labels of each range
+     * @param firstLabels first label of each range, same size as rangeSizes
+     */
+    public SrCapabilitiesSubTlv(byte flags, int[] rangeSizes, int[] firstLabels) {
+        this.flags = flags;
+        this.rangeSizes = rangeSizes;
+        this.firstLabels = firstLabels;
+    }
+
+    /**
+     * Returns object of SrCapabilitiesSubTlv.
+     *
+     * @param flags SR capabilities flags
+     * @param rangeSizes number of labels of each range
+     * @param firstLabels first label of each range, same size as rangeSizes
+     * @return object of SrCapabilitiesSubTlv
+     */
+    public static SrCapabilitiesSubTlv of(byte flags, int[] rangeSizes, int[] firstLabels) {
+        return new SrCapabilitiesSubTlv(flags, rangeSizes, firstLabels);
+    }
+
+    /**
+     * Returns the flags.
+     *
+     * @return SR capabilities flags
+     */
+    public byte getFlags() {
+        return flags;
+    }
+
+    /**
+     * Returns the number of labels of each SRGB range.
+     *
+     * @return range sizes
+     */
+    public int[] getRangeSizes() {
+        return rangeSizes;
+    }
+
+    /**
+     * Returns the first label of each SRGB range.
+     *
+     * @return first labels
+     */
+    public int[] getFirstLabels() {
+        return firstLabels;
+    }
+
+    @Override
+    public PcepVersion getVersion() {
+        return PcepVersion.PCEP_1;
+    }
+
+    @Override
+    public short getType() {
+        return TYPE;
+    }
+
+    @Override
+    public short getLength() {
+        return (short) (HEADER_LENGTH + RANGE_LENGTH * rangeSizes.length);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * flags + Arrays.hashCode(rangeSizes)) + Arrays.hashCode(firstLabels);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof SrCapabilitiesSubTlv) {
+            SrCapabilitiesSubTlv other = (SrCapabilitiesSubTlv) obj;
+            return flags == other.flags && Arrays.equals(rangeSizes, other.rangeSizes)
+                    && Arrays.equals(firstLabels, other.firstLabels);
+        }
+        return false;
+    }
+
+    @Override
+    public int write(ChannelBuffer c) {
+        int iLenStartIndex = c.writerIndex();
+        short length = getLength();
+        c.writeShort(TYPE);
+        c.writeShort(length);
+        c.writeByte(flags);
+        c.writeByte(0);
+        for (int i = 0; i < rangeSizes.length; i++) {
+            c.writeMedium(rangeSizes[i]);
+            c.writeShort(SID_LABEL_TYPE);
+            c.writeShort(SID_LABEL_LENGTH);
+            c.writeMedium(firstLabels[i] & 0xFFFFF);
+        }
+        int pad = length % 4;
+        if (0 < pad) {
+            c.writeZero(4 - pad);
+        }
+        return c.writerIndex() - iLenStartIndex;
+    }
+
+    /**
+     * Reads the channel buffer and returns object of SrCapabilitiesSubTlv.
+     *
+     * @param c input channel buffer
+     * @param hLength length
+     * @return object of SrCapabilitiesSubTlv
+     * @throws PcepParseException if a range is truncated or has no label
+     */
+    public static PcepValueType read(ChannelBuffer c, short hLength) throws PcepParseException {
+        if (hLength < HEADER_LENGTH || (hLength - HEADER_LENGTH) % RANGE_LENGTH != 0) {
+            throw new PcepParseException("Invalid SR Capabilities length " + hLength);
+        }
+        byte flags = c.readByte();
+        c.skipBytes(1);
+        int ranges = (hLength - HEADER_LENGTH) / RANGE_LENGTH;
+        int[] sizes = new int[ranges];
+        int[] labels = new int[ranges];
+        for (int i = 0; i < ranges; i++) {
+            sizes[i] = c.readUnsignedMedium();
+            short type = c.readShort();
+            short length = c.readShort();
+            if (type != SID_LABEL_TYPE || length != SID_LABEL_LENGTH) {
+                throw new PcepParseException("SRGB range without label, sub TLV type " + type + " length " + length);
+            }
+            labels[i] = c.readUnsignedMedium() & 0xFFFFF;
+        }
+        return new SrCapabilitiesSubTlv(flags, sizes, labels);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("Type", TYPE)
+                .add("Length", getLength())
+                .add("Flags", flags)
+                .add("RangeSizes", Arrays.toString(rangeSizes))
+                .add("FirstLabels", Arrays.toString(firstLabels))
+                .toString();
+    }
+}
@@ -270,7 +270,10 @@ public class SrEroSubObject implements PcepValueType {
         } else {
             c.writeInt(sid);
         }
-        nai.write(c);
+        // F flag set means the NAI is absent
+        if (!bFFlag && nai != null) {
+            nai.write(c);
+        }
 
         c.setByte(objectLenIndex, (c.writerIndex() - iLenStartIndex));
         return c.writerIndex() - iLenStartIndex;
@@ -301,7 +304,7 @@ public class SrEroSubObject implements PcepValueType {
         if (bMFlag) {
             sid = sid >> 12;
         }
-        switch (st) {
+        switch (bFFlag ? 0 : st) {
         case PcepNaiIpv4NodeId.ST_TYPE:
             nai = PcepNaiIpv4NodeId.read(c);
             break;
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.types;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of the read and write of the label restriction parameters.
+ */
+public class InternalLabelRangeRPTest {
+
+    /**
+     * Checks a run of labels crossing a byte boundary, read back from a
+     * field padded by the enclosing sub-TLV.
+     */
+    @Test
+    public void rangeRoundTrip() throws PcepParseException {
+        // labels 5 to 12 of a 40 channel system
+        LabelSet labels = LabelSet.of(new long[] {0x1FE0L}, 40);
+        InternalLabelRangeRP range = new InternalLabelRangeRP(labels, (byte) 0x23, (short) -11);
+
+        ChannelBuffer c = ChannelBuffers.dynamicBuffer();
+        assertEquals(16, range.write(c));
+        assertEquals(16, range.length());
+        assertEquals(0x4000 | 40, c.getUnsignedShort(0));
+        assertEquals(16, c.getUnsignedShort(2));
+        assertEquals(0x23, c.getByte(4));
+        assertEquals(-11, c.getShort(6));
+        assertEquals((byte) 0x07, c.getByte(8));
+        assertEquals((byte) 0xF8, c.getByte(9));
+        c.writeInt(0);
+
+        InternalLabelRangeRP read = InternalLabelRangeRP.read(c, 20);
+        assertEquals(range, read);
+        assertEquals(0, c.readableBytes());
+        assertEquals(8, read.getLabelSet().cardinality());
+        assertFalse(read.getLabelList().get(4));
+        assertTrue(read.getLabelList().get(5));
+        assertTrue(read.getLabelList().get(12));
+        assertFalse(read.getLabelList().get(13));
+    }
+
+    /**
+     * Checks an odd label count, whose bitmap ends inside a byte and is
+     * padded to 32 bits.
+     */
+    @Test
+    public void oddLengthRoundTrip() throws PcepParseException {
+        LabelSet labels = LabelSet.of(new long[] {1L | 1L << 7 | 1L << 8 | 1L << 12}, 13);
+        InternalLabelRangeRP range = new InternalLabelRangeRP(labels);
+
+        ChannelBuffer c = ChannelBuffers.dynamicBuffer();
+        assertEquals(12, range.write(c));
+        assertEquals(0x4000 | 13, c.getUnsignedShort(0));
+        assertEquals(12, c.getUnsignedShort(2));
+        assertEquals((byte) 0x81, c.getByte(8));
+        assertEquals((byte) 0x88, c.getByte(9));
+        assertEquals(0, c.getByte(10));
+        assertEquals(0, c.getByte(11));
+
+        InternalLabelRangeRP read = InternalLabelRangeRP.read(c, 12);
+        assertEquals(range, read);
+        assertEquals(13, read.getLabelList().size());
+        assertEquals(4, read.getLabelSet().cardinality());
+    }
+
+    /**
+     * Checks that the first label is the most significant bit of the first
+     * bitmap byte on read.
+     */
+    @Test
+    public void readMostSignificantBitFirst() throws PcepParseException {
+        ChannelBuffer c = ChannelBuffers.wrappedBuffer(new byte[] {
+                0x40, 0x10, 0x00, 0x0C, InternalLabelRangeRP.GRID_CS, 0x00, 0x00, 0x00,
+                (byte) 0x80, 0x01, 0x00, 0x00});
+
+        InternalLabelRangeRP read = InternalLabelRangeRP.read(c, 12);
+        assertEquals(16, read.getLabelList().size());
+        assertTrue(read.getLabelList().get(0));
+        assertFalse(read.getLabelList().get(7));
+        assertTrue(read.getLabelList().get(15));
+        assertEquals(2, read.getLabelSet().cardinality());
+    }
+
+    /**
+     * Checks that a field length not matching the label count is rejected.
+     */
+    @Test(expected = PcepParseException.class)
+    public void readLengthMismatch() throws PcepParseException {
+        InternalLabelRangeRP.read(ChannelBuffers.wrappedBuffer(new byte[] {
+                0x40, 0x28, 0x00, 0x0C, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00}), 12);
+    }
+}
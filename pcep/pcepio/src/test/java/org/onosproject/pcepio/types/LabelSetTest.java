@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.pcepio.types;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+import org.onosproject.pcepio.exceptions.PcepParseException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of the label set and its RFC 7579 bitmap encoding.
+ */
+public class LabelSetTest {
+
+    /* Labels 0, 5, 11, 19, 20, 32, 38 and the last one of the given size. */
+    private static LabelSet sample(int size) {
+        long[] w = new long[(size + 63) / 64];
+        for (int label : new int[] {0, 5, 11, 19, 20, 32, 38, size - 1}) {
+            w[label / 64] |= 1L << label;
+        }
+        return LabelSet.of(w, size);
+    }
+
+    /**
+     * Checks the bitmap of a 43 label set, which ends inside a byte and
+     * inside the first word.
+     */
+    @Test
+    public void bitmapRoundTripPartialByte() throws PcepParseException {
+        LabelSet labels = sample(43);
+        assertEquals(8, labels.bitmapLength());
+
+        ChannelBuffer c = ChannelBuffers.dynamicBuffer();
+        assertEquals(8, labels.writeBitmap(c));
+        assertEquals(8, c.readableBytes());
+
+        // first label in the most significant bit of the first byte
+        byte[] expected = {(byte) 0x84, 0x10, 0x18, 0x00, (byte) 0x82, 0x20, 0x00, 0x00};
+        byte[] actual = new byte[8];
+        c.getBytes(0, actual);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("byte " + i, expected[i], actual[i]);
+        }
+
+        LabelSet read = LabelSet.readBitmap(c, 43);
+        assertEquals(labels, read);
+        assertEquals(0, c.readableBytes());
+    }
+
+    /**
+     * Checks the bitmap of a 100 label set, which spans two words and is
+     * padded to 32 bits.
+     */
+    @Test
+    public void bitmapRoundTripPartialWord() throws PcepParseException {
+        LabelSet labels = sample(100).or(LabelSet.of(new long[] {0, 1L << 6}, 100));
+        assertEquals(16, labels.bitmapLength());
+
+        ChannelBuffer c = ChannelBuffers.dynamicBuffer();
+        labels.writeBitmap(c);
+        assertEquals(16, c.readableBytes());
+        // label 70 is bit 6 of byte 8, label 99 is bit 3 of byte 12
+        assertEquals((byte) 0x02, c.getByte(8));
+        assertEquals((byte) 0x10, c.getByte(12));
+        assertEquals(0, c.getByte(13));
+
+        LabelSet read = LabelSet.readBitmap(c, 100);
+        assertEquals(labels, read);
+        assertEquals(9, read.cardinality());
+        assertTrue(read.get(70));
+        assertTrue(read.get(99));
+        assertFalse(read.get(100));
+    }
+
+    /**
+     * Checks that padding bits past the label count are ignored on read.
+     */
+    @Test
+    public void bitmapReadClearsPadding() throws PcepParseException {
+        ChannelBuffer c = ChannelBuffers.wrappedBuffer(new byte[] {
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+        LabelSet read = LabelSet.readBitmap(c, 13);
+        assertEquals(LabelSet.full(13), read);
+        assertEquals(13, read.cardinality());
+    }
+
+    /**
+     * Checks that a bitmap longer than the buffer is rejected.
+     */
+    @Test(expected = PcepParseException.class)
+    public void bitmapReadShortBuffer() throws PcepParseException {
+        LabelSet.readBitmap(ChannelBuffers.wrappedBuffer(new byte[4]), 43);
+    }
+
+    /**
+     * Checks intersection and union across a word boundary.
+     */
+    @Test
+    public void andOr() {
+        LabelSet a = LabelSet.of(new long[] {0x0FL, 1L << 3}, 70);
+        LabelSet b = LabelSet.of(new long[] {0x3CL, 1L << 3 | 1L << 5}, 70);
+
+        assertEquals(LabelSet.of(new long[] {0x0CL, 1L << 3}, 70), a.and(b));
+        assertEquals(LabelSet.of(new long[] {0x3FL, 1L << 3 | 1L << 5}, 70), a.or(b));
+        assertEquals(LabelSet.of(new long[] {0x03L, 0}, 70), a.andNot(b));
+
+        // mixed sizes: intersection takes the smaller, union the larger
+        LabelSet small = LabelSet.full(43);
+        assertEquals(43, a.and(small).size());
+        assertEquals(LabelSet.of(new long[] {0x0FL}, 43), a.and(small));
+        assertEquals(70, a.or(small).size());
+        assertEquals(44, a.or(small).cardinality());
+    }
+
+    /**
+     * Checks the first set and first free label lookups.
+     */
+    @Test
+    public void firstSetAndClear() {
+        assertEquals(-1, LabelSet.empty(43).firstSet());
+        assertEquals(0, LabelSet.empty(43).firstClear());
+        assertEquals(0, LabelSet.full(43).firstSet());
+        assertEquals(-1, LabelSet.full(43).firstClear());
+
+        LabelSet busy = LabelSet.full(100).andNot(LabelSet.of(new long[] {0, 1L << 33}, 100));
+        assertEquals(97, busy.firstClear());
+        assertEquals(0, busy.firstSet());
+
+        LabelSet sparse = LabelSet.of(new long[] {0, 1L << 33}, 100);
+        assertEquals(97, sparse.firstSet());
+        assertEquals(-1, sparse.nextSet(98));
+    }
+}